@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class benchmarks the creation of commits from their content as printed by Git. The benchmarks use synthetic
+ * commits of different {@link SyntheticCommits.CommitSize}s and measure the throughput of
+ * <ul>
+ * <li>the {@link CommitAssembler} and {@link LineScanner}, which implement the creation of commits used by all
+ * backends,</li>
+ * <li>the extraction of the relative path and the name of changed artifacts, and</li>
+ * <li>the single commit extraction via {@link GitCommitExtractor#extract(String)}.</li>
+ * </ul>
+ *
+ * @author Christian Kroeher
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitParsingBenchmark {
+
+    /**
+     * The first diff header line of a typical changed artifact.
+     */
+    private static final String DIFF_HEADER_LINE = "diff --git a/src/main/java/net/ssehub/comani/extraction/git/"
+            + "GitCommitExtractor.java b/src/main/java/net/ssehub/comani/extraction/git/GitCommitExtractor.java";
+
+    /**
+     * The name of the {@link SyntheticCommits.CommitSize} of the commit to parse.
+     */
+    @Param({"TINY", "REFACTOR", "LARGE_FILE"})
+    private String commitSize;
+
+    /**
+     * The content of the commit to parse.
+     */
+    private String commitContent;
+
+    /**
+     * The {@link GitCommitExtractor} for the single commit extraction. Its commit queue accepts and discards all
+     * commits.
+     */
+    private GitCommitExtractor gitCommitExtractor;
+
+    /**
+     * Creates the commit to parse and the {@link GitCommitExtractor} for the single commit extraction. Its metrics
+     * are disabled, as publishing and logging them for each commit would outweigh parsing a small commit.
+     *
+     * @throws ExtractionSetupException if creating the extractor fails, e.g., as Git is not available
+     */
+    @Setup
+    public void setup() throws ExtractionSetupException {
+        commitContent = SyntheticCommits.createCommit(SyntheticCommits.CommitSize.valueOf(commitSize));
+        Properties extractionProperties = new Properties();
+        extractionProperties.setProperty(ExtractionSettings.PROPERTY_METRICS, "false");
+        gitCommitExtractor = new GitCommitExtractor(extractionProperties, commit -> true);
+    }
+
+    /**
+     * Creates a commit from the synthetic commit content in the same way as the <code>process</code> backend does.
+     *
+     * @return the created {@link Commit}
+     */
+    @Benchmark
+    public Commit createCommit() {
+        CommitAssembler commitAssembler = new CommitAssembler("0123456", "2019-03-08 19:32:34 +0100");
+        LineScanner.forEachLine(commitContent, commitAssembler::addLine);
+        return commitAssembler.getCommit();
+    }
+
+    /**
+     * Extracts the relative path and the name of a changed artifact from its first diff header line.
+     *
+     * @param blackhole the {@link Blackhole} consuming the results
+     */
+    @Benchmark
+    public void getArtifactPathAndName(Blackhole blackhole) {
+        String artifactPath = CommitAssembler.getArtifactPath(DIFF_HEADER_LINE);
+        blackhole.consume(artifactPath);
+        blackhole.consume(CommitAssembler.getArtifactName(artifactPath));
+    }
+
+    /**
+     * Extracts the synthetic commit via the single commit extraction.
+     *
+     * @return <code>true</code>, if the extraction was successful; <code>false</code> otherwise
+     */
+    @Benchmark
+    public boolean extractSingleCommit() {
+        return gitCommitExtractor.extract(commitContent);
+    }
+
+}
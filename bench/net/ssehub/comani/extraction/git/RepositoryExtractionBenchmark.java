@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class benchmarks the full repository extraction from a local Git repository, which is generated before the
+ * benchmark runs. The size of this repository is configurable via the parameters {@link #commits},
+ * {@link #filesPerCommit}, and {@link #linesPerFile}. Each benchmark invocation extracts all commits of the repository
+ * using the configured backend and discards them.
+ *
+ * @author Christian Kroeher
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryExtractionBenchmark {
+
+    /**
+     * The number of commits of the generated repository.
+     */
+    @Param({"200"})
+    private int commits;
+
+    /**
+     * The number of files changed by each commit of the generated repository.
+     */
+    @Param({"5"})
+    private int filesPerCommit;
+
+    /**
+     * The number of lines of each file of the generated repository.
+     */
+    @Param({"200"})
+    private int linesPerFile;
+
+    /**
+     * The value of the property {@link ExtractionSettings#PROPERTY_BACKEND}.
+     */
+    @Param({"process", "stream", "internal"})
+    private String backend;
+
+    /**
+     * The value of the property {@link ExtractionSettings#PROPERTY_THREADS}.
+     */
+    @Param({"1"})
+    private int threads;
+
+    /**
+     * The directory of the generated repository.
+     */
+    private File repositoryDirectory;
+
+    /**
+     * The {@link GitCommitExtractor} extracting the commits of the generated repository.
+     */
+    private GitCommitExtractor gitCommitExtractor;
+
+    /**
+     * The number of commits added to the commit queue by the current benchmark invocation.
+     */
+    private AtomicInteger extractedCommits;
+
+    /**
+     * Generates the repository and creates the {@link GitCommitExtractor} using the configured backend. Its metrics
+     * are disabled and the experimental internal backend is enabled explicitly.
+     *
+     * @throws IOException if generating the repository fails
+     * @throws InterruptedException if waiting for a Git process is interrupted
+     * @throws ExtractionSetupException if creating the extractor fails
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException, ExtractionSetupException {
+        repositoryDirectory = Files.createTempDirectory("comani-git-benchmark-").toFile();
+        generateRepository();
+        Properties extractionProperties = new Properties();
+        extractionProperties.setProperty(ExtractionSettings.PROPERTY_BACKEND, backend);
+        extractionProperties.setProperty(ExtractionSettings.PROPERTY_THREADS, Integer.toString(threads));
+        extractionProperties.setProperty(ExtractionSettings.PROPERTY_EXPERIMENTAL_INTERNAL, "true");
+        extractionProperties.setProperty(ExtractionSettings.PROPERTY_METRICS, "false");
+        extractedCommits = new AtomicInteger();
+        gitCommitExtractor = new GitCommitExtractor(extractionProperties, commit -> {
+            extractedCommits.incrementAndGet();
+            return true;
+        });
+    }
+
+    /**
+     * Generates the repository in the {@link #repositoryDirectory}. Each commit changes every tenth line of the files
+     * changed by the previous commit and adds new files, until each commit changes {@link #filesPerCommit} files.
+     *
+     * @throws IOException if writing the files of the repository fails
+     * @throws InterruptedException if waiting for a Git process is interrupted
+     */
+    private void generateRepository() throws IOException, InterruptedException {
+        executeGit("init", "-q");
+        for (int commitCounter = 0; commitCounter < commits; commitCounter++) {
+            for (int fileCounter = 0; fileCounter < filesPerCommit; fileCounter++) {
+                File file = new File(repositoryDirectory, "module" + (fileCounter % 10) + "/File" + fileCounter
+                        + ".c");
+                file.getParentFile().mkdirs();
+                StringBuilder fileContent = new StringBuilder(linesPerFile * 32);
+                for (int lineCounter = 0; lineCounter < linesPerFile; lineCounter++) {
+                    int revision = (lineCounter % 10 == 0) ? commitCounter : 0;
+                    fileContent.append("int value").append(lineCounter).append(" = compute(").append(revision)
+                            .append(");\n");
+                }
+                Files.write(file.toPath(), fileContent.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            executeGit("add", "-A");
+            executeGit("-c", "user.name=Some One", "-c", "user.email=some@one.mail", "commit", "-q", "-m",
+                    "Commit " + commitCounter);
+        }
+    }
+
+    /**
+     * Executes Git with the given arguments in the {@link #repositoryDirectory}.
+     *
+     * @param arguments the arguments of the Git command
+     * @throws IOException if executing Git fails
+     * @throws InterruptedException if waiting for the Git process is interrupted
+     */
+    private void executeGit(String... arguments) throws IOException, InterruptedException {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "git";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        Process gitProcess = new ProcessBuilder(command).directory(repositoryDirectory).inheritIO().start();
+        if (gitProcess.waitFor() != 0) {
+            throw new IOException("Executing \"" + String.join(" ", command) + "\" failed");
+        }
+    }
+
+    /**
+     * Deletes the generated repository.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> repositoryFiles = Files.walk(repositoryDirectory.toPath())) {
+            repositoryFiles.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Extracts all commits of the generated repository.
+     *
+     * @return the number of extracted commits
+     * @throws IOException if the extraction was not successful or did not extract all commits
+     */
+    @Benchmark
+    public int extractRepository() throws IOException {
+        extractedCommits.set(0);
+        if (!gitCommitExtractor.extract(repositoryDirectory) || extractedCommits.get() != commits) {
+            throw new IOException("Extracted " + extractedCommits.get() + " of " + commits + " commits");
+        }
+        return extractedCommits.get();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+/**
+ * This class creates synthetic commits in the format printed by <code>git show -U100000 --no-renames</code>, which
+ * serve as input for the benchmarks. The commits are created deterministically, such that each benchmark run parses
+ * the same content.
+ *
+ * @author Christian Kroeher
+ *
+ */
+final class SyntheticCommits {
+
+    /**
+     * The available sizes of synthetic commits.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    enum CommitSize {
+
+        /**
+         * A commit changing a single file with a few lines.
+         */
+        TINY(1, 10),
+
+        /**
+         * A commit changing 1.000 files, like a refactoring renaming a widely used identifier.
+         */
+        REFACTOR(1000, 40),
+
+        /**
+         * A commit changing a single file with 200.000 lines.
+         */
+        LARGE_FILE(1, 200000);
+
+        /**
+         * The number of files changed by a commit of this size.
+         */
+        private int files;
+
+        /**
+         * The number of lines of each file changed by a commit of this size.
+         */
+        private int linesPerFile;
+
+        /**
+         * Constructs a new {@link CommitSize}.
+         *
+         * @param files the number of files changed by a commit of this size
+         * @param linesPerFile the number of lines of each file changed by a commit of this size
+         */
+        CommitSize(int files, int linesPerFile) {
+            this.files = files;
+            this.linesPerFile = linesPerFile;
+        }
+
+    }
+
+    /**
+     * Prevents instantiating this utility class.
+     */
+    private SyntheticCommits() {}
+
+    /**
+     * Creates the content of a synthetic commit of the given size. Each changed file contains the given number of
+     * lines, of which every tenth line is removed and replaced by a new line.
+     *
+     * @param commitSize the {@link CommitSize} of the commit to create
+     * @return the content of the commit starting with the line "<tt>commit &lt;SHA&gt;</tt>"; never <code>null</code>
+     */
+    static String createCommit(CommitSize commitSize) {
+        StringBuilder commitBuilder = new StringBuilder(commitSize.files * commitSize.linesPerFile * 48 + 512);
+        commitBuilder.append("commit 0123456789abcdef0123456789abcdef01234567\n");
+        commitBuilder.append("Author: Some One <some@one.mail>\n");
+        commitBuilder.append("Date:   Fri Mar 8 19:32:34 2019 +0100\n");
+        commitBuilder.append("\n");
+        commitBuilder.append("    Synthetic commit changing ").append(commitSize.files).append(" files\n");
+        commitBuilder.append("\n");
+        for (int fileCounter = 0; fileCounter < commitSize.files; fileCounter++) {
+            String path = "src/module" + (fileCounter % 50) + "/File" + fileCounter + ".c";
+            int changedLines = commitSize.linesPerFile / 10;
+            commitBuilder.append("diff --git a/").append(path).append(" b/").append(path).append('\n');
+            commitBuilder.append("index 030745d5ab..504d71b4f5 100644\n");
+            commitBuilder.append("--- a/").append(path).append('\n');
+            commitBuilder.append("+++ b/").append(path).append('\n');
+            commitBuilder.append("@@ -1,").append(commitSize.linesPerFile).append(" +1,")
+                    .append(commitSize.linesPerFile).append(" @@\n");
+            for (int lineCounter = 0; lineCounter < commitSize.linesPerFile; lineCounter++) {
+                if (lineCounter % 10 == 0 && changedLines > 0) {
+                    commitBuilder.append("-    int value").append(lineCounter).append(" = oldName(")
+                            .append(lineCounter).append(");\n");
+                    commitBuilder.append("+    int value").append(lineCounter).append(" = newName(")
+                            .append(lineCounter).append(");\n");
+                } else {
+                    commitBuilder.append("     int value").append(lineCounter).append(" = compute(")
+                            .append(lineCounter).append(");\n");
+                }
+            }
+        }
+        return commitBuilder.toString();
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This interface defines the source of the full content of changed artifacts, which are extracted with small context
+ * and loaded by a {@link LazyContentLoader} on first access.
+ *
+ * @author Christian Kroeher
+ *
+ */
+interface ArtifactContentSource {
+
+    /**
+     * Reads the diffs of the given changed files of the given commit like
+     * <code>git show -U100000 --no-renames --format= &lt;commit&gt; -- &lt;paths&gt;</code> does and passes each line
+     * of these diffs to the given {@link Consumer}.
+     *
+     * @param commitNumber the commit number (SHA) of the non-merge commit changing the files
+     * @param paths the paths of the changed files relative to the root of the repository; never <code>null</code> nor
+     *        <i>empty</i>
+     * @param lineConsumer the {@link Consumer} receiving each line of the diffs without its line terminator
+     * @throws IOException if reading the diffs fails
+     */
+    void read(String commitNumber, List<String> paths, Consumer<String> lineConsumer) throws IOException;
+
+}
@@ -0,0 +1,740 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class prints the combined diff of a single file changed by a merge commit in the same format as
+ * <code>git show -U100000 --no-renames</code> does. Like Git's dense combined diff (<code>--cc</code>), the result is
+ * compared to each parent and only hunks, in which the result differs from all parents, are printed.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CombinedPatchPrinter {
+
+    /**
+     * This class represents a line, which is absent in the result but present in at least one parent.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static final class LostLine {
+
+        /**
+         * The content of the line without its terminating line feed.
+         */
+        private byte[] content;
+
+        /**
+         * The bit mask of the parents containing this line.
+         */
+        private long parentMask;
+
+        /**
+         * Constructs a new {@link LostLine}.
+         *
+         * @param content the content of the line without its terminating line feed
+         * @param parentMask the bit mask of the parents containing this line
+         */
+        private LostLine(byte[] content, long parentMask) {
+            this.content = content;
+            this.parentMask = parentMask;
+        }
+
+    }
+
+    /**
+     * The maximum number of characters of a line used as hunk comment.
+     */
+    private static final int MAX_HUNK_COMMENT_LENGTH = 40;
+
+    /**
+     * The {@link ObjectDatabase} providing the content of the changed files.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * The {@link ByteArrayOutputStream} receiving the printed diffs.
+     */
+    private ByteArrayOutputStream output;
+
+    /**
+     * The path of the printed file.
+     */
+    private byte[] path;
+
+    /**
+     * The mode of the printed file in the result of the merge or <code>0</code>, if the merge deleted the file.
+     */
+    private int mode;
+
+    /**
+     * The object name of the printed file in the result of the merge or {@link ObjectId#ZERO}, if the merge deleted
+     * the file.
+     */
+    private ObjectId objectId;
+
+    /**
+     * The modes of the printed file in the parents; <code>0</code> for parents without the file.
+     */
+    private int[] parentModes;
+
+    /**
+     * The object names of the printed file in the parents; {@link ObjectId#ZERO} for parents without the file.
+     */
+    private ObjectId[] parentIds;
+
+    /**
+     * The number of parents of the merge commit.
+     */
+    private int parentCount;
+
+    /**
+     * The content of the file in the result of the merge.
+     */
+    private byte[] result;
+
+    /**
+     * The number of lines of the {@link #result}.
+     */
+    private int lineCount;
+
+    /**
+     * The index of the first byte of each line of the {@link #result}.
+     */
+    private int[] lineStarts;
+
+    /**
+     * The number of bytes of each line of the {@link #result} without the terminating line feed.
+     */
+    private int[] lineLengths;
+
+    /**
+     * The flags of each line of the {@link #result} and the additional position after the last line: bit
+     * <code>i</code> is set, if the line was added compared to parent <code>i</code>, bit <code>n</code> marks lines
+     * to print, and bit <code>n + 1</code> suppresses printing the lost lines before a line, where <code>n</code> is
+     * the {@link #parentCount}.
+     */
+    private long[] flags;
+
+    /**
+     * The lines lost before each line of the {@link #result} and the additional position after the last line.
+     */
+    private List<List<LostLine>> lostLines;
+
+    /**
+     * The line number in each parent corresponding to each line of the {@link #result} including two additional
+     * positions after the last line.
+     */
+    private int[][] parentLineNumbers;
+
+    /**
+     * Constructs a new {@link CombinedPatchPrinter}.
+     *
+     * @param objectDatabase the {@link ObjectDatabase} providing the content of the changed files
+     * @param output the {@link ByteArrayOutputStream} receiving the printed diffs
+     */
+    CombinedPatchPrinter(ObjectDatabase objectDatabase, ByteArrayOutputStream output) {
+        this.objectDatabase = objectDatabase;
+        this.output = output;
+    }
+
+    /**
+     * Prints the combined diff of the given file.
+     *
+     * @param path the path of the file
+     * @param mode the mode of the file in the result or <code>0</code>, if the merge deleted the file
+     * @param objectId the object name of the file in the result or {@link ObjectId#ZERO}, if the merge deleted the
+     *        file
+     * @param parentModes the modes of the file in the parents; <code>0</code> for parents without the file
+     * @param parentIds the object names of the file in the parents; {@link ObjectId#ZERO} for parents without the file
+     * @throws IOException if reading the content of the file fails
+     */
+    void print(byte[] path, int mode, ObjectId objectId, int[] parentModes, ObjectId[] parentIds) throws IOException {
+        this.path = path;
+        this.mode = mode;
+        this.objectId = objectId;
+        this.parentModes = parentModes;
+        this.parentIds = parentIds;
+        parentCount = parentIds.length;
+        result = PatchPrinter.readContent(mode, objectId, objectDatabase);
+        boolean binary = PatchPrinter.containsNullByte(result);
+        for (int i = 0; !binary && i < parentCount; i++) {
+            byte[] parentContent = PatchPrinter.readContent(parentModes[i], parentIds[i], objectDatabase);
+            binary = PatchPrinter.containsNullByte(parentContent);
+        }
+        if (binary) {
+            printHeader(false, false);
+            PatchPrinter.writeAscii(output, "Binary files differ\n");
+        } else {
+            splitResult();
+            boolean modeDiffers = false;
+            for (int i = 0; i < parentCount; i++) {
+                int reusedParent = 0;
+                while (reusedParent < i && !parentIds[reusedParent].equals(parentIds[i])) {
+                    reusedParent++;
+                }
+                if (reusedParent < i) {
+                    reuseDiff(i, reusedParent);
+                } else {
+                    diff(i, PatchPrinter.readContent(parentModes[i], parentIds[i], objectDatabase));
+                }
+                modeDiffers |= parentModes[i] != mode;
+            }
+            if (makeHunks() || modeDiffers) {
+                printHeader(modeDiffers, true);
+                printHunks();
+            }
+        }
+    }
+
+    /**
+     * Splits the {@link #result} into lines and initializes the per-line data.
+     */
+    private void splitResult() {
+        int count = 0;
+        for (byte resultByte : result) {
+            if (resultByte == '\n') {
+                count++;
+            }
+        }
+        if (result.length > 0 && result[result.length - 1] != '\n') {
+            count++;
+        }
+        lineCount = count;
+        lineStarts = new int[count + 1];
+        lineLengths = new int[count + 1];
+        int line = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] == '\n') {
+                lineLengths[line] = i - lineStarts[line];
+                line++;
+                lineStarts[line] = i + 1;
+            }
+        }
+        if (line < count) {
+            lineLengths[line] = result.length - lineStarts[line];
+        }
+        flags = new long[count + 2];
+        lostLines = new ArrayList<List<LostLine>>(count + 2);
+        for (int i = 0; i < count + 2; i++) {
+            lostLines.add(null);
+        }
+        parentLineNumbers = new int[count + 2][parentCount];
+    }
+
+    /**
+     * Compares the {@link #result} to the given parent content and records the added and lost lines.
+     *
+     * @param parent the index of the parent
+     * @param parentContent the content of the file in the parent
+     */
+    private void diff(int parent, byte[] parentContent) {
+        long parentMask = 1L << parent;
+        int commonTailLength = LineDiff.getCommonTailLength(parentContent, result);
+        LineDiff lineDiff = new LineDiff(parentContent, parentContent.length - commonTailLength, result,
+                result.length - commonTailLength);
+        LineDiff.Lines parentLines = lineDiff.getOldLines();
+        List<List<LostLine>> parentLostLines = new ArrayList<List<LostLine>>(lostLines.size());
+        for (int i = 0; i < lostLines.size(); i++) {
+            parentLostLines.add(null);
+        }
+        for (int change = 0; change < lineDiff.getChangeCount(); change++) {
+            int bucket = lineDiff.getNewStart(change);
+            for (int i = 0; i < lineDiff.getOldCount(change); i++) {
+                int line = lineDiff.getOldStart(change) + i;
+                int lineStart = parentLines.getLineStart(line);
+                int lineEnd = parentLines.getLineEnd(line);
+                if (lineEnd > lineStart && parentLines.getContent()[lineEnd - 1] == '\n') {
+                    lineEnd--;
+                }
+                if (parentLostLines.get(bucket) == null) {
+                    parentLostLines.set(bucket, new ArrayList<LostLine>());
+                }
+                parentLostLines.get(bucket).add(new LostLine(
+                        Arrays.copyOfRange(parentLines.getContent(), lineStart, lineEnd), parentMask));
+            }
+            for (int i = 0; i < lineDiff.getNewCount(change); i++) {
+                flags[lineDiff.getNewStart(change) + i] |= parentMask;
+            }
+        }
+        int parentLineNumber = 1;
+        for (int line = 0; line <= lineCount; line++) {
+            parentLineNumbers[line][parent] = parentLineNumber;
+            if (parentLostLines.get(line) != null) {
+                lostLines.set(line, coalesce(lostLines.get(line), parentLostLines.get(line), parentMask));
+            }
+            if (lostLines.get(line) != null) {
+                for (LostLine lostLine : lostLines.get(line)) {
+                    if ((lostLine.parentMask & parentMask) != 0) {
+                        parentLineNumber++;
+                    }
+                }
+            }
+            if (line < lineCount && (flags[line] & parentMask) == 0) {
+                parentLineNumber++;
+            }
+        }
+        parentLineNumbers[lineCount + 1][parent] = parentLineNumber;
+    }
+
+    /**
+     * Merges the lines lost compared to a parent into the lines lost compared to the previous parents using the
+     * longest common subsequence of both, which is how Git combines identical lost lines.
+     *
+     * @param base the lines lost compared to the previous parents or <code>null</code>, if there are none
+     * @param added the lines lost compared to the current parent
+     * @param parentMask the bit mask of the current parent
+     * @return the merged lost lines; never <code>null</code>
+     */
+    private static List<LostLine> coalesce(List<LostLine> base, List<LostLine> added, long parentMask) {
+        List<LostLine> coalesced = added;
+        if (base != null) {
+            coalesced = base;
+            int baseCount = base.size();
+            int addedCount = added.size();
+            int[][] lengths = new int[baseCount + 1][addedCount + 1];
+            boolean[][] matches = new boolean[baseCount + 1][addedCount + 1];
+            for (int i = 1; i <= baseCount; i++) {
+                for (int j = 1; j <= addedCount; j++) {
+                    if (Arrays.equals(base.get(i - 1).content, added.get(j - 1).content)) {
+                        lengths[i][j] = lengths[i - 1][j - 1] + 1;
+                        matches[i][j] = true;
+                    } else {
+                        lengths[i][j] = Math.max(lengths[i][j - 1], lengths[i - 1][j]);
+                    }
+                }
+            }
+            int i = baseCount;
+            int j = addedCount;
+            while (i != 0 || j != 0) {
+                if (i > 0 && j > 0 && matches[i][j]) {
+                    base.get(i - 1).parentMask |= parentMask;
+                    i--;
+                    j--;
+                } else if (j > 0 && (i == 0 || lengths[i][j - 1] >= lengths[i - 1][j])) {
+                    base.add(i, added.get(j - 1));
+                    j--;
+                } else {
+                    i--;
+                }
+            }
+        }
+        return coalesced;
+    }
+
+    /**
+     * Reuses the comparison to an earlier parent for a parent with the same content.
+     *
+     * @param parent the index of the parent
+     * @param reusedParent the index of the earlier parent with the same content
+     */
+    private void reuseDiff(int parent, int reusedParent) {
+        long parentMask = 1L << parent;
+        long reusedParentMask = 1L << reusedParent;
+        for (int line = 0; line <= lineCount; line++) {
+            parentLineNumbers[line][parent] = parentLineNumbers[line][reusedParent];
+            if (lostLines.get(line) != null) {
+                for (LostLine lostLine : lostLines.get(line)) {
+                    if ((lostLine.parentMask & reusedParentMask) != 0) {
+                        lostLine.parentMask |= parentMask;
+                    }
+                }
+            }
+            if ((flags[line] & reusedParentMask) != 0) {
+                flags[line] |= parentMask;
+            }
+        }
+        parentLineNumbers[lineCount + 1][parent] = parentLineNumbers[lineCount + 1][reusedParent];
+    }
+
+    /**
+     * Marks the lines to print: first, all lines differing from any parent are marked; then, hunks, in which the
+     * result matches one of the parents, are unmarked; finally, the remaining hunks are extended by context lines.
+     *
+     * @return <code>true</code>, if at least one line is marked; <code>false</code> otherwise
+     */
+    private boolean makeHunks() {
+        long allMask = (1L << parentCount) - 1;
+        long mark = 1L << parentCount;
+        for (int i = 0; i <= lineCount; i++) {
+            if (isInteresting(i, allMask)) {
+                flags[i] |= mark;
+            } else {
+                flags[i] &= ~mark;
+            }
+        }
+        int i = 0;
+        while (i <= lineCount) {
+            while (i <= lineCount && (flags[i] & mark) == 0) {
+                i++;
+            }
+            if (i <= lineCount) {
+                int hunkEnd = findHunkEnd(i, allMask, mark);
+                if (!isInterestingHunk(i, hunkEnd, allMask)) {
+                    for (int j = i; j < hunkEnd; j++) {
+                        flags[j] &= ~mark;
+                    }
+                }
+                i = hunkEnd;
+            }
+        }
+        return giveContext(allMask, mark);
+    }
+
+    /**
+     * Checks whether the given line differs from any parent.
+     *
+     * @param line the index of the line
+     * @param allMask the bit mask of all parents
+     * @return <code>true</code>, if the line was added compared to any parent or lines were lost before it;
+     *         <code>false</code> otherwise
+     */
+    private boolean isInteresting(int line, long allMask) {
+        return (flags[line] & allMask) != 0 || lostLines.get(line) != null;
+    }
+
+    /**
+     * Returns the end of the hunk starting at the given marked line. Hunks separated by less unmarked lines than the
+     * number of context lines are combined.
+     *
+     * @param hunkStart the index of the first line of the hunk
+     * @param allMask the bit mask of all parents
+     * @param mark the bit marking lines to print
+     * @return the index after the last line of the hunk
+     */
+    private int findHunkEnd(int hunkStart, long allMask, long mark) {
+        int j = hunkStart + 1;
+        boolean end = false;
+        while (!end && j <= lineCount) {
+            if ((flags[j] & mark) == 0) {
+                long lookahead = adjustHunkTail(hunkStart, j, allMask);
+                lookahead = Math.min(lookahead + PatchPrinter.CONTEXT_LINES, lineCount + 1L);
+                boolean continued = false;
+                while (!continued && lookahead > 0 && j <= --lookahead) {
+                    continued = (flags[(int) lookahead] & mark) != 0;
+                }
+                if (continued) {
+                    j = (int) lookahead + 1;
+                } else {
+                    end = true;
+                }
+            } else {
+                j++;
+            }
+        }
+        return j;
+    }
+
+    /**
+     * Checks whether the given hunk differs from all parents. A hunk, in which all changed lines differ from the
+     * same subset of the parents, is not interesting, unless that subset contains all parents.
+     *
+     * @param hunkStart the index of the first line of the hunk
+     * @param hunkEnd the index after the last line of the hunk
+     * @param allMask the bit mask of all parents
+     * @return <code>true</code>, if the hunk is interesting; <code>false</code> otherwise
+     */
+    private boolean isInterestingHunk(int hunkStart, int hunkEnd, long allMask) {
+        long sameDiff = 0;
+        boolean interesting = false;
+        for (int j = hunkStart; j < hunkEnd && !interesting; j++) {
+            long lineDiff = flags[j] & allMask;
+            if (lineDiff != 0) {
+                if (sameDiff == 0) {
+                    sameDiff = lineDiff;
+                } else {
+                    interesting = sameDiff != lineDiff;
+                }
+            }
+            if (!interesting && lostLines.get(j) != null) {
+                for (int k = 0; !interesting && k < lostLines.get(j).size(); k++) {
+                    lineDiff = lostLines.get(j).get(k).parentMask;
+                    if (sameDiff == 0) {
+                        sameDiff = lineDiff;
+                    } else {
+                        interesting = sameDiff != lineDiff;
+                    }
+                }
+            }
+        }
+        return interesting || sameDiff == allMask;
+    }
+
+    /**
+     * Moves the end of a hunk before its last line, if that line is only marked because of the lines lost before it.
+     *
+     * @param hunkStart the index of the first line of the hunk
+     * @param end the index of the first unmarked line after the hunk
+     * @param allMask the bit mask of all parents
+     * @return the adjusted end of the hunk
+     */
+    private int adjustHunkTail(int hunkStart, int end, long allMask) {
+        int adjustedEnd = end;
+        if (hunkStart + 1 <= end && (flags[end - 1] & allMask) == 0) {
+            adjustedEnd--;
+        }
+        return adjustedEnd;
+    }
+
+    /**
+     * Returns the next line, which is marked or unmarked.
+     *
+     * @param mark the bit marking lines to print
+     * @param start the index of the first line to check
+     * @param unmarked <code>true</code>, if the next unmarked line shall be found; <code>false</code> for the next
+     *        marked line
+     * @return the index of the found line or <code>lineCount + 1</code>, if there is no such line
+     */
+    private int findNext(long mark, int start, boolean unmarked) {
+        int i = start;
+        while (i <= lineCount && ((flags[i] & mark) == 0) != unmarked) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Extends the marked hunks by context lines. Context lines before a hunk are additionally flagged to suppress
+     * printing the lines lost before them.
+     *
+     * @param allMask the bit mask of all parents
+     * @param mark the bit marking lines to print
+     * @return <code>true</code>, if at least one line is marked; <code>false</code> otherwise
+     */
+    private boolean giveContext(long allMask, long mark) {
+        long noPreDelete = 2L << parentCount;
+        int i = findNext(mark, 0, false);
+        boolean marked = i <= lineCount;
+        while (i <= lineCount) {
+            for (int j = Math.max(i - PatchPrinter.CONTEXT_LINES, 0); j < i; j++) {
+                if ((flags[j] & mark) == 0) {
+                    flags[j] |= noPreDelete;
+                }
+                flags[j] |= mark;
+            }
+            boolean connected = true;
+            while (connected) {
+                int j = findNext(mark, i, true);
+                if (j > lineCount) {
+                    i = j;
+                    connected = false;
+                } else {
+                    int k = findNext(mark, j, false);
+                    j = adjustHunkTail(i, j, allMask);
+                    if ((long) k < (long) j + PatchPrinter.CONTEXT_LINES) {
+                        while (j < k) {
+                            flags[j++] |= mark;
+                        }
+                        i = k;
+                    } else {
+                        i = k;
+                        int contextEnd = (int) Math.min((long) j + PatchPrinter.CONTEXT_LINES, lineCount + 1L);
+                        while (j < contextEnd) {
+                            flags[j++] |= mark;
+                        }
+                        connected = false;
+                    }
+                }
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Prints the header of the combined diff.
+     *
+     * @param modeDiffers <code>true</code>, if the mode in the result differs from the mode in any parent;
+     *        <code>false</code> otherwise
+     * @param showFileHeader <code>true</code>, if the "<tt>---</tt>" and "<tt>+++</tt>" lines shall be printed;
+     *        <code>false</code> otherwise
+     * @throws IOException if writing to the output fails
+     */
+    private void printHeader(boolean modeDiffers, boolean showFileHeader) throws IOException {
+        PatchPrinter.writeAscii(output, "diff --cc ");
+        output.write(PatchPrinter.quote("", path));
+        StringBuilder header = new StringBuilder("\nindex ");
+        for (int i = 0; i < parentCount; i++) {
+            header.append(i > 0 ? "," : "").append(objectDatabase.abbreviate(parentIds[i]));
+        }
+        header.append("..").append(objectDatabase.abbreviate(objectId)).append('\n');
+        boolean deleted = false;
+        boolean added = false;
+        if (modeDiffers) {
+            deleted = mode == 0;
+            added = !deleted;
+            for (int i = 0; added && i < parentCount; i++) {
+                added = parentModes[i] == 0;
+            }
+            if (added) {
+                header.append("new file mode ").append(PatchPrinter.formatMode(mode));
+            } else {
+                header.append(deleted ? "deleted file mode " : "mode ");
+                for (int i = 0; i < parentCount; i++) {
+                    header.append(i > 0 ? "," : "").append(PatchPrinter.formatMode(parentModes[i]));
+                }
+                if (!deleted) {
+                    header.append("..").append(PatchPrinter.formatMode(mode));
+                }
+            }
+            header.append('\n');
+        }
+        PatchPrinter.writeAscii(output, header.toString());
+        if (showFileHeader) {
+            PatchPrinter.writeAscii(output, "--- ");
+            output.write(added ? PatchPrinter.DEV_NULL : PatchPrinter.quote("a/", path));
+            PatchPrinter.writeAscii(output, "\n+++ ");
+            output.write(deleted ? PatchPrinter.DEV_NULL : PatchPrinter.quote("b/", path));
+            PatchPrinter.writeAscii(output, "\n");
+        }
+    }
+
+    /**
+     * Prints the marked hunks.
+     *
+     * @throws IOException if writing to the output fails
+     */
+    private void printHunks() throws IOException {
+        long mark = 1L << parentCount;
+        int line = 0;
+        while (line <= lineCount) {
+            int hunkCommentLine = -1;
+            while (line <= lineCount && (flags[line] & mark) == 0) {
+                if (isHunkCommentLine(line)) {
+                    hunkCommentLine = line;
+                }
+                line++;
+            }
+            if (line <= lineCount) {
+                int hunkEnd = line + 1;
+                while (hunkEnd <= lineCount && (flags[hunkEnd] & mark) != 0) {
+                    hunkEnd++;
+                }
+                printHunkHeader(line, hunkEnd, hunkCommentLine);
+                while (line < hunkEnd) {
+                    printLines(line++, mark);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given line of the {@link #result} qualifies as hunk comment.
+     *
+     * @param line the index of the line
+     * @return <code>true</code>, if the line starts with a letter, an underscore, or a dollar sign; <code>false</code>
+     *         otherwise
+     */
+    private boolean isHunkCommentLine(int line) {
+        byte first = (line < lineCount && lineStarts[line] < result.length) ? result[lineStarts[line]] : 0;
+        return (first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z') || first == '_' || first == '$';
+    }
+
+    /**
+     * Prints the header of a hunk.
+     *
+     * @param hunkStart the index of the first line of the hunk
+     * @param hunkEnd the index after the last line of the hunk
+     * @param hunkCommentLine the index of the line to print as hunk comment or <code>-1</code>, if there is none
+     * @throws IOException if writing to the output fails
+     */
+    private void printHunkHeader(int hunkStart, int hunkEnd, int hunkCommentLine) throws IOException {
+        int resultLines = hunkEnd - hunkStart;
+        if (lineCount < hunkEnd) {
+            resultLines--;
+        }
+        StringBuilder markers = new StringBuilder();
+        for (int i = 0; i <= parentCount; i++) {
+            markers.append('@');
+        }
+        StringBuilder hunkHeader = new StringBuilder(markers);
+        for (int i = 0; i < parentCount; i++) {
+            int start = parentLineNumbers[hunkStart][i];
+            hunkHeader.append(" -").append(start).append(',').append(parentLineNumbers[hunkEnd][i] - start);
+        }
+        hunkHeader.append(" +").append(hunkStart + 1).append(',').append(resultLines).append(' ').append(markers);
+        PatchPrinter.writeAscii(output, hunkHeader.toString());
+        if (hunkCommentLine != -1) {
+            int commentStart = lineStarts[hunkCommentLine];
+            int commentEnd = 0;
+            for (int i = 0; i < MAX_HUNK_COMMENT_LENGTH && commentStart + i < result.length
+                    && result[commentStart + i] != 0 && result[commentStart + i] != '\n'; i++) {
+                if (!MailMap.isSpace(result[commentStart + i])) {
+                    commentEnd = i;
+                }
+            }
+            if (commentEnd > 0) {
+                output.write(' ');
+                output.write(result, commentStart, commentEnd);
+            }
+        }
+        output.write('\n');
+    }
+
+    /**
+     * Prints the lines lost before the given line followed by the line itself.
+     *
+     * @param line the index of the line
+     * @param mark the bit marking lines to print
+     */
+    private void printLines(int line, long mark) {
+        long noPreDelete = mark << 1;
+        if ((flags[line] & noPreDelete) == 0 && lostLines.get(line) != null) {
+            for (LostLine lostLine : lostLines.get(line)) {
+                for (int i = 0; i < parentCount; i++) {
+                    output.write((lostLine.parentMask & (1L << i)) != 0 ? '-' : ' ');
+                }
+                int length = 0;
+                while (length < lostLine.content.length && lostLine.content[length] != 0) {
+                    length++;
+                }
+                printLineContent(lostLine.content, 0, length, length);
+            }
+        }
+        if (line < lineCount) {
+            for (int i = 0; i < parentCount; i++) {
+                output.write((flags[line] & (1L << i)) != 0 ? '+' : ' ');
+            }
+            int length = 0;
+            while (length < lineLengths[line] && result[lineStarts[line] + length] != 0) {
+                length++;
+            }
+            printLineContent(result, lineStarts[line], lineLengths[line], length);
+        }
+    }
+
+    /**
+     * Prints the content of a line. Like Git, a carriage return at the end of the line is preserved even if the line
+     * is truncated at a null byte.
+     *
+     * @param content the array containing the line
+     * @param start the index of the first byte of the line
+     * @param length the number of bytes of the line
+     * @param printableLength the number of bytes of the line before the first null byte
+     */
+    private void printLineContent(byte[] content, int start, int length, int printableLength) {
+        boolean carriageReturn = length > 0 && content[start + length - 1] == '\r';
+        output.write(content, start, Math.min(printableLength, carriageReturn ? length - 1 : length));
+        if (carriageReturn) {
+            output.write('\r');
+        }
+        output.write('\n');
+    }
+
+}
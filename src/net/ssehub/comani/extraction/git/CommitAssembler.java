@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class incrementally creates a single {@link Commit} from the lines of its content as printed by
+ * <code>git show -U100000 --no-renames</code>. Lines are passed one after another via {@link #addLine(String)}, which
+ * allows creating commits while reading the output of a Git process instead of collecting the entire output first.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitAssembler {
+
+    /**
+     * The string identifying the start of a diff header in a commit. The first line of the diff header starts with this
+     * string. Each diff header marks the beginning of an individual file being changed by the respective commit.
+     */
+    static final String DIFF_HEADER_START_PATTERN = "diff --git";
+
+    /**
+     * The string identifying the end of a diff header in a commit. The last line of the diff header starts with this
+     * string. After that line, the content of the changed artifact described by the diff header as well as the actual
+     * changes to the artifact are listed.
+     *
+     * @see #DIFF_HEADER_START_PATTERN
+     */
+    static final String DIFF_HEADER_END_PATTERN = "@@";
+
+    /**
+     * The string identifying the start of the combined diff of a single file in a merge commit. Combined diffs are
+     * part of the commit header, as they do not start with {@link #DIFF_HEADER_START_PATTERN}.
+     */
+    private static final String COMBINED_DIFF_START_PATTERN = "diff --cc ";
+
+    /**
+     * The commit number (SHA) of the commit to be created.
+     */
+    private String commitNumber;
+
+    /**
+     * The committer date of the commit to be created.
+     */
+    private String committerDate;
+
+    /**
+     * The lines of the commit header, which are all lines before the first line starting with
+     * {@link #DIFF_HEADER_START_PATTERN}.
+     */
+    private List<String> commitHeader;
+
+    /**
+     * The {@link ChangedArtifact}s completed so far or <code>null</code>, if no line starting with
+     * {@link #DIFF_HEADER_START_PATTERN} was added yet.
+     */
+    private List<ChangedArtifact> changedArtifacts;
+
+    /**
+     * The {@link ChangedArtifact} currently receiving the added lines or <code>null</code>, if the commit header is
+     * still being added.
+     */
+    private ChangedArtifact changedArtifact;
+
+    /**
+     * The definition of whether the last diff header line (starting with {@link #DIFF_HEADER_END_PATTERN}) of the
+     * current {@link #changedArtifact} was already added (<code>true</code>) or not (<code>false</code>).
+     */
+    private boolean artifactContentReached;
+
+    /**
+     * The {@link LazyContentLoader} loading the full content of the changed artifacts or <code>null</code>, if the
+     * added lines already include the full content.
+     */
+    private LazyContentLoader contentLoader;
+
+    /**
+     * The {@link LazyChangedArtifact}s created so far or <code>null</code>, if there is no {@link #contentLoader}.
+     */
+    private List<LazyChangedArtifact> lazyArtifacts;
+
+    /**
+     * The {@link PathFilter} restricting the changed artifacts of the commit to be created; may be <code>null</code>,
+     * if all changed artifacts are accepted.
+     */
+    private PathFilter pathFilter;
+
+    /**
+     * The definition of whether the current {@link #changedArtifact} is accepted by the {@link #pathFilter}
+     * (<code>true</code>) and, hence, becomes part of the commit or not (<code>false</code>).
+     */
+    private boolean changedArtifactAccepted;
+
+    /**
+     * The index of the first line of the current combined diff in the {@link #commitHeader} or <code>-1</code>, if no
+     * line starting with {@link #COMBINED_DIFF_START_PATTERN} was added yet.
+     */
+    private int combinedDiffStart;
+
+    /**
+     * The definition of whether the current combined diff is skipped as binary file by the {@link #pathFilter}
+     * (<code>true</code>) or not (<code>false</code>).
+     */
+    private boolean combinedDiffSkipped;
+
+    /**
+     * Constructs a new {@link CommitAssembler} for the commit with the given commit number and committer date.
+     *
+     * @param commitNumber the commit number (SHA) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     */
+    CommitAssembler(String commitNumber, String committerDate) {
+        this(commitNumber, committerDate, null);
+    }
+
+    /**
+     * Constructs a new {@link CommitAssembler} for the commit with the given commit number and committer date. If a
+     * {@link LazyContentLoader} is given, the added lines are expected to be printed with small context, like by
+     * <code>git show -U3 --no-renames</code>, and the commit consists of {@link LazyChangedArtifact}s loading their
+     * full content on first access.
+     *
+     * @param commitNumber the commit number (SHA) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     * @param contentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts; may be
+     *        <code>null</code>, if the added lines include the full content
+     */
+    CommitAssembler(String commitNumber, String committerDate, LazyContentLoader contentLoader) {
+        this(commitNumber, committerDate, contentLoader, null);
+    }
+
+    /**
+     * Constructs a new {@link CommitAssembler} for the commit with the given commit number and committer date, which
+     * only consists of the changed artifacts accepted by the given {@link PathFilter}. The filter is applied to the
+     * first diff header line of each changed artifact and, if binary files are skipped, to its further diff header
+     * lines and to the lines of combined diffs; the lines of rejected changed artifacts are discarded as they are
+     * added.
+     *
+     * @param commitNumber the commit number (SHA) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     * @param contentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts; may be
+     *        <code>null</code>, if the added lines include the full content
+     * @param pathFilter the {@link PathFilter} restricting the changed artifacts; may be <code>null</code>, if all
+     *        changed artifacts shall be part of the commit
+     */
+    CommitAssembler(String commitNumber, String committerDate, LazyContentLoader contentLoader,
+            PathFilter pathFilter) {
+        this.commitNumber = commitNumber;
+        this.committerDate = committerDate;
+        commitHeader = new ArrayList<String>();
+        changedArtifacts = null;
+        changedArtifact = null;
+        artifactContentReached = false;
+        this.contentLoader = contentLoader;
+        if (contentLoader != null) {
+            lazyArtifacts = new ArrayList<LazyChangedArtifact>();
+        }
+        this.pathFilter = pathFilter;
+        changedArtifactAccepted = false;
+        combinedDiffStart = -1;
+        combinedDiffSkipped = false;
+    }
+
+    /**
+     * Adds the given line as the next line of the commit content.
+     *
+     * @param commitContentLine the next line of the commit content without its line terminator; should never be
+     *        <code>null</code>
+     */
+    void addLine(String commitContentLine) {
+        if (commitContentLine.startsWith(DIFF_HEADER_START_PATTERN)) {
+            artifactContentReached = false;
+            if (changedArtifact != null) {
+                addChangedArtifact();
+            } else {
+                changedArtifacts = new ArrayList<ChangedArtifact>();
+            }
+            changedArtifact = createChangedArtifact();
+            changedArtifactAccepted = pathFilter == null || pathFilter.matches(PathFilter.getPath(commitContentLine));
+            changedArtifact.addDiffHeaderLine(commitContentLine);
+            String changedArtifactPath = getArtifactPath(commitContentLine);
+            changedArtifact.addArtifactPath(changedArtifactPath);
+            changedArtifact.addArtifactName(getArtifactName(changedArtifactPath));
+        } else if (changedArtifact == null) {
+            addHeaderLine(commitContentLine);
+        } else if (changedArtifactAccepted) {
+            // Lines of rejected changed artifacts are discarded
+            if (artifactContentReached) {
+                changedArtifact.addContentLine(commitContentLine);
+            } else {
+                artifactContentReached = commitContentLine.startsWith(DIFF_HEADER_END_PATTERN);
+                changedArtifactAccepted = pathFilter == null || !pathFilter.isSkippedBinary(commitContentLine);
+                changedArtifact.addDiffHeaderLine(commitContentLine);
+            }
+        }
+    }
+
+    /**
+     * Adds the given line to the {@link #commitHeader}, unless it belongs to the combined diff of a binary file skipped
+     * by the {@link #pathFilter}. The lines of such a combined diff already added are removed again.
+     *
+     * @param commitHeaderLine the next line of the commit header; should never be <code>null</code>
+     */
+    private void addHeaderLine(String commitHeaderLine) {
+        if (commitHeaderLine.startsWith(COMBINED_DIFF_START_PATTERN)) {
+            combinedDiffStart = commitHeader.size();
+            combinedDiffSkipped = false;
+        }
+        if (combinedDiffStart >= 0 && pathFilter != null && pathFilter.isSkippedBinary(commitHeaderLine)) {
+            commitHeader.subList(combinedDiffStart, commitHeader.size()).clear();
+            combinedDiffSkipped = true;
+        }
+        if (!combinedDiffSkipped) {
+            commitHeader.add(commitHeaderLine);
+        }
+    }
+
+    /**
+     * Adds the current {@link #changedArtifact} to the list of {@link #changedArtifacts}, if it is accepted by the
+     * {@link #pathFilter}. Accepted {@link LazyChangedArtifact}s are also added to the list of {@link #lazyArtifacts},
+     * which they load their full content for.
+     */
+    private void addChangedArtifact() {
+        if (changedArtifactAccepted) {
+            changedArtifacts.add(changedArtifact);
+            if (lazyArtifacts != null) {
+                lazyArtifacts.add((LazyChangedArtifact) changedArtifact);
+            }
+        }
+    }
+
+    /**
+     * Creates a new, empty {@link ChangedArtifact}, which is a {@link LazyChangedArtifact}, if a
+     * {@link #contentLoader} exists.
+     *
+     * @return the new {@link ChangedArtifact}; never <code>null</code>
+     */
+    private ChangedArtifact createChangedArtifact() {
+        ChangedArtifact newChangedArtifact;
+        if (contentLoader != null) {
+            newChangedArtifact = new LazyChangedArtifact(contentLoader, commitNumber, lazyArtifacts);
+        } else {
+            newChangedArtifact = new ChangedArtifact();
+        }
+        return newChangedArtifact;
+    }
+
+    /**
+     * Creates the {@link Commit} based on all lines added so far. In case there are no explicit artifact content
+     * changes, all lines are treated as commit header (Test: Coreboot commit 118b382e7d).
+     *
+     * @return the commit created by processing the added lines; never <code>null</code>, but may be <i>empty</i>
+     */
+    Commit getCommit() {
+        if (changedArtifact != null) {
+            // End of changes, add last changed artifact to list
+            addChangedArtifact();
+            changedArtifact = null;
+        }
+        return new Commit(commitNumber, committerDate, commitHeader.toArray(new String[commitHeader.size()]),
+                changedArtifacts);
+    }
+
+    /**
+     * Returns the relative path to the changed artifact in the repository based on the information of the first
+     * diff header line. The path is the last whitespace-separated part of that line starting with "<tt>b/</tt>"
+     * excluding the leading "<tt>b</tt>", if the line consists of at least four parts. This method identifies the parts
+     * by scanning the line backwards once instead of splitting it via a regular expression.
+     *
+     * @param firstDiffHeaderLine the first line starting with {@link #DIFF_HEADER_START_PATTERN}, which typically
+     *        contains the relative path to the changed artifact; should never be <code>null</code>
+     * @return the relative path to the changed artifact in the repository; never <code>null</code> but may be
+     *         <i>empty</i>
+     */
+    static String getArtifactPath(String firstDiffHeaderLine) {
+        // 1. "diff", 2. "--git", 3. "a/...", 4. "b/..."
+        int partsCounter = 0;
+        int artifactPathStartIndex = -1;
+        int artifactPathEndIndex = -1;
+        int partEndIndex = firstDiffHeaderLine.length();
+        while (partEndIndex > 0) {
+            int partStartIndex = partEndIndex;
+            while (partStartIndex > 0 && !isWhitespace(firstDiffHeaderLine.charAt(partStartIndex - 1))) {
+                partStartIndex--;
+            }
+            if (partStartIndex < partEndIndex) {
+                partsCounter++;
+            }
+            // As we search for the second (and typically last) path entry, start from end of line
+            if (artifactPathStartIndex == -1 && firstDiffHeaderLine.startsWith("b/", partStartIndex)) {
+                artifactPathStartIndex = partStartIndex + 1; // Exclude leading "b"
+                artifactPathEndIndex = partEndIndex;
+            }
+            partEndIndex = partStartIndex;
+            while (partEndIndex > 0 && isWhitespace(firstDiffHeaderLine.charAt(partEndIndex - 1))) {
+                partEndIndex--;
+            }
+        }
+        if (partsCounter > 0 && isWhitespace(firstDiffHeaderLine.charAt(0))) {
+            // Leading whitespace results in an additional empty part at the beginning of the line
+            partsCounter++;
+        }
+        String artifactPath = "";
+        if (partsCounter >= 4 && artifactPathStartIndex != -1) {
+            artifactPath = firstDiffHeaderLine.substring(artifactPathStartIndex, artifactPathEndIndex);
+        }
+        return artifactPath;
+    }
+
+    /**
+     * Returns the name of the changed artifact based on the given relative path to the artifact as provided by
+     * {@link #getArtifactPath(String)}. The name is the last non-empty part of the path separated by "<tt>/</tt>".
+     *
+     * @param changedArtifactPath the relative path to the changed artifact in the repository; should never be
+     *        <code>null</code>
+     * @return the name of the changed artifact (the file it represents); never <code>null</code> but may be
+     *         <i>empty</i>
+     */
+    static String getArtifactName(String changedArtifactPath) {
+        int artifactNameEndIndex = changedArtifactPath.length();
+        while (artifactNameEndIndex > 0 && changedArtifactPath.charAt(artifactNameEndIndex - 1) == '/') {
+            artifactNameEndIndex--;
+        }
+        int artifactNameStartIndex = changedArtifactPath.lastIndexOf('/', artifactNameEndIndex - 1) + 1;
+        return changedArtifactPath.substring(artifactNameStartIndex, artifactNameEndIndex);
+    }
+
+    /**
+     * Checks whether the given character is a whitespace character as defined by the regular expression
+     * <code>\s</code>.
+     *
+     * @param character the character to be checked
+     * @return <code>true</code>, if the given character is a whitespace character; <code>false</code> otherwise
+     */
+    private static boolean isWhitespace(char character) {
+        return " \t\n\u000B\f\r".indexOf(character) != -1;
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class buffers the raw output of a Git process for a single commit in memory or, if it exceeds the in-memory
+ * limits, in a temporary file read back via memory-mapped views. The limits only bound this raw output, not the commit
+ * created from it.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitBuffer implements Closeable {
+
+    /**
+     * The maximum number of bytes of the temporary file mapped into memory at the same time.
+     */
+    private static final int MAX_MAPPING_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The maximum size of the in-memory buffer, which is limited by the maximum size of arrays.
+     */
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The maximum number of bytes of this buffer held in memory.
+     */
+    private long maxInMemoryBytes;
+
+    /**
+     * The {@link MemoryBudget} shared by all buffers in use at the same time.
+     */
+    private MemoryBudget memoryBudget;
+
+    /**
+     * The in-memory buffer or <code>null</code>, if the data was written to the {@link #spillFile}.
+     */
+    private byte[] memoryBuffer;
+
+    /**
+     * The number of bytes reserved from the {@link #memoryBudget}, which is the length of the {@link #memoryBuffer}.
+     */
+    private long reservedBytes;
+
+    /**
+     * The temporary file holding the data of this buffer or <code>null</code>, if the data is held in memory.
+     */
+    private File spillFile;
+
+    /**
+     * The {@link OutputStream} writing to the {@link #spillFile} or <code>null</code>, if the data is held in memory
+     * or no further data is written.
+     */
+    private OutputStream spillStream;
+
+    /**
+     * The {@link FileChannel} for mapping the {@link #spillFile} into memory or <code>null</code>, if the data is
+     * held in memory or not read yet.
+     */
+    private FileChannel spillChannel;
+
+    /**
+     * The number of bytes written to this buffer.
+     */
+    private long size;
+
+    /**
+     * Constructs a new, empty {@link CommitBuffer}.
+     *
+     * @param maxInMemoryBytes the maximum number of bytes of this buffer held in memory
+     * @param memoryBudget the {@link MemoryBudget} shared by all buffers in use at the same time
+     */
+    CommitBuffer(long maxInMemoryBytes, MemoryBudget memoryBudget) {
+        this.maxInMemoryBytes = Math.min(maxInMemoryBytes, MAX_ARRAY_SIZE);
+        this.memoryBudget = memoryBudget;
+        memoryBuffer = new byte[0];
+        reservedBytes = 0;
+        size = 0;
+    }
+
+    /**
+     * Reads all data from the given {@link InputStream} into this buffer until the end of the stream is reached.
+     *
+     * @param inputStream the {@link InputStream} providing the data to be buffered, e.g., the standard output of a Git
+     *        process
+     * @throws IOException if reading the data or writing it to the temporary file fails
+     */
+    void readFrom(InputStream inputStream) throws IOException {
+        byte[] chunk = new byte[8192];
+        int readBytes = inputStream.read(chunk);
+        while (readBytes != -1) {
+            write(chunk, readBytes);
+            readBytes = inputStream.read(chunk);
+        }
+        if (spillStream != null) {
+            spillStream.close();
+            spillStream = null;
+        }
+    }
+
+    /**
+     * Writes the given number of bytes of the given chunk to this buffer.
+     *
+     * @param chunk the chunk containing the bytes to be written
+     * @param length the number of bytes of the chunk to be written
+     * @throws IOException if writing the bytes to the temporary file fails
+     */
+    private void write(byte[] chunk, int length) throws IOException {
+        if (memoryBuffer != null && !ensureMemoryCapacity(size + length)) {
+            spill();
+        }
+        if (memoryBuffer != null) {
+            System.arraycopy(chunk, 0, memoryBuffer, (int) size, length);
+        } else {
+            spillStream.write(chunk, 0, length);
+        }
+        size += length;
+    }
+
+    /**
+     * Ensures that the {@link #memoryBuffer} is able to hold the given number of bytes by enlarging it, if necessary.
+     *
+     * @param requiredCapacity the number of bytes the {@link #memoryBuffer} must be able to hold
+     * @return <code>true</code>, if the {@link #memoryBuffer} is able to hold the given number of bytes;
+     *         <code>false</code>, if this exceeds the in-memory limit or the {@link #memoryBudget}
+     */
+    private boolean ensureMemoryCapacity(long requiredCapacity) {
+        boolean capacityAvailable = requiredCapacity <= memoryBuffer.length;
+        if (!capacityAvailable && requiredCapacity <= maxInMemoryBytes) {
+            long newCapacity = Math.min(Math.max(requiredCapacity, 2L * memoryBuffer.length), maxInMemoryBytes);
+            if (memoryBudget.tryReserve(newCapacity - memoryBuffer.length)) {
+                reservedBytes += newCapacity - memoryBuffer.length;
+                memoryBuffer = Arrays.copyOf(memoryBuffer, (int) newCapacity);
+                capacityAvailable = true;
+            }
+        }
+        return capacityAvailable;
+    }
+
+    /**
+     * Moves the data of the {@link #memoryBuffer} to a new temporary file and releases the memory reserved for it.
+     *
+     * @throws IOException if creating or writing the temporary file fails
+     */
+    private void spill() throws IOException {
+        spillFile = File.createTempFile("comani-git-commit-", ".tmp");
+        spillFile.deleteOnExit();
+        spillStream = new BufferedOutputStream(new FileOutputStream(spillFile), 65536);
+        spillStream.write(memoryBuffer, 0, (int) size);
+        memoryBuffer = null;
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+    }
+
+    /**
+     * Returns whether the data of this buffer was written to a temporary file.
+     *
+     * @return <code>true</code>, if the data was written to a temporary file; <code>false</code>, if it is held in
+     *         memory
+     */
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Returns the number of bytes written to this buffer.
+     *
+     * @return the number of bytes written to this buffer
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Opens a new {@link Reader} for the data of this buffer, which decodes the data using the
+     * {@link GitProcess#OUTPUT_CHARSET}.
+     *
+     * @return the {@link Reader} for the data of this buffer; never <code>null</code>
+     * @throws IOException if opening the temporary file fails
+     */
+    Reader openReader() throws IOException {
+        InputStream dataStream;
+        if (memoryBuffer != null) {
+            dataStream = new ByteArrayInputStream(memoryBuffer, 0, (int) size);
+        } else {
+            if (spillChannel == null) {
+                spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ);
+            }
+            dataStream = new MappedFileInputStream(spillChannel, size);
+        }
+        return new InputStreamReader(dataStream, GitProcess.OUTPUT_CHARSET);
+    }
+
+    /**
+     * Releases the memory reserved by this buffer and deletes its temporary file, if it exists.
+     *
+     * @throws IOException if closing the temporary file fails
+     */
+    @Override
+    public void close() throws IOException {
+        memoryBuffer = null;
+        memoryBudget.release(reservedBytes);
+        reservedBytes = 0;
+        try {
+            if (spillStream != null) {
+                spillStream.close();
+                spillStream = null;
+            }
+            if (spillChannel != null) {
+                spillChannel.close();
+                spillChannel = null;
+            }
+        } finally {
+            if (spillFile != null && !spillFile.delete()) {
+                // Mapped files may not be deletable on some platforms until the mapping is garbage collected
+                spillFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * This {@link InputStream} reads a file sequentially via memory-mapped views of consecutive regions of the file.
+     * Mapping regions instead of the entire file supports files larger than the maximum size of a single mapping.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class MappedFileInputStream extends InputStream {
+
+        /**
+         * The {@link FileChannel} of the file to be read.
+         */
+        private FileChannel fileChannel;
+
+        /**
+         * The number of bytes of the file to be read.
+         */
+        private long fileSize;
+
+        /**
+         * The position of the currently mapped region in the file.
+         */
+        private long mappingPosition;
+
+        /**
+         * The currently mapped region of the file or <code>null</code>, if no region was mapped yet.
+         */
+        private MappedByteBuffer mapping;
+
+        /**
+         * Constructs a new {@link MappedFileInputStream}.
+         *
+         * @param fileChannel the {@link FileChannel} of the file to be read
+         * @param fileSize the number of bytes of the file to be read
+         */
+        MappedFileInputStream(FileChannel fileChannel, long fileSize) {
+            this.fileChannel = fileChannel;
+            this.fileSize = fileSize;
+            mappingPosition = 0;
+            mapping = null;
+        }
+
+        /**
+         * Maps the next region of the file, if the current mapping is fully read.
+         *
+         * @return <code>true</code>, if there are remaining bytes to read; <code>false</code>, if the end of the file
+         *         is reached
+         * @throws IOException if mapping the next region fails
+         */
+        private boolean ensureMapping() throws IOException {
+            if (mapping == null || !mapping.hasRemaining()) {
+                if (mapping != null) {
+                    mappingPosition += mapping.capacity();
+                }
+                long mappingSize = Math.min(MAX_MAPPING_SIZE, fileSize - mappingPosition);
+                if (mappingSize > 0) {
+                    mapping = fileChannel.map(MapMode.READ_ONLY, mappingPosition, mappingSize);
+                }
+            }
+            return mapping != null && mapping.hasRemaining();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() throws IOException {
+            int readByte = -1;
+            if (ensureMapping()) {
+                readByte = mapping.get() & 0xFF;
+            }
+            return readByte;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int readBytes = -1;
+            if (length == 0) {
+                readBytes = 0;
+            } else if (ensureMapping()) {
+                readBytes = Math.min(length, mapping.remaining());
+                mapping.get(bytes, offset, readBytes);
+            }
+            return readBytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class stores parsed {@link Commit}s in a directory on disk, one compressed file per commit named by its full
+ * commit number (SHA) and the identifier of its context, like the charset and the "<tt>.mailmap</tt>" file. Multiple
+ * processes may use the same directory concurrently; files evicted by another process while reading them are treated as
+ * not cached.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitCache {
+
+    /**
+     * The number identifying the format of the cache files. Files starting with a different number are ignored.
+     */
+    private static final int FORMAT_VERSION = 0x43430001;
+
+    /**
+     * The suffix of the names of the cache files.
+     */
+    private static final String ENTRY_SUFFIX = ".commit";
+
+    /**
+     * The name of the file in the cache directory used for locking the cache during the eviction of cache files.
+     */
+    private static final String LOCK_FILE_NAME = "cache.lock";
+
+    /**
+     * The fraction of the maximum size of the cache the cache is reduced to by the eviction of cache files. Evicting
+     * more files than necessary avoids evicting files again after each new file.
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    /**
+     * The locks of the cache directories used by the instances of this class with the canonical cache directories as
+     * keys. Reading and adding cache files acquires the read lock, while the eviction acquires the write lock. As a
+     * file lock is held by the entire Java virtual machine, only one instance can acquire it at the same time.
+     */
+    private static final ConcurrentMap<File, ReadWriteLock> DIRECTORY_LOCKS =
+            new ConcurrentHashMap<File, ReadWriteLock>();
+
+    /**
+     * The directory containing the cache files.
+     */
+    private File cacheDirectory;
+
+    /**
+     * The lock of the {@link #cacheDirectory} shared by all instances of this class using that directory.
+     */
+    private ReadWriteLock directoryLock;
+
+    /**
+     * The identifier of the context of the commits cached by this instance, which is part of the names of the cache
+     * files.
+     */
+    private String contextId;
+
+    /**
+     * The maximum number of bytes of all cache files.
+     */
+    private long maxBytes;
+
+    /**
+     * The estimated number of bytes of all cache files. This estimation is updated each time this instance adds a
+     * file and corrected by each eviction, which also considers the files added by other processes.
+     */
+    private AtomicLong estimatedBytes;
+
+    /**
+     * Constructs a new {@link CommitCache} using the given directory. If the directory does not exist, it is created.
+     *
+     * @param cacheDirectory the directory containing the cache files; should never be <code>null</code>
+     * @param maxBytes the maximum number of bytes of all cache files; must be greater than <code>0</code>
+     * @throws IOException if creating the cache directory or determining its current size fails
+     */
+    CommitCache(File cacheDirectory, long maxBytes) throws IOException {
+        Files.createDirectories(cacheDirectory.toPath());
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+        directoryLock = DIRECTORY_LOCKS.computeIfAbsent(cacheDirectory.getCanonicalFile(),
+            directory -> new ReentrantReadWriteLock());
+        contextId = getContextId("");
+        estimatedBytes = new AtomicLong();
+        evict();
+    }
+
+    /**
+     * Constructs a new {@link CommitCache} using the same directory, limit, and size estimation as the given cache, but
+     * caching the commits of the given context.
+     *
+     * @param commitCache the {@link CommitCache} providing the directory, limit, and size estimation
+     * @param context the description of the context
+     */
+    private CommitCache(CommitCache commitCache, String context) {
+        cacheDirectory = commitCache.cacheDirectory;
+        maxBytes = commitCache.maxBytes;
+        directoryLock = commitCache.directoryLock;
+        contextId = getContextId(context);
+        estimatedBytes = commitCache.estimatedBytes;
+    }
+
+    /**
+     * Returns a {@link CommitCache} using the same directory as this cache, which caches the commits of the given
+     * context. Commits cached for a different context are not available via the returned cache.
+     *
+     * @param context the description of everything besides the commits, which changes the output of Git for them;
+     *        should never be <code>null</code>
+     * @return the cache for the given context; never <code>null</code>
+     */
+    CommitCache withContext(String context) {
+        return new CommitCache(this, context);
+    }
+
+    /**
+     * Returns the identifier of the given context, which consists of the first 16 hexadecimal digits of the SHA-1
+     * hash of the context.
+     *
+     * @param context the description of the context
+     * @return the identifier of the context; never <code>null</code>
+     */
+    private static String getContextId(String context) {
+        StringBuilder contextIdBuilder = new StringBuilder();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(context.getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 8; i++) {
+                contextIdBuilder.append(String.format("%02x", hash[i]));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // Each Java platform is required to support SHA-1, but fall back to the hash code of the context anyway
+            contextIdBuilder.append(String.format("%08x", context.hashCode()));
+        }
+        return contextIdBuilder.toString();
+    }
+
+    /**
+     * Checks whether the given string is a full commit number, which can be used as key of this cache.
+     *
+     * @param fullCommitNumber the string to check
+     * @return <code>true</code>, if the given string consists of at least 40 lower case hexadecimal digits;
+     *         <code>false</code> otherwise
+     */
+    static boolean isFullCommitNumber(String fullCommitNumber) {
+        boolean isFullCommitNumber = fullCommitNumber != null && fullCommitNumber.length() >= 40;
+        int characterIndex = 0;
+        while (isFullCommitNumber && characterIndex < fullCommitNumber.length()) {
+            isFullCommitNumber = "0123456789abcdef".indexOf(fullCommitNumber.charAt(characterIndex)) != -1;
+            characterIndex++;
+        }
+        return isFullCommitNumber;
+    }
+
+    /**
+     * Returns the cache file of the commit identified by the given full commit number in the context of this cache.
+     * Cache files are distributed across subdirectories named by the first two digits of the commit numbers to keep
+     * the directories small.
+     *
+     * @param fullCommitNumber the full commit number of the commit
+     * @return the cache file of the commit, which may not exist; never <code>null</code>
+     */
+    File getEntryFile(String fullCommitNumber) {
+        File entryDirectory = new File(cacheDirectory, fullCommitNumber.substring(0, 2));
+        return new File(entryDirectory, fullCommitNumber.substring(2) + "-" + contextId + ENTRY_SUFFIX);
+    }
+
+    /**
+     * Checks whether the commit identified by the given full commit number is cached.
+     *
+     * @param fullCommitNumber the full commit number of the commit
+     * @return <code>true</code>, if the commit is cached; <code>false</code> otherwise
+     */
+    boolean contains(String fullCommitNumber) {
+        return isFullCommitNumber(fullCommitNumber) && getEntryFile(fullCommitNumber).isFile();
+    }
+
+    /**
+     * Returns the cached commit identified by the given full commit number. A successful lookup marks the cache file
+     * as recently used.
+     *
+     * @param fullCommitNumber the full commit number of the commit; must satisfy
+     *        {@link #isFullCommitNumber(String)}
+     * @param commitNumber the commit number used as identifier of the returned commit, like the abbreviated commit
+     *        number of the commit log or an entry of a commit list
+     * @return the cached {@link Commit} or <code>null</code>, if the commit is not cached or its cache file was
+     *         evicted or replaced by another process while reading it
+     * @throws IOException if reading the cache file fails
+     */
+    Commit get(String fullCommitNumber, String commitNumber) throws IOException {
+        Commit commit = null;
+        File entryFile = getEntryFile(fullCommitNumber);
+        directoryLock.readLock().lock();
+        try (DataInputStream entryStream = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new FileInputStream(entryFile)), 65536))) {
+            commit = readCommit(entryStream, commitNumber);
+            if (commit != null) {
+                // If updating the modification time fails, the file is only evicted earlier than necessary
+                entryFile.setLastModified(System.currentTimeMillis());
+            }
+        } catch (FileNotFoundException | EOFException | ZipException e) {
+            // The file does not exist or was evicted by another process, which may have truncated it on some platforms
+            commit = null;
+        } finally {
+            directoryLock.readLock().unlock();
+        }
+        return commit;
+    }
+
+    /**
+     * Adds the given commit to this cache. If the total size of the cache exceeds its limit afterwards, the least
+     * recently used cache files are evicted.
+     *
+     * @param fullCommitNumber the full commit number of the commit; must satisfy
+     *        {@link #isFullCommitNumber(String)}
+     * @param commit the {@link Commit} to add
+     * @throws IOException if writing the cache file fails
+     */
+    void put(String fullCommitNumber, Commit commit) throws IOException {
+        File entryFile = getEntryFile(fullCommitNumber);
+        File entryDirectory = entryFile.getParentFile();
+        long entryBytes = 0;
+        directoryLock.readLock().lock();
+        try {
+            Files.createDirectories(entryDirectory.toPath());
+            File temporaryFile = File.createTempFile(fullCommitNumber.substring(2, 10), ".tmp", entryDirectory);
+            try {
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (DataOutputStream entryStream = new DataOutputStream(new BufferedOutputStream(
+                        new DeflaterOutputStream(new FileOutputStream(temporaryFile), deflater, 65536), 65536))) {
+                    writeCommit(entryStream, commit);
+                } finally {
+                    deflater.end();
+                }
+                entryBytes = temporaryFile.length();
+                // Replacing a file written by another process for the same commit and context does not change it
+                Files.move(temporaryFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } finally {
+            directoryLock.readLock().unlock();
+        }
+        if (estimatedBytes.addAndGet(entryBytes) > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Determines the total size of all cache files and deletes the least recently used files, if this size exceeds
+     * the limit of this cache. While doing so, the cache is locked for all other threads of this Java virtual machine
+     * using the cache directory and for other processes evicting files.
+     *
+     * @throws IOException if locking the cache fails
+     */
+    private void evict() throws IOException {
+        directoryLock.writeLock().lock();
+        try (FileChannel lockChannel = FileChannel.open(new File(cacheDirectory, LOCK_FILE_NAME).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock cacheLock = lockChannel.lock();
+            try {
+                estimatedBytes.set(deleteLeastRecentlyUsed());
+            } finally {
+                cacheLock.release();
+            }
+        } finally {
+            directoryLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files of all contexts, if the total size of all cache files exceeds the
+     * limit of this cache, until the total size is reduced to the {@link #EVICTION_TARGET} of the limit. The caller
+     * must hold the write lock of the {@link #directoryLock} and the file lock of the cache.
+     *
+     * @return the total size of the remaining cache files in bytes
+     */
+    private long deleteLeastRecentlyUsed() {
+        List<File> entryFiles = new ArrayList<File>();
+        Map<File, Long> lastUsed = new HashMap<File, Long>();
+        long totalBytes = 0;
+        File[] entryDirectories = cacheDirectory.listFiles(File::isDirectory);
+        for (int i = 0; entryDirectories != null && i < entryDirectories.length; i++) {
+            File[] directoryEntryFiles = entryDirectories[i].listFiles(
+                    (directory, name) -> name.endsWith(ENTRY_SUFFIX));
+            for (int j = 0; directoryEntryFiles != null && j < directoryEntryFiles.length; j++) {
+                entryFiles.add(directoryEntryFiles[j]);
+                lastUsed.put(directoryEntryFiles[j], directoryEntryFiles[j].lastModified());
+                totalBytes += directoryEntryFiles[j].length();
+            }
+        }
+        if (totalBytes > maxBytes) {
+            entryFiles.sort((file1, file2) -> Long.compare(lastUsed.get(file1), lastUsed.get(file2)));
+            long targetBytes = (long) (maxBytes * EVICTION_TARGET);
+            int entryCounter = 0;
+            while (totalBytes > targetBytes && entryCounter < entryFiles.size()) {
+                File entryFile = entryFiles.get(entryCounter);
+                long entryBytes = entryFile.length();
+                if (entryFile.delete()) {
+                    totalBytes -= entryBytes;
+                }
+                entryCounter++;
+            }
+        }
+        return totalBytes;
+    }
+
+    /**
+     * Writes the given commit to the given stream. The commit number is not written, as the cache files are already
+     * named by the full commit numbers.
+     *
+     * @param entryStream the {@link DataOutputStream} writing the cache file
+     * @param commit the {@link Commit} to write
+     * @throws IOException if writing to the stream fails
+     */
+    private static void writeCommit(DataOutputStream entryStream, Commit commit) throws IOException {
+        entryStream.writeInt(FORMAT_VERSION);
+        writeString(entryStream, commit.getDate());
+        String[] commitHeader = commit.getCommitHeader();
+        entryStream.writeInt(commitHeader.length);
+        for (String commitHeaderLine : commitHeader) {
+            writeString(entryStream, commitHeaderLine);
+        }
+        List<ChangedArtifact> changedArtifacts = commit.getChangedArtifacts();
+        if (changedArtifacts == null) {
+            entryStream.writeInt(-1);
+        } else {
+            entryStream.writeInt(changedArtifacts.size());
+            for (ChangedArtifact changedArtifact : changedArtifacts) {
+                writeString(entryStream, changedArtifact.getArtifactPath());
+                writeString(entryStream, changedArtifact.getArtifactName());
+                writeLines(entryStream, changedArtifact.getDiffHeader());
+                writeLines(entryStream, changedArtifact.getContent());
+            }
+        }
+    }
+
+    /**
+     * Reads a commit written by {@link #writeCommit(DataOutputStream, Commit)} from the given stream.
+     *
+     * @param entryStream the {@link DataInputStream} reading the cache file
+     * @param commitNumber the commit number used as identifier of the returned commit
+     * @return the {@link Commit} read from the stream or <code>null</code>, if the stream uses a different format
+     * @throws IOException if reading from the stream fails
+     */
+    private static Commit readCommit(DataInputStream entryStream, String commitNumber) throws IOException {
+        Commit commit = null;
+        if (entryStream.readInt() == FORMAT_VERSION) {
+            String committerDate = readString(entryStream);
+            String[] commitHeader = new String[entryStream.readInt()];
+            for (int i = 0; i < commitHeader.length; i++) {
+                commitHeader[i] = readString(entryStream);
+            }
+            List<ChangedArtifact> changedArtifacts = null;
+            int changedArtifactsCount = entryStream.readInt();
+            if (changedArtifactsCount >= 0) {
+                changedArtifacts = new ArrayList<ChangedArtifact>(changedArtifactsCount);
+                for (int i = 0; i < changedArtifactsCount; i++) {
+                    ChangedArtifact changedArtifact = new ChangedArtifact();
+                    changedArtifact.addArtifactPath(readString(entryStream));
+                    changedArtifact.addArtifactName(readString(entryStream));
+                    int linesCount = entryStream.readInt();
+                    for (int j = 0; j < linesCount; j++) {
+                        changedArtifact.addDiffHeaderLine(readString(entryStream));
+                    }
+                    linesCount = entryStream.readInt();
+                    for (int j = 0; j < linesCount; j++) {
+                        changedArtifact.addContentLine(readString(entryStream));
+                    }
+                    changedArtifacts.add(changedArtifact);
+                }
+            }
+            commit = new Commit(commitNumber, committerDate, commitHeader, changedArtifacts);
+        }
+        return commit;
+    }
+
+    /**
+     * Writes the given lines to the given stream preceded by their number.
+     *
+     * @param entryStream the {@link DataOutputStream} writing the cache file
+     * @param lines the lines to write
+     * @throws IOException if writing to the stream fails
+     */
+    private static void writeLines(DataOutputStream entryStream, List<String> lines) throws IOException {
+        entryStream.writeInt(lines.size());
+        for (String line : lines) {
+            writeString(entryStream, line);
+        }
+    }
+
+    /**
+     * Writes the given string to the given stream as the number of its UTF-8 encoded bytes followed by these bytes.
+     * In contrast to {@link DataOutputStream#writeUTF(String)}, this supports strings of arbitrary length.
+     *
+     * @param entryStream the {@link DataOutputStream} writing the cache file
+     * @param string the string to write; may be <code>null</code>
+     * @throws IOException if writing to the stream fails
+     */
+    private static void writeString(DataOutputStream entryStream, String string) throws IOException {
+        if (string == null) {
+            entryStream.writeInt(-1);
+        } else {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            entryStream.writeInt(stringBytes.length);
+            entryStream.write(stringBytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)} from the given stream.
+     *
+     * @param entryStream the {@link DataInputStream} reading the cache file
+     * @return the string read from the stream; may be <code>null</code>
+     * @throws IOException if reading from the stream fails
+     */
+    private static String readString(DataInputStream entryStream) throws IOException {
+        String string = null;
+        int stringBytesCount = entryStream.readInt();
+        if (stringBytesCount >= 0) {
+            byte[] stringBytes = new byte[stringBytesCount];
+            entryStream.readFully(stringBytes);
+            string = new String(stringBytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+}
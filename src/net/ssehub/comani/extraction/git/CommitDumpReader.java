@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class reads commits in the format printed by <code>git log -p</code>, e.g., from a dump created on another
+ * machine, and passes each commit to the given {@link Consumer} as soon as its last line is read. The committer date
+ * requires a dump created with <code>--pretty=fuller</code>; otherwise, the author date is used.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitDumpReader {
+
+    /**
+     * The name of the dump file, which identifies the standard input stream as dump.
+     */
+    static final String STANDARD_INPUT_NAME = "-";
+
+    /**
+     * The committer date of commits without any date in their header.
+     */
+    static final String NO_DATE = "<no_date>";
+
+    /**
+     * The string identifying the first line of a commit, which is followed by the commit number (SHA).
+     */
+    private static final String COMMIT_START_PATTERN = "commit ";
+
+    /**
+     * The string identifying the header line containing the committer date, which Git prints for the
+     * <tt>fuller</tt> format.
+     */
+    private static final String COMMITTER_DATE_PATTERN = "CommitDate:";
+
+    /**
+     * The string identifying the header line containing the author date, which Git prints for the default
+     * (<tt>medium</tt>) format. This date replaces the committer date, if the header does not contain the latter.
+     */
+    private static final String AUTHOR_DATE_PATTERN = "Date:";
+
+    /**
+     * The minimum number of hexadecimal digits of an abbreviated commit number, which Git prints.
+     */
+    private static final int MIN_COMMIT_NUMBER_LENGTH = 4;
+
+    /**
+     * The size of the buffers for reading and decompressing a dump file in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The {@link Reader} providing the commits.
+     */
+    private Reader commitDump;
+
+    /**
+     * The {@link Consumer} receiving each commit as soon as it is completely read.
+     */
+    private Consumer<Commit> commitConsumer;
+
+    /**
+     * The {@link ExtractionMetrics} recording the duration of reading each commit and the size of its content.
+     */
+    private ExtractionMetrics metrics;
+
+    /**
+     * The factory creating the {@link CommitAssembler} of each commit based on its commit number and committer date.
+     */
+    private BiFunction<String, String, CommitAssembler> assemblerFactory;
+
+    /**
+     * The commit number of the commit currently being read or <code>null</code>, if no commit was started yet.
+     */
+    private String commitNumber;
+
+    /**
+     * The lines of the header of the current commit read before its committer date is known or <code>null</code>, if
+     * the {@link #commitAssembler} of the current commit already exists.
+     */
+    private List<String> headerLines;
+
+    /**
+     * The {@link CommitAssembler} of the commit currently being read or <code>null</code>, if its committer date is
+     * not known yet.
+     */
+    private CommitAssembler commitAssembler;
+
+    /**
+     * The time at which reading the current commit started as provided by {@link System#nanoTime()}.
+     */
+    private long commitStartTime;
+
+    /**
+     * The number of characters of the content of the current commit read so far including line terminators.
+     */
+    private long commitSize;
+
+    /**
+     * The number of commits passed to the {@link #commitConsumer} so far.
+     */
+    private int commitCounter;
+
+    /**
+     * The number of commits passed to the {@link #commitConsumer} so far, which have the author date instead of the
+     * committer date, as their header does not contain the latter.
+     */
+    private int authorDateCounter;
+
+    /**
+     * Constructs a new {@link CommitDumpReader}.
+     *
+     * @param commitDump the {@link Reader} providing the commits; should never be <code>null</code>
+     * @param commitConsumer the {@link Consumer} receiving each commit as soon as it is completely read; should never
+     *        be <code>null</code>
+     * @param metrics the {@link ExtractionMetrics} recording the {@link ExtractionMetrics.Phase#STREAM_COMMIT} phase
+     *        and the size of each commit; should never be <code>null</code>
+     * @param assemblerFactory the factory creating a {@link CommitAssembler} for a given commit number and committer
+     *        date; should never be <code>null</code>
+     */
+    CommitDumpReader(Reader commitDump, Consumer<Commit> commitConsumer, ExtractionMetrics metrics,
+            BiFunction<String, String, CommitAssembler> assemblerFactory) {
+        this.commitDump = commitDump;
+        this.commitConsumer = commitConsumer;
+        this.metrics = metrics;
+        this.assemblerFactory = assemblerFactory;
+        commitNumber = null;
+        headerLines = null;
+        commitAssembler = null;
+        commitCounter = 0;
+        authorDateCounter = 0;
+    }
+
+    /**
+     * Opens the given dump file for reading. If the file starts with the magic number of gzip, its content is
+     * decompressed while reading. If the name of the file is {@link #STANDARD_INPUT_NAME}, the dump is read from the
+     * standard input stream.
+     *
+     * @param dumpFile the dump file to be opened
+     * @return the {@link Reader} providing the (decompressed) content of the dump decoded like the output of Git
+     *         using the {@link GitProcess#OUTPUT_CHARSET}; never <code>null</code>
+     * @throws IOException if opening the file or reading its gzip header fails
+     */
+    static Reader openDump(File dumpFile) throws IOException {
+        InputStream dumpStream;
+        if (dumpFile.getPath().equals(STANDARD_INPUT_NAME)) {
+            dumpStream = System.in;
+        } else {
+            dumpStream = new FileInputStream(dumpFile);
+        }
+        InputStream contentStream = new BufferedInputStream(dumpStream, BUFFER_SIZE);
+        try {
+            contentStream.mark(2);
+            int firstByte = contentStream.read();
+            int secondByte = contentStream.read();
+            contentStream.reset();
+            if (firstByte == 0x1f && secondByte == 0x8b) {
+                contentStream = new GZIPInputStream(contentStream, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            contentStream.close();
+            throw e;
+        }
+        return new InputStreamReader(contentStream, GitProcess.OUTPUT_CHARSET);
+    }
+
+    /**
+     * Reads all commits until the end of the {@link #commitDump} is reached. Lines before the first commit are
+     * ignored.
+     *
+     * @return the number of commits passed to the {@link Consumer}
+     * @throws IOException if reading from the dump fails
+     */
+    int read() throws IOException {
+        LineScanner lineScanner = new LineScanner(commitDump);
+        String line = lineScanner.nextLine();
+        while (line != null) {
+            processLine(line);
+            line = lineScanner.nextLine();
+        }
+        if (commitNumber != null) {
+            finishCommit();
+        }
+        return commitCounter;
+    }
+
+    /**
+     * Processes the given line either as the start of a new commit or as the next line of the current commit. The
+     * header lines of the current commit are collected until the first empty line or the first diff, which ends the
+     * lines defining the dates of the commit.
+     *
+     * @param line the line to be processed without its line terminator
+     */
+    private void processLine(String line) {
+        if (isCommitLine(line)) {
+            if (commitNumber != null) {
+                finishCommit();
+            }
+            startCommit(line);
+        } else if (commitNumber != null) {
+            commitSize += line.length() + 1;
+            if (commitAssembler == null) {
+                headerLines.add(line);
+                if (line.isEmpty() || line.startsWith(CommitAssembler.DIFF_HEADER_START_PATTERN)) {
+                    createAssembler();
+                }
+            } else {
+                commitAssembler.addLine(line);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given line is the first line of a commit, which consists of the {@link #COMMIT_START_PATTERN}
+     * followed by a (possibly abbreviated) commit number and optionally further text separated by a space.
+     *
+     * @param line the line to be checked
+     * @return <code>true</code>, if the line starts a new commit; <code>false</code> otherwise
+     */
+    private static boolean isCommitLine(String line) {
+        boolean isCommitLine = false;
+        if (line.startsWith(COMMIT_START_PATTERN)) {
+            int index = COMMIT_START_PATTERN.length();
+            while (index < line.length() && Character.digit(line.charAt(index), 16) != -1) {
+                index++;
+            }
+            isCommitLine = index - COMMIT_START_PATTERN.length() >= MIN_COMMIT_NUMBER_LENGTH
+                    && (index == line.length() || line.charAt(index) == ' ');
+        }
+        return isCommitLine;
+    }
+
+    /**
+     * Starts a new commit identified by the commit number in the given line. Further text after the commit number,
+     * like the references printed by the <code>--decorate</code> option, is ignored.
+     *
+     * @param commitLine the first line of a commit starting with the {@link #COMMIT_START_PATTERN}
+     */
+    private void startCommit(String commitLine) {
+        commitStartTime = System.nanoTime();
+        commitSize = commitLine.length() + 1;
+        int commitNumberEndIndex = commitLine.indexOf(' ', COMMIT_START_PATTERN.length());
+        if (commitNumberEndIndex == -1) {
+            commitNumberEndIndex = commitLine.length();
+        }
+        commitNumber = commitLine.substring(COMMIT_START_PATTERN.length(), commitNumberEndIndex);
+        headerLines = new ArrayList<String>();
+        headerLines.add(commitLine);
+        commitAssembler = null;
+    }
+
+    /**
+     * Creates the {@link #commitAssembler} of the current commit based on the committer date in its
+     * {@link #headerLines} and passes these lines to it.
+     */
+    private void createAssembler() {
+        if (!containsLine(headerLines, COMMITTER_DATE_PATTERN) && containsLine(headerLines, AUTHOR_DATE_PATTERN)) {
+            authorDateCounter++;
+        }
+        commitAssembler = assemblerFactory.apply(commitNumber, getCommitterDate(headerLines));
+        for (String headerLine : headerLines) {
+            commitAssembler.addLine(headerLine);
+        }
+        headerLines = null;
+    }
+
+    /**
+     * Checks whether one of the given header lines starts with the given pattern.
+     *
+     * @param commitHeaderLines the header lines of a commit
+     * @param pattern the start of the line to be found
+     * @return <code>true</code>, if at least one line starts with the pattern; <code>false</code> otherwise
+     */
+    private static boolean containsLine(List<String> commitHeaderLines, String pattern) {
+        boolean containsLine = false;
+        for (int i = 0; !containsLine && i < commitHeaderLines.size(); i++) {
+            containsLine = commitHeaderLines.get(i).startsWith(pattern);
+        }
+        return containsLine;
+    }
+
+    /**
+     * Returns the committer date defined by the given header lines. If these lines do not contain a committer date,
+     * the author date is returned instead. Dates in the default format of Git are converted to the ISO-like format
+     * used by <code>%ci</code>; dates in other formats are returned as printed.
+     *
+     * @param commitHeaderLines the header lines of a commit
+     * @return the committer date or {@link #NO_DATE}, if the given lines neither contain a committer date nor an
+     *         author date
+     */
+    private static String getCommitterDate(List<String> commitHeaderLines) {
+        String committerDate = null;
+        String authorDate = null;
+        for (String headerLine : commitHeaderLines) {
+            if (headerLine.startsWith(COMMITTER_DATE_PATTERN)) {
+                committerDate = headerLine.substring(COMMITTER_DATE_PATTERN.length()).trim();
+            } else if (headerLine.startsWith(AUTHOR_DATE_PATTERN)) {
+                authorDate = headerLine.substring(AUTHOR_DATE_PATTERN.length()).trim();
+            }
+        }
+        if (committerDate == null) {
+            committerDate = authorDate;
+        }
+        return committerDate == null ? NO_DATE : toIsoDate(committerDate);
+    }
+
+    /**
+     * Converts the given date from the default format of Git, like "<tt>Mon Oct 2 14:03:59 2023 +0200</tt>", to the
+     * ISO-like format used by <code>%ci</code>, like "<tt>2023-10-02 14:03:59 +0200</tt>".
+     *
+     * @param date the date to be converted
+     * @return the converted date or the given date, if it is not in the default format
+     */
+    private static String toIsoDate(String date) {
+        String isoDate = date;
+        String[] dateParts = date.split(" +");
+        if (dateParts.length == 6 && dateParts[2].matches("\\d{1,2}") && dateParts[3].matches("\\d\\d:\\d\\d:\\d\\d")
+                && dateParts[4].matches("\\d{1,9}")) {
+            int month = Arrays.asList(CommitPrinter.MONTH_NAMES).indexOf(dateParts[1]) + 1;
+            if (month > 0) {
+                isoDate = String.format("%04d-%02d-%02d %s %s", Integer.parseInt(dateParts[4]), month,
+                        Integer.parseInt(dateParts[2]), dateParts[3], dateParts[5]);
+            }
+        }
+        return isoDate;
+    }
+
+    /**
+     * Creates the current commit and passes it to the {@link #commitConsumer}.
+     */
+    private void finishCommit() {
+        if (commitAssembler == null) {
+            // The commit ended before its header, e.g., in a truncated dump
+            createAssembler();
+        }
+        Commit commit = commitAssembler.getCommit();
+        metrics.record(ExtractionMetrics.Phase.STREAM_COMMIT, commitStartTime);
+        metrics.recordOutputSize(commitNumber, commitSize);
+        commitConsumer.accept(commit);
+        commitNumber = null;
+        commitAssembler = null;
+        commitCounter++;
+    }
+
+    /**
+     * Returns the number of commits read so far, which have the author date instead of the committer date, as the
+     * dump was not created with <code>--pretty=fuller</code>.
+     *
+     * @return the number of commits with the author date
+     */
+    int getAuthorDateCount() {
+        return authorDateCounter;
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.data.IExtractionQueue;
+
+/**
+ * This class hands commits over to an {@link IExtractionQueue}, which rejects commits while it is full. Rejected
+ * commits are buffered up to a number of bytes; beyond that, the adding thread waits until the queue accepted enough of
+ * them.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitHandoff {
+
+    /**
+     * The duration of the first wait of a blocked thread in nanoseconds.
+     */
+    private static final long MIN_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    /**
+     * The maximum duration of a single wait of a blocked thread in nanoseconds.
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The {@link IExtractionQueue} receiving the commits.
+     */
+    private IExtractionQueue commitQueue;
+
+    /**
+     * The maximum estimated size of all buffered commits in bytes. A single commit is buffered regardless of its size.
+     */
+    private long maxPendingBytes;
+
+    /**
+     * The lock serializing the access to the {@link #commitQueue}, which does not guarantee to support concurrent
+     * additions, and to the buffered commits.
+     */
+    private ReentrantLock lock;
+
+    /**
+     * The {@link Condition} of the {@link #lock} signaled whenever buffered commits are added to the
+     * {@link #commitQueue}.
+     */
+    private Condition delivered;
+
+    /**
+     * The commits rejected by the {@link #commitQueue} so far in the order of their addition.
+     */
+    private Queue<PendingCommit> pendingCommits;
+
+    /**
+     * The estimated size of the {@link #pendingCommits} in bytes.
+     */
+    private long pendingBytes;
+
+    /**
+     * Constructs a new {@link CommitHandoff}.
+     *
+     * @param commitQueue the {@link IExtractionQueue} receiving the commits
+     * @param maxPendingBytes the maximum estimated size of all commits buffered while the queue rejects them in bytes
+     */
+    CommitHandoff(IExtractionQueue commitQueue, long maxPendingBytes) {
+        this.commitQueue = commitQueue;
+        this.maxPendingBytes = maxPendingBytes;
+        lock = new ReentrantLock();
+        delivered = lock.newCondition();
+        pendingCommits = new ArrayDeque<PendingCommit>();
+        pendingBytes = 0;
+    }
+
+    /**
+     * Adds the given commit to the commit queue after all commits buffered before. If the queue rejects it, the commit
+     * is buffered. If buffering it would exceed the budget of this handoff, this method blocks until enough buffered
+     * commits were added to the queue. Interrupting the calling thread does not abort waiting, as the commit would be
+     * lost otherwise; the interrupt status of the thread is restored afterwards.
+     *
+     * @param commit the {@link Commit} to be added to the commit queue
+     * @param deliveryAction the action to be executed directly after the commit was added to the queue, which may
+     *        happen in another thread calling this method or {@link #flush()}
+     * @return <code>true</code>, if the calling thread was blocked; <code>false</code> otherwise
+     */
+    boolean add(Commit commit, Runnable deliveryAction) {
+        long size = CommitWorkerPool.estimateSize(commit);
+        boolean stalled = false;
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            deliverPending();
+            long waitNanos = MIN_WAIT_NANOS;
+            while (!pendingCommits.isEmpty() && pendingBytes + size > maxPendingBytes) {
+                stalled = true;
+                interrupted |= awaitDelivery(waitNanos);
+                waitNanos = Math.min(waitNanos * 2, MAX_WAIT_NANOS);
+                deliverPending();
+            }
+            pendingCommits.add(new PendingCommit(commit, size, deliveryAction));
+            pendingBytes += size;
+            deliverPending();
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return stalled;
+    }
+
+    /**
+     * Blocks until all buffered commits are added to the commit queue. Like {@link #add(Commit, Runnable)}, waiting
+     * is not aborted by interrupting the calling thread.
+     */
+    void flush() {
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            deliverPending();
+            long waitNanos = MIN_WAIT_NANOS;
+            while (!pendingCommits.isEmpty()) {
+                interrupted |= awaitDelivery(waitNanos);
+                waitNanos = Math.min(waitNanos * 2, MAX_WAIT_NANOS);
+                deliverPending();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the estimated size of all commits currently buffered.
+     *
+     * @return the estimated size of the buffered commits in bytes
+     */
+    long getPendingBytes() {
+        long bytes;
+        lock.lock();
+        try {
+            bytes = pendingBytes;
+        } finally {
+            lock.unlock();
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds the buffered commits to the commit queue in the order of their addition, until the queue rejects one, and
+     * executes their delivery actions. Threads waiting for the delivery are signaled, if at least one commit was added.
+     * The caller must hold the {@link #lock}.
+     */
+    private void deliverPending() {
+        boolean deliveredAny = false;
+        PendingCommit pendingCommit = pendingCommits.peek();
+        while (pendingCommit != null && commitQueue.addCommit(pendingCommit.commit)) {
+            pendingCommits.remove();
+            pendingBytes -= pendingCommit.size;
+            pendingCommit.deliveryAction.run();
+            deliveredAny = true;
+            pendingCommit = pendingCommits.peek();
+        }
+        if (deliveredAny) {
+            delivered.signalAll();
+        }
+    }
+
+    /**
+     * Releases the {@link #lock} and waits for the delivery of buffered commits by another thread or, at most, for
+     * the given duration. The caller must hold the {@link #lock}, which is acquired again before returning.
+     *
+     * @param waitNanos the maximum duration to wait in nanoseconds
+     * @return <code>true</code>, if the calling thread was interrupted while waiting; <code>false</code> otherwise
+     */
+    private boolean awaitDelivery(long waitNanos) {
+        boolean interrupted = false;
+        try {
+            delivered.awaitNanos(waitNanos);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        return interrupted;
+    }
+
+    /**
+     * This class represents a commit rejected by the commit queue, which waits in the buffer of the
+     * {@link CommitHandoff}.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class PendingCommit {
+
+        /**
+         * The buffered commit.
+         */
+        private Commit commit;
+
+        /**
+         * The estimated size of the {@link #commit} in bytes.
+         */
+        private long size;
+
+        /**
+         * The action to be executed after adding the {@link #commit} to the commit queue.
+         */
+        private Runnable deliveryAction;
+
+        /**
+         * Constructs a new {@link PendingCommit}.
+         *
+         * @param commit the buffered commit
+         * @param size the estimated size of the commit in bytes
+         * @param deliveryAction the action to be executed after adding the commit to the commit queue
+         */
+        private PendingCommit(Commit commit, long size, Runnable deliveryAction) {
+            this.commit = commit;
+            this.size = size;
+            this.deliveryAction = deliveryAction;
+        }
+
+    }
+
+}
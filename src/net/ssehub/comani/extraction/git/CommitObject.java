@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a commit object read by the {@link ObjectDatabase}. It provides the parts of the commit
+ * required to reproduce the output of <code>git show</code>: the tree, the parents, the author and committer
+ * identities, the declared message encoding, and the raw message.
+ *
+ * @author Christian Kroeher
+ *
+ */
+final class CommitObject {
+
+    /**
+     * The name of this commit.
+     */
+    private ObjectId commitId;
+
+    /**
+     * The name of the tree of this commit.
+     */
+    private ObjectId treeId;
+
+    /**
+     * The names of the parent commits of this commit in the order of their declaration.
+     */
+    private List<ObjectId> parentIds;
+
+    /**
+     * The raw author line of this commit without the leading "<tt>author </tt>" or <code>null</code>, if the commit
+     * does not declare an author.
+     */
+    private byte[] author;
+
+    /**
+     * The raw committer line of this commit without the leading "<tt>committer </tt>" or <code>null</code>, if the
+     * commit does not declare a committer.
+     */
+    private byte[] committer;
+
+    /**
+     * The value of the "<tt>encoding</tt>" header of this commit or <code>null</code>, if the commit does not declare
+     * an encoding.
+     */
+    private String encoding;
+
+    /**
+     * The raw message of this commit, which are all bytes after the first empty line of the commit object.
+     */
+    private byte[] message;
+
+    /**
+     * Constructs a new {@link CommitObject} by parsing the given content of a commit object.
+     *
+     * @param commitId the name of the commit
+     * @param data the content of the commit object
+     * @throws IOException if the given content is not a valid commit object
+     */
+    CommitObject(ObjectId commitId, byte[] data) throws IOException {
+        this.commitId = commitId;
+        parentIds = new ArrayList<ObjectId>(2);
+        message = new byte[0];
+        int lineStart = 0;
+        boolean headerEnd = false;
+        while (!headerEnd && lineStart < data.length) {
+            int lineEnd = indexOf(data, (byte) '\n', lineStart);
+            if (lineEnd == lineStart) {
+                headerEnd = true;
+                message = Arrays.copyOfRange(data, lineEnd + 1, data.length);
+            } else {
+                parseHeaderLine(data, lineStart, lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (treeId == null) {
+            throw new IOException("Commit " + commitId + " has no valid tree");
+        }
+        parentIds = Collections.unmodifiableList(parentIds);
+    }
+
+    /**
+     * Parses a single line of the header of a commit object. Headers other than the tree, the parents, the author,
+     * the committer, and the encoding are ignored. Like Git, only the first author, committer, and encoding header
+     * are considered, while parents are only accepted directly after the tree.
+     *
+     * @param data the content of the commit object
+     * @param lineStart the index of the first byte of the line
+     * @param lineEnd the index of the line feed terminating the line
+     * @throws IOException if the tree or a parent header is invalid
+     */
+    private void parseHeaderLine(byte[] data, int lineStart, int lineEnd) throws IOException {
+        if (startsWith(data, lineStart, "tree ") && treeId == null) {
+            treeId = parseObjectId(data, lineStart + 5, lineEnd);
+        } else if (startsWith(data, lineStart, "parent ") && author == null && committer == null) {
+            parentIds.add(parseObjectId(data, lineStart + 7, lineEnd));
+        } else if (startsWith(data, lineStart, "author ") && author == null) {
+            author = Arrays.copyOfRange(data, lineStart + 7, lineEnd);
+        } else if (startsWith(data, lineStart, "committer ") && committer == null) {
+            committer = Arrays.copyOfRange(data, lineStart + 10, lineEnd);
+        } else if (startsWith(data, lineStart, "encoding ") && encoding == null) {
+            encoding = new String(data, lineStart + 9, lineEnd - lineStart - 9, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parses the hexadecimal object name of a tree or parent header.
+     *
+     * @param data the content of the commit object
+     * @param start the index of the first hexadecimal digit of the object name
+     * @param end the index of the line feed terminating the header
+     * @return the object name; never <code>null</code>
+     * @throws IOException if the header does not contain a valid object name
+     */
+    private ObjectId parseObjectId(byte[] data, int start, int end) throws IOException {
+        ObjectId objectId = (end - start == ObjectId.HEX_LENGTH) ? ObjectId.fromHex(data, start) : null;
+        if (objectId == null) {
+            throw new IOException("Commit " + commitId + " has an invalid header");
+        }
+        return objectId;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given byte in the given array starting at the given index.
+     *
+     * @param data the array to search in
+     * @param value the byte to search for
+     * @param start the index to start the search at
+     * @return the index of the byte or the length of the array, if the byte does not occur
+     */
+    static int indexOf(byte[] data, byte value, int start) {
+        int index = start;
+        while (index < data.length && data[index] != value) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the given array contains the given ASCII prefix at the given index.
+     *
+     * @param data the array to check
+     * @param start the index of the first byte to compare
+     * @param prefix the ASCII prefix
+     * @return <code>true</code>, if the array contains the prefix at the given index; <code>false</code> otherwise
+     */
+    private static boolean startsWith(byte[] data, int start, String prefix) {
+        boolean matches = start + prefix.length() <= data.length;
+        for (int i = 0; matches && i < prefix.length(); i++) {
+            matches = data[start + i] == prefix.charAt(i);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the name of this commit.
+     *
+     * @return the name of this commit; never <code>null</code>
+     */
+    ObjectId getCommitId() {
+        return commitId;
+    }
+
+    /**
+     * Returns the name of the tree of this commit.
+     *
+     * @return the name of the tree; never <code>null</code>
+     */
+    ObjectId getTreeId() {
+        return treeId;
+    }
+
+    /**
+     * Returns the names of the parent commits of this commit.
+     *
+     * @return the unmodifiable list of parent names in the order of their declaration; never <code>null</code> but
+     *         may be <i>empty</i>
+     */
+    List<ObjectId> getParentIds() {
+        return parentIds;
+    }
+
+    /**
+     * Returns the raw author identity of this commit, which consists of the name, the e-mail address in angle
+     * brackets, the timestamp, and the time zone.
+     *
+     * @return the raw author identity or <code>null</code>, if the commit does not declare an author
+     */
+    byte[] getAuthor() {
+        return author;
+    }
+
+    /**
+     * Returns the raw committer identity of this commit, which consists of the name, the e-mail address in angle
+     * brackets, the timestamp, and the time zone.
+     *
+     * @return the raw committer identity or <code>null</code>, if the commit does not declare a committer
+     */
+    byte[] getCommitter() {
+        return committer;
+    }
+
+    /**
+     * Returns the encoding declared by this commit.
+     *
+     * @return the value of the "<tt>encoding</tt>" header or <code>null</code>, if the commit does not declare an
+     *         encoding
+     */
+    String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the raw message of this commit.
+     *
+     * @return the raw message; never <code>null</code>; the array must not be changed
+     */
+    byte[] getMessage() {
+        return message;
+    }
+
+}
@@ -0,0 +1,845 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class prints a commit in the same format as <code>git show -U100000 --no-renames</code> does: the commit line,
+ * the merge line, the author and date lines, the indented message, and the diff of all changed files. The diff of
+ * merge commits is printed as dense combined diff.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitPrinter {
+
+    /**
+     * The abbreviated week day names used by Git.
+     */
+    private static final String[] WEEKDAY_NAMES = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+
+    /**
+     * The abbreviated month names used by Git.
+     */
+    static final String[] MONTH_NAMES = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+        "Nov", "Dec"};
+
+    /**
+     * The number of columns Git expands tabs in commit messages to.
+     */
+    private static final int TAB_WIDTH = 8;
+
+    /**
+     * The number of spaces Git indents commit message lines with.
+     */
+    private static final int MESSAGE_INDENT = 4;
+
+    /**
+     * The maximum number of parents, for which the combined diff can be computed.
+     */
+    private static final int MAX_PARENTS = Long.SIZE - 2;
+
+    /**
+     * The ranges of code points displayed with double width, which are the wide and full-width ranges of the East
+     * Asian Width property of Unicode.
+     */
+    private static final int[][] DOUBLE_WIDTH_RANGES = {{0x1100, 0x115F}, {0x231A, 0x231B}, {0x2329, 0x232A},
+        {0x23E9, 0x23EC}, {0x23F0, 0x23F0}, {0x23F3, 0x23F3}, {0x25FD, 0x25FE}, {0x2614, 0x2615}, {0x2648, 0x2653},
+        {0x267F, 0x267F}, {0x2693, 0x2693}, {0x26A1, 0x26A1}, {0x26AA, 0x26AB}, {0x26BD, 0x26BE}, {0x26C4, 0x26C5},
+        {0x26CE, 0x26CE}, {0x26D4, 0x26D4}, {0x26EA, 0x26EA}, {0x26F2, 0x26F3}, {0x26F5, 0x26F5}, {0x26FA, 0x26FA},
+        {0x26FD, 0x26FD}, {0x2705, 0x2705}, {0x270A, 0x270B}, {0x2728, 0x2728}, {0x274C, 0x274C}, {0x274E, 0x274E},
+        {0x2753, 0x2755}, {0x2757, 0x2757}, {0x2795, 0x2797}, {0x27B0, 0x27B0}, {0x27BF, 0x27BF}, {0x2B1B, 0x2B1C},
+        {0x2B50, 0x2B50}, {0x2B55, 0x2B55}, {0x2E80, 0x303E}, {0x3041, 0x33FF}, {0x3400, 0x4DBF}, {0x4E00, 0x9FFF},
+        {0xA000, 0xA4CF}, {0xA960, 0xA97F}, {0xAC00, 0xD7A3}, {0xF900, 0xFAFF}, {0xFE10, 0xFE19}, {0xFE30, 0xFE6F},
+        {0xFF00, 0xFF60}, {0xFFE0, 0xFFE6}, {0x16FE0, 0x16FE4}, {0x17000, 0x18CFF}, {0x1B000, 0x1B2FF},
+        {0x1F004, 0x1F004}, {0x1F0CF, 0x1F0CF}, {0x1F18E, 0x1F18E}, {0x1F191, 0x1F19A}, {0x1F200, 0x1F251},
+        {0x1F300, 0x1F64F}, {0x1F680, 0x1F6FF}, {0x1F7E0, 0x1F7EB}, {0x1F90C, 0x1F9FF}, {0x1FA70, 0x1FAFF},
+        {0x20000, 0x2FFFD}, {0x30000, 0x3FFFD}};
+
+    /**
+     * The {@link ObjectDatabase} providing the commits, trees, and files.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * The {@link MailMap} applied to author identities or <code>null</code>, if the repository does not define one.
+     */
+    private MailMap mailMap;
+
+    /**
+     * The names of the commits, which are the boundary of a shallow repository and, hence, are treated as commits
+     * without parents.
+     */
+    private Set<ObjectId> shallowCommits;
+
+    /**
+     * The names of the blobs containing the notes of the default notes reference with the names of the annotated
+     * commits as keys.
+     */
+    private Map<ObjectId, ObjectId> notes;
+
+    /**
+     * The {@link TreeDiff} computing the changed files of commits.
+     */
+    private TreeDiff treeDiff;
+
+    /**
+     * The {@link PathFilter} restricting the changed files printed by {@link #print(CommitObject, byte[], int)} or
+     * <code>null</code>, if all changed files are printed.
+     */
+    private PathFilter pathFilter;
+
+    /**
+     * Constructs a new {@link CommitPrinter}.
+     *
+     * @param objectDatabase the {@link ObjectDatabase} providing the commits, trees, and files
+     * @param mailMap the {@link MailMap} applied to author identities or <code>null</code>, if there is none
+     * @param shallowCommits the names of the commits, which are treated as commits without parents; never
+     *        <code>null</code> but may be <i>empty</i>
+     * @param notes the names of the blobs containing the notes shown below the messages of commits with the names of
+     *        the annotated commits as keys; never <code>null</code> but may be <i>empty</i>
+     * @param pathFilter the {@link PathFilter} restricting the printed changed files like the pathspecs of
+     *        <code>git show</code> do; may be <code>null</code>, if all changed files shall be printed
+     */
+    CommitPrinter(ObjectDatabase objectDatabase, MailMap mailMap, Set<ObjectId> shallowCommits,
+            Map<ObjectId, ObjectId> notes, PathFilter pathFilter) {
+        this.objectDatabase = objectDatabase;
+        this.mailMap = mailMap;
+        this.shallowCommits = shallowCommits;
+        this.notes = notes;
+        this.pathFilter = pathFilter;
+        treeDiff = new TreeDiff(objectDatabase);
+    }
+
+    /**
+     * Prints the given commit. If a {@link #pathFilter} exists, only the changed files included by that filter are
+     * printed.
+     *
+     * @param commit the parsed commit
+     * @param data the raw content of the commit object
+     * @param contextLines the number of context lines around changed lines of non-merge commits; the combined diff of
+     *        merge commits is always printed with {@link PatchPrinter#CONTEXT_LINES} context lines
+     * @return the printed commit; never <code>null</code>
+     * @throws IOException if reading the commit, its trees, or its files fails
+     */
+    byte[] print(CommitObject commit, byte[] data, int contextLines) throws IOException {
+        List<ObjectId> parentIds = getParentIds(commit);
+        if (parentIds.size() > MAX_PARENTS) {
+            throw new IOException("Commit " + commit.getCommitId() + " has too many parents");
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PatchPrinter.writeAscii(output, "commit " + commit.getCommitId().toHex() + "\n");
+        byte[] header = printHeader(reencode(data, commit.getEncoding()), parentIds);
+        output.write(header);
+        ObjectId noteId = notes.get(commit.getCommitId());
+        if (noteId != null) {
+            printNote(objectDatabase.read(noteId, GitObject.TYPE_BLOB), output);
+        }
+        if (parentIds.size() > 1) {
+            PatchPrinter.writeAscii(output, "\n");
+            printCombinedDiff(commit, parentIds, output);
+        } else {
+            List<TreeDiff.Change> changes = new ArrayList<TreeDiff.Change>();
+            for (TreeDiff.Change change : getChanges(commit, parentIds)) {
+                if (isIncluded(change)) {
+                    changes.add(change);
+                }
+            }
+            if (!changes.isEmpty()) {
+                PatchPrinter.writeAscii(output, "\n");
+                PatchPrinter patchPrinter = new PatchPrinter(objectDatabase, output, contextLines);
+                for (TreeDiff.Change change : changes) {
+                    patchPrinter.print(change);
+                }
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Prints the given note below the message of a commit like Git does: each line of the note is indented, but,
+     * unlike the message, neither trimmed nor expanded.
+     *
+     * @param note the content of the note blob
+     * @param output the stream to print to
+     * @throws IOException if writing to the stream fails
+     */
+    private static void printNote(byte[] note, ByteArrayOutputStream output) throws IOException {
+        PatchPrinter.writeAscii(output, "\nNotes:\n");
+        int end = note.length;
+        if (end > 0 && note[end - 1] == '\n') {
+            end--;
+        }
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = Math.min(CommitObject.indexOf(note, (byte) '\n', lineStart), end);
+            PatchPrinter.writeAscii(output, "    ");
+            output.write(note, lineStart, lineEnd - lineStart);
+            output.write('\n');
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Prints the diffs of the given changed files of the given non-merge commit with
+     * {@link PatchPrinter#CONTEXT_LINES} context lines like
+     * <code>git show -U100000 --no-renames --format= &lt;commit&gt; -- &lt;paths&gt;</code> does.
+     *
+     * @param commit the parsed commit
+     * @param paths the paths of the changed files to be printed relative to the root of the repository
+     * @return the printed diffs, which are <i>empty</i>, if none of the given files is changed; never
+     *         <code>null</code>
+     * @throws IOException if the commit is a merge commit or reading its trees or its files fails
+     */
+    byte[] printPatches(CommitObject commit, Set<String> paths) throws IOException {
+        List<ObjectId> parentIds = getParentIds(commit);
+        if (parentIds.size() > 1) {
+            throw new IOException("Commit " + commit.getCommitId() + " is a merge commit");
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PatchPrinter patchPrinter = new PatchPrinter(objectDatabase, output, PatchPrinter.CONTEXT_LINES);
+        for (TreeDiff.Change change : getChanges(commit, parentIds)) {
+            if (paths.contains(new String(change.getPath(), StandardCharsets.UTF_8))) {
+                patchPrinter.print(change);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Checks whether the given changed file is included by the {@link #pathFilter}.
+     *
+     * @param change the changed file
+     * @return <code>true</code>, if no {@link #pathFilter} exists or it matches the path of the changed file;
+     *         <code>false</code> otherwise
+     */
+    private boolean isIncluded(TreeDiff.Change change) {
+        return pathFilter == null || pathFilter.matches(new String(change.getPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the changed files of the given non-merge commit.
+     *
+     * @param commit the parsed commit
+     * @param parentIds the names of the parents of the commit as returned by {@link #getParentIds(CommitObject)}
+     * @return the changed files; never <code>null</code> but may be <i>empty</i>
+     * @throws IOException if reading the trees fails
+     */
+    private List<TreeDiff.Change> getChanges(CommitObject commit, List<ObjectId> parentIds) throws IOException {
+        ObjectId parentTreeId = null;
+        if (!parentIds.isEmpty()) {
+            parentTreeId = readCommit(parentIds.get(0)).getTreeId();
+        }
+        return treeDiff.diff(parentTreeId, commit.getTreeId());
+    }
+
+    /**
+     * Returns the parents of the given commit, which are considered for printing. Commits at the boundary of a shallow
+     * repository have no parents.
+     *
+     * @param commit the commit
+     * @return the names of the parents; never <code>null</code> but may be <i>empty</i>
+     */
+    List<ObjectId> getParentIds(CommitObject commit) {
+        List<ObjectId> parentIds = commit.getParentIds();
+        if (shallowCommits.contains(commit.getCommitId())) {
+            parentIds = new ArrayList<ObjectId>(0);
+        }
+        return parentIds;
+    }
+
+    /**
+     * Reads and parses the given commit.
+     *
+     * @param commitId the name of the commit
+     * @return the parsed commit; never <code>null</code>
+     * @throws IOException if reading or parsing the commit fails
+     */
+    private CommitObject readCommit(ObjectId commitId) throws IOException {
+        return new CommitObject(commitId, objectDatabase.read(commitId, GitObject.TYPE_COMMIT));
+    }
+
+    /**
+     * Converts the given commit content to UTF-8, if the commit declares a different encoding. Like Git, the original
+     * content is kept, if the conversion fails.
+     *
+     * @param data the raw content of the commit object
+     * @param encoding the encoding declared by the commit or <code>null</code>, if the commit does not declare one
+     * @return the converted content; never <code>null</code>
+     */
+    private static byte[] reencode(byte[] data, String encoding) {
+        byte[] reencodedData = data;
+        if (encoding != null && !encoding.equalsIgnoreCase("utf-8") && !encoding.equalsIgnoreCase("utf8")) {
+            try {
+                CharBuffer characters = Charset.forName(encoding).newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(data, 0, CommitObject.indexOf(data, (byte) 0, 0)));
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(characters);
+                reencodedData = new byte[bytes.remaining()];
+                bytes.get(reencodedData);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException | CharacterCodingException e) {
+                reencodedData = data;
+            }
+        }
+        return reencodedData;
+    }
+
+    /**
+     * Prints the header and message part of a commit, which starts with the merge or author line and ends with the
+     * last non-blank line of the indented message.
+     *
+     * @param data the content of the commit object in UTF-8
+     * @param parentIds the names of the parents of the commit
+     * @return the printed header and message; never <code>null</code>
+     * @throws IOException if abbreviating the parent names fails
+     */
+    private byte[] printHeader(byte[] data, List<ObjectId> parentIds) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int end = CommitObject.indexOf(data, (byte) 0, 0);
+        int lineStart = 0;
+        boolean mergeLinePrinted = false;
+        boolean headerEnd = false;
+        while (!headerEnd && lineStart < end) {
+            int lineEnd = Math.min(CommitObject.indexOf(data, (byte) '\n', lineStart), end);
+            headerEnd = lineEnd == lineStart;
+            if (!headerEnd && !startsWith(data, lineStart, "parent ")) {
+                if (!mergeLinePrinted && parentIds.size() > 1) {
+                    StringBuilder mergeLine = new StringBuilder("Merge:");
+                    for (ObjectId parentId : parentIds) {
+                        mergeLine.append(' ').append(objectDatabase.abbreviate(parentId));
+                    }
+                    PatchPrinter.writeAscii(header, mergeLine.append('\n').toString());
+                }
+                mergeLinePrinted = true;
+                if (startsWith(data, lineStart, "author ")) {
+                    printAuthor(data, lineStart + 7, lineEnd, header);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        header.write('\n');
+        printMessage(data, Math.min(lineStart, end), end, header);
+        byte[] printedHeader = header.toByteArray();
+        int length = printedHeader.length;
+        while (length > 0 && MailMap.isSpace(printedHeader[length - 1])) {
+            length--;
+        }
+        byte[] trimmedHeader = new byte[length + 1];
+        System.arraycopy(printedHeader, 0, trimmedHeader, 0, length);
+        trimmedHeader[length] = '\n';
+        return trimmedHeader;
+    }
+
+    /**
+     * Prints the author and date lines for the given author identity. Author identities, which cannot be split into
+     * name and e-mail address, are omitted like in Git.
+     *
+     * @param data the content of the commit object
+     * @param start the index of the first byte of the identity
+     * @param end the index after the last byte of the identity
+     * @param header the stream to print to
+     * @throws IOException if writing to the stream fails
+     */
+    private void printAuthor(byte[] data, int start, int end, ByteArrayOutputStream header) throws IOException {
+        int[] identity = splitIdentity(data, start, end);
+        if (identity != null) {
+            byte[][] nameAndEmail = {copy(data, identity[0], identity[1]), copy(data, identity[2], identity[3])};
+            if (mailMap != null) {
+                mailMap.map(nameAndEmail);
+            }
+            PatchPrinter.writeAscii(header, "Author: ");
+            header.write(nameAndEmail[0]);
+            PatchPrinter.writeAscii(header, " <");
+            header.write(nameAndEmail[1]);
+            PatchPrinter.writeAscii(header, ">\nDate:   " + formatDate(data, identity, false) + "\n");
+        }
+    }
+
+    /**
+     * Prints the message of a commit. Leading blank lines are skipped, trailing whitespace is removed from each line,
+     * and each line is indented and has its tabs expanded.
+     *
+     * @param data the content of the commit object
+     * @param start the index of the first byte of the message
+     * @param end the index after the last byte of the message
+     * @param header the stream to print to
+     */
+    private static void printMessage(byte[] data, int start, int end, ByteArrayOutputStream header) {
+        boolean first = true;
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = Math.min(CommitObject.indexOf(data, (byte) '\n', lineStart), end);
+            int contentEnd = lineEnd;
+            while (contentEnd > lineStart && MailMap.isSpace(data[contentEnd - 1])) {
+                contentEnd--;
+            }
+            if (contentEnd > lineStart || !first) {
+                first = false;
+                for (int i = 0; i < MESSAGE_INDENT; i++) {
+                    header.write(' ');
+                }
+                expandTabs(data, lineStart, contentEnd, header);
+                header.write('\n');
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Prints the given line with tabs expanded in the same way as Git does: each tab is replaced by the number of
+     * spaces required to fill the display width of the text since the previous tab up to the next tab stop.
+     *
+     * @param data the array containing the line
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @param header the stream to print to
+     */
+    private static void expandTabs(byte[] data, int start, int end, ByteArrayOutputStream header) {
+        int segmentStart = start;
+        int tab = indexOf(data, (byte) '\t', segmentStart, end);
+        while (tab < end) {
+            header.write(data, segmentStart, tab - segmentStart);
+            int spaces = TAB_WIDTH - (getDisplayWidth(data, segmentStart, tab, end) % TAB_WIDTH);
+            for (int i = 0; i < spaces; i++) {
+                header.write(' ');
+            }
+            segmentStart = tab + 1;
+            tab = indexOf(data, (byte) '\t', segmentStart, end);
+        }
+        header.write(data, segmentStart, end - segmentStart);
+    }
+
+    /**
+     * Returns the given line with tabs expanded like {@link #expandTabs(byte[], int, int, ByteArrayOutputStream)}.
+     * This enables expanding the tabs of commit messages, which Git prints without expansion for placeholders like
+     * "<tt>%B</tt>".
+     *
+     * @param line the line without indentation
+     * @return the line with expanded tabs; the given line, if it does not contain tabs
+     */
+    static String expandTabs(String line) {
+        String expandedLine = line;
+        if (line.indexOf('\t') != -1) {
+            byte[] data = line.getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream expandedData = new ByteArrayOutputStream(data.length + TAB_WIDTH);
+            expandTabs(data, 0, data.length, expandedData);
+            expandedLine = new String(expandedData.toByteArray(), StandardCharsets.UTF_8);
+        }
+        return expandedLine;
+    }
+
+    /**
+     * Returns the display width of the given UTF-8 text. Like Git, ANSI color sequences are skipped, control
+     * characters have no width, and the number of bytes is returned for text, which is not valid UTF-8.
+     *
+     * @param data the array containing the text
+     * @param start the index of the first byte of the text
+     * @param end the index after the last byte of the text
+     * @param limit the index, up to which bytes may be read for decoding the last character
+     * @return the display width of the text
+     */
+    private static int getDisplayWidth(byte[] data, int start, int end, int limit) {
+        int width = 0;
+        int index = start;
+        while (index != -1 && index < end) {
+            index = skipColorSequences(data, index, limit);
+            int codePoint = -1;
+            int first = (index < limit) ? data[index] & 0xFF : 0;
+            if (first < 0x80) {
+                codePoint = first;
+                index++;
+            } else if ((first & 0xE0) == 0xC0 && (first & 0xFE) != 0xC0) {
+                codePoint = decode(data, index, limit, 2, first & 0x1F);
+                index += 2;
+            } else if ((first & 0xF0) == 0xE0) {
+                codePoint = decode(data, index, limit, 3, first & 0x0F);
+                index += 3;
+                if (codePoint < 0x800 || (codePoint >= 0xD800 && codePoint <= 0xDFFF) || codePoint >= 0xFFFE) {
+                    codePoint = -1;
+                }
+            } else if ((first & 0xF8) == 0xF0) {
+                codePoint = decode(data, index, limit, 4, first & 0x07);
+                index += 4;
+                if (codePoint < 0x10000 || codePoint > 0x10FFFF) {
+                    codePoint = -1;
+                }
+            }
+            if (codePoint == -1) {
+                index = -1;
+            } else {
+                width += getWidth(codePoint);
+            }
+        }
+        return (index == -1) ? end - start : width;
+    }
+
+    /**
+     * Skips ANSI color sequences, like "<tt>ESC[31m</tt>", at the given index.
+     *
+     * @param data the array containing the text
+     * @param start the index to skip the sequences at
+     * @param limit the index after the last byte, which may be read
+     * @return the index after the skipped sequences
+     */
+    private static int skipColorSequences(byte[] data, int start, int limit) {
+        int index = start;
+        boolean skipped = true;
+        while (skipped) {
+            int sequenceEnd = index + 2;
+            skipped = sequenceEnd <= limit && data[index] == 0x1B && data[index + 1] == '[';
+            while (skipped && sequenceEnd < limit
+                    && ((data[sequenceEnd] >= '0' && data[sequenceEnd] <= '9') || data[sequenceEnd] == ';')) {
+                sequenceEnd++;
+            }
+            skipped = skipped && sequenceEnd < limit && data[sequenceEnd] == 'm';
+            if (skipped) {
+                index = sequenceEnd + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Decodes a multi-byte UTF-8 character.
+     *
+     * @param data the array containing the character
+     * @param start the index of the first byte of the character
+     * @param limit the index after the last byte, which may be read
+     * @param length the number of bytes of the character
+     * @param firstBits the value bits of the first byte
+     * @return the code point or <code>-1</code>, if the character is invalid
+     */
+    private static int decode(byte[] data, int start, int limit, int length, int firstBits) {
+        int codePoint = firstBits;
+        for (int i = 1; codePoint != -1 && i < length; i++) {
+            if (start + i < limit && (data[start + i] & 0xC0) == 0x80) {
+                codePoint = (codePoint << 6) | (data[start + i] & 0x3F);
+            } else {
+                codePoint = -1;
+            }
+        }
+        return codePoint;
+    }
+
+    /**
+     * Returns the display width of the given character.
+     *
+     * @param codePoint the code point of the character
+     * @return <code>0</code> for control, combining, and format characters, <code>2</code> for wide characters, and
+     *         <code>1</code> otherwise
+     */
+    private static int getWidth(int codePoint) {
+        int width = 1;
+        int type = Character.getType(codePoint);
+        if (codePoint < 0x20 || (codePoint >= 0x7F && codePoint < 0xA0) || type == Character.NON_SPACING_MARK
+                || type == Character.ENCLOSING_MARK || type == Character.FORMAT || codePoint == 0x200B
+                || (codePoint >= 0x1160 && codePoint <= 0x11FF)) {
+            width = 0;
+        } else {
+            for (int i = 0; width == 1 && i < DOUBLE_WIDTH_RANGES.length; i++) {
+                if (codePoint >= DOUBLE_WIDTH_RANGES[i][0] && codePoint <= DOUBLE_WIDTH_RANGES[i][1]) {
+                    width = 2;
+                }
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Prints the combined diff of a merge commit. Only files, which differ from all parents, are considered.
+     *
+     * @param commit the merge commit
+     * @param parentIds the names of the parents of the commit
+     * @param output the stream to print to
+     * @throws IOException if reading the trees or files fails
+     */
+    private void printCombinedDiff(CommitObject commit, List<ObjectId> parentIds, ByteArrayOutputStream output)
+            throws IOException {
+        List<TreeDiff.Change> firstParentChanges = null;
+        List<Map<String, TreeDiff.Change>> parentChanges = new ArrayList<Map<String, TreeDiff.Change>>();
+        for (ObjectId parentId : parentIds) {
+            List<TreeDiff.Change> changes = treeDiff.diff(readCommit(parentId).getTreeId(), commit.getTreeId());
+            if (firstParentChanges == null) {
+                firstParentChanges = changes;
+            }
+            Map<String, TreeDiff.Change> changesByPath = new HashMap<String, TreeDiff.Change>();
+            for (TreeDiff.Change change : changes) {
+                changesByPath.put(new String(change.getPath(), StandardCharsets.ISO_8859_1), change);
+            }
+            parentChanges.add(changesByPath);
+        }
+        CombinedPatchPrinter combinedPatchPrinter = new CombinedPatchPrinter(objectDatabase, output);
+        for (TreeDiff.Change change : firstParentChanges) {
+            String path = new String(change.getPath(), StandardCharsets.ISO_8859_1);
+            int[] parentModes = new int[parentIds.size()];
+            ObjectId[] parentFileIds = new ObjectId[parentIds.size()];
+            boolean changedInAllParents = true;
+            for (int i = 0; changedInAllParents && i < parentIds.size(); i++) {
+                TreeDiff.Change parentChange = parentChanges.get(i).get(path);
+                changedInAllParents = parentChange != null;
+                if (changedInAllParents) {
+                    parentModes[i] = parentChange.getOldMode();
+                    parentFileIds[i] = parentChange.getOldId();
+                }
+            }
+            if (changedInAllParents && isIncluded(change)) {
+                combinedPatchPrinter.print(change.getPath(), change.getNewMode(), change.getNewId(), parentModes,
+                        parentFileIds);
+            }
+        }
+    }
+
+    /**
+     * Returns the committer date of the given commit in the same format as <code>git show -s --format=%ci</code>,
+     * like "<tt>2018-03-21 14:05:36 +0100</tt>".
+     *
+     * @param data the raw content of the commit object
+     * @return the committer date or an <i>empty</i> string, if the commit does not declare a valid committer; never
+     *         <code>null</code>
+     * @throws IOException if the committer date is out of the supported range
+     */
+    static String getCommitterDate(byte[] data) throws IOException {
+        String committerDate = "";
+        int[] identity = null;
+        int end = CommitObject.indexOf(data, (byte) 0, 0);
+        int lineStart = 0;
+        boolean headerEnd = false;
+        while (!headerEnd && lineStart < end) {
+            int lineEnd = Math.min(CommitObject.indexOf(data, (byte) '\n', lineStart), end);
+            headerEnd = lineEnd == lineStart;
+            if (startsWith(data, lineStart, "committer ")) {
+                identity = splitIdentity(data, lineStart + 10, lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (identity != null) {
+            committerDate = formatDate(data, identity, true);
+        }
+        return committerDate;
+    }
+
+    /**
+     * Splits the given identity into its parts in the same way as Git does.
+     *
+     * @param data the array containing the identity
+     * @param start the index of the first byte of the identity
+     * @param end the index after the last byte of the identity
+     * @return the start and end of the name, the start and end of the e-mail address, the start and end of the
+     *         timestamp, and the start and end of the time zone, where the last four are <code>-1</code> if the
+     *         identity has no valid date; <code>null</code>, if the identity has no e-mail address in angle brackets
+     */
+    private static int[] splitIdentity(byte[] data, int start, int end) {
+        int[] identity = null;
+        int emailStart = indexOf(data, (byte) '<', start, end) + 1;
+        int emailEnd = (emailStart <= end) ? indexOf(data, (byte) '>', emailStart, end) : end;
+        if (emailEnd < end) {
+            int nameEnd = emailStart - 1;
+            while (nameEnd > start && MailMap.isSpace(data[nameEnd - 1])) {
+                nameEnd--;
+            }
+            identity = new int[] {start, nameEnd, emailStart, emailEnd, -1, -1, -1, -1};
+            int index = end - 1;
+            while (data[index] != '>') {
+                index--;
+            }
+            index = skipSpaces(data, index + 1, end);
+            int dateEnd = skipDigits(data, index, end);
+            if (dateEnd > index) {
+                int timeZoneStart = skipSpaces(data, dateEnd, end);
+                if (timeZoneStart < end && (data[timeZoneStart] == '+' || data[timeZoneStart] == '-')) {
+                    int timeZoneEnd = skipDigits(data, timeZoneStart + 1, end);
+                    if (timeZoneEnd > timeZoneStart + 1) {
+                        identity[4] = index;
+                        identity[5] = dateEnd;
+                        identity[6] = timeZoneStart;
+                        identity[7] = timeZoneEnd;
+                    }
+                }
+            }
+        }
+        return identity;
+    }
+
+    /**
+     * Formats the date of the given identity in the same way as Git does for the default or the ISO format. Invalid
+     * or absent dates are formatted as the start of the Unix epoch.
+     *
+     * @param data the array containing the identity
+     * @param identity the parts of the identity as returned by {@link #splitIdentity(byte[], int, int)}
+     * @param iso <code>true</code> for the ISO format used by <code>%ci</code>; <code>false</code> for the default
+     *        format used by <code>git show</code>
+     * @return the formatted date; never <code>null</code>
+     * @throws IOException if the date is out of the supported range
+     */
+    private static String formatDate(byte[] data, int[] identity, boolean iso) throws IOException {
+        long timestamp = 0;
+        long timeZone = 0;
+        if (identity[4] != -1) {
+            timestamp = parseNumber(data, identity[4], identity[5]);
+            if (timestamp == Long.MAX_VALUE) {
+                timestamp = 0;
+            } else {
+                timeZone = parseNumber(data, identity[6] + 1, identity[7]);
+                if (timeZone >= Integer.MAX_VALUE) {
+                    timeZone = 0;
+                } else if (data[identity[6]] == '-') {
+                    timeZone = -timeZone;
+                }
+            }
+        }
+        long minutes = Math.abs(timeZone);
+        minutes = (minutes / 100) * 60 + (minutes % 100);
+        if (timeZone < 0) {
+            minutes = -minutes;
+        }
+        if ((minutes > 0 && timestamp > Long.MAX_VALUE - minutes * 60) || timestamp < -minutes * 60) {
+            throw new IOException("Date out of range: " + timestamp + " " + timeZone);
+        }
+        LocalDateTime dateTime;
+        try {
+            dateTime = LocalDateTime.ofEpochSecond(timestamp + minutes * 60, 0, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            dateTime = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+            timeZone = 0;
+        }
+        String date;
+        if (iso) {
+            date = String.format("%04d-%02d-%02d %02d:%02d:%02d %+05d", dateTime.getYear(), dateTime.getMonthValue(),
+                    dateTime.getDayOfMonth(), dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(),
+                    timeZone);
+        } else {
+            date = String.format("%s %s %d %02d:%02d:%02d %d", WEEKDAY_NAMES[dateTime.getDayOfWeek().ordinal()],
+                    MONTH_NAMES[dateTime.getMonthValue() - 1], dateTime.getDayOfMonth(), dateTime.getHour(),
+                    dateTime.getMinute(), dateTime.getSecond(), dateTime.getYear());
+            if (timeZone != -1) {
+                date += String.format(" %+05d", timeZone);
+            }
+        }
+        return date;
+    }
+
+    /**
+     * Parses the given decimal digits.
+     *
+     * @param data the array containing the digits
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the parsed number or {@link Long#MAX_VALUE}, if the number is too large
+     */
+    private static long parseNumber(byte[] data, int start, int end) {
+        long number = 0;
+        for (int i = start; i < end && number != Long.MAX_VALUE; i++) {
+            int digit = data[i] - '0';
+            number = (number > (Long.MAX_VALUE - digit) / 10) ? Long.MAX_VALUE : number * 10 + digit;
+        }
+        return number;
+    }
+
+    /**
+     * Returns the index of the first byte, which is not a whitespace character.
+     *
+     * @param data the array to search in
+     * @param start the index to start the search at
+     * @param end the index to end the search at
+     * @return the index of the first non-whitespace byte or the given end, if there is none
+     */
+    private static int skipSpaces(byte[] data, int start, int end) {
+        int index = start;
+        while (index < end && MailMap.isSpace(data[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the first byte, which is not a decimal digit.
+     *
+     * @param data the array to search in
+     * @param start the index to start the search at
+     * @param end the index to end the search at
+     * @return the index of the first non-digit byte or the given end, if there is none
+     */
+    private static int skipDigits(byte[] data, int start, int end) {
+        int index = start;
+        while (index < end && data[index] >= '0' && data[index] <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given byte in the given range.
+     *
+     * @param data the array to search in
+     * @param value the byte to search for
+     * @param start the index to start the search at
+     * @param end the index to end the search at
+     * @return the index of the byte or the given end, if the byte does not occur
+     */
+    private static int indexOf(byte[] data, byte value, int start, int end) {
+        int index = start;
+        while (index < end && data[index] != value) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the given array contains the given ASCII prefix at the given index.
+     *
+     * @param data the array to check
+     * @param start the index of the first byte to compare
+     * @param prefix the ASCII prefix
+     * @return <code>true</code>, if the array contains the prefix at the given index; <code>false</code> otherwise
+     */
+    private static boolean startsWith(byte[] data, int start, String prefix) {
+        boolean matches = start + prefix.length() <= data.length;
+        for (int i = 0; matches && i < prefix.length(); i++) {
+            matches = data[start + i] == prefix.charAt(i);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns a copy of the given range.
+     *
+     * @param data the array to copy from
+     * @param start the index of the first byte to copy
+     * @param end the index after the last byte to copy
+     * @return the copied bytes; never <code>null</code>
+     */
+    private static byte[] copy(byte[] data, int start, int end) {
+        byte[] copy = new byte[end - start];
+        System.arraycopy(data, start, copy, 0, copy.length);
+        return copy;
+    }
+
+}
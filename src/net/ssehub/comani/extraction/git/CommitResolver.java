@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class resolves (abbreviated) commit numbers to full commit numbers using a single
+ * <code>git cat-file --batch-check</code> process. All commit numbers are written to that process at once and the
+ * results are read while writing, which requires only one round trip independent of the number of commit numbers.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitResolver {
+
+    /**
+     * The command for printing the full object number and the object type of each object identified by a line of the
+     * standard input stream. For each input line, which does not identify an object, the input line followed by
+     * "<tt>missing</tt>" or "<tt>ambiguous</tt>" is printed.<br>
+     * <br>
+     * Command: <code>git cat-file --batch-check=%(objectname) %(objecttype)</code>
+     */
+    private static final String[] GIT_BATCH_CHECK_COMMAND = {"git", "cat-file",
+        "--batch-check=%(objectname) %(objecttype)"};
+
+    /**
+     * The object type of commits as printed by the {@link #GIT_BATCH_CHECK_COMMAND}.
+     */
+    private static final String COMMIT_OBJECT_TYPE = "commit";
+
+    /**
+     * The {@link File} defining the repository in which the commit numbers are resolved.
+     */
+    private File repositoryDirectory;
+
+    /**
+     * The commit numbers, which could not be resolved to a commit during the last call of {@link #resolve(List)}.
+     */
+    private List<String> unresolvedCommitNumbers;
+
+    /**
+     * Constructs a new {@link CommitResolver} for the given repository.
+     *
+     * @param repositoryDirectory the {@link File} defining the repository in which the commit numbers are resolved
+     */
+    CommitResolver(File repositoryDirectory) {
+        this.repositoryDirectory = repositoryDirectory;
+        unresolvedCommitNumbers = new ArrayList<String>();
+    }
+
+    /**
+     * Resolves the given commit numbers to full commit numbers. Commit numbers identifying the same commit are only
+     * resolved once, which means that the returned mapping does not contain duplicates. Commit numbers, which do not
+     * identify a commit, are available via {@link #getUnresolvedCommitNumbers()} afterwards.
+     *
+     * @param commitNumbers the (abbreviated) commit numbers to be resolved; should never be <code>null</code>
+     * @return the mapping of full commit numbers to the first given commit number identifying the respective commit in
+     *         the order of the given commit numbers; never <code>null</code> but may be <i>empty</i>
+     * @throws IOException if executing the {@link #GIT_BATCH_CHECK_COMMAND} or reading its output fails
+     */
+    Map<String, String> resolve(List<String> commitNumbers) throws IOException {
+        Map<String, String> resolvedCommitNumbers = new LinkedHashMap<String, String>();
+        unresolvedCommitNumbers.clear();
+        List<String> requestedCommitNumbers = new ArrayList<String>(commitNumbers.size());
+        for (String commitNumber : commitNumbers) {
+            String trimmedCommitNumber = commitNumber.trim();
+            if (!trimmedCommitNumber.isEmpty()) {
+                requestedCommitNumbers.add(trimmedCommitNumber);
+            }
+        }
+        GitProcess gitProcess = new GitProcess(GIT_BATCH_CHECK_COMMAND, repositoryDirectory);
+        gitProcess.writeInput(requestedCommitNumbers);
+        try (BufferedReader resultReader = new BufferedReader(gitProcess.getStandardOutputReader())) {
+            Iterator<String> requestedCommitNumbersIterator = requestedCommitNumbers.iterator();
+            String result = resultReader.readLine();
+            while (result != null && requestedCommitNumbersIterator.hasNext()) {
+                addResult(requestedCommitNumbersIterator.next(), result, resolvedCommitNumbers);
+                result = resultReader.readLine();
+            }
+        } catch (IOException e) {
+            gitProcess.destroy();
+            throw e;
+        }
+        if (!gitProcess.waitFor()) {
+            throw new IOException("Executing the command \"" + String.join(" ", GIT_BATCH_CHECK_COMMAND)
+                    + "\" was not successful: " + gitProcess.getErrorOutputData());
+        }
+        return resolvedCommitNumbers;
+    }
+
+    /**
+     * Adds the given result of the {@link #GIT_BATCH_CHECK_COMMAND} for the given commit number either to the given
+     * resolved commit numbers or to the {@link #unresolvedCommitNumbers}.
+     *
+     * @param commitNumber the commit number for which the given result was printed
+     * @param result the line printed by the {@link #GIT_BATCH_CHECK_COMMAND} for the given commit number
+     * @param resolvedCommitNumbers the mapping of full commit numbers to the first given commit number identifying the
+     *        respective commit
+     */
+    private void addResult(String commitNumber, String result, Map<String, String> resolvedCommitNumbers) {
+        int separatorIndex = result.lastIndexOf(' ');
+        if (separatorIndex > 0 && result.substring(separatorIndex + 1).equals(COMMIT_OBJECT_TYPE)) {
+            String fullCommitNumber = result.substring(0, separatorIndex);
+            if (!resolvedCommitNumbers.containsKey(fullCommitNumber)) {
+                resolvedCommitNumbers.put(fullCommitNumber, commitNumber);
+            }
+        } else {
+            unresolvedCommitNumbers.add(commitNumber);
+        }
+    }
+
+    /**
+     * Returns the commit numbers, which could not be resolved to a commit during the last call of
+     * {@link #resolve(List)}. This includes commit numbers identifying no object, multiple objects, or objects other
+     * than commits.
+     *
+     * @return the unresolved commit numbers; never <code>null</code> but may be <i>empty</i>
+     */
+    List<String> getUnresolvedCommitNumbers() {
+        return unresolvedCommitNumbers;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * This class selects a deterministic sample of listed commits, either every n-th commit or each commit, whose commit
+ * number hashed with a seed is below a rate. The latter selects the same commits in incremental and sharded
+ * extractions.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitSampler {
+
+    /**
+     * The number of hexadecimal digits of a full commit number forming the 64 bits hashed with the {@link #seed}.
+     */
+    private static final int HASHED_DIGITS = 16;
+
+    /**
+     * The distance between the positions of two selected commits; <tt>1</tt>, if the {@link #rate} is used.
+     */
+    private int interval;
+
+    /**
+     * The probability of selecting a commit in the range from <tt>0</tt> (exclusive) to <tt>1</tt> (inclusive);
+     * <tt>1</tt>, if the {@link #interval} is used.
+     */
+    private double rate;
+
+    /**
+     * The seed of the hash deciding whether a commit is selected by the {@link #rate}.
+     */
+    private long seed;
+
+    /**
+     * Constructs a new {@link CommitSampler}.
+     *
+     * @param interval the distance between the positions of two selected commits; must be positive
+     * @param rate the probability of selecting a commit in the range from <tt>0</tt> (exclusive) to <tt>1</tt>
+     *        (inclusive)
+     * @param seed the seed of the hash deciding whether a commit is selected by the given rate
+     */
+    CommitSampler(int interval, double rate, long seed) {
+        this.interval = interval;
+        this.rate = rate;
+        this.seed = seed;
+    }
+
+    /**
+     * Removes the commits not selected by this sampler from the given commits.
+     *
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits in the order of the commit log; may be <code>null</code>
+     * @return the given mapping reduced to the selected commits or <code>null</code>, if the given mapping is
+     *         <code>null</code>
+     */
+    Map<String, String> sample(Map<String, String> commitNumbers) {
+        if (commitNumbers != null) {
+            Iterator<String> fullCommitNumbers = commitNumbers.keySet().iterator();
+            long position = 0;
+            while (fullCommitNumbers.hasNext()) {
+                if (!isSelected(fullCommitNumbers.next(), position)) {
+                    fullCommitNumbers.remove();
+                }
+                position++;
+            }
+        }
+        return commitNumbers;
+    }
+
+    /**
+     * Checks whether the commit with the given full commit number at the given position of the commit list is
+     * selected.
+     *
+     * @param fullCommitNumber the full commit number of the commit
+     * @param position the position of the commit in the commit list starting at <tt>0</tt>
+     * @return <code>true</code>, if the commit is selected; <code>false</code> otherwise
+     */
+    private boolean isSelected(String fullCommitNumber, long position) {
+        boolean selected = position % interval == 0;
+        if (selected && rate < 1) {
+            long commitBits = Long.parseUnsignedLong(fullCommitNumber.substring(0, HASHED_DIGITS), 16);
+            // The 53 most significant bits of the hash form a uniformly distributed double from 0 to 1 (exclusive)
+            selected = (mix(commitBits ^ mix(seed)) >>> 11) * 0x1.0p-53 < rate;
+        }
+        return selected;
+    }
+
+    /**
+     * Mixes the bits of the given value using the finalizer of the SplitMix64 generator, such that similar values
+     * result in unrelated hashes.
+     *
+     * @param value the value to mix
+     * @return the hash of the given value
+     */
+    private static long mix(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class reads a sequence of commits printed by a single Git process using the {@link #COMMIT_FORMAT}. Each
+ * commit is created and passed to the given {@link Consumer} as soon as its last line is read, which avoids holding
+ * the entire output of the process in memory.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitStreamReader {
+
+    /**
+     * The character marking the first line of each commit in the output of a Git process using the
+     * {@link #COMMIT_FORMAT}. This line only contains metadata and is not part of the commit content.
+     */
+    static final char COMMIT_MARKER = '\u0001';
+
+    /**
+     * The line following the commit message in the output of a Git process using the {@link #COMMIT_FORMAT}. The
+     * lines following this line up to the next <i>empty</i> line are the notes of the commit, if any.
+     */
+    private static final String NOTES_MARKER_LINE = "\u0002";
+
+    /**
+     * The prefix of the last header line preceding the commit message in the output of a Git process using the
+     * {@link #COMMIT_FORMAT}.
+     */
+    private static final String DATE_LINE_PREFIX = "Date:   ";
+
+    /**
+     * The indentation of the lines of the commit message.
+     */
+    private static final String MESSAGE_INDENT = "    ";
+
+    /**
+     * The format option for Git processes, which print multiple commits to be read by this class. Each commit starts
+     * with a line of the full and abbreviated commit number, the committer date, and the abbreviated parent commit
+     * numbers, each preceded by the {@link #COMMIT_MARKER}, followed by the default format of <code>git show</code>.
+     * This class adds the "<tt>Merge:</tt>" and "<tt>Notes:</tt>" lines and expands tabs, which a format cannot do.
+     */
+    static final String COMMIT_FORMAT = "--format=%x01%H%x01%h%x01%ci%x01%p%n"
+            + "commit %H%nAuthor: %aN <%aE>%nDate:   %ad%n%n%w(0,4,4)%B%-C()%w(0,0,0)%n%x02%n%w(0,4,4)%N%-C()";
+
+    /**
+     * The {@link Reader} providing the output of the Git process.
+     */
+    private Reader commitStream;
+
+    /**
+     * The {@link Consumer} receiving each commit as soon as it is completely read.
+     */
+    private Consumer<Commit> commitConsumer;
+
+    /**
+     * The mapping of full commit numbers to the commit numbers used as identifiers of the created commits or
+     * <code>null</code>, if the abbreviated commit numbers printed by Git shall be used.
+     */
+    private Map<String, String> commitNumbers;
+
+    /**
+     * The {@link CommitAssembler} of the commit currently being read or <code>null</code>, if no commit was started
+     * yet.
+     */
+    private CommitAssembler commitAssembler;
+
+    /**
+     * The "<tt>Merge:</tt>" line to be added after the first line of the current commit or <code>null</code>, if the
+     * current commit is not a merge commit or the line was already added.
+     */
+    private String pendingMergeLine;
+
+    /**
+     * The definition of whether the {@link #NOTES_MARKER_LINE} of the current commit was read (<code>true</code>), but
+     * not the line following it (<code>false</code> otherwise).
+     */
+    private boolean notesPending;
+
+    /**
+     * The definition of whether the lines of the commit message of the current commit are being read
+     * (<code>true</code>) or other lines (<code>false</code>). The message starts after the line starting with the
+     * {@link #DATE_LINE_PREFIX} and ends at the {@link #NOTES_MARKER_LINE}.
+     */
+    private boolean messagePending;
+
+    /**
+     * The number of commits passed to the {@link #commitConsumer} so far.
+     */
+    private int commitCounter;
+
+    /**
+     * The {@link ExtractionMetrics} recording the duration of reading each commit and the size of its content.
+     */
+    private ExtractionMetrics metrics;
+
+    /**
+     * The commit number of the commit currently being read or <code>null</code>, if no commit was started yet.
+     */
+    private String commitNumber;
+
+    /**
+     * The time at which reading the current commit started as provided by {@link System#nanoTime()}.
+     */
+    private long commitStartTime;
+
+    /**
+     * The number of characters of the content of the current commit read so far including line terminators.
+     */
+    private long commitSize;
+
+    /**
+     * The factory creating the {@link CommitAssembler} of each commit based on its commit number and committer date.
+     */
+    private BiFunction<String, String, CommitAssembler> assemblerFactory;
+
+    /**
+     * Constructs a new {@link CommitStreamReader}.
+     *
+     * @param commitStream the {@link Reader} providing the output of the Git process; should never be
+     *        <code>null</code>
+     * @param commitConsumer the {@link Consumer} receiving each commit as soon as it is completely read; should never
+     *        be <code>null</code>
+     */
+    CommitStreamReader(Reader commitStream, Consumer<Commit> commitConsumer) {
+        this(commitStream, commitConsumer, null);
+    }
+
+    /**
+     * Constructs a new {@link CommitStreamReader}, which uses the given commit numbers as identifiers of the created
+     * commits. This enables identifying commits in the same way as they were requested, e.g., by a commit list.
+     *
+     * @param commitStream the {@link Reader} providing the output of the Git process; should never be
+     *        <code>null</code>
+     * @param commitConsumer the {@link Consumer} receiving each commit as soon as it is completely read; should never
+     *        be <code>null</code>
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the created
+     *        commits; commits not contained in this mapping are identified by their abbreviated commit number; may be
+     *        <code>null</code>
+     */
+    CommitStreamReader(Reader commitStream, Consumer<Commit> commitConsumer, Map<String, String> commitNumbers) {
+        this(commitStream, commitConsumer, commitNumbers, new ExtractionMetrics());
+    }
+
+    /**
+     * Constructs a new {@link CommitStreamReader}, which uses the given commit numbers as identifiers of the created
+     * commits and records the duration of reading each commit as well as the size of its content in the given
+     * {@link ExtractionMetrics}.
+     *
+     * @param commitStream the {@link Reader} providing the output of the Git process; should never be
+     *        <code>null</code>
+     * @param commitConsumer the {@link Consumer} receiving each commit as soon as it is completely read; should never
+     *        be <code>null</code>
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the created
+     *        commits; commits not contained in this mapping are identified by their abbreviated commit number; may be
+     *        <code>null</code>
+     * @param metrics the {@link ExtractionMetrics} recording the {@link ExtractionMetrics.Phase#STREAM_COMMIT} phase
+     *        and the size of each commit; should never be <code>null</code>
+     */
+    CommitStreamReader(Reader commitStream, Consumer<Commit> commitConsumer, Map<String, String> commitNumbers,
+            ExtractionMetrics metrics) {
+        this(commitStream, commitConsumer, commitNumbers, metrics, CommitAssembler::new);
+    }
+
+    /**
+     * Constructs a new {@link CommitStreamReader} like
+     * {@link #CommitStreamReader(Reader, Consumer, Map, ExtractionMetrics)}, which creates the commits via the
+     * {@link CommitAssembler}s provided by the given factory. This enables creating commits consisting of
+     * {@link LazyChangedArtifact}s or of the changed artifacts accepted by a {@link PathFilter} only.
+     *
+     * @param commitStream the {@link Reader} providing the output of the Git process; should never be
+     *        <code>null</code>
+     * @param commitConsumer the {@link Consumer} receiving each commit as soon as it is completely read; should never
+     *        be <code>null</code>
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the created
+     *        commits; commits not contained in this mapping are identified by their abbreviated commit number; may be
+     *        <code>null</code>
+     * @param metrics the {@link ExtractionMetrics} recording the {@link ExtractionMetrics.Phase#STREAM_COMMIT} phase
+     *        and the size of each commit; should never be <code>null</code>
+     * @param assemblerFactory the factory creating a {@link CommitAssembler} for a given commit number and committer
+     *        date; should never be <code>null</code>
+     */
+    CommitStreamReader(Reader commitStream, Consumer<Commit> commitConsumer, Map<String, String> commitNumbers,
+            ExtractionMetrics metrics, BiFunction<String, String, CommitAssembler> assemblerFactory) {
+        this.commitStream = commitStream;
+        this.commitConsumer = commitConsumer;
+        this.commitNumbers = commitNumbers;
+        this.metrics = metrics;
+        this.assemblerFactory = assemblerFactory;
+        commitAssembler = null;
+        pendingMergeLine = null;
+        notesPending = false;
+        messagePending = false;
+        commitCounter = 0;
+    }
+
+    /**
+     * Reads all commits until the end of the {@link #commitStream} is reached. Lines are only separated at line feeds
+     * to keep the content of the lines identical to the output of <code>git show</code>.
+     *
+     * @return the number of commits passed to the {@link Consumer}
+     * @throws IOException if reading from the stream fails
+     */
+    int read() throws IOException {
+        LineScanner lineScanner = new LineScanner(commitStream);
+        String line = lineScanner.nextLine();
+        while (line != null) {
+            processLine(line);
+            line = lineScanner.nextLine();
+        }
+        if (commitAssembler != null) {
+            finishCommit();
+        }
+        return commitCounter;
+    }
+
+    /**
+     * Processes the given line either as the start of a new commit or as the next line of the current commit.
+     *
+     * @param line the line to be processed without its line terminator
+     */
+    private void processLine(String line) {
+        if (!line.isEmpty() && line.charAt(0) == COMMIT_MARKER) {
+            if (commitAssembler != null) {
+                // The last line of the previous commit ended with a line feed, which results in a final empty line
+                commitAssembler.addLine("");
+                finishCommit();
+            }
+            startCommit(line);
+        } else if (commitAssembler != null && line.equals(NOTES_MARKER_LINE)) {
+            commitSize += line.length() + 1;
+            notesPending = true;
+            messagePending = false;
+        } else if (commitAssembler != null) {
+            commitSize += line.length() + 1;
+            if (notesPending && !line.isEmpty()) {
+                // Like git show, separate the notes from the commit message by an empty line and a label
+                commitAssembler.addLine("");
+                commitAssembler.addLine("Notes:");
+            }
+            notesPending = false;
+            if (messagePending && line.startsWith(MESSAGE_INDENT)) {
+                commitAssembler.addLine(MESSAGE_INDENT
+                        + CommitPrinter.expandTabs(line.substring(MESSAGE_INDENT.length())));
+            } else {
+                commitAssembler.addLine(line);
+                messagePending = messagePending || line.startsWith(DATE_LINE_PREFIX);
+            }
+            if (pendingMergeLine != null) {
+                commitAssembler.addLine(pendingMergeLine);
+                pendingMergeLine = null;
+            }
+        }
+    }
+
+    /**
+     * Starts a new commit based on the metadata of the given marker line.
+     *
+     * @param markerLine the first line of a commit starting with the {@link #COMMIT_MARKER}
+     */
+    private void startCommit(String markerLine) {
+        int abbreviationStartIndex = markerLine.indexOf(COMMIT_MARKER, 1) + 1;
+        int dateStartIndex = markerLine.indexOf(COMMIT_MARKER, abbreviationStartIndex) + 1;
+        int parentsStartIndex = markerLine.indexOf(COMMIT_MARKER, dateStartIndex) + 1;
+        commitStartTime = System.nanoTime();
+        commitSize = markerLine.length() + 1;
+        commitNumber = null;
+        if (commitNumbers != null) {
+            commitNumber = commitNumbers.get(markerLine.substring(1, abbreviationStartIndex - 1));
+        }
+        if (commitNumber == null) {
+            commitNumber = markerLine.substring(abbreviationStartIndex, dateStartIndex - 1);
+        }
+        String committerDate = markerLine.substring(dateStartIndex, parentsStartIndex - 1);
+        String parents = markerLine.substring(parentsStartIndex);
+        commitAssembler = assemblerFactory.apply(commitNumber, committerDate);
+        notesPending = false;
+        messagePending = false;
+        if (parents.indexOf(' ') != -1) {
+            pendingMergeLine = "Merge: " + parents;
+        } else {
+            pendingMergeLine = null;
+        }
+    }
+
+    /**
+     * Creates the current commit and passes it to the {@link #commitConsumer}.
+     */
+    private void finishCommit() {
+        Commit commit = commitAssembler.getCommit();
+        metrics.record(ExtractionMetrics.Phase.STREAM_COMMIT, commitStartTime);
+        metrics.recordOutputSize(commitNumber, commitSize);
+        commitConsumer.accept(commit);
+        commitAssembler = null;
+        commitCounter++;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class restricts the listed commits to a time window of committer dates and, optionally, to the first parent
+ * of each commit. Like {@link PathFilter}, the same restriction is applied by Git via {@link #getLogOptions()} and by
+ * the {@link RepositoryReader} via {@link #isListed(long)}, {@link #isTraversed(long)}, and {@link #isFirstParent()}.
+ * Hence, commits outside of the window are neither printed nor parsed by any backend.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitWindow {
+
+    /**
+     * The value of {@link #since} and {@link #until} representing an open end of the window.
+     */
+    static final long UNBOUNDED = -1;
+
+    /**
+     * The earliest committer timestamp in seconds since the Unix epoch of the listed commits or {@link #UNBOUNDED}.
+     */
+    private long since;
+
+    /**
+     * The latest committer timestamp in seconds since the Unix epoch of the listed commits or {@link #UNBOUNDED}.
+     */
+    private long until;
+
+    /**
+     * The definition of whether only the first parent of each commit is followed (<code>true</code>) or all parents
+     * (<code>false</code>).
+     */
+    private boolean firstParent;
+
+    /**
+     * Constructs a new {@link CommitWindow}.
+     *
+     * @param since the earliest committer timestamp in seconds since the Unix epoch of the listed commits (inclusive)
+     *        or {@link #UNBOUNDED}
+     * @param until the latest committer timestamp in seconds since the Unix epoch of the listed commits (inclusive) or
+     *        {@link #UNBOUNDED}
+     * @param firstParent <code>true</code>, if only the first parent of each commit shall be followed;
+     *        <code>false</code> otherwise
+     */
+    CommitWindow(long since, long until, boolean firstParent) {
+        this.since = since;
+        this.until = until;
+        this.firstParent = firstParent;
+    }
+
+    /**
+     * Returns the options of <code>git log</code> applying this window. The timestamps are passed in the
+     * "<tt>@&lt;seconds&gt;</tt>" format, such that Git does not interpret them relative to its local time zone.
+     *
+     * @return the options of <code>git log</code>; never <code>null</code>
+     */
+    String[] getLogOptions() {
+        List<String> logOptions = new ArrayList<String>();
+        if (since != UNBOUNDED) {
+            logOptions.add("--since=@" + since);
+        }
+        if (until != UNBOUNDED) {
+            logOptions.add("--until=@" + until);
+        }
+        if (firstParent) {
+            logOptions.add("--first-parent");
+        }
+        return logOptions.toArray(new String[0]);
+    }
+
+    /**
+     * Checks whether a commit with the given committer timestamp is listed. Like Git, the bounds of the window are
+     * inclusive.
+     *
+     * @param commitTime the committer timestamp of the commit in seconds since the Unix epoch
+     * @return <code>true</code>, if the commit is inside of this window; <code>false</code> otherwise
+     */
+    boolean isListed(long commitTime) {
+        return isTraversed(commitTime) && (until == UNBOUNDED || commitTime <= until);
+    }
+
+    /**
+     * Checks whether the parents of a commit with the given committer timestamp are traversed. Like the default
+     * traversal of Git, the traversal stops at commits older than the start of this window, while commits newer than
+     * its end are traversed without being listed.
+     *
+     * @param commitTime the committer timestamp of the commit in seconds since the Unix epoch
+     * @return <code>true</code>, if the commit is not older than the start of this window; <code>false</code>
+     *         otherwise
+     */
+    boolean isTraversed(long commitTime) {
+        return since == UNBOUNDED || commitTime >= since;
+    }
+
+    /**
+     * Checks whether only the first parent of each commit is followed.
+     *
+     * @return <code>true</code>, if only the first parent of each commit is followed; <code>false</code> otherwise
+     */
+    boolean isFirstParent() {
+        return firstParent;
+    }
+
+}
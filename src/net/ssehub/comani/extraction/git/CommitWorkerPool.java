@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class extracts multiple commits concurrently using a fixed number of worker threads and passes them to a {@link
+ * Consumer} in the order of the given commit numbers or as soon as they are extracted. No new extraction is started
+ * while the commits waiting for delivery exceed a number of bytes, such that a slow consumer pauses the workers.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class CommitWorkerPool {
+
+    /**
+     * The prefix of the names of the worker threads.
+     */
+    static final String WORKER_THREAD_PREFIX = "GitCommitExtractor-worker-";
+
+    /**
+     * The estimated size of a {@link CommitExtraction}, which did not finish yet.
+     */
+    private static final long SIZE_UNKNOWN = -1;
+
+    /**
+     * The estimated size of a {@link CommitExtraction}, which was delivered or cancelled.
+     */
+    private static final long SIZE_RELEASED = -2;
+
+    /**
+     * The {@link Executor} running the extractions on worker threads shared with other pools or <code>null</code>, if
+     * each extraction creates its own {@link #threads}.
+     */
+    private Executor sharedExecutor;
+
+    /**
+     * The number of worker threads extracting commits concurrently.
+     */
+    private int threads;
+
+    /**
+     * The definition of whether commits are delivered in the order of the given commit numbers (<code>true</code>)
+     * or as soon as their extraction is finished (<code>false</code>).
+     */
+    private boolean orderedDelivery;
+
+    /**
+     * The maximum estimated size of all extracted commits waiting for delivery in bytes, up to which new extractions
+     * are started.
+     */
+    private long maxPendingBytes;
+
+    /**
+     * The estimated size of all extracted commits waiting for delivery in bytes.
+     */
+    private AtomicLong pendingBytes;
+
+    /**
+     * The largest value of {@link #pendingBytes} observed so far.
+     */
+    private AtomicLong peakPendingBytes;
+
+    /**
+     * Constructs a new {@link CommitWorkerPool}.
+     *
+     * @param sharedExecutor the {@link Executor} running the extractions on worker threads shared with other pools or
+     *        <code>null</code>, if each extraction shall create its own worker threads
+     * @param threads the number of worker threads extracting commits concurrently; must be greater than
+     *        <code>0</code>; if a shared executor is given, this number only limits the commits pending in this pool
+     * @param orderedDelivery <code>true</code>, if commits shall be delivered in the order of the given commit numbers,
+     *        or <code>false</code>, if they shall be delivered as soon as their extraction is finished
+     * @param maxPendingBytes the maximum estimated size of all extracted commits waiting for delivery in bytes, up to
+     *        which new extractions are started; a single commit is always extracted, even if it exceeds this size
+     */
+    CommitWorkerPool(Executor sharedExecutor, int threads, boolean orderedDelivery, long maxPendingBytes) {
+        this.sharedExecutor = sharedExecutor;
+        this.threads = threads;
+        this.orderedDelivery = orderedDelivery;
+        this.maxPendingBytes = maxPendingBytes;
+        pendingBytes = new AtomicLong();
+        peakPendingBytes = new AtomicLong();
+    }
+
+    /**
+     * Extracts the commits identified by the given commit numbers concurrently and passes them to the given
+     * {@link Consumer}. The consumer is only called by the thread calling this method.
+     *
+     * @param commitNumbers the commit numbers (SHAs) of the commits to be extracted; should never be <code>null</code>
+     * @param commitExtractor the {@link Function} extracting a single commit based on its commit number; may return
+     *        <code>null</code>, if the extraction of that commit failed, which results in skipping that commit
+     * @param commitConsumer the {@link Consumer} receiving the extracted commits
+     * @throws InterruptedException if the calling thread is interrupted while waiting for extracted commits
+     */
+    void extract(String[] commitNumbers, Function<String, Commit> commitExtractor, Consumer<Commit> commitConsumer)
+            throws InterruptedException {
+        ExecutorService ownExecutor = null;
+        Executor executor = sharedExecutor;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory(WORKER_THREAD_PREFIX));
+            executor = ownExecutor;
+        }
+        try {
+            if (orderedDelivery) {
+                extractOrdered(commitNumbers, commitExtractor, commitConsumer, executor);
+            } else {
+                extractUnordered(commitNumbers, commitExtractor, commitConsumer, executor);
+            }
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Extracts the commits identified by the given commit numbers concurrently and passes them to the given
+     * {@link Consumer} in the order of the commit numbers. The queue of pending {@link CommitExtraction}s serves as
+     * reorder buffer: commits finished early wait until all commits before them are delivered.
+     *
+     * @param commitNumbers the commit numbers (SHAs) of the commits to be extracted
+     * @param commitExtractor the {@link Function} extracting a single commit based on its commit number
+     * @param commitConsumer the {@link Consumer} receiving the extracted commits
+     * @param executor the {@link Executor} executing the extraction of the individual commits
+     * @throws InterruptedException if the calling thread is interrupted while waiting for extracted commits
+     */
+    private void extractOrdered(String[] commitNumbers, Function<String, Commit> commitExtractor,
+            Consumer<Commit> commitConsumer, Executor executor) throws InterruptedException {
+        Deque<CommitExtraction> reorderBuffer = new ArrayDeque<CommitExtraction>(threads * 2);
+        try {
+            int commitCounter = 0;
+            while (commitCounter < commitNumbers.length || !reorderBuffer.isEmpty()) {
+                while (commitCounter < commitNumbers.length && hasCapacity(reorderBuffer.size())) {
+                    CommitExtraction extraction = new CommitExtraction(commitNumbers[commitCounter], commitExtractor,
+                            null);
+                    executor.execute(extraction);
+                    reorderBuffer.addLast(extraction);
+                    commitCounter++;
+                }
+                deliver(reorderBuffer.removeFirst(), commitConsumer);
+            }
+        } finally {
+            cancel(reorderBuffer);
+        }
+    }
+
+    /**
+     * Extracts the commits identified by the given commit numbers concurrently and passes them to the given
+     * {@link Consumer} as soon as their extraction is finished.
+     *
+     * @param commitNumbers the commit numbers (SHAs) of the commits to be extracted
+     * @param commitExtractor the {@link Function} extracting a single commit based on its commit number
+     * @param commitConsumer the {@link Consumer} receiving the extracted commits
+     * @param executor the {@link Executor} executing the extraction of the individual commits
+     * @throws InterruptedException if the calling thread is interrupted while waiting for extracted commits
+     */
+    private void extractUnordered(String[] commitNumbers, Function<String, Commit> commitExtractor,
+            Consumer<Commit> commitConsumer, Executor executor) throws InterruptedException {
+        BlockingQueue<CommitExtraction> completionQueue = new LinkedBlockingQueue<CommitExtraction>();
+        Set<CommitExtraction> pendingExtractions = new HashSet<CommitExtraction>();
+        try {
+            int commitCounter = 0;
+            while (commitCounter < commitNumbers.length || !pendingExtractions.isEmpty()) {
+                while (commitCounter < commitNumbers.length && hasCapacity(pendingExtractions.size())) {
+                    CommitExtraction extraction = new CommitExtraction(commitNumbers[commitCounter], commitExtractor,
+                            completionQueue);
+                    executor.execute(extraction);
+                    pendingExtractions.add(extraction);
+                    commitCounter++;
+                }
+                CommitExtraction extraction = completionQueue.take();
+                pendingExtractions.remove(extraction);
+                deliver(extraction, commitConsumer);
+            }
+        } finally {
+            cancel(pendingExtractions);
+        }
+    }
+
+    /**
+     * Cancels the given extractions, which were not delivered due to an exception or an interrupt. This is necessary
+     * for shared worker threads, which continue running for other pools after the extraction of this pool ended.
+     * The estimated sizes of the cancelled extractions are released from the {@link #pendingBytes}.
+     *
+     * @param pendingExtractions the extractions not delivered yet
+     */
+    private static void cancel(Collection<CommitExtraction> pendingExtractions) {
+        for (CommitExtraction pendingExtraction : pendingExtractions) {
+            pendingExtraction.cancel(true);
+            pendingExtraction.release();
+        }
+    }
+
+    /**
+     * Checks whether another extraction can be started. This is the case, if no commit is pending at all or if the
+     * number of pending commits is less than twice the number of worker threads and the estimated size of the
+     * extracted commits waiting for delivery is less than the {@link #maxPendingBytes}.
+     *
+     * @param pendingCommits the number of commits being extracted or waiting for delivery
+     * @return <code>true</code>, if another extraction can be started; <code>false</code> otherwise
+     */
+    private boolean hasCapacity(int pendingCommits) {
+        return pendingCommits == 0 || (pendingCommits < threads * 2 && pendingBytes.get() < maxPendingBytes);
+    }
+
+    /**
+     * Waits for the given extraction to finish and passes its commit to the given {@link Consumer}, if the commit is
+     * not <code>null</code>. Afterwards, the size estimated for the commit when its extraction finished is released
+     * from the {@link #pendingBytes}, even if the consumer changed the commit.
+     *
+     * @param extraction the extraction of a single commit
+     * @param commitConsumer the {@link Consumer} receiving the extracted commit
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the extraction to finish
+     */
+    private static void deliver(CommitExtraction extraction, Consumer<Commit> commitConsumer)
+            throws InterruptedException {
+        try {
+            Commit commit = extraction.get();
+            if (commit != null) {
+                commitConsumer.accept(commit);
+            }
+        } catch (ExecutionException e) {
+            // The extraction function does not throw checked exceptions, hence, the cause is unchecked
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            extraction.release();
+        }
+    }
+
+    /**
+     * Estimates the number of bytes the given commit occupies in memory based on the number of characters of all its
+     * strings. The estimate only serves for limiting the commits waiting for delivery and ignores the object overhead.
+     *
+     * @param commit the {@link Commit} to estimate the size of
+     * @return the estimated size of the commit in bytes
+     */
+    static long estimateSize(Commit commit) {
+        long characters = commit.getId().length() + commit.getDate().length();
+        for (String headerLine : commit.getCommitHeader()) {
+            characters += headerLine.length();
+        }
+        if (commit.getChangedArtifacts() != null) {
+            for (ChangedArtifact changedArtifact : commit.getChangedArtifacts()) {
+                if (changedArtifact instanceof LazyChangedArtifact) {
+                    // Accessing the lines of lazy artifacts would load their full content
+                    characters += ((LazyChangedArtifact) changedArtifact).countCharacters();
+                } else {
+                    for (String diffHeaderLine : changedArtifact.getDiffHeader()) {
+                        characters += diffHeaderLine.length();
+                    }
+                    for (String contentLine : changedArtifact.getContent()) {
+                        characters += contentLine.length();
+                    }
+                }
+            }
+        }
+        return characters * 2;
+    }
+
+    /**
+     * Returns the largest estimated size of all extracted commits waiting for delivery at the same time observed
+     * during the extractions of this pool.
+     *
+     * @return the peak number of bytes of pending commits
+     */
+    long getPeakPendingBytes() {
+        return peakPendingBytes.get();
+    }
+
+    /**
+     * Returns the estimated size of all extracted commits currently waiting for delivery.
+     *
+     * @return the number of bytes of pending commits, which is <code>0</code> while no extraction is running
+     */
+    long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * This {@link FutureTask} extracts a single commit and estimates its size exactly once, when the extraction
+     * finishes. The same size is released from the {@link CommitWorkerPool#pendingBytes} when the commit is
+     * delivered or the extraction is cancelled, hence, changes of the commit after its extraction do not affect the
+     * pending bytes.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private final class CommitExtraction extends FutureTask<Commit> {
+
+        /**
+         * The estimated size of the extracted commit in bytes, {@link CommitWorkerPool#SIZE_UNKNOWN} while the
+         * extraction is running, or {@link CommitWorkerPool#SIZE_RELEASED} after the size was released.
+         */
+        private AtomicLong estimatedSize;
+
+        /**
+         * The queue receiving this extraction when it is done or <code>null</code>, if completed extractions are not
+         * queued.
+         */
+        private BlockingQueue<CommitExtraction> completionQueue;
+
+        /**
+         * Constructs a new {@link CommitExtraction}.
+         *
+         * @param commitNumber the commit number (SHA) of the commit to be extracted
+         * @param commitExtractor the {@link Function} extracting a single commit based on its commit number
+         * @param completionQueue the queue receiving this extraction when it is done or <code>null</code>, if it
+         *        shall not be queued
+         */
+        private CommitExtraction(String commitNumber, Function<String, Commit> commitExtractor,
+                BlockingQueue<CommitExtraction> completionQueue) {
+            super(() -> commitExtractor.apply(commitNumber));
+            this.completionQueue = completionQueue;
+            estimatedSize = new AtomicLong(SIZE_UNKNOWN);
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * The size of the given commit is estimated and added to the {@link CommitWorkerPool#pendingBytes}, unless
+         * this extraction was released before.
+         */
+        @Override
+        protected void set(Commit commit) {
+            long size = (commit == null) ? 0 : estimateSize(commit);
+            if (estimatedSize.compareAndSet(SIZE_UNKNOWN, size)) {
+                peakPendingBytes.accumulateAndGet(pendingBytes.addAndGet(size), Math::max);
+            }
+            super.set(commit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void done() {
+            if (completionQueue != null) {
+                completionQueue.add(this);
+            }
+        }
+
+        /**
+         * Releases the estimated size of the extracted commit from the {@link CommitWorkerPool#pendingBytes}. Calling
+         * this method multiple times or before the extraction finished releases the size at most once.
+         */
+        private void release() {
+            long size = estimatedSize.getAndSet(SIZE_RELEASED);
+            if (size > 0) {
+                pendingBytes.addAndGet(-size);
+            }
+        }
+
+    }
+
+    /**
+     * This {@link ThreadFactory} creates the daemon worker threads of a {@link CommitWorkerPool} or a
+     * {@link RepositoryScheduler}.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    static class WorkerThreadFactory implements ThreadFactory {
+
+        /**
+         * The prefix of the names of the created threads, which is followed by the number of the thread.
+         */
+        private String threadNamePrefix;
+
+        /**
+         * The number of threads created by this factory so far, which is used to name the threads.
+         */
+        private AtomicInteger threadCounter = new AtomicInteger();
+
+        /**
+         * Constructs a new {@link WorkerThreadFactory}.
+         *
+         * @param threadNamePrefix the prefix of the names of the created threads
+         */
+        WorkerThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread workerThread = new Thread(runnable, threadNamePrefix + threadCounter.incrementAndGet());
+            workerThread.setDaemon(true);
+            return workerThread;
+        }
+
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class persists the progress of the full extraction of a single repository in a checkpoint file with the
+ * following lines:
+ * <ul>
+ * <li><tt>base &lt;SHA&gt;</tt>: the commit up to which the last completed extraction delivered all commits</li>
+ * <li><tt>target &lt;SHA&gt;</tt>: the commit up to which the current or interrupted extraction delivers commits</li>
+ * <li><tt>delivered &lt;SHA&gt;</tt>: a commit already added to the commit queue by that extraction</li>
+ * </ul>
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ExtractionCheckpoint {
+
+    /**
+     * The prefix of the line defining the base commit in the checkpoint file.
+     */
+    private static final String BASE_PREFIX = "base ";
+
+    /**
+     * The prefix of the line defining the target commit in the checkpoint file.
+     */
+    private static final String TARGET_PREFIX = "target ";
+
+    /**
+     * The prefix of the lines defining the delivered commits in the checkpoint file.
+     */
+    private static final String DELIVERED_PREFIX = "delivered ";
+
+    /**
+     * The checkpoint file of the repository.
+     */
+    private File checkpointFile;
+
+    /**
+     * The full commit number of the base commit or <code>null</code>, if no extraction was completed yet.
+     */
+    private String baseCommit;
+
+    /**
+     * The full commit number of the target commit or <code>null</code>, if no extraction is running or was
+     * interrupted.
+     */
+    private String targetCommit;
+
+    /**
+     * The full commit numbers of the commits already delivered since the last completed extraction.
+     */
+    private Set<String> deliveredCommits;
+
+    /**
+     * The mapping of the commit numbers used as identifiers of the commits to be delivered by the current extraction
+     * to their full commit numbers. This mapping is empty, if no extraction is running.
+     */
+    private Map<String, String> pendingCommits;
+
+    /**
+     * The {@link Writer} appending the delivered commits to the checkpoint file or <code>null</code>, if no extraction
+     * is running.
+     */
+    private Writer checkpointWriter;
+
+    /**
+     * Constructs a new {@link ExtractionCheckpoint} for the given repository. The checkpoint file is located in the
+     * given state directory and its name is derived from the canonical path of the repository.
+     *
+     * @param stateDirectory the directory containing the checkpoint files of all repositories; should never be
+     *        <code>null</code>
+     * @param repositoryDirectory the {@link File} defining the repository; should never be <code>null</code>
+     * @throws IOException if determining the canonical path of the repository fails
+     */
+    ExtractionCheckpoint(File stateDirectory, File repositoryDirectory) throws IOException {
+        String repositoryPath = repositoryDirectory.getCanonicalPath();
+        checkpointFile = new File(stateDirectory, repositoryDirectory.getCanonicalFile().getName() + "-"
+                + getPathHash(repositoryPath) + ".checkpoint");
+        deliveredCommits = new HashSet<String>();
+        pendingCommits = new HashMap<String, String>();
+    }
+
+    /**
+     * Returns the first 16 hexadecimal digits of the SHA-1 hash of the given path. This distinguishes repositories
+     * with the same directory name at different locations.
+     *
+     * @param repositoryPath the canonical path of the repository
+     * @return the hash of the given path as hexadecimal string
+     */
+    private static String getPathHash(String repositoryPath) {
+        StringBuilder pathHashBuilder = new StringBuilder();
+        try {
+            byte[] pathHash = MessageDigest.getInstance("SHA-1").digest(
+                    repositoryPath.getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 8; i++) {
+                pathHashBuilder.append(String.format("%02x", pathHash[i]));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // Each Java platform is required to support SHA-1, but fall back to the hash code of the path anyway
+            pathHashBuilder.append(String.format("%08x", repositoryPath.hashCode()));
+        }
+        return pathHashBuilder.toString();
+    }
+
+    /**
+     * Reads the checkpoint file, if it exists. Otherwise, this checkpoint remains empty, which results in a full
+     * extraction of the repository.
+     *
+     * @throws IOException if reading the existing checkpoint file fails
+     */
+    void load() throws IOException {
+        baseCommit = null;
+        targetCommit = null;
+        deliveredCommits.clear();
+        if (checkpointFile.isFile()) {
+            try (BufferedReader checkpointReader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(checkpointFile), StandardCharsets.UTF_8))) {
+                String line = checkpointReader.readLine();
+                while (line != null) {
+                    if (line.startsWith(BASE_PREFIX)) {
+                        baseCommit = line.substring(BASE_PREFIX.length()).trim();
+                    } else if (line.startsWith(TARGET_PREFIX)) {
+                        targetCommit = line.substring(TARGET_PREFIX.length()).trim();
+                    } else if (line.startsWith(DELIVERED_PREFIX)) {
+                        // An interrupted write may leave an incomplete last line, which never matches a commit
+                        deliveredCommits.add(line.substring(DELIVERED_PREFIX.length()).trim());
+                    }
+                    line = checkpointReader.readLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the checkpoint file of the repository.
+     *
+     * @return the checkpoint file; never <code>null</code>
+     */
+    File getFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Returns the full commit number of the commit up to which all commits were delivered by the last completed
+     * extraction.
+     *
+     * @return the full commit number of the base commit or <code>null</code>, if no extraction was completed yet
+     */
+    String getBaseCommit() {
+        return baseCommit;
+    }
+
+    /**
+     * Returns whether the previous extraction was interrupted before all of its commits were delivered.
+     *
+     * @return <code>true</code>, if the previous extraction was interrupted; <code>false</code> otherwise
+     */
+    boolean isInterrupted() {
+        return targetCommit != null;
+    }
+
+    /**
+     * Returns whether the commit identified by the given full commit number was already delivered since the last
+     * completed extraction.
+     *
+     * @param fullCommitNumber the full commit number of the commit to check
+     * @return <code>true</code>, if the commit was already delivered; <code>false</code> otherwise
+     */
+    boolean isDelivered(String fullCommitNumber) {
+        return deliveredCommits.contains(fullCommitNumber);
+    }
+
+    /**
+     * Starts a new extraction up to the given target commit. The checkpoint file is replaced by a new one containing
+     * the current base commit, the given target commit, and the commits already delivered by an interrupted
+     * extraction. Subsequent calls of {@link #markDelivered(String)} append the delivered commits to this file.
+     *
+     * @param newTargetCommit the full commit number of the commit up to which the extraction delivers commits
+     * @param commitNumbers the mapping of the full commit numbers of the commits to be delivered by this extraction to
+     *        the commit numbers used as identifiers of the extracted commits
+     * @throws IOException if writing the checkpoint file fails
+     */
+    void start(String newTargetCommit, Map<String, String> commitNumbers) throws IOException {
+        targetCommit = newTargetCommit;
+        pendingCommits.clear();
+        for (Map.Entry<String, String> commitNumber : commitNumbers.entrySet()) {
+            pendingCommits.put(commitNumber.getValue(), commitNumber.getKey());
+        }
+        StringBuilder checkpointBuilder = new StringBuilder();
+        if (baseCommit != null) {
+            checkpointBuilder.append(BASE_PREFIX).append(baseCommit).append('\n');
+        }
+        checkpointBuilder.append(TARGET_PREFIX).append(targetCommit).append('\n');
+        for (String deliveredCommit : deliveredCommits) {
+            checkpointBuilder.append(DELIVERED_PREFIX).append(deliveredCommit).append('\n');
+        }
+        write(checkpointBuilder.toString());
+        checkpointWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(checkpointFile, true),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Marks the commit identified by the given commit number as delivered by appending its full commit number to the
+     * checkpoint file. The line is flushed immediately, which enables resuming the extraction after this commit, if
+     * the extraction is interrupted.
+     *
+     * @param commitNumber the commit number used as identifier of the delivered commit
+     * @throws IOException if appending the commit to the checkpoint file fails
+     */
+    void markDelivered(String commitNumber) throws IOException {
+        String fullCommitNumber = pendingCommits.remove(commitNumber);
+        if (fullCommitNumber != null && checkpointWriter != null) {
+            checkpointWriter.write(DELIVERED_PREFIX + fullCommitNumber + "\n");
+            checkpointWriter.flush();
+            deliveredCommits.add(fullCommitNumber);
+        }
+    }
+
+    /**
+     * Finishes the current extraction. If all of its commits were delivered, the checkpoint file is replaced by a new
+     * one defining the target commit as the new base commit. Otherwise, the checkpoint file remains as is, which
+     * results in extracting the missing commits by the next extraction.
+     *
+     * @return <code>true</code>, if all commits were delivered and the base commit was updated; <code>false</code>
+     *         otherwise
+     * @throws IOException if closing or writing the checkpoint file fails
+     */
+    boolean finish() throws IOException {
+        boolean completed = false;
+        close();
+        if (pendingCommits.isEmpty() && targetCommit != null) {
+            baseCommit = targetCommit;
+            targetCommit = null;
+            deliveredCommits.clear();
+            write(BASE_PREFIX + baseCommit + "\n");
+            completed = true;
+        }
+        return completed;
+    }
+
+    /**
+     * Closes the checkpoint file without changing its content.
+     *
+     * @throws IOException if closing the checkpoint file fails
+     */
+    void close() throws IOException {
+        if (checkpointWriter != null) {
+            try {
+                checkpointWriter.close();
+            } finally {
+                checkpointWriter = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the checkpoint file by a new one with the given content. The content is written to a temporary file
+     * first, which is then moved to the checkpoint file. Hence, the checkpoint file is never left incomplete.
+     *
+     * @param checkpointContent the content of the new checkpoint file
+     * @throws IOException if writing or moving the temporary file fails
+     */
+    private void write(String checkpointContent) throws IOException {
+        File stateDirectory = checkpointFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(stateDirectory.toPath());
+        File temporaryFile = File.createTempFile(checkpointFile.getName(), ".tmp", stateDirectory);
+        try {
+            Files.write(temporaryFile.toPath(), checkpointContent.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+}
@@ -0,0 +1,659 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects metrics of the extraction of commits, like the number of extracted commits, the size of the Git
+ * output per commit, and the durations of the individual {@link Phase}s of the extraction. All metrics are recorded
+ * using lock-free counters and histograms with fixed buckets, which keeps the overhead low enough to collect them
+ * during each extraction. Only the list of the largest commits requires a short lock per commit.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ExtractionMetrics implements ExtractionMetricsMXBean {
+
+    /**
+     * The phases of the extraction of commits, for which durations are measured.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    enum Phase {
+
+        /**
+         * Starting a Git process.
+         */
+        PROCESS_START,
+
+        /**
+         * Executing a Git command via the {@link net.ssehub.comani.utility.ProcessUtilities} including the startup of
+         * the process, the computation of Git, and the transfer of the entire output.
+         */
+        GIT_COMMAND,
+
+        /**
+         * Waiting for the first byte of the output of a Git process, which mainly is the diff computation of Git.
+         */
+        GIT_COMPUTATION,
+
+        /**
+         * Reading the output of a Git process for a single commit after its first byte.
+         */
+        OUTPUT_TRANSFER,
+
+        /**
+         * Reading and parsing a single commit from the output of a Git process printing multiple commits.
+         */
+        STREAM_COMMIT,
+
+        /**
+         * Reading the objects of a single commit from the repository and printing the commit without executing Git.
+         */
+        OBJECT_READ,
+
+        /**
+         * Creating a commit from its content.
+         */
+        PARSING,
+
+        /**
+         * Loading the full content of changed artifacts extracted with small context when it is first accessed.
+         */
+        CONTENT_LOAD,
+
+        /**
+         * Listing the commits of a repository and weighing them via the {@link ShardPlanner} to select the commits of
+         * a shard.
+         */
+        SHARD_PLANNING,
+
+        /**
+         * Reading a commit from the commit cache.
+         */
+        CACHE_READ,
+
+        /**
+         * Writing a commit to the commit cache.
+         */
+        CACHE_WRITE,
+
+        /**
+         * Adding a commit to the commit queue including the time waiting for free capacity.
+         */
+        QUEUE_WAIT
+    }
+
+    /**
+     * The number of largest commits held by the {@link #largestCommits}.
+     */
+    private static final int LARGEST_COMMITS_LIMIT = 10;
+
+    /**
+     * The number of nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /**
+     * The {@link LatencyHistogram} of each {@link Phase} in the order of their ordinals.
+     */
+    private LatencyHistogram[] phaseHistograms;
+
+    /**
+     * The number of commits added to the commit queue.
+     */
+    private LongAdder deliveredCommits;
+
+    /**
+     * The number of commits skipped, because none of their changed artifacts matches the path filter.
+     */
+    private LongAdder skippedCommits;
+
+    /**
+     * The number of commits, which could not be extracted.
+     */
+    private LongAdder failedCommits;
+
+    /**
+     * The number of Git processes started for extracting commits.
+     */
+    private LongAdder gitProcesses;
+
+    /**
+     * The number of commits retrieved from the commit cache.
+     */
+    private LongAdder cacheHits;
+
+    /**
+     * The number of commits looked up in the commit cache, but not found.
+     */
+    private LongAdder cacheMisses;
+
+    /**
+     * The number of commits, for which the size of the Git output was recorded.
+     */
+    private LongAdder measuredCommits;
+
+    /**
+     * The total size of the Git output read for all commits in bytes.
+     */
+    private LongAdder outputBytes;
+
+    /**
+     * The commits with the largest Git output as a min-heap of their sizes, such that the smallest of these commits
+     * is replaced first. Access to this heap is synchronized on the heap itself.
+     */
+    private PriorityQueue<CommitSize> largestCommits;
+
+    /**
+     * The number of commits, which the commit queue did not accept immediately.
+     */
+    private LongAdder queueStalls;
+
+    /**
+     * The largest estimated size of all extracted commits waiting for being added to the commit queue at the same
+     * time in bytes.
+     */
+    private AtomicLong peakPendingBytes;
+
+    /**
+     * Constructs new, empty {@link ExtractionMetrics}.
+     */
+    ExtractionMetrics() {
+        phaseHistograms = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new LatencyHistogram();
+        }
+        deliveredCommits = new LongAdder();
+        skippedCommits = new LongAdder();
+        failedCommits = new LongAdder();
+        gitProcesses = new LongAdder();
+        cacheHits = new LongAdder();
+        cacheMisses = new LongAdder();
+        measuredCommits = new LongAdder();
+        outputBytes = new LongAdder();
+        largestCommits = new PriorityQueue<CommitSize>(LARGEST_COMMITS_LIMIT + 1);
+        queueStalls = new LongAdder();
+        peakPendingBytes = new AtomicLong();
+    }
+
+    /**
+     * Records the duration of the given phase, which started at the given time and ends now.
+     *
+     * @param phase the {@link Phase} to record
+     * @param startTime the start time of the phase as provided by {@link System#nanoTime()}
+     */
+    void record(Phase phase, long startTime) {
+        phaseHistograms[phase.ordinal()].record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Records the size of the Git output read for the given commit.
+     *
+     * @param commitNumber the commit number of the commit
+     * @param bytes the number of bytes read for the commit
+     */
+    void recordOutputSize(String commitNumber, long bytes) {
+        measuredCommits.increment();
+        outputBytes.add(bytes);
+        synchronized (largestCommits) {
+            if (largestCommits.size() < LARGEST_COMMITS_LIMIT || largestCommits.peek().bytes < bytes) {
+                largestCommits.add(new CommitSize(commitNumber, bytes));
+                if (largestCommits.size() > LARGEST_COMMITS_LIMIT) {
+                    largestCommits.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Increments the number of commits added to the commit queue.
+     */
+    void countDeliveredCommit() {
+        deliveredCommits.increment();
+    }
+
+    /**
+     * Increments the number of commits skipped, because none of their changed artifacts matches the path filter.
+     */
+    void countSkippedCommit() {
+        skippedCommits.increment();
+    }
+
+    /**
+     * Increments the number of commits, which could not be extracted.
+     */
+    void countFailedCommit() {
+        failedCommits.increment();
+    }
+
+    /**
+     * Increments the number of Git processes started for extracting commits.
+     */
+    void countGitProcess() {
+        gitProcesses.increment();
+    }
+
+    /**
+     * Increments the number of commits, which the commit queue did not accept immediately.
+     */
+    void countQueueStall() {
+        queueStalls.increment();
+    }
+
+    /**
+     * Records the estimated size of all extracted commits waiting for being added to the commit queue at the same
+     * time, if it exceeds the largest size recorded so far.
+     *
+     * @param bytes the estimated size of the pending commits in bytes
+     */
+    void recordPendingBytes(long bytes) {
+        peakPendingBytes.accumulateAndGet(bytes, Math::max);
+    }
+
+    /**
+     * Increments the number of cache hits or cache misses.
+     *
+     * @param hit <code>true</code>, if the commit was retrieved from the commit cache; <code>false</code> otherwise
+     */
+    void countCacheLookup(boolean hit) {
+        if (hit) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDeliveredCommits() {
+        return deliveredCommits.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSkippedCommits() {
+        return skippedCommits.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFailedCommits() {
+        return failedCommits.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getGitProcesses() {
+        return gitProcesses.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOutputBytes() {
+        return outputBytes.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMeanOutputBytesPerCommit() {
+        long commits = measuredCommits.sum();
+        return (commits == 0) ? 0 : (double) outputBytes.sum() / commits;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getQueueStalls() {
+        return queueStalls.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPeakPendingBytes() {
+        return peakPendingBytes.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getLargestCommits() {
+        List<CommitSize> commitSizes;
+        synchronized (largestCommits) {
+            commitSizes = new ArrayList<CommitSize>(largestCommits);
+        }
+        Collections.sort(commitSizes, Collections.reverseOrder());
+        String[] commitDescriptions = new String[commitSizes.size()];
+        for (int i = 0; i < commitDescriptions.length; i++) {
+            commitDescriptions[i] = commitSizes.get(i).commitNumber + " (" + commitSizes.get(i).bytes + " bytes)";
+        }
+        return commitDescriptions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        Map<String, Long> phaseCounts = new LinkedHashMap<String, Long>();
+        for (Phase phase : Phase.values()) {
+            phaseCounts.put(phase.name(), phaseHistograms[phase.ordinal()].getCount());
+        }
+        return phaseCounts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Double> getPhaseTotalMillis() {
+        Map<String, Double> phaseTotals = new LinkedHashMap<String, Double>();
+        for (Phase phase : Phase.values()) {
+            phaseTotals.put(phase.name(), phaseHistograms[phase.ordinal()].getTotal() / NANOS_PER_MILLI);
+        }
+        return phaseTotals;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Double> getPhaseMeanMillis() {
+        Map<String, Double> phaseMeans = new LinkedHashMap<String, Double>();
+        for (Phase phase : Phase.values()) {
+            phaseMeans.put(phase.name(), phaseHistograms[phase.ordinal()].getMean() / NANOS_PER_MILLI);
+        }
+        return phaseMeans;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Double> getPhaseP99Millis() {
+        Map<String, Double> phasePercentiles = new LinkedHashMap<String, Double>();
+        for (Phase phase : Phase.values()) {
+            phasePercentiles.put(phase.name(), phaseHistograms[phase.ordinal()].getPercentile(0.99) / NANOS_PER_MILLI);
+        }
+        return phasePercentiles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Double> getPhaseMaxMillis() {
+        Map<String, Double> phaseMaxima = new LinkedHashMap<String, Double>();
+        for (Phase phase : Phase.values()) {
+            phaseMaxima.put(phase.name(), phaseHistograms[phase.ordinal()].getMax() / NANOS_PER_MILLI);
+        }
+        return phaseMaxima;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSummary() {
+        StringBuilder summaryBuilder = new StringBuilder();
+        summaryBuilder.append("Commits: ").append(getDeliveredCommits()).append(" delivered, ")
+                .append(getSkippedCommits()).append(" skipped, ").append(getFailedCommits()).append(" failed, ")
+                .append(getCacheHits()).append(" cache hits, ")
+                .append(getCacheMisses()).append(" cache misses\n");
+        summaryBuilder.append("Git processes: ").append(getGitProcesses()).append('\n');
+        summaryBuilder.append("Git output: ").append(getOutputBytes()).append(" bytes, ")
+                .append(String.format("%.0f", getMeanOutputBytesPerCommit())).append(" bytes per commit\n");
+        summaryBuilder.append("Commit queue: ").append(getQueueStalls()).append(" stalls, ")
+                .append(getPeakPendingBytes()).append(" peak pending bytes\n");
+        summaryBuilder.append("Phases (count, total ms, mean ms, p99 ms, max ms):");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram phaseHistogram = phaseHistograms[phase.ordinal()];
+            if (phaseHistogram.getCount() > 0) {
+                summaryBuilder.append(String.format("%n  %-16s %8d %12.1f %10.3f %10.3f %10.3f", phase.name(),
+                        phaseHistogram.getCount(), phaseHistogram.getTotal() / NANOS_PER_MILLI,
+                        phaseHistogram.getMean() / NANOS_PER_MILLI,
+                        phaseHistogram.getPercentile(0.99) / NANOS_PER_MILLI,
+                        phaseHistogram.getMax() / NANOS_PER_MILLI));
+            }
+        }
+        String[] largestCommitDescriptions = getLargestCommits();
+        if (largestCommitDescriptions.length > 0) {
+            summaryBuilder.append("\nLargest commits: ").append(String.join(", ", largestCommitDescriptions));
+        }
+        return summaryBuilder.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram phaseHistogram : phaseHistograms) {
+            phaseHistogram.reset();
+        }
+        deliveredCommits.reset();
+        skippedCommits.reset();
+        failedCommits.reset();
+        gitProcesses.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        measuredCommits.reset();
+        outputBytes.reset();
+        synchronized (largestCommits) {
+            largestCommits.clear();
+        }
+        queueStalls.reset();
+        peakPendingBytes.set(0);
+    }
+
+    /**
+     * This class records durations in buckets of exponentially increasing size: bucket <i>i</i> counts the durations
+     * between 2<sup><i>i</i></sup> and 2<sup><i>i</i>+1</sup> nanoseconds. Hence, percentiles are only available as
+     * upper bounds, which are at most twice the exact value, but recording a duration only requires incrementing
+     * a few atomic counters.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class LatencyHistogram {
+
+        /**
+         * The number of buckets, which covers all positive <code>long</code> values.
+         */
+        private static final int BUCKETS = 64;
+
+        /**
+         * The number of durations in each bucket.
+         */
+        private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * The number of recorded durations.
+         */
+        private LongAdder count = new LongAdder();
+
+        /**
+         * The sum of all recorded durations in nanoseconds.
+         */
+        private LongAdder total = new LongAdder();
+
+        /**
+         * The longest recorded duration in nanoseconds.
+         */
+        private AtomicLong max = new AtomicLong();
+
+        /**
+         * Records the given duration.
+         *
+         * @param nanos the duration in nanoseconds; negative durations are recorded as <code>0</code>
+         */
+        void record(long nanos) {
+            long duration = Math.max(nanos, 0);
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(duration | 1));
+            count.increment();
+            total.add(duration);
+            max.accumulateAndGet(duration, Math::max);
+        }
+
+        /**
+         * Returns the number of recorded durations.
+         *
+         * @return the number of recorded durations
+         */
+        long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the sum of all recorded durations.
+         *
+         * @return the sum of all recorded durations in nanoseconds
+         */
+        long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * Returns the average of all recorded durations.
+         *
+         * @return the average duration in nanoseconds or <code>0</code>, if no duration was recorded
+         */
+        double getMean() {
+            long durations = count.sum();
+            return (durations == 0) ? 0 : (double) total.sum() / durations;
+        }
+
+        /**
+         * Returns the longest recorded duration.
+         *
+         * @return the longest recorded duration in nanoseconds
+         */
+        long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the recorded durations, which is the upper bound of the
+         * bucket containing that percentile, but at most the longest recorded duration.
+         *
+         * @param percentile the percentile between <code>0</code> and <code>1</code>
+         * @return the upper bound of the percentile in nanoseconds or <code>0</code>, if no duration was recorded
+         */
+        double getPercentile(double percentile) {
+            long threshold = (long) Math.ceil(count.sum() * percentile);
+            long cumulatedCount = 0;
+            int bucketIndex = 0;
+            while (bucketIndex < BUCKETS && cumulatedCount < threshold) {
+                cumulatedCount += buckets.get(bucketIndex);
+                bucketIndex++;
+            }
+            double upperBound = (bucketIndex >= BUCKETS) ? Long.MAX_VALUE : Math.pow(2, bucketIndex);
+            return (threshold == 0) ? 0 : Math.min(upperBound, max.get());
+        }
+
+        /**
+         * Resets this histogram to its initial state.
+         */
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+    }
+
+    /**
+     * This class represents the size of the Git output of a single commit. Instances are ordered by their size.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class CommitSize implements Comparable<CommitSize> {
+
+        /**
+         * The commit number of the commit.
+         */
+        private String commitNumber;
+
+        /**
+         * The number of bytes of the Git output of the commit.
+         */
+        private long bytes;
+
+        /**
+         * Constructs a new {@link CommitSize}.
+         *
+         * @param commitNumber the commit number of the commit
+         * @param bytes the number of bytes of the Git output of the commit
+         */
+        CommitSize(String commitNumber, long bytes) {
+            this.commitNumber = commitNumber;
+            this.bytes = bytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(CommitSize otherCommitSize) {
+            return Long.compare(bytes, otherCommitSize.bytes);
+        }
+
+    }
+
+}
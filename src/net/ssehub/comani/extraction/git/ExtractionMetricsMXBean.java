@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.Map;
+
+/**
+ * This interface defines the management interface of the {@link ExtractionMetrics}, which is registered at the
+ * platform MBean server by the {@link GitCommitExtractor}. All durations are given in milliseconds; the maps use the
+ * names of the {@link ExtractionMetrics.Phase}s as keys. JMX requires this interface to be public.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public interface ExtractionMetricsMXBean {
+
+    /**
+     * Returns the number of commits added to the commit queue.
+     *
+     * @return the number of delivered commits
+     */
+    long getDeliveredCommits();
+
+    /**
+     * Returns the number of commits skipped, because none of their changed artifacts matches the path filter.
+     *
+     * @return the number of skipped commits
+     */
+    long getSkippedCommits();
+
+    /**
+     * Returns the number of commits, which could not be extracted.
+     *
+     * @return the number of failed commits
+     */
+    long getFailedCommits();
+
+    /**
+     * Returns the number of Git processes started for extracting commits.
+     *
+     * @return the number of Git processes
+     */
+    long getGitProcesses();
+
+    /**
+     * Returns the number of commits retrieved from the commit cache.
+     *
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Returns the number of commits looked up in the commit cache, but not found.
+     *
+     * @return the number of cache misses
+     */
+    long getCacheMisses();
+
+    /**
+     * Returns the total size of the Git output read for all commits.
+     *
+     * @return the total number of bytes read
+     */
+    long getOutputBytes();
+
+    /**
+     * Returns the average size of the Git output read for a single commit.
+     *
+     * @return the average number of bytes read per commit
+     */
+    double getMeanOutputBytesPerCommit();
+
+    /**
+     * Returns the number of commits, which the commit queue did not accept immediately, because the analyzer did not
+     * keep up with the extraction.
+     *
+     * @return the number of queue stalls
+     */
+    long getQueueStalls();
+
+    /**
+     * Returns the largest estimated size of all extracted commits waiting for being added to the commit queue at the
+     * same time.
+     *
+     * @return the peak number of bytes of pending commits
+     */
+    long getPeakPendingBytes();
+
+    /**
+     * Returns the commits with the largest Git output, each as "<tt>&lt;commit&gt; (&lt;bytes&gt; bytes)</tt>", in
+     * descending order of their size.
+     *
+     * @return the largest commits; never <code>null</code>
+     */
+    String[] getLargestCommits();
+
+    /**
+     * Returns the number of measurements of each phase.
+     *
+     * @return the number of measurements of each phase
+     */
+    Map<String, Long> getPhaseCounts();
+
+    /**
+     * Returns the sum of all durations of each phase.
+     *
+     * @return the total duration of each phase in milliseconds
+     */
+    Map<String, Double> getPhaseTotalMillis();
+
+    /**
+     * Returns the average duration of each phase.
+     *
+     * @return the average duration of each phase in milliseconds
+     */
+    Map<String, Double> getPhaseMeanMillis();
+
+    /**
+     * Returns an upper bound of the 99th percentile of the durations of each phase.
+     *
+     * @return the 99th percentile of the durations of each phase in milliseconds
+     */
+    Map<String, Double> getPhaseP99Millis();
+
+    /**
+     * Returns the longest duration of each phase.
+     *
+     * @return the longest duration of each phase in milliseconds
+     */
+    Map<String, Double> getPhaseMaxMillis();
+
+    /**
+     * Returns a textual summary of all metrics.
+     *
+     * @return the summary of all metrics; never <code>null</code>
+     */
+    String getSummary();
+
+    /**
+     * Resets all metrics to their initial values.
+     */
+    void reset();
+
+}
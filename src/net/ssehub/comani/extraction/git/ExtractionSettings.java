@@ -0,0 +1,957 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class reads and validates the plug-in-specific configuration parameters of the {@link GitCommitExtractor}. All
+ * parameters are optional; if a parameter is not defined in the extraction properties, its default value is used.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ExtractionSettings {
+
+    /**
+     * The available backends for retrieving commits from a Git repository.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    enum Backend {
+
+        /**
+         * Executes individual Git processes for each commit.
+         */
+        PROCESS,
+
+        /**
+         * Executes a single Git process and parses its output while it is produced.
+         */
+        STREAM,
+
+        /**
+         * Reads the commits directly from the files of the repository without executing Git.
+         */
+        INTERNAL
+    }
+
+    /**
+     * The property key for defining the {@link Backend} used for extracting commits from a repository. Valid values
+     * are "<tt>process</tt>" (default), "<tt>stream</tt>", and "<tt>internal</tt>".
+     */
+    static final String PROPERTY_BACKEND = "extraction.git.backend";
+
+    /**
+     * The property key for enabling the experimental {@link Backend#INTERNAL} backend, which is required for using
+     * it. The value must be "<tt>true</tt>" or "<tt>false</tt>" (default).
+     */
+    static final String PROPERTY_EXPERIMENTAL_INTERNAL = "extraction.git.experimental_internal";
+
+    /**
+     * The property key for defining the number of threads extracting commits concurrently, if the
+     * {@link Backend#PROCESS} or the {@link Backend#INTERNAL} backend is used. The value must be a positive integer;
+     * the default value is "<tt>1</tt>".
+     */
+    static final String PROPERTY_THREADS = "extraction.git.threads";
+
+    /**
+     * The property key for defining whether commits extracted concurrently are added to the commit queue in the order
+     * of the commit log or commit list (default: "<tt>true</tt>") or as soon as their extraction is finished
+     * ("<tt>false</tt>").
+     */
+    static final String PROPERTY_ORDERED_DELIVERY = "extraction.git.ordered_delivery";
+
+    /**
+     * The property key for defining the maximum estimated size of all extracted commits, which wait for being added
+     * to the commit queue, on all backends. While this size is exceeded, no further commits are extracted. The value
+     * must be a positive number of bytes, optionally followed by the unit "<tt>k</tt>", "<tt>m</tt>", or "<tt>g</tt>";
+     * the default value is "<tt>64m</tt>".
+     */
+    static final String PROPERTY_MAX_PENDING_BYTES = "extraction.git.max_pending_bytes";
+
+    /**
+     * The property key for defining the maximum number of bytes of the Git output for a single commit held in memory,
+     * if the {@link Backend#PROCESS} backend is used. Larger outputs are written to a temporary file. This does not
+     * limit the size of the created commit, which holds all lines of its changed artifacts. The value must be a
+     * positive number of bytes, optionally followed by the unit "<tt>k</tt>", "<tt>m</tt>", or "<tt>g</tt>". By
+     * default, there is no limit.
+     */
+    static final String PROPERTY_MAX_INMEMORY_BYTES = "extraction.git.max_inmemory_bytes";
+
+    /**
+     * The property key for defining the maximum number of bytes of the Git output for all commits extracted
+     * concurrently held in memory, if the {@link Backend#PROCESS} backend is used. Outputs exceeding this limit are
+     * written to temporary files. The value must be a positive number of bytes, optionally followed by the unit
+     * "<tt>k</tt>", "<tt>m</tt>", or "<tt>g</tt>". By default, there is no limit.
+     */
+    static final String PROPERTY_MAX_INMEMORY_TOTAL_BYTES = "extraction.git.max_inmemory_total_bytes";
+
+    /**
+     * The property key for defining the directory, in which the progress of full repository extractions is persisted.
+     * If this property is defined, a full repository extraction only delivers the commits added since the last
+     * completed extraction and resumes an interrupted extraction. By default, all commits are extracted.
+     */
+    static final String PROPERTY_STATE_DIR = "extraction.git.state_dir";
+
+    /**
+     * The property key for defining the directory, in which parsed commits are cached for subsequent extractions. By
+     * default, no commits are cached.
+     */
+    static final String PROPERTY_CACHE_DIR = "extraction.git.cache_dir";
+
+    /**
+     * The property key for defining the maximum number of bytes of all cached commits. If the cache exceeds this
+     * size, the least recently used commits are removed from the cache. The value must be a positive number of bytes,
+     * optionally followed by the unit "<tt>k</tt>", "<tt>m</tt>", or "<tt>g</tt>"; the default value is
+     * "<tt>1g</tt>".
+     */
+    static final String PROPERTY_CACHE_MAX_BYTES = "extraction.git.cache_max_bytes";
+
+    /**
+     * The property key for defining whether the metrics of the extraction are published via JMX and summarized at the
+     * end of each extraction (default: "<tt>true</tt>") or not ("<tt>false</tt>").
+     */
+    static final String PROPERTY_METRICS = "extraction.git.metrics";
+
+    /**
+     * The property key for defining whether commits are extracted with small context and the full content of each
+     * changed artifact is loaded on first access ("<tt>true</tt>") or all commits are extracted with full content
+     * (default: "<tt>false</tt>"). Lazy content cannot be combined with the {@link #PROPERTY_CACHE_DIR}.
+     */
+    static final String PROPERTY_LAZY_CONTENT = "extraction.git.lazy_content";
+
+    /**
+     * The property key for defining whether the first access to the content of a changed artifact loads the full
+     * content of all changed artifacts of the same commit ("<tt>true</tt>") or only of the accessed artifact (default:
+     * "<tt>false</tt>"). This property is only considered, if {@link #PROPERTY_LAZY_CONTENT} is enabled.
+     */
+    static final String PROPERTY_LAZY_PREFETCH = "extraction.git.lazy_prefetch";
+
+    /**
+     * The property key for defining a comma-separated list of path patterns relative to the root of the repository
+     * (default: none). If defined, only the changed artifacts matching at least one of these patterns are extracted.
+     * A pattern matches a path, if it is equal to the path or one of its leading directories, or if it matches the path
+     * as a wildcard pattern like "<tt>src/*.java</tt>".
+     */
+    static final String PROPERTY_INCLUDE_PATHS = "extraction.git.include_paths";
+
+    /**
+     * The property key for defining a comma-separated list of path patterns relative to the root of the repository
+     * (default: none). The changed artifacts matching at least one of these patterns are not extracted. The patterns
+     * use the same syntax as the {@link #PROPERTY_INCLUDE_PATHS}.
+     */
+    static final String PROPERTY_EXCLUDE_PATHS = "extraction.git.exclude_paths";
+
+    /**
+     * The property key for defining whether changed artifacts representing binary files are skipped
+     * ("<tt>true</tt>") or extracted (default: "<tt>false</tt>").
+     */
+    static final String PROPERTY_SKIP_BINARY = "extraction.git.skip_binary";
+
+    /**
+     * The property key for defining the number of shards, into which the commits of a repository are split (default:
+     * "<tt>1</tt>"). If the number is larger than <tt>1</tt>, an extraction only extracts the commits of the shard
+     * defined by {@link #PROPERTY_SHARD_INDEX} and describes them in a manifest file in the
+     * {@link #PROPERTY_SHARD_DIR}. Sharding cannot be combined with the {@link #PROPERTY_STATE_DIR} and the
+     * {@link Backend#INTERNAL} backend.
+     */
+    static final String PROPERTY_SHARD_COUNT = "extraction.git.shard_count";
+
+    /**
+     * The property key for defining the index of the shard extracted by this extractor starting at <tt>0</tt>
+     * (default: "<tt>0</tt>"). The index must be smaller than the number defined by {@link #PROPERTY_SHARD_COUNT}.
+     */
+    static final String PROPERTY_SHARD_INDEX = "extraction.git.shard_index";
+
+    /**
+     * The property key for defining the directory, in which the manifest files of all shards are stored (no default).
+     * This property is required, if the {@link #PROPERTY_SHARD_COUNT} is larger than <tt>1</tt>.
+     */
+    static final String PROPERTY_SHARD_DIR = "extraction.git.shard_dir";
+
+    /**
+     * The property key for defining whether the repository passed to a full repository extraction is a directory
+     * containing multiple repositories or a file listing them (<tt>true</tt>) or a single repository
+     * (<tt>false</tt>, default). The repositories are extracted concurrently by the number of threads defined by
+     * {@link #PROPERTY_REPOSITORY_THREADS}.
+     */
+    static final String PROPERTY_MULTI_REPOSITORY = "extraction.git.multi_repository";
+
+    /**
+     * The property key for defining the number of repositories extracted concurrently, if the
+     * {@link #PROPERTY_MULTI_REPOSITORY} is enabled. The value must be a positive integer; the default value is the
+     * number of available processors.
+     */
+    static final String PROPERTY_REPOSITORY_THREADS = "extraction.git.repository_threads";
+
+    /**
+     * The property key for defining whether the repository passed to a full repository extraction is a file
+     * containing the output of <code>git log -p</code>, optionally compressed with gzip, or "<tt>-</tt>" for reading
+     * such output from the standard input stream (<tt>true</tt>) or a repository (<tt>false</tt>, default). As such a
+     * dump replaces the repository, it cannot be combined with properties requiring access to the repository.
+     */
+    static final String PROPERTY_DUMP_INPUT = "extraction.git.dump_input";
+
+    /**
+     * The property key for defining the earliest committer date of the extracted commits (inclusive; default: none).
+     * The value is a date "<tt>yyyy-MM-dd</tt>" optionally followed by a time "<tt>HH:mm[:ss]</tt>" and a time zone
+     * offset like "<tt>+0200</tt>" or a number of seconds since the Unix epoch prefixed by "<tt>@</tt>". Dates without
+     * offset are interpreted as UTC. Like <code>git log --since</code>, the commit log is not traversed beyond
+     * commits committed before this date.
+     */
+    static final String PROPERTY_SINCE = "extraction.git.since";
+
+    /**
+     * The property key for defining the latest committer date of the extracted commits (inclusive; default: none).
+     * The value uses the same format as the {@link #PROPERTY_SINCE}.
+     */
+    static final String PROPERTY_UNTIL = "extraction.git.until";
+
+    /**
+     * The property key for defining whether only the first parent of each commit is followed, when traversing the
+     * commit log (<tt>true</tt>), or all parents (<tt>false</tt>, default). Hence, enabling this property omits the
+     * commits merged from other branches.
+     */
+    static final String PROPERTY_FIRST_PARENT = "extraction.git.first_parent";
+
+    /**
+     * The property key for defining the distance between two extracted commits in the commit log (default:
+     * "<tt>1</tt>"). For a value <tt>n</tt>, the first commit and every n-th commit after it are extracted. This
+     * property cannot be combined with the {@link #PROPERTY_SAMPLE_RATE}.
+     */
+    static final String PROPERTY_SAMPLE_EVERY = "extraction.git.sample_every";
+
+    /**
+     * The property key for defining the probability of extracting a commit as a number larger than <tt>0</tt> and up
+     * to <tt>1</tt> (default: "<tt>1</tt>"). Whether a commit is extracted depends on its commit number and the
+     * {@link #PROPERTY_SAMPLE_SEED} only, such that repeated extractions select the same commits.
+     */
+    static final String PROPERTY_SAMPLE_RATE = "extraction.git.sample_rate";
+
+    /**
+     * The property key for defining the seed selecting the commits extracted with the {@link #PROPERTY_SAMPLE_RATE}.
+     * The value must be an integer; the default value is "<tt>0</tt>".
+     */
+    static final String PROPERTY_SAMPLE_SEED = "extraction.git.sample_seed";
+
+    /**
+     * The pattern of the values of the {@link #PROPERTY_SINCE} and {@link #PROPERTY_UNTIL} defining a date. Its groups
+     * are the date, the optional time, and the optional time zone offset.
+     */
+    private static final Pattern DATE_PATTERN = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2})(?:[ T](\\d{2}:\\d{2}(?::\\d{2})?))?(?: ?([+-]\\d{2}:?\\d{2}|Z))?");
+
+    /**
+     * The {@link Backend} defined by {@link #PROPERTY_BACKEND}.
+     */
+    private Backend backend;
+
+    /**
+     * The number of threads defined by {@link #PROPERTY_THREADS}.
+     */
+    private int threads;
+
+    /**
+     * The definition of ordered delivery defined by {@link #PROPERTY_ORDERED_DELIVERY}.
+     */
+    private boolean orderedDelivery;
+
+    /**
+     * The maximum number of bytes of pending commits defined by {@link #PROPERTY_MAX_PENDING_BYTES}.
+     */
+    private long maxPendingBytes;
+
+    /**
+     * The maximum number of bytes for a single commit defined by {@link #PROPERTY_MAX_INMEMORY_BYTES} or
+     * {@link Long#MAX_VALUE}, if not defined.
+     */
+    private long maxInMemoryBytes;
+
+    /**
+     * The maximum number of bytes for all commits defined by {@link #PROPERTY_MAX_INMEMORY_TOTAL_BYTES} or
+     * {@link Long#MAX_VALUE}, if not defined.
+     */
+    private long maxInMemoryTotalBytes;
+
+    /**
+     * The state directory defined by {@link #PROPERTY_STATE_DIR} or <code>null</code>, if not defined.
+     */
+    private File stateDirectory;
+
+    /**
+     * The cache directory defined by {@link #PROPERTY_CACHE_DIR} or <code>null</code>, if not defined.
+     */
+    private File cacheDirectory;
+
+    /**
+     * The maximum number of bytes of all cached commits defined by {@link #PROPERTY_CACHE_MAX_BYTES}.
+     */
+    private long cacheMaxBytes;
+
+    /**
+     * The definition of publishing metrics defined by {@link #PROPERTY_METRICS}.
+     */
+    private boolean metricsEnabled;
+
+    /**
+     * The definition of lazy content defined by {@link #PROPERTY_LAZY_CONTENT}.
+     */
+    private boolean lazyContent;
+
+    /**
+     * The definition of prefetching lazy content defined by {@link #PROPERTY_LAZY_PREFETCH}.
+     */
+    private boolean lazyPrefetch;
+
+    /**
+     * The {@link PathFilter} defined by {@link #PROPERTY_INCLUDE_PATHS}, {@link #PROPERTY_EXCLUDE_PATHS}, and
+     * {@link #PROPERTY_SKIP_BINARY} or <code>null</code>, if none of these properties restricts the changed artifacts.
+     */
+    private PathFilter pathFilter;
+
+    /**
+     * The number of shards defined by {@link #PROPERTY_SHARD_COUNT}.
+     */
+    private int shardCount;
+
+    /**
+     * The index of the extracted shard defined by {@link #PROPERTY_SHARD_INDEX}.
+     */
+    private int shardIndex;
+
+    /**
+     * The directory of the shard manifest files defined by {@link #PROPERTY_SHARD_DIR}.
+     */
+    private File shardDirectory;
+
+    /**
+     * The definition of multi-repository extractions defined by {@link #PROPERTY_MULTI_REPOSITORY}.
+     */
+    private boolean multiRepository;
+
+    /**
+     * The number of repositories extracted concurrently defined by {@link #PROPERTY_REPOSITORY_THREADS}.
+     */
+    private int repositoryThreads;
+
+    /**
+     * The definition of reading commit dumps defined by {@link #PROPERTY_DUMP_INPUT}.
+     */
+    private boolean dumpInput;
+
+    /**
+     * The {@link CommitWindow} defined by {@link #PROPERTY_SINCE}, {@link #PROPERTY_UNTIL}, and
+     * {@link #PROPERTY_FIRST_PARENT} or <code>null</code>, if none of these properties restricts the commit log.
+     */
+    private CommitWindow commitWindow;
+
+    /**
+     * The {@link CommitSampler} defined by {@link #PROPERTY_SAMPLE_EVERY}, {@link #PROPERTY_SAMPLE_RATE}, and
+     * {@link #PROPERTY_SAMPLE_SEED} or <code>null</code>, if all commits of the commit log are extracted.
+     */
+    private CommitSampler commitSampler;
+
+    /**
+     * Constructs new {@link ExtractionSettings} by reading the plug-in-specific configuration parameters from the
+     * given properties.
+     *
+     * @param extractionProperties the properties of the properties file defining the extraction process and the
+     *        configuration of the extractor in use; should never be <code>null</code>
+     * @throws ExtractionSetupException if the value of a plug-in-specific configuration parameter is invalid
+     */
+    ExtractionSettings(Properties extractionProperties) throws ExtractionSetupException {
+        backend = getBackend(extractionProperties.getProperty(PROPERTY_BACKEND, "process"));
+        if (backend == Backend.INTERNAL && !getBoolean(extractionProperties, PROPERTY_EXPERIMENTAL_INTERNAL, false)) {
+            // The internal backend rejects unsupported repositories, but may still differ from Git in other cases
+            throw new ExtractionSetupException("Value \"internal\" of property \"" + PROPERTY_BACKEND
+                    + "\" is experimental and requires property \"" + PROPERTY_EXPERIMENTAL_INTERNAL + "\" = true");
+        }
+        threads = (int) getPositiveNumber(extractionProperties, PROPERTY_THREADS, 1);
+        orderedDelivery = getBoolean(extractionProperties, PROPERTY_ORDERED_DELIVERY, true);
+        maxPendingBytes = getByteSize(extractionProperties, PROPERTY_MAX_PENDING_BYTES, 64L << 20);
+        maxInMemoryBytes = getByteSize(extractionProperties, PROPERTY_MAX_INMEMORY_BYTES, Long.MAX_VALUE);
+        maxInMemoryTotalBytes = getByteSize(extractionProperties, PROPERTY_MAX_INMEMORY_TOTAL_BYTES, Long.MAX_VALUE);
+        stateDirectory = getDirectory(extractionProperties, PROPERTY_STATE_DIR);
+        cacheDirectory = getDirectory(extractionProperties, PROPERTY_CACHE_DIR);
+        cacheMaxBytes = getByteSize(extractionProperties, PROPERTY_CACHE_MAX_BYTES, 1L << 30);
+        metricsEnabled = getBoolean(extractionProperties, PROPERTY_METRICS, true);
+        lazyContent = getBoolean(extractionProperties, PROPERTY_LAZY_CONTENT, false);
+        lazyPrefetch = getBoolean(extractionProperties, PROPERTY_LAZY_PREFETCH, false);
+        if (lazyContent && cacheDirectory != null) {
+            // Caching a commit requires its full content, which would load the content of all commits immediately
+            throw new ExtractionSetupException("Property \"" + PROPERTY_LAZY_CONTENT
+                    + "\" cannot be combined with property \"" + PROPERTY_CACHE_DIR + "\"");
+        }
+        List<String> includePatterns = getPatterns(extractionProperties, PROPERTY_INCLUDE_PATHS);
+        List<String> excludePatterns = getPatterns(extractionProperties, PROPERTY_EXCLUDE_PATHS);
+        boolean skipBinary = getBoolean(extractionProperties, PROPERTY_SKIP_BINARY, false);
+        if (!includePatterns.isEmpty() || !excludePatterns.isEmpty() || skipBinary) {
+            if (cacheDirectory != null) {
+                // The cache would store the filtered commits, which other extractions may request unfiltered
+                throw new ExtractionSetupException("Path filter properties cannot be combined with property \""
+                        + PROPERTY_CACHE_DIR + "\"");
+            }
+            pathFilter = new PathFilter(includePatterns, excludePatterns, skipBinary);
+        }
+        readShardProperties(extractionProperties);
+        readSelectionProperties(extractionProperties);
+        multiRepository = getBoolean(extractionProperties, PROPERTY_MULTI_REPOSITORY, false);
+        repositoryThreads = (int) Math.min(Integer.MAX_VALUE, getPositiveNumber(extractionProperties,
+                PROPERTY_REPOSITORY_THREADS, Runtime.getRuntime().availableProcessors()));
+        dumpInput = getBoolean(extractionProperties, PROPERTY_DUMP_INPUT, false);
+        if (dumpInput) {
+            checkDumpInput();
+        }
+    }
+
+    /**
+     * Checks whether the properties read so far can be combined with the {@link #PROPERTY_DUMP_INPUT}. This is not the
+     * case for properties, which require access to the repository, or which select commits based on the repository.
+     *
+     * @throws ExtractionSetupException if a property cannot be combined with the {@link #PROPERTY_DUMP_INPUT}
+     */
+    private void checkDumpInput() throws ExtractionSetupException {
+        String conflictingProperty = null;
+        if (stateDirectory != null) {
+            conflictingProperty = PROPERTY_STATE_DIR;
+        } else if (cacheDirectory != null) {
+            conflictingProperty = PROPERTY_CACHE_DIR;
+        } else if (lazyContent) {
+            conflictingProperty = PROPERTY_LAZY_CONTENT;
+        } else if (shardCount > 1) {
+            conflictingProperty = PROPERTY_SHARD_COUNT;
+        } else if (multiRepository) {
+            conflictingProperty = PROPERTY_MULTI_REPOSITORY;
+        }
+        if (conflictingProperty != null) {
+            throw new ExtractionSetupException("Property \"" + PROPERTY_DUMP_INPUT
+                    + "\" cannot be combined with property \"" + conflictingProperty + "\"");
+        }
+        if (commitWindow != null || commitSampler != null) {
+            // The commits of a dump are selected by the options of the git log command producing it
+            throw new ExtractionSetupException("Commit selection properties cannot be combined with property \""
+                    + PROPERTY_DUMP_INPUT + "\"");
+        }
+    }
+
+    /**
+     * Reads the properties selecting the commits of the commit log, which are extracted.
+     *
+     * @param extractionProperties the properties of the properties file defining the extraction process and the
+     *        configuration of the extractor in use
+     * @throws ExtractionSetupException if the value of a selection property is invalid or the properties contradict
+     *         each other
+     */
+    private void readSelectionProperties(Properties extractionProperties) throws ExtractionSetupException {
+        long since = getTimestamp(extractionProperties, PROPERTY_SINCE);
+        long until = getTimestamp(extractionProperties, PROPERTY_UNTIL);
+        if (since != CommitWindow.UNBOUNDED && until != CommitWindow.UNBOUNDED && until < since) {
+            throw new ExtractionSetupException("Property \"" + PROPERTY_UNTIL + "\" must not define a date before "
+                    + "property \"" + PROPERTY_SINCE + "\"");
+        }
+        boolean firstParent = getBoolean(extractionProperties, PROPERTY_FIRST_PARENT, false);
+        if (since != CommitWindow.UNBOUNDED || until != CommitWindow.UNBOUNDED || firstParent) {
+            commitWindow = new CommitWindow(since, until, firstParent);
+        }
+        int sampleInterval = (int) Math.min(Integer.MAX_VALUE,
+                getPositiveNumber(extractionProperties, PROPERTY_SAMPLE_EVERY, 1));
+        String sampleRateValue = extractionProperties.getProperty(PROPERTY_SAMPLE_RATE, "1");
+        double sampleRate = 0;
+        try {
+            sampleRate = Double.parseDouble(sampleRateValue.trim());
+        } catch (NumberFormatException e) {
+            sampleRate = 0;
+        }
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new ExtractionSetupException("Invalid value \"" + sampleRateValue + "\" for property \""
+                    + PROPERTY_SAMPLE_RATE + "\"; the value must be a number larger than 0 and up to 1");
+        }
+        if (sampleInterval > 1 && sampleRate < 1) {
+            throw new ExtractionSetupException("Property \"" + PROPERTY_SAMPLE_EVERY
+                    + "\" cannot be combined with property \"" + PROPERTY_SAMPLE_RATE + "\"");
+        }
+        String sampleSeedValue = extractionProperties.getProperty(PROPERTY_SAMPLE_SEED, "0");
+        long sampleSeed = 0;
+        try {
+            sampleSeed = Long.parseLong(sampleSeedValue.trim());
+        } catch (NumberFormatException e) {
+            throw new ExtractionSetupException("Invalid value \"" + sampleSeedValue + "\" for property \""
+                    + PROPERTY_SAMPLE_SEED + "\"; the value must be an integer");
+        }
+        if (sampleInterval > 1 || sampleRate < 1) {
+            commitSampler = new CommitSampler(sampleInterval, sampleRate, sampleSeed);
+        }
+    }
+
+    /**
+     * Returns the timestamp defined by the property with the given key. The value of the property must be a date
+     * matching the {@link #DATE_PATTERN} or a number of seconds since the Unix epoch prefixed by "<tt>@</tt>".
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining a date
+     * @return the timestamp in seconds since the Unix epoch defined by the property or {@link CommitWindow#UNBOUNDED},
+     *         if the property is not defined
+     * @throws ExtractionSetupException if the value of the property is not a valid date or before the Unix epoch
+     */
+    private long getTimestamp(Properties extractionProperties, String propertyKey) throws ExtractionSetupException {
+        long timestamp = CommitWindow.UNBOUNDED;
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            String date = propertyValue.trim();
+            Matcher dateMatcher = DATE_PATTERN.matcher(date);
+            try {
+                if (date.startsWith("@")) {
+                    timestamp = Long.parseLong(date.substring(1));
+                } else if (dateMatcher.matches()) {
+                    LocalTime time = dateMatcher.group(2) == null ? LocalTime.MIDNIGHT
+                            : LocalTime.parse(dateMatcher.group(2));
+                    ZoneOffset offset = dateMatcher.group(3) == null ? ZoneOffset.UTC
+                            : ZoneOffset.of(dateMatcher.group(3));
+                    timestamp = LocalDate.parse(dateMatcher.group(1)).atTime(time).toEpochSecond(offset);
+                }
+            } catch (NumberFormatException | DateTimeException e) {
+                timestamp = CommitWindow.UNBOUNDED;
+            }
+            if (timestamp < 0) {
+                throw new ExtractionSetupException("Invalid value \"" + propertyValue + "\" for property \""
+                        + propertyKey + "\"; the value must be a date like \"2020-01-31 12:00:00 +0100\" not before "
+                        + "1970 or a number of seconds like \"@1580468400\"");
+            }
+        }
+        return timestamp;
+    }
+
+    /**
+     * Reads the properties defining the shard extracted by this extractor.
+     *
+     * @param extractionProperties the properties of the properties file defining the extraction process and the
+     *        configuration of the extractor in use
+     * @throws ExtractionSetupException if the value of a shard property is invalid or a required shard property is
+     *         missing
+     */
+    private void readShardProperties(Properties extractionProperties) throws ExtractionSetupException {
+        shardCount = (int) Math.min(Integer.MAX_VALUE,
+                getPositiveNumber(extractionProperties, PROPERTY_SHARD_COUNT, 1));
+        String shardIndexValue = extractionProperties.getProperty(PROPERTY_SHARD_INDEX, "0");
+        try {
+            shardIndex = Integer.parseInt(shardIndexValue.trim());
+        } catch (NumberFormatException e) {
+            shardIndex = -1;
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new ExtractionSetupException("Invalid value \"" + shardIndexValue + "\" for property \""
+                    + PROPERTY_SHARD_INDEX + "\"; the value must be a number from 0 to " + (shardCount - 1));
+        }
+        shardDirectory = getDirectory(extractionProperties, PROPERTY_SHARD_DIR);
+        if (shardCount > 1 && shardDirectory == null) {
+            throw new ExtractionSetupException("Property \"" + PROPERTY_SHARD_DIR + "\" is required, if property \""
+                    + PROPERTY_SHARD_COUNT + "\" is larger than 1");
+        }
+        if (shardCount > 1 && stateDirectory != null) {
+            // The incremental extraction selects the commits by its checkpoint instead of the shard
+            throw new ExtractionSetupException("Property \"" + PROPERTY_SHARD_COUNT
+                    + "\" cannot be combined with property \"" + PROPERTY_STATE_DIR + "\"");
+        }
+        if (shardCount > 1 && backend == Backend.INTERNAL) {
+            // Weighing the commits of the shards requires the Git processes, which the internal backend avoids
+            throw new ExtractionSetupException("Property \"" + PROPERTY_SHARD_COUNT
+                    + "\" cannot be combined with value \"internal\" of property \"" + PROPERTY_BACKEND + "\"");
+        }
+    }
+
+    /**
+     * Returns the {@link Backend} identified by the given property value.
+     *
+     * @param backendValue the value of the {@link #PROPERTY_BACKEND} property
+     * @return the {@link Backend} identified by the given value; never <code>null</code>
+     * @throws ExtractionSetupException if the given value does not identify any {@link Backend}
+     */
+    private Backend getBackend(String backendValue) throws ExtractionSetupException {
+        Backend selectedBackend = null;
+        for (Backend availableBackend : Backend.values()) {
+            if (availableBackend.name().equalsIgnoreCase(backendValue.trim())) {
+                selectedBackend = availableBackend;
+            }
+        }
+        if (selectedBackend == null) {
+            throw new ExtractionSetupException("Invalid value \"" + backendValue + "\" for property \""
+                    + PROPERTY_BACKEND + "\"");
+        }
+        return selectedBackend;
+    }
+
+    /**
+     * Returns the positive number defined by the property with the given key.
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining a positive number
+     * @param defaultValue the value to return, if the property is not defined
+     * @return the positive number defined by the property or the given default value, if the property is not defined
+     * @throws ExtractionSetupException if the value of the property is not a positive number
+     */
+    private long getPositiveNumber(Properties extractionProperties, String propertyKey, long defaultValue)
+            throws ExtractionSetupException {
+        long number = defaultValue;
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            try {
+                number = Long.parseLong(propertyValue.trim());
+            } catch (NumberFormatException e) {
+                number = 0;
+            }
+            if (number <= 0) {
+                throw new ExtractionSetupException("Invalid value \"" + propertyValue + "\" for property \""
+                        + propertyKey + "\"; the value must be a positive number");
+            }
+        }
+        return number;
+    }
+
+    /**
+     * Returns the number of bytes defined by the property with the given key. The value of the property must be a
+     * positive number optionally followed by the unit "<tt>k</tt>" (kilobytes), "<tt>m</tt>" (megabytes), or
+     * "<tt>g</tt>" (gigabytes).
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining a number of bytes
+     * @param defaultValue the value to return, if the property is not defined
+     * @return the number of bytes defined by the property or the given default value, if the property is not defined
+     * @throws ExtractionSetupException if the value of the property is not a positive number of bytes
+     */
+    private long getByteSize(Properties extractionProperties, String propertyKey, long defaultValue)
+            throws ExtractionSetupException {
+        long byteSize = defaultValue;
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            String number = propertyValue.trim().toLowerCase();
+            int unitExponent = "kmg".indexOf(number.isEmpty() ? ' ' : number.charAt(number.length() - 1)) + 1;
+            if (unitExponent > 0) {
+                number = number.substring(0, number.length() - 1).trim();
+            }
+            try {
+                byteSize = Long.parseLong(number);
+                if (byteSize > (Long.MAX_VALUE >> (10 * unitExponent))) {
+                    byteSize = 0; // Overflow
+                }
+                byteSize = byteSize << (10 * unitExponent);
+            } catch (NumberFormatException e) {
+                byteSize = 0;
+            }
+            if (byteSize <= 0) {
+                throw new ExtractionSetupException("Invalid value \"" + propertyValue + "\" for property \""
+                        + propertyKey + "\"; the value must be a positive number of bytes");
+            }
+        }
+        return byteSize;
+    }
+
+    /**
+     * Returns the directory defined by the property with the given key. The directory does not need to exist, but it
+     * must not be an existing file.
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining a directory
+     * @return the directory defined by the property or <code>null</code>, if the property is not defined
+     * @throws ExtractionSetupException if the value of the property is <i>empty</i> or denotes an existing file
+     */
+    private File getDirectory(Properties extractionProperties, String propertyKey) throws ExtractionSetupException {
+        File directory = null;
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            if (propertyValue.trim().isEmpty() || new File(propertyValue.trim()).isFile()) {
+                throw new ExtractionSetupException("Invalid value \"" + propertyValue + "\" for property \""
+                        + propertyKey + "\"; the value must denote a directory");
+            }
+            directory = new File(propertyValue.trim());
+        }
+        return directory;
+    }
+
+    /**
+     * Returns the path patterns defined by the property with the given key as a comma-separated list. Leading and
+     * trailing whitespace as well as <i>empty</i> patterns are ignored.
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining path patterns
+     * @return the path patterns defined by the property; never <code>null</code>, but <i>empty</i>, if the property is
+     *         not defined
+     * @throws ExtractionSetupException if a pattern starts with "<tt>:</tt>", which Git would interpret as pathspec
+     *         magic
+     */
+    private List<String> getPatterns(Properties extractionProperties, String propertyKey)
+            throws ExtractionSetupException {
+        List<String> patterns = new ArrayList<String>();
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            for (String patternValue : propertyValue.split(",")) {
+                String pattern = patternValue.trim();
+                if (pattern.startsWith(":")) {
+                    throw new ExtractionSetupException("Invalid pattern \"" + pattern + "\" for property \""
+                            + propertyKey + "\"; patterns must not start with \":\"");
+                }
+                if (!pattern.isEmpty()) {
+                    patterns.add(pattern);
+                }
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Returns the boolean value defined by the property with the given key.
+     *
+     * @param extractionProperties the properties containing the property with the given key
+     * @param propertyKey the key of the property defining a boolean value
+     * @param defaultValue the value to return, if the property is not defined
+     * @return the boolean value defined by the property or the given default value, if the property is not defined
+     * @throws ExtractionSetupException if the value of the property is neither "<tt>true</tt>" nor "<tt>false</tt>"
+     */
+    private boolean getBoolean(Properties extractionProperties, String propertyKey, boolean defaultValue)
+            throws ExtractionSetupException {
+        boolean value = defaultValue;
+        String propertyValue = extractionProperties.getProperty(propertyKey);
+        if (propertyValue != null) {
+            if (propertyValue.trim().equalsIgnoreCase("true")) {
+                value = true;
+            } else if (propertyValue.trim().equalsIgnoreCase("false")) {
+                value = false;
+            } else {
+                throw new ExtractionSetupException("Invalid value \"" + propertyValue + "\" for property \""
+                        + propertyKey + "\"; the value must be \"true\" or \"false\"");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the {@link Backend} used for extracting commits from a repository.
+     *
+     * @return the {@link Backend} used for extracting commits; never <code>null</code>
+     */
+    Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the number of threads extracting commits concurrently.
+     *
+     * @return the number of threads extracting commits concurrently; always greater than <code>0</code>
+     */
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns whether commits extracted concurrently are added to the commit queue in the order of the commit log or
+     * commit list.
+     *
+     * @return <code>true</code>, if the order of the commit log or commit list is preserved; <code>false</code>
+     *         otherwise
+     */
+    boolean isOrderedDelivery() {
+        return orderedDelivery;
+    }
+
+    /**
+     * Returns whether the Git output for individual commits is buffered with limited memory usage instead of being
+     * held in memory entirely.
+     *
+     * @return <code>true</code>, if {@link #PROPERTY_MAX_INMEMORY_BYTES} or {@link #PROPERTY_MAX_INMEMORY_TOTAL_BYTES}
+     *         is defined; <code>false</code> otherwise
+     */
+    boolean isMemoryLimited() {
+        return maxInMemoryBytes != Long.MAX_VALUE || maxInMemoryTotalBytes != Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the maximum estimated size of all extracted commits, which wait for being added to the commit queue.
+     *
+     * @return the maximum number of bytes of pending commits; always greater than <code>0</code>
+     */
+    long getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /**
+     * Returns the maximum number of bytes of the Git output for a single commit held in memory.
+     *
+     * @return the maximum number of bytes for a single commit or {@link Long#MAX_VALUE}, if there is no limit
+     */
+    long getMaxInMemoryBytes() {
+        return maxInMemoryBytes;
+    }
+
+    /**
+     * Returns the maximum number of bytes of the Git output for all commits extracted concurrently held in memory.
+     *
+     * @return the maximum number of bytes for all commits or {@link Long#MAX_VALUE}, if there is no limit
+     */
+    long getMaxInMemoryTotalBytes() {
+        return maxInMemoryTotalBytes;
+    }
+
+    /**
+     * Returns the directory, in which the progress of full repository extractions is persisted.
+     *
+     * @return the state directory or <code>null</code>, if full repository extractions always extract all commits
+     */
+    File getStateDirectory() {
+        return stateDirectory;
+    }
+
+    /**
+     * Returns the directory, in which parsed commits are cached for subsequent extractions.
+     *
+     * @return the cache directory or <code>null</code>, if commits are not cached
+     */
+    File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns the maximum number of bytes of all cached commits.
+     *
+     * @return the maximum number of bytes of all cached commits; always greater than <code>0</code>
+     */
+    long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    /**
+     * Returns whether the metrics of the extraction are published via JMX and summarized at the end of each
+     * extraction.
+     *
+     * @return <code>true</code>, if metrics are published; <code>false</code> otherwise
+     */
+    boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Returns whether commits are extracted with small context and the full content of each changed artifact is loaded
+     * on first access.
+     *
+     * @return <code>true</code>, if the content is loaded lazily; <code>false</code>, if commits are extracted with
+     *         full content
+     */
+    boolean isLazyContent() {
+        return lazyContent;
+    }
+
+    /**
+     * Returns whether the first access to the content of a changed artifact loads the full content of all changed
+     * artifacts of the same commit.
+     *
+     * @return <code>true</code>, if the content of all artifacts of a commit is loaded together; <code>false</code>,
+     *         if only the accessed artifact is loaded
+     */
+    boolean isLazyPrefetch() {
+        return lazyPrefetch;
+    }
+
+    /**
+     * Returns the {@link PathFilter} restricting the extracted changed artifacts.
+     *
+     * @return the {@link PathFilter} or <code>null</code>, if all changed artifacts are extracted
+     */
+    PathFilter getPathFilter() {
+        return pathFilter;
+    }
+
+    /**
+     * Returns the number of shards, into which the commits of a repository are split.
+     *
+     * @return the number of shards, which is always positive; <code>1</code>, if the commits are not split
+     */
+    int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the index of the shard extracted by this extractor.
+     *
+     * @return the index of the shard starting at <code>0</code>, which is always smaller than the
+     *         {@link #getShardCount()}
+     */
+    int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Returns the directory, in which the manifest files of all shards are stored.
+     *
+     * @return the directory of the shard manifest files or <code>null</code>, if not defined
+     */
+    File getShardDirectory() {
+        return shardDirectory;
+    }
+
+    /**
+     * Returns whether the repository passed to a full repository extraction contains or lists multiple repositories.
+     *
+     * @return <code>true</code>, if multiple repositories are extracted; <code>false</code> otherwise
+     */
+    boolean isMultiRepository() {
+        return multiRepository;
+    }
+
+    /**
+     * Returns the number of repositories extracted concurrently by a multi-repository extraction.
+     *
+     * @return the number of repository threads; always greater than <code>0</code>
+     */
+    int getRepositoryThreads() {
+        return repositoryThreads;
+    }
+
+    /**
+     * Returns whether the repository passed to a full repository extraction is a commit dump.
+     *
+     * @return <code>true</code>, if commits are read from a commit dump; <code>false</code> otherwise
+     */
+    boolean isDumpInput() {
+        return dumpInput;
+    }
+
+    /**
+     * Returns the {@link CommitWindow} restricting the commit log.
+     *
+     * @return the {@link CommitWindow} or <code>null</code>, if the commit log is not restricted
+     */
+    CommitWindow getCommitWindow() {
+        return commitWindow;
+    }
+
+    /**
+     * Returns the {@link CommitSampler} selecting the extracted commits of the commit log.
+     *
+     * @return the {@link CommitSampler} or <code>null</code>, if all commits of the commit log are extracted
+     */
+    CommitSampler getCommitSampler() {
+        return commitSampler;
+    }
+
+}
@@ -12,14 +12,33 @@
  */
 package net.ssehub.comani.extraction.git;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import net.ssehub.comani.core.Logger.MessageType;
-import net.ssehub.comani.data.ChangedArtifact;
 import net.ssehub.comani.data.Commit;
 import net.ssehub.comani.data.IExtractionQueue;
 import net.ssehub.comani.extraction.AbstractCommitExtractor;
@@ -40,6 +59,12 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
      */
     private static final String ID = "GitCommitExtractor";
     
+    /**
+     * The number of instances of this class created so far, which is used to register the {@link #metrics} of each
+     * instance under a unique name.
+     */
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+    
     /**
      * The command for printing the installed Git version used to check whether Git is installed during 
      * {@link #prepare()}.<br>
@@ -73,25 +98,178 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
     private static final String[] GIT_COMMIT_CHANGES_COMMAND = {"git", "show", "-U100000", "--no-renames"};
     
     /**
-     * The string identifying the start of a diff header in a commit. The first line of the diff header starts with this
-     * string. Each diff header marks the beginning of an individual file being changed by the respective commit.
+     * The command for printing the entire commit information, the content of the changed files (100.000 lines of
+     * context including renamed files), and the changes of all commits to console using a single process. Merge
+     * commits are printed as combined diffs like <code>git show</code> does. The
+     * {@link CommitStreamReader#COMMIT_FORMAT} enables reading the individual commits while the process is running.
+     * <br>
+     * <br>
+     * Command: <code>git log --cc -U100000 --no-renames --format=...</code>
      */
-    private static final String DIFF_HEADER_START_PATTERN = "diff --git";
+    private static final String[] GIT_COMMITS_STREAM_COMMAND = {"git", "log", "--cc", "-U100000", "--no-renames",
+        CommitStreamReader.COMMIT_FORMAT};
     
     /**
-     * The string identifying the end of a diff header in a commit. The last line of the diff header starts with this
-     * string. After that line, the content of the changed artifact described by the diff header as well as the actual
-     * changes to the artifact are listed. 
-     * 
-     * @see #DIFF_HEADER_START_PATTERN
+     * The command for printing the same information as the {@link #GIT_COMMITS_STREAM_COMMAND} for each commit, which
+     * is identified by a full commit number in a line of the standard input stream. This enables extracting an
+     * arbitrary set of commits using a single process.<br>
+     * <br>
+     * Command: <code>git diff-tree --stdin --always --root --abbrev --cc -U100000 --no-renames --format=...</code>
+     */
+    private static final String[] GIT_COMMITS_BATCH_COMMAND = {"git", "diff-tree", "--stdin", "--always", "--root",
+        "--abbrev", "--cc", "-U100000", "--no-renames", CommitStreamReader.COMMIT_FORMAT};
+    
+    /**
+     * The command for printing the full commit number (SHA) of the current <tt>HEAD</tt> commit to console.<br>
+     * <br>
+     * Command: <code>git rev-parse --verify HEAD</code>
+     */
+    private static final String[] GIT_HEAD_COMMAND = {"git", "rev-parse", "--verify", "HEAD"};
+    
+    /**
+     * The command for printing the full commit number (SHA) of the commit containing the notes Git prints for the
+     * commits to console.<br>
+     * <br>
+     * Command: <code>git rev-parse -q --verify refs/notes/commits</code>
+     */
+    private static final String[] GIT_NOTES_COMMAND = {"git", "rev-parse", "-q", "--verify", "refs/notes/commits"};
+    
+    /**
+     * The command for printing the name of the "<tt>.mailmap</tt>" blob of the current <tt>HEAD</tt> commit, which
+     * Git uses in bare repositories, to console.<br>
+     * <br>
+     * Command: <code>git rev-parse -q --verify HEAD:.mailmap</code>
+     */
+    private static final String[] GIT_MAILMAP_BLOB_COMMAND = {"git", "rev-parse", "-q", "--verify", "HEAD:.mailmap"};
+    
+    /**
+     * The command for printing the configuration variables, which change the output of Git for a commit, to console.
+     * <br>
+     * <br>
+     * Command: <code>git config --get-regexp "^(log|diff|mailmap|notes|i18n)\.|^core\.(notesref|quotepath)$"</code>
+     */
+    private static final String[] GIT_OUTPUT_CONFIG_COMMAND = {"git", "config", "--get-regexp",
+        "^(log|diff|mailmap|notes|i18n)\\.|^core\\.(notesref|quotepath)$"};
+    
+    /**
+     * The constant part of the command for checking whether a commit exists in the repository. The commit number of
+     * that commit followed by "<tt>^{commit}</tt>" must be appended with an additional whitespace as prefix.<br>
+     * <br>
+     * Command: <code>git cat-file -e</code>
+     */
+    private static final String[] GIT_COMMIT_EXISTS_COMMAND = {"git", "cat-file", "-e"};
+    
+    /**
+     * The constant part of the command for printing the full and the abbreviated commit numbers (SHAs) of a range of
+     * commits to console. The range, like "<tt>&lt;base&gt;..&lt;target&gt;</tt>", must be appended with an
+     * additional whitespace as prefix.<br>
+     * <br>
+     * Command: <code>git log --pretty=format:"%H %h"</code>
+     */
+    private static final String[] GIT_COMMIT_RANGE_COMMAND = {"git", "log", "--pretty=format:%H %h"};
+    
+    /**
+     * The option of the commands printing commit content, which includes the content of the changed files (100.000
+     * lines of context).
+     */
+    private static final String FULL_CONTEXT_OPTION = "-U100000";
+    
+    /**
+     * The option replacing the {@link #FULL_CONTEXT_OPTION}, if the content of the changed files is loaded lazily via
+     * {@link LazyChangedArtifact}s. Like the default of Git, it prints {@link #LAZY_CONTEXT_LINES} lines of context.
+     */
+    private static final String LAZY_CONTEXT_OPTION = "-U3";
+    
+    /**
+     * The number of context lines printed by the {@link #LAZY_CONTEXT_OPTION}.
+     */
+    private static final int LAZY_CONTEXT_LINES = 3;
+    
+    /**
+     * The option of the <code>git log</code> commands, which disables the history simplification for pathspecs of the
+     * {@link PathFilter}. Without this option, commits changing the included paths on merged branches are omitted.
+     */
+    private static final String FULL_HISTORY_OPTION = "--full-history";
+    
+    /**
+     * The string identifying the start of the combined diff of a merge commit as printed by the
+     * {@link #GIT_COMMIT_CHANGES_COMMAND}.
      */
-    private static final String DIFF_HEADER_END_PATTERN = "@@";
+    private static final String COMBINED_DIFF_START_PATTERN = "diff --cc ";
     
     /**
      * The {@link ProcessUtilities} for retrieving Git information, like the available commits and their data, via the
      * execution of external processes.
      */
     private ProcessUtilities processUtilities;
+    
+    /**
+     * The {@link ExtractionSettings} defining the plug-in-specific configuration of this extractor.
+     */
+    private ExtractionSettings settings;
+    
+    /**
+     * The {@link MemoryBudget} limiting the number of bytes of the Git output held in memory for all commits extracted
+     * concurrently, if the {@link ExtractionSettings#isMemoryLimited()}.
+     */
+    private MemoryBudget memoryBudget;
+    
+    /**
+     * The {@link ExtractionCheckpoint} of the currently running incremental extraction or <code>null</code>, if no
+     * such extraction is running. Each commit added to the commit queue is marked as delivered in this checkpoint.
+     */
+    private ExtractionCheckpoint checkpoint;
+    
+    /**
+     * The {@link CommitCache} storing parsed commits for subsequent extractions or <code>null</code>, if commits are
+     * not cached.
+     */
+    private CommitCache commitCache;
+    
+    /**
+     * The {@link ExtractionMetrics} of the current or last extraction of this extractor.
+     */
+    private ExtractionMetrics metrics;
+    
+    /**
+     * The name, under which the {@link #metrics} are registered at the platform MBean server while an extraction is
+     * running, or <code>null</code>, if metrics are disabled.
+     */
+    private ObjectName metricsName;
+    
+    /**
+     * The {@link RepositoryReader} of the repository currently extracted, if the
+     * {@link ExtractionSettings.Backend#INTERNAL} backend is used, or <code>null</code>, if no such extraction is
+     * running. If this reader exists, it replaces all Git processes.
+     */
+    private RepositoryReader repositoryReader;
+    
+    /**
+     * The {@link CommitHandoff} adding the extracted commits to the commit queue.
+     */
+    private CommitHandoff commitHandoff;
+    
+    /**
+     * The {@link LazyContentLoader} of the repository currently extracted, if the
+     * {@link ExtractionSettings#isLazyContent()}, or <code>null</code>, if no such extraction is running. If this
+     * loader exists, commits are extracted with {@link #LAZY_CONTEXT_LINES} lines of context and the full content of
+     * their changed artifacts is loaded on first access.
+     */
+    private LazyContentLoader contentLoader;
+
+    /**
+     * The repository, with which this extractor tags each commit added to the commit queue via a
+     * {@link RepositoryCommit}, if it extracts a single repository of a multi-repository extraction, or
+     * <code>null</code>, if the commits are added without tag.
+     */
+    private File sourceRepository;
+
+    /**
+     * The {@link Executor} running the extractions of individual commits on the worker threads shared by all
+     * repositories of a multi-repository extraction or <code>null</code>, if this extractor creates its own worker
+     * threads.
+     */
+    private Executor workerLane;
 
     /**
      * Constructs a new instance of this extractor, which extracts commits from Git repositories on any platform.
@@ -109,6 +287,31 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
         prepare();
         logger.log(ID, this.getClass().getName() + " created", null, MessageType.DEBUG);
     }
+
+    /**
+     * Constructs a new instance of this extractor, which extracts a single repository of a multi-repository
+     * extraction of the given extractor. This instance shares the settings, the utilities, the commit queue, and the
+     * metrics of the given extractor, but not the state of its current extraction. Hence, multiple of these instances
+     * extract their repositories concurrently without repeating the {@link #prepare()} of the given extractor.
+     *
+     * @param parentExtractor the {@link GitCommitExtractor} performing the multi-repository extraction
+     * @param repository the repository, with which this extractor tags the commits added to the commit queue
+     * @param workerLane the {@link Executor} running the extractions of individual commits on the shared worker
+     *        threads or <code>null</code>, if this extractor shall create its own worker threads
+     * @throws ExtractionSetupException if the super class rejects the properties of the given extractor
+     */
+    private GitCommitExtractor(GitCommitExtractor parentExtractor, File repository, Executor workerLane)
+            throws ExtractionSetupException {
+        super(parentExtractor.extractionProperties, parentExtractor.commitQueue);
+        settings = parentExtractor.settings;
+        metrics = parentExtractor.metrics;
+        memoryBudget = parentExtractor.memoryBudget;
+        commitHandoff = parentExtractor.commitHandoff;
+        commitCache = parentExtractor.commitCache;
+        processUtilities = parentExtractor.processUtilities;
+        sourceRepository = repository;
+        this.workerLane = workerLane;
+    }
     
     /**
      * Prepares this extractor for execution, e.g., reading and setting the properties as well as creating required
@@ -117,12 +320,79 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
      * @throws ExtractionSetupException if setting-up the necessary elements of this extractor failed
      */
     private void prepare() throws ExtractionSetupException {
+        settings = new ExtractionSettings(extractionProperties);
+        metrics = new ExtractionMetrics();
+        if (settings.isMetricsEnabled()) {
+            createMetricsName();
+        }
+        memoryBudget = new MemoryBudget(settings.getMaxInMemoryTotalBytes());
+        commitHandoff = new CommitHandoff(commitQueue, settings.getMaxPendingBytes());
+        if (settings.getCacheDirectory() != null) {
+            try {
+                commitCache = new CommitCache(settings.getCacheDirectory(), settings.getCacheMaxBytes());
+            } catch (IOException e) {
+                throw new ExtractionSetupException("Opening the commit cache in \"" + settings.getCacheDirectory()
+                        + "\" failed: " + e.getMessage());
+            }
+        }
         processUtilities = ProcessUtilities.getInstance();
-        // Check if Git is installed and available
-        ExecutionResult executionResult = processUtilities.executeCommand(GIT_VERSION_COMMAND, null);
-        if (!executionResult.executionSuccessful()) {
-            throw new ExtractionSetupException("Testing Git availability failed.\n" 
-                    + executionResult.getErrorOutputData());
+        // Check if Git is installed and available, unless the repositories are read without Git
+        if (settings.getBackend() != ExtractionSettings.Backend.INTERNAL) {
+            ExecutionResult executionResult = processUtilities.executeCommand(GIT_VERSION_COMMAND, null);
+            if (!executionResult.executionSuccessful()) {
+                throw new ExtractionSetupException("Testing Git availability failed.\n" 
+                        + executionResult.getErrorOutputData());
+            }
+        }
+    }
+    
+    /**
+     * Creates the {@link #metricsName} of this extractor. The metrics are available as
+     * "<tt>net.ssehub.comani.extraction.git:type=ExtractionMetrics,name=GitCommitExtractor-&lt;n&gt;</tt>", where
+     * <tt>&lt;n&gt;</tt> is the number of this extractor instance.
+     */
+    private void createMetricsName() {
+        try {
+            metricsName = new ObjectName("net.ssehub.comani.extraction.git:type=ExtractionMetrics,name=" + ID + "-"
+                    + INSTANCE_COUNTER.incrementAndGet());
+        } catch (JMException e) {
+            logger.log(ID, "Publishing extraction metrics via JMX failed", e.getMessage(), MessageType.WARNING);
+        }
+    }
+    
+    /**
+     * Resets the {@link #metrics} for a new extraction and registers them under the {@link #metricsName} at the
+     * platform MBean server, if metrics are enabled. The metrics are still registered, if an exception aborted the
+     * last extraction before {@link #finishMetrics()}.
+     */
+    private void startMetrics() {
+        metrics.reset();
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (metricsName != null && !mbeanServer.isRegistered(metricsName)) {
+            try {
+                mbeanServer.registerMBean(metrics, metricsName);
+            } catch (JMException e) {
+                logger.log(ID, "Publishing extraction metrics via JMX failed", e.getMessage(), MessageType.WARNING);
+            }
+        }
+    }
+    
+    /**
+     * Logs the summary of the {@link #metrics} of the extraction just finished and unregisters them from the platform
+     * MBean server, if metrics are enabled. Hence, extractor instances do not leave MBeans behind.
+     */
+    private void finishMetrics() {
+        if (settings.isMetricsEnabled()) {
+            logger.log(ID, "Extraction metrics", metrics.getSummary(), MessageType.INFO);
+        }
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (metricsName != null && mbeanServer.isRegistered(metricsName)) {
+            try {
+                mbeanServer.unregisterMBean(metricsName);
+            } catch (JMException e) {
+                logger.log(ID, "Unpublishing extraction metrics via JMX failed", e.getMessage(),
+                        MessageType.WARNING);
+            }
         }
     }
     
@@ -132,261 +402,1436 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
     @Override
     public boolean extract(File repository) {
         logger.log(ID, "Full extraction of all available commits in repository", null, MessageType.DEBUG);
+        startMetrics();
         boolean extractionSuccessful = false;
-        String[] commitNumbers = getCommitNumbers(repository);
-        if (commitNumbers != null) {
-            extractionSuccessful = extract(commitNumbers, repository);
+        if (settings.isDumpInput()) {
+            extractionSuccessful = extractDump(repository);
+        } else if (settings.isMultiRepository()) {
+            extractionSuccessful = extractRepositories(repository);
+        } else {
+            extractionSuccessful = extractRepository(repository);
         }
+        commitHandoff.flush();
+        finishMetrics();
         return extractionSuccessful;
     }
 
     /**
-     * {@inheritDoc}
+     * Extracts all commits of the given dump file, which contains the output of <code>git log -p</code>, optionally
+     * compressed with gzip. The commits are read incrementally by a {@link CommitDumpReader} and added to the commit
+     * queue as soon as they are read.
+     * 
+     * @param dumpFile the dump file or a file named {@link CommitDumpReader#STANDARD_INPUT_NAME} for reading the dump
+     *        from the standard input stream
+     * @return <code>true</code> if reading the dump was successful; <code>false</code> otherwise
      */
-    @Override
-    public boolean extract(File repository, List<String> commitList) {
-        logger.log(ID, "Selective extraction based on commit list file", null, MessageType.DEBUG);
-        String[] commitNumbers;
-        commitNumbers = commitList.toArray(new String[0]);
-        return extract(commitNumbers, repository);
+    private boolean extractDump(File dumpFile) {
+        boolean extractionSuccessful = false;
+        try (Reader dumpReader = CommitDumpReader.openDump(dumpFile)) {
+            CommitDumpReader commitDumpReader = new CommitDumpReader(dumpReader, this::addToQueue, metrics,
+                (commitNumber, committerDate) -> createAssembler(commitNumber, committerDate, null));
+            int commitCounter = commitDumpReader.read();
+            logger.log(ID, "Extracted " + commitCounter + " commits from dump " + dumpFile, null, MessageType.INFO);
+            if (commitDumpReader.getAuthorDateCount() > 0) {
+                logger.log(ID, commitDumpReader.getAuthorDateCount() + " commits of dump " + dumpFile
+                        + " have the author date instead of the committer date", "Create the dump with "
+                        + "\"git log -p --pretty=fuller\" to provide the committer dates", MessageType.WARNING);
+            }
+            extractionSuccessful = true;
+        } catch (IOException e) {
+            logger.log(ID, "Reading dump " + dumpFile + " failed", e.getMessage(), MessageType.ERROR);
+        }
+        return extractionSuccessful;
     }
-    
+
     /**
-     * {@inheritDoc}
+     * Extracts all repositories contained in the given directory or listed in the given file concurrently. The
+     * repositories are extracted by a {@link RepositoryScheduler}, which calls
+     * {@link #extractRepository(File, Executor)} for each repository.
+     * 
+     * @param repositoryInput the directory containing the repositories or the file listing them
+     * @return <code>true</code> if extracting all repositories was successful; <code>false</code> otherwise
      */
-    @Override
-    public boolean extract(String commit) {
-        logger.log(ID, "Extraction (parsing) of single commit", null, MessageType.DEBUG);
+    private boolean extractRepositories(File repositoryInput) {
         boolean extractionSuccessful = false;
-        // Get the commit id from the first line of the given commit string
-        String commitId = null;
-        if (commit.startsWith("commit ")) {
-            int commitIdStartIndex = commit.indexOf(" ") + 1;
-            int commitIdEndIndex = commitIdStartIndex;
-            int indexCounter = commitIdStartIndex + 1;
-            while (commitIdEndIndex == commitIdStartIndex && indexCounter < commit.length()) {
-                char commitCharAtIndex = commit.charAt(indexCounter);
-                if (commitCharAtIndex == ' ' || commitCharAtIndex == '\n' || indexCounter + 1 == commit.length()) {
-                    commitIdEndIndex = indexCounter;
+        try {
+            List<File> repositories = RepositoryScheduler.findRepositories(repositoryInput);
+            if (repositories.isEmpty()) {
+                logger.log(ID, "No repositories found in " + repositoryInput, null, MessageType.ERROR);
+            } else {
+                logger.log(ID, "Extracting " + repositories.size() + " repositories", "Using "
+                        + Math.min(settings.getRepositoryThreads(), repositories.size()) + " repository threads",
+                        MessageType.INFO);
+                RepositoryScheduler repositoryScheduler = new RepositoryScheduler(settings.getRepositoryThreads(),
+                        settings.getThreads());
+                int failedRepositories = repositoryScheduler.extract(repositories, this::extractRepository);
+                extractionSuccessful = failedRepositories == 0;
+                if (!extractionSuccessful) {
+                    logger.log(ID, "Extracting " + failedRepositories + " of " + repositories.size()
+                            + " repositories failed", null, MessageType.WARNING);
                 }
-                indexCounter++;
             }
-            commitId = commit.substring(commitIdStartIndex, commitIdEndIndex);
+        } catch (IOException e) {
+            logger.log(ID, "Finding the repositories in " + repositoryInput + " failed", e.getMessage(),
+                    MessageType.ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(ID, "Extracting repositories interrupted", e.getMessage(), MessageType.ERROR);
         }
-        // Create the commit object
-        if (commitId != null && !commitId.isEmpty()) {            
-            Commit commitObject = createCommit(commitId, "<no_date>", commit);
-            if (commitObject != null) {
-                while (!commitQueue.addCommit(commitObject)) {
-                    logger.log(ID, "Waiting to add commit to queue", null, MessageType.DEBUG);
-                }
-                extractionSuccessful = true;
+        return extractionSuccessful;
+    }
+
+    /**
+     * Extracts all commits of the given repository as part of a multi-repository extraction using a new instance of
+     * this extractor, which tags the commits with that repository. This method may be called by multiple threads
+     * concurrently.
+     * 
+     * @param repository the {@link File} defining the repository from which the commits will be extracted
+     * @param repositoryWorkerLane the {@link Executor} running the extractions of individual commits of the given
+     *        repository on shared worker threads or <code>null</code>, if no shared worker threads are used
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractRepository(File repository, Executor repositoryWorkerLane) {
+        boolean extractionSuccessful = false;
+        logger.log(ID, "Extracting repository " + repository, null, MessageType.DEBUG);
+        try {
+            GitCommitExtractor repositoryExtractor = new GitCommitExtractor(this, repository, repositoryWorkerLane);
+            extractionSuccessful = repositoryExtractor.extractRepository(repository);
+        } catch (ExtractionSetupException e) {
+            logger.log(ID, "Creating the extractor for repository " + repository + " failed", e.getMessage(),
+                    MessageType.ERROR);
+        }
+        if (!extractionSuccessful) {
+            logger.log(ID, "Extracting repository " + repository + " failed", null, MessageType.WARNING);
+        }
+        return extractionSuccessful;
+    }
+
+    /**
+     * Extracts all commits of the given repository.
+     * 
+     * @param repository the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractRepository(File repository) {
+        boolean extractionSuccessful = false;
+        if (!openRepositoryReader(repository)) {
+            extractionSuccessful = false;
+        } else if (settings.getShardCount() > 1) {
+            String headCommit = getHeadCommit(repository);
+            if (headCommit != null) {
+                extractionSuccessful = extractShard(getRangeCommitNumbers(repository, headCommit), repository);
+            }
+        } else if (settings.getStateDirectory() != null) {
+            extractionSuccessful = extractIncremental(repository);
+        } else if (settings.getCommitSampler() != null) {
+            // The sample is selected from the listed commits, which are then extracted individually or as a batch
+            Map<String, String> commitNumbers = getSampledCommitNumbers(repository);
+            if (commitNumbers != null) {
+                extractionSuccessful = extractSelected(commitNumbers, repository);
             }
+        } else if (settings.getBackend() == ExtractionSettings.Backend.STREAM && commitCache != null) {
+            // Cached commits are identified by their full commit numbers, which requires resolving them first
+            String[] commitNumbers = getCommitNumbers(repository);
+            if (commitNumbers != null) {
+                extractionSuccessful = extractBatch(Arrays.asList(commitNumbers), repository);
+            }
+        } else if (settings.getBackend() == ExtractionSettings.Backend.STREAM) {
+            extractionSuccessful = extractStream(GIT_COMMITS_STREAM_COMMAND, repository, null);
         } else {
-            logger.log(ID, "Identifying the commit id failed",
-                    "The given string does not start with \"commit <ID> ...\"", MessageType.ERROR);
+            String[] commitNumbers = getCommitNumbers(repository);
+            if (commitNumbers != null) {
+                extractionSuccessful = extract(commitNumbers, repository);
+            }
         }
+        repositoryReader = null;
+        contentLoader = null;
         return extractionSuccessful;
     }
     
     /**
-     * Extracts all commits from the defined repository included in the given set of commit numbers.
+     * Opens the {@link #repositoryReader} for the given repository, if the {@link ExtractionSettings.Backend#INTERNAL}
+     * backend is used, and creates the {@link #contentLoader}, if the {@link ExtractionSettings#isLazyContent()}. The
+     * loader reads the full content via the reader or, if no reader is used, via a {@link GitContentSource}. The
+     * caller has to reset both to <code>null</code> at the end of the extraction.
+     * 
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if the reader was opened or is not required; <code>false</code> otherwise
+     */
+    private boolean openRepositoryReader(File repositoryDirectory) {
+        boolean readerAvailable = true;
+        if (settings.getBackend() == ExtractionSettings.Backend.INTERNAL) {
+            try {
+                repositoryReader = new RepositoryReader(repositoryDirectory, settings.getPathFilter());
+            } catch (IOException e) {
+                readerAvailable = false;
+                logger.log(ID, "Opening repository " + repositoryDirectory + " failed", e.getMessage(),
+                        MessageType.ERROR);
+            }
+        }
+        if (readerAvailable && settings.isLazyContent()) {
+            ArtifactContentSource contentSource = repositoryReader;
+            if (contentSource == null) {
+                contentSource = new GitContentSource(repositoryDirectory);
+            }
+            contentLoader = new LazyContentLoader(contentSource, settings.isLazyPrefetch(), metrics);
+        }
+        if (readerAvailable && commitCache != null) {
+            commitCache = commitCache.withContext(getCacheContext(repositoryDirectory));
+        }
+        return readerAvailable;
+    }
+    
+    /**
+     * Returns the description of everything besides the commits of the given repository, which changes the commits
+     * extracted from it. This includes the charset and the path filter, the "<tt>.mailmap</tt>" file, the notes, and
+     * the configuration variables of the repository changing the output of Git. Commits are cached in this context
+     * only, which prevents delivering cached commits extracted with other settings.
+     * 
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return the description of the context of the commits; never <code>null</code>
+     */
+    private String getCacheContext(File repositoryDirectory) {
+        StringBuilder contextBuilder = new StringBuilder("charset " + GitProcess.OUTPUT_CHARSET.name());
+        PathFilter pathFilter = settings.getPathFilter();
+        if (pathFilter != null) {
+            contextBuilder.append("\nfilter " + pathFilter.getDescription());
+        }
+        File mailMapFile = new File(repositoryDirectory, ".mailmap");
+        try {
+            if (mailMapFile.isFile()) {
+                contextBuilder.append("\nmailmap " + new String(Files.readAllBytes(mailMapFile.toPath()),
+                        StandardCharsets.ISO_8859_1));
+            }
+            if (repositoryReader != null) {
+                contextBuilder.append("\nmailmap-blob " + repositoryReader.getHeadMailMap());
+                contextBuilder.append("\nnotes " + repositoryReader.getNotesCommit());
+            } else {
+                contextBuilder.append("\nmailmap-blob " + getCommitInformation(GIT_MAILMAP_BLOB_COMMAND,
+                        repositoryDirectory));
+                contextBuilder.append("\nnotes " + getCommitInformation(GIT_NOTES_COMMAND, repositoryDirectory));
+                contextBuilder.append("\nconfig " + getCommitInformation(GIT_OUTPUT_CONFIG_COMMAND,
+                        repositoryDirectory));
+            }
+        } catch (IOException e) {
+            // A unique context prevents using commits cached in an unknown context
+            contextBuilder.append("\nunknown " + System.nanoTime());
+            logger.log(ID, "Reading the cache context of " + repositoryDirectory + " failed", e.getMessage(),
+                    MessageType.WARNING);
+        }
+        return contextBuilder.toString();
+    }
+
+    /**
+     * Extracts all commits of the given repository, which were not delivered by previous extractions. The progress of
+     * the extractions is persisted by an {@link ExtractionCheckpoint} in the state directory defined by the
+     * {@link ExtractionSettings}. Hence, this extraction only delivers the commits in the range from the base commit of
+     * the last completed extraction to the current <tt>HEAD</tt> commit, which were not delivered by an interrupted
+     * extraction.
      * 
-     * @param commitNumbers the set of commits numbers to be extracted
      * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
      * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
      */
-    private boolean extract(String[] commitNumbers, File repositoryDirectory) {
+    private boolean extractIncremental(File repositoryDirectory) {
         boolean extractionSuccessful = false;
-        if (commitNumbers != null) {
-            String commitNumber = null;
-            String[] command = null;
-            String committerDate = null;
-            String commitContent = null;
-            for (int i = 0; i < commitNumbers.length; i++) {
-                logger.log(ID, "Extracting commit " + commitNumbers[i], null, MessageType.DEBUG);
-                commitNumber = commitNumbers[i];
-                /*
-                 * We assume that the standard output streams of the processes executed below contain the commit date
-                 * and content.
-                 */
-                command = processUtilities.extendCommand(GIT_COMMITTER_DATE_COMMAND, commitNumber);
-                committerDate = getCommitInformation(command, repositoryDirectory);
-
-                command = processUtilities.extendCommand(GIT_COMMIT_CHANGES_COMMAND, commitNumber);
-                commitContent = getCommitInformation(command, repositoryDirectory);
-
-                if (committerDate != null) {
-                    if (commitContent != null) {                        
-                        Commit commit = createCommit(commitNumber, committerDate, commitContent);
-                        while (!commitQueue.addCommit(commit)) {
-                            logger.log(ID, "Waiting to add commit to queue", null, MessageType.DEBUG);
-                        }
-                    } else {
-                        logger.log(ID, "Commit content not available for commit " + commitNumber,
-                                "Executing git command was not successful", MessageType.WARNING);
-                    }
-                } else {
-                    logger.log(ID, "Committer date not available for commit " + commitNumber,
-                            "Executing git command was not successful", MessageType.WARNING);
+        try {
+            checkpoint = new ExtractionCheckpoint(settings.getStateDirectory(), repositoryDirectory);
+            checkpoint.load();
+            if (checkpoint.isInterrupted()) {
+                logger.log(ID, "Resuming interrupted extraction", "Checkpoint: " + checkpoint.getFile(),
+                        MessageType.INFO);
+            }
+            String headCommit = getHeadCommit(repositoryDirectory);
+            Map<String, String> commitNumbers = null;
+            if (headCommit != null && repositoryReader != null) {
+                commitNumbers = getPendingCommitNumbers(ObjectId.fromHex(headCommit));
+            } else if (headCommit != null) {
+                commitNumbers = getPendingCommitNumbers(repositoryDirectory, headCommit);
+            }
+            if (commitNumbers != null) {
+                logger.log(ID, "Extracting " + commitNumbers.size() + " commits not delivered yet", null,
+                        MessageType.INFO);
+                checkpoint.start(headCommit, commitNumbers);
+                extractionSuccessful = extractSelected(commitNumbers, repositoryDirectory);
+                // Buffered commits are marked as delivered when the commit queue accepts them
+                commitHandoff.flush();
+                if (!checkpoint.finish()) {
+                    logger.log(ID, "Not all commits delivered", "The next extraction resumes from checkpoint "
+                            + checkpoint.getFile(), MessageType.WARNING);
                 }
             }
-            extractionSuccessful = true;
+        } catch (IOException e) {
+            extractionSuccessful = false;
+            logger.log(ID, "Persisting the extraction progress failed", e.getMessage(), MessageType.ERROR);
+        } finally {
+            closeCheckpoint();
         }
         return extractionSuccessful;
     }
     
     /**
-     * Retrieves commit information by executing the given command in the given working directory.
-     * 
-     * @param command the command to be executed to retrieve the desired commit information
-     * @param workingDirectory the directory in which the process with the given command shall be executed
-     * @return the commit information as provided by the standard output stream of the process executing the given
-     *         command or <code>null</code>, if the execution was not successful
+     * Closes the {@link #checkpoint} of the current incremental extraction, if it exists, and removes it.
      */
-    private String getCommitInformation(String[] command, File workingDirectory) {
-        String commitInformation = null;
-        ExecutionResult executionResult = processUtilities.executeCommand(command, workingDirectory);
-        if (executionResult.executionSuccessful()) {
-            commitInformation = executionResult.getStandardOutputData();
+    private void closeCheckpoint() {
+        if (checkpoint != null) {
+            try {
+                checkpoint.close();
+            } catch (IOException e) {
+                logger.log(ID, "Closing checkpoint " + checkpoint.getFile() + " failed", e.getMessage(),
+                        MessageType.WARNING);
+            }
+            checkpoint = null;
         }
-        return commitInformation;
     }
     
     /**
-     * Creates a new {@link Commit} based on the given committer date and commit content.
+     * Returns the full commit number of the <tt>HEAD</tt> commit of the given repository.
      * 
-     * @param commitNumber the commit numbers (SHAs) of the commit to be created
-     * @param committerDate the committer date of the commit to be created
-     * @param commitContent the commit content of the commit to be created
-     * @return the commit created by processing the given date and content; may be <code>null</code> or <i>empty</i>
+     * @param repositoryDirectory the {@link File} defining the repository
+     * @return the full commit number of the <tt>HEAD</tt> commit or <code>null</code>, if identifying this commit
+     *         failed
      */
-    private Commit createCommit(String commitNumber, String committerDate, String commitContent) {
-        logger.log(ID, "Creating commit object for commit " + commitNumber, null, MessageType.DEBUG);
-        String[] commitContentLines = commitContent.split("\n", -1);
-        int linesCounter = getIndexLineStartsWith(commitContentLines, DIFF_HEADER_START_PATTERN);
-        String[] commitHeader = null;
-        List<ChangedArtifact> changedArtifacts = null;
-        if (linesCounter > 0) {
-            commitHeader = Arrays.copyOfRange(commitContentLines, 0, linesCounter);
-            changedArtifacts = new ArrayList<ChangedArtifact>();
-            ChangedArtifact changedArtifact = null;
-            String changedArtifactPath = null;
-            String commitContentLine = null;
-            boolean artifactContentReached = false;
-            while (linesCounter < commitContentLines.length) {
-                commitContentLine = commitContentLines[linesCounter];
-                if (commitContentLine.startsWith(DIFF_HEADER_START_PATTERN)) {
-                    artifactContentReached = false;
-                    if (changedArtifact != null) {
-                        changedArtifacts.add(changedArtifact);
-                    }
-                    changedArtifact = new ChangedArtifact();
-                    changedArtifact.addDiffHeaderLine(commitContentLine);
-                    changedArtifactPath = getArtifactPath(commitContentLine);
-                    changedArtifact.addArtifactPath(changedArtifactPath);
-                    changedArtifact.addArtifactName(getArtifactName(changedArtifactPath));
-                    
-                } else {
-                    if (artifactContentReached) {
-                        changedArtifact.addContentLine(commitContentLine);
-                    } else {
-                        artifactContentReached = commitContentLine.startsWith(DIFF_HEADER_END_PATTERN);
-                        changedArtifact.addDiffHeaderLine(commitContentLine);
-                    }
-                }
-                linesCounter++;
-                if (linesCounter == commitContentLines.length) {
-                    // End of changes, add last changed artifact to list
-                    changedArtifacts.add(changedArtifact);
-                }
+    private String getHeadCommit(File repositoryDirectory) {
+        String headCommit = null;
+        if (repositoryReader != null) {
+            try {
+                headCommit = repositoryReader.resolveHead().toHex();
+            } catch (IOException e) {
+                logger.log(ID, "Identifying the HEAD commit failed", e.getMessage(), MessageType.ERROR);
             }
         } else {
-            // In case there are no explicit artifact content changes, treat everything as commit header
-            // Test: Coreboot commit 118b382e7d
-            commitHeader = Arrays.copyOfRange(commitContentLines, 0, commitContentLines.length);
-        }
-        return new Commit(commitNumber, committerDate, commitHeader, changedArtifacts);
-    }
-    
-    /**
-     * Returns the relative path to the changed artifact in the repository based on the information of the first
-     * diff header line.
-     * 
-     * @param firstDiffHeaderLine the first line starting with {@link #DIFF_HEADER_START_PATTERN}, which typically
-     *        contains the relative path to the changed artifact; should never be <code>null</code>
-     * @return the relative path to the changed artifact in the repository; never <code>null</code> but may be
-     *         <i>empty</i>
-     */
-    private String getArtifactPath(String firstDiffHeaderLine) {
-        String artifactPath = "";
-        String[] firstDiffHeaderLineParts = firstDiffHeaderLine.split("\\s+");
-        // 1. "diff", 2. "--git", 3. "a/...", 4. "b/..."
-        if (firstDiffHeaderLineParts.length >= 4) {
-            String firstDiffHeaderLinePart = null;
-            // As we search for the second (and typically last) path entry, start from end of array
-            int partsCounter = firstDiffHeaderLineParts.length - 1;
-            while (artifactPath.isEmpty() && partsCounter >= 0) {
-                firstDiffHeaderLinePart = firstDiffHeaderLineParts[partsCounter];
-                if (firstDiffHeaderLinePart.startsWith("b/")) {
-                    artifactPath = firstDiffHeaderLinePart.substring(1); // Exclude leading "b"
-                }
-                partsCounter--;
+            headCommit = getCommitInformation(GIT_HEAD_COMMAND, repositoryDirectory);
+            if (headCommit == null || headCommit.trim().isEmpty()) {
+                headCommit = null;
+                logger.log(ID, "Identifying the HEAD commit failed", "Executing the command \""
+                        + processUtilities.getCommandString(GIT_HEAD_COMMAND) + "\" was not successful",
+                        MessageType.ERROR);
+            } else {
+                headCommit = headCommit.trim();
             }
         }
-        return artifactPath;
+        return headCommit;
     }
     
     /**
-     * Returns the name of the changed artifact based on the given relative path to the artifact as provided by 
-     * {@link #getArtifactPath(String)}.
+     * Determines the commits of the given repository, which are reachable from the given <tt>HEAD</tt> commit, but
+     * neither reachable from the base commit of the {@link #checkpoint} nor already delivered by an interrupted
+     * extraction. If the base commit does not exist anymore, e.g., due to rewriting the history, all commits reachable
+     * from the <tt>HEAD</tt> commit are considered.
      * 
-     * @param changedArtifactPath the relative path to the changed artifact in the repository; should never be
-     *        <code>null</code>
-     * @return the name of the changed artifact (the file it represents); never <code>null</code> but may be
-     *         <i>empty</i>
+     * @param repositoryDirectory the {@link File} defining the repository
+     * @param headCommit the full commit number of the <tt>HEAD</tt> commit
+     * @return the mapping of full commit numbers to abbreviated commit numbers of the commits to be extracted in the
+     *         order of the commit log or <code>null</code>, if determining the commits failed
      */
-    private String getArtifactName(String changedArtifactPath) {
-        String artifactName = "";
-        String[] changedArtifactPathParts = changedArtifactPath.split("/");
-        artifactName = changedArtifactPathParts[changedArtifactPathParts.length - 1];
-        return artifactName;
+    private Map<String, String> getPendingCommitNumbers(File repositoryDirectory, String headCommit) {
+        String commitRange = headCommit;
+        String baseCommit = checkpoint.getBaseCommit();
+        if (baseCommit != null) {
+            String[] command = processUtilities.extendCommand(GIT_COMMIT_EXISTS_COMMAND, baseCommit + "^{commit}");
+            if (processUtilities.executeCommand(command, repositoryDirectory).executionSuccessful()) {
+                commitRange = baseCommit + ".." + headCommit;
+            } else {
+                logger.log(ID, "Base commit " + baseCommit + " not available",
+                        "Extracting all commits not delivered yet", MessageType.WARNING);
+            }
+        }
+        Map<String, String> commitNumbers = getRangeCommitNumbers(repositoryDirectory, commitRange);
+        if (commitNumbers != null) {
+            commitNumbers.keySet().removeIf(checkpoint::isDelivered);
+        }
+        return commitNumbers;
     }
     
     /**
-     * Returns the index of the first line (string) in the given array, which starts with the given pattern.
+     * Determines the commits reachable from the <tt>HEAD</tt> commit of the given repository, which are selected by
+     * the {@link CommitSampler} of the {@link #settings}.
      * 
-     * @param lines the array of lines in which the first line starting with the given pattern shall be found
-     * @param pattern the pattern with which a particular line in the array shall be found
-     * @return the index of the first line (string) in the given array or <tt>-1</tt> if no line starts with the given
-     *         pattern
+     * @param repositoryDirectory the {@link File} defining the repository
+     * @return the mapping of full commit numbers to abbreviated commit numbers of the selected commits in the order of
+     *         the commit log or <code>null</code>, if determining the commits failed
      */
-    private int getIndexLineStartsWith(String[] lines, String pattern) {
-        int index = -1;
-        int lineCounter = 0;
-        boolean patternFound = false;
-        while (!patternFound && lineCounter < lines.length) {
-            patternFound = lines[lineCounter].startsWith(pattern);
-            if (patternFound) {
-                index = lineCounter;
+    private Map<String, String> getSampledCommitNumbers(File repositoryDirectory) {
+        Map<String, String> commitNumbers = null;
+        String headCommit = getHeadCommit(repositoryDirectory);
+        if (headCommit != null && repositoryReader != null) {
+            try {
+                commitNumbers = getLogCommitNumbers(ObjectId.fromHex(headCommit), null);
+            } catch (IOException e) {
+                logger.log(ID, "Extracting the available commit numbers failed", e.getMessage(), MessageType.ERROR);
             }
-            lineCounter++;
+        } else if (headCommit != null) {
+            commitNumbers = getRangeCommitNumbers(repositoryDirectory, headCommit);
         }
-        return index;
+        return commitNumbers;
     }
-       
+    
     /**
-     * Extracts the commit numbers (SHAs) from the commit log as returned by the {@link #GIT_COMMITS_COMMAND} command,
-     * which this method executes at the location of the given repository.
+     * Determines the commits of the given repository in the given range using the {@link #GIT_COMMIT_RANGE_COMMAND}.
+     * If the {@link #settings} define a {@link CommitSampler}, only the commits selected by that sampler are returned.
      * 
-     * @param repository the {@link File} representing the repository directory; never <code>null</code> and always a
-     *        directory
-     * @return the set of commit numbers or <code>null</code>, if extracting the commit numbers failed
+     * @param repositoryDirectory the {@link File} defining the repository
+     * @param commitRange the range of commits, like "<tt>&lt;base&gt;..&lt;target&gt;</tt>" or a single commit
+     *        number for all commits reachable from that commit
+     * @return the mapping of full commit numbers to abbreviated commit numbers of the (selected) commits in the range
+     *         in the order of the commit log or <code>null</code>, if determining the commits failed
      */
-    private String[] getCommitNumbers(File repository) {
-        logger.log(ID, "Extracting commit numbers from log", null, MessageType.DEBUG);
+    private Map<String, String> getRangeCommitNumbers(File repositoryDirectory, String commitRange) {
+        Map<String, String> commitNumbers = null;
+        String[] command = getFilteredCommand(processUtilities.extendCommand(GIT_COMMIT_RANGE_COMMAND, commitRange));
+        ExecutionResult executionResult = processUtilities.executeCommand(command, repositoryDirectory);
+        if (executionResult.executionSuccessful()) {
+            Map<String, String> rangeCommitNumbers = new LinkedHashMap<String, String>();
+            String commitLog = executionResult.getStandardOutputData();
+            LineScanner.forEachLine(commitLog == null ? "" : commitLog, line -> {
+                int separatorIndex = line.indexOf(' ');
+                if (separatorIndex != -1) {
+                    rangeCommitNumbers.put(line.substring(0, separatorIndex),
+                            line.substring(separatorIndex + 1).trim());
+                }
+            });
+            commitNumbers = sample(rangeCommitNumbers);
+        } else {
+            logger.log(ID, "Extracting the commit numbers of " + commitRange + " failed", "Executing the command \"" 
+                    + processUtilities.getCommandString(command) + "\" was not successful: " 
+                    + executionResult.getErrorOutputData(), MessageType.ERROR);
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Determines the commits reachable from the given <tt>HEAD</tt> commit like
+     * {@link #getPendingCommitNumbers(File, String)}, but using the {@link #repositoryReader} instead of Git processes.
+     * 
+     * @param headId the name of the <tt>HEAD</tt> commit
+     * @return the mapping of full commit numbers to abbreviated commit numbers of the commits to be extracted in the
+     *         order of the commit log or <code>null</code>, if determining the commits failed
+     */
+    private Map<String, String> getPendingCommitNumbers(ObjectId headId) {
+        Map<String, String> commitNumbers = null;
+        try {
+            ObjectId baseId = null;
+            String baseCommit = checkpoint.getBaseCommit();
+            if (baseCommit != null) {
+                baseId = repositoryReader.resolveCommit(baseCommit);
+                if (baseId == null) {
+                    logger.log(ID, "Base commit " + baseCommit + " not available",
+                            "Extracting all commits not delivered yet", MessageType.WARNING);
+                }
+            }
+            Map<String, String> pendingCommitNumbers = getLogCommitNumbers(headId, baseId);
+            pendingCommitNumbers.keySet().removeIf(checkpoint::isDelivered);
+            commitNumbers = pendingCommitNumbers;
+        } catch (IOException e) {
+            logger.log(ID, "Extracting the commit numbers not delivered yet failed", e.getMessage(),
+                    MessageType.ERROR);
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Determines the commits reachable from the given start commit, but not from the given excluded commit, using the
+     * {@link #repositoryReader}. Like {@link #getRangeCommitNumbers(File, String)}, only the commits selected by the
+     * {@link CommitSampler} of the {@link #settings} are returned, if such a sampler is defined.
+     * 
+     * @param startId the name of the commit to start at
+     * @param excludedId the name of a commit, whose ancestors including itself are not returned, or <code>null</code>
+     * @return the mapping of full commit numbers to abbreviated commit numbers of the (selected) commits in the order
+     *         of the commit log; never <code>null</code>
+     * @throws IOException if reading the commits fails
+     */
+    private Map<String, String> getLogCommitNumbers(ObjectId startId, ObjectId excludedId) throws IOException {
+        Map<String, String> commitNumbers = new LinkedHashMap<String, String>();
+        for (ObjectId commitId : repositoryReader.getLog(startId, excludedId, settings.getCommitWindow())) {
+            commitNumbers.put(commitId.toHex(), repositoryReader.abbreviate(commitId));
+        }
+        return sample(commitNumbers);
+    }
+    
+    /**
+     * Reduces the given commits to the ones selected by the {@link CommitSampler} of the {@link #settings}, if such a
+     * sampler is defined. The commits must be in the order of the commit log and must not be reduced by the
+     * {@link #checkpoint} yet, such that a resumed extraction selects the same commits.
+     * 
+     * @param commitNumbers the mapping of full commit numbers to abbreviated commit numbers in the order of the commit
+     *        log
+     * @return the given mapping, which is reduced to the selected commits, if a sampler is defined
+     */
+    private Map<String, String> sample(Map<String, String> commitNumbers) {
+        CommitSampler commitSampler = settings.getCommitSampler();
+        return commitSampler == null ? commitNumbers : commitSampler.sample(commitNumbers);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean extract(File repository, List<String> commitList) {
+        logger.log(ID, "Selective extraction based on commit list file", null, MessageType.DEBUG);
+        startMetrics();
+        boolean extractionSuccessful = false;
+        if (settings.isDumpInput()) {
+            logger.log(ID, "Selective extraction of commit dumps not supported", "Disable property \""
+                    + ExtractionSettings.PROPERTY_DUMP_INPUT + "\"", MessageType.ERROR);
+        } else if (settings.isMultiRepository()) {
+            logger.log(ID, "Selective extraction of multiple repositories not supported", "A commit list identifies "
+                    + "commits of a single repository; disable property \""
+                    + ExtractionSettings.PROPERTY_MULTI_REPOSITORY + "\"", MessageType.ERROR);
+        } else if (!openRepositoryReader(repository)) {
+            extractionSuccessful = false;
+        } else if (settings.getShardCount() > 1) {
+            extractionSuccessful = extractShard(resolveCommitList(commitList, repository), repository);
+        } else {
+            // Commit numbers not identifying a commit are dropped before any commit is extracted
+            Map<String, String> commitNumbers = resolveCommitList(commitList, repository);
+            if (commitNumbers != null) {
+                extractionSuccessful = extractSelected(commitNumbers, repository);
+            }
+        }
+        repositoryReader = null;
+        contentLoader = null;
+        commitHandoff.flush();
+        finishMetrics();
+        return extractionSuccessful;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean extract(String commit) {
+        logger.log(ID, "Extraction (parsing) of single commit", null, MessageType.DEBUG);
+        startMetrics();
+        boolean extractionSuccessful = false;
+        // Get the commit id from the first line of the given commit string
+        String commitId = null;
+        if (commit.startsWith("commit ")) {
+            int commitIdStartIndex = commit.indexOf(" ") + 1;
+            int commitIdEndIndex = commitIdStartIndex;
+            int indexCounter = commitIdStartIndex + 1;
+            while (commitIdEndIndex == commitIdStartIndex && indexCounter < commit.length()) {
+                char commitCharAtIndex = commit.charAt(indexCounter);
+                if (commitCharAtIndex == ' ' || commitCharAtIndex == '\n' || indexCounter + 1 == commit.length()) {
+                    commitIdEndIndex = indexCounter;
+                }
+                indexCounter++;
+            }
+            commitId = commit.substring(commitIdStartIndex, commitIdEndIndex);
+        }
+        // Create the commit object
+        if (commitId != null && !commitId.isEmpty()) {            
+            Commit commitObject = createCommit(commitId, "<no_date>", commit, null);
+            if (commitObject != null) {
+                addToQueue(commitObject);
+                extractionSuccessful = true;
+            }
+        } else {
+            logger.log(ID, "Identifying the commit id failed",
+                    "The given string does not start with \"commit <ID> ...\"", MessageType.ERROR);
+        }
+        commitHandoff.flush();
+        finishMetrics();
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Extracts all commits from the defined repository included in the given set of commit numbers. Depending on the
+     * {@link ExtractionSettings#getThreads()}, the commits are extracted one after another or concurrently.
+     * 
+     * @param commitNumbers the set of commits numbers to be extracted
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extract(String[] commitNumbers, File repositoryDirectory) {
+        boolean extractionSuccessful = false;
+        if (commitNumbers != null) {
+            Map<String, String> fullCommitNumbers = resolveFullCommitNumbers(commitNumbers, repositoryDirectory);
+            if (settings.getThreads() > 1) {
+                logger.log(ID, "Extracting commits using " + settings.getThreads() + " threads", null,
+                        MessageType.DEBUG);
+                CommitWorkerPool workerPool = new CommitWorkerPool(workerLane, settings.getThreads(),
+                        settings.isOrderedDelivery(), settings.getMaxPendingBytes());
+                try {
+                    workerPool.extract(commitNumbers, commitNumber -> extractCommit(commitNumber,
+                            fullCommitNumbers.get(commitNumber), repositoryDirectory), this::addToQueue);
+                    extractionSuccessful = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.log(ID, "Extracting commits interrupted", e.getMessage(), MessageType.ERROR);
+                }
+                metrics.recordPendingBytes(workerPool.getPeakPendingBytes());
+            } else {
+                Commit commit = null;
+                for (int i = 0; i < commitNumbers.length; i++) {
+                    commit = extractCommit(commitNumbers[i], fullCommitNumbers.get(commitNumbers[i]),
+                            repositoryDirectory);
+                    if (commit != null) {
+                        addToQueue(commit);
+                    }
+                }
+                extractionSuccessful = true;
+            }
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Resolves the given commit numbers to full commit numbers, if a {@link #commitCache} is used. The full commit
+     * numbers identify the commits in that cache.
+     * 
+     * @param commitNumbers the commit numbers (SHAs) to be resolved
+     * @param repositoryDirectory the {@link File} defining the repository containing the commits
+     * @return the mapping of the given commit numbers to their full commit numbers; commit numbers not identifying a
+     *         commit are not contained; <i>empty</i>, if no {@link #commitCache} is used or resolving failed
+     */
+    private Map<String, String> resolveFullCommitNumbers(String[] commitNumbers, File repositoryDirectory) {
+        Map<String, String> fullCommitNumbers = new HashMap<String, String>();
+        if (commitCache != null && repositoryReader != null) {
+            try {
+                for (String commitNumber : commitNumbers) {
+                    ObjectId commitId = repositoryReader.resolveCommit(commitNumber);
+                    if (commitId != null) {
+                        fullCommitNumbers.put(commitNumber, commitId.toHex());
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(ID, "Resolving the commit numbers failed", "Commits are extracted without using the cache: "
+                        + e.getMessage(), MessageType.WARNING);
+            }
+        } else if (commitCache != null) {
+            CommitResolver commitResolver = new CommitResolver(repositoryDirectory);
+            try {
+                for (Map.Entry<String, String> resolvedCommitNumber
+                        : commitResolver.resolve(Arrays.asList(commitNumbers)).entrySet()) {
+                    fullCommitNumbers.put(resolvedCommitNumber.getValue(), resolvedCommitNumber.getKey());
+                }
+            } catch (IOException e) {
+                logger.log(ID, "Resolving the commit numbers failed", "Commits are extracted without using the cache: "
+                        + e.getMessage(), MessageType.WARNING);
+            }
+        }
+        return fullCommitNumbers;
+    }
+    
+    /**
+     * Returns the commit identified by the given commit number either from the {@link #commitCache} or by extracting
+     * it from the defined repository via {@link #extractCommit(String, File)} or
+     * {@link #extractInternalCommit(String)}. In the latter cases, the extracted commit is added to the cache. This
+     * method may be called by multiple threads concurrently.
+     * 
+     * @param commitNumber the commit number (SHA) of the commit to be extracted
+     * @param fullCommitNumber the full commit number of the commit identifying it in the {@link #commitCache}; may be
+     *        <code>null</code>, which results in extracting the commit without using the cache
+     * @param repositoryDirectory the {@link File} defining the repository from which the commit will be extracted
+     * @return the extracted {@link Commit} or <code>null</code>, if retrieving the commit information failed
+     */
+    private Commit extractCommit(String commitNumber, String fullCommitNumber, File repositoryDirectory) {
+        Commit commit = getCachedCommit(fullCommitNumber, commitNumber);
+        if (commit == null) {
+            if (repositoryReader != null) {
+                commit = extractInternalCommit(commitNumber);
+            } else {
+                commit = extractCommit(commitNumber, repositoryDirectory);
+            }
+            if (commit == null) {
+                metrics.countFailedCommit();
+            }
+            cacheCommit(fullCommitNumber, commit);
+        }
+        return commit;
+    }
+    
+    /**
+     * Returns the commit identified by the given full commit number from the {@link #commitCache}.
+     * 
+     * @param fullCommitNumber the full commit number of the commit; may be <code>null</code>
+     * @param commitNumber the commit number used as identifier of the returned commit
+     * @return the cached {@link Commit} or <code>null</code>, if no {@link #commitCache} is used, the given full
+     *         commit number is <code>null</code>, or the commit is not cached
+     */
+    private Commit getCachedCommit(String fullCommitNumber, String commitNumber) {
+        Commit commit = null;
+        if (commitCache != null && CommitCache.isFullCommitNumber(fullCommitNumber)) {
+            long cacheReadStartTime = System.nanoTime();
+            try {
+                commit = commitCache.get(fullCommitNumber, commitNumber);
+                metrics.record(ExtractionMetrics.Phase.CACHE_READ, cacheReadStartTime);
+                metrics.countCacheLookup(commit != null);
+                if (commit != null) {
+                    logger.log(ID, "Commit " + commitNumber + " retrieved from cache", null, MessageType.DEBUG);
+                }
+            } catch (IOException e) {
+                logger.log(ID, "Reading commit " + commitNumber + " from cache failed", e.getMessage(),
+                        MessageType.WARNING);
+            }
+        }
+        return commit;
+    }
+    
+    /**
+     * Adds the given commit to the {@link #commitCache}, if such a cache is used.
+     * 
+     * @param fullCommitNumber the full commit number of the commit; may be <code>null</code>, which results in not
+     *        caching the commit
+     * @param commit the {@link Commit} to be cached; may be <code>null</code>, which results in not caching the commit
+     */
+    private void cacheCommit(String fullCommitNumber, Commit commit) {
+        if (commitCache != null && commit != null && CommitCache.isFullCommitNumber(fullCommitNumber)) {
+            long cacheWriteStartTime = System.nanoTime();
+            try {
+                commitCache.put(fullCommitNumber, commit);
+                metrics.record(ExtractionMetrics.Phase.CACHE_WRITE, cacheWriteStartTime);
+            } catch (IOException e) {
+                logger.log(ID, "Writing commit " + commit.getId() + " to cache failed", e.getMessage(),
+                        MessageType.WARNING);
+            }
+        }
+    }
+    
+    /**
+     * Extracts the commit identified by the given commit number from the defined repository. This method may be called
+     * by multiple threads concurrently.
+     * 
+     * @param commitNumber the commit number (SHA) of the commit to be extracted
+     * @param repositoryDirectory the {@link File} defining the repository from which the commit will be extracted
+     * @return the extracted {@link Commit} or <code>null</code>, if retrieving the commit information failed
+     */
+    private Commit extractCommit(String commitNumber, File repositoryDirectory) {
+        logger.log(ID, "Extracting commit " + commitNumber, null, MessageType.DEBUG);
+        Commit commit = null;
+        /*
+         * We assume that the standard output streams of the processes executed below contain the commit date and
+         * content.
+         */
+        String[] command = processUtilities.extendCommand(GIT_COMMITTER_DATE_COMMAND, commitNumber);
+        String committerDate = getCommitInformation(command, repositoryDirectory);
+        if (committerDate == null) {
+            logger.log(ID, "Committer date not available for commit " + commitNumber,
+                    "Executing git command was not successful", MessageType.WARNING);
+        } else {
+            commit = extractCommitContent(commitNumber, committerDate, contentLoader, repositoryDirectory);
+            if (commit != null && contentLoader != null) {
+                commit = completeCombinedDiff(commit, repositoryDirectory);
+            }
+        }
+        return commit;
+    }
+    
+    /**
+     * Extracts the content of the commit identified by the given commit number from the defined repository. If the
+     * given {@link LazyContentLoader} is not <code>null</code>, the commit is extracted with
+     * {@link #LAZY_CONTEXT_LINES} lines of context and its changed artifacts load their full content on first access.
+     * 
+     * @param commitNumber the commit number (SHA) of the commit to be extracted
+     * @param committerDate the committer date of the commit to be extracted
+     * @param lazyContentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts; may
+     *        be <code>null</code> to extract the full content immediately
+     * @param repositoryDirectory the {@link File} defining the repository from which the commit will be extracted
+     * @return the extracted {@link Commit} or <code>null</code>, if retrieving the commit content failed
+     */
+    private Commit extractCommitContent(String commitNumber, String committerDate, LazyContentLoader lazyContentLoader,
+            File repositoryDirectory) {
+        Commit commit = null;
+        String[] command = GIT_COMMIT_CHANGES_COMMAND;
+        if (lazyContentLoader != null) {
+            command = getLazyCommand(command);
+        }
+        command = getFilteredCommand(processUtilities.extendCommand(command, commitNumber));
+        if (settings.isMemoryLimited()) {
+            commit = createBufferedCommit(commitNumber, committerDate, command, lazyContentLoader,
+                    repositoryDirectory);
+        } else {
+            String commitContent = getCommitInformation(command, repositoryDirectory);
+            if (commitContent != null) {                        
+                commit = createCommit(commitNumber, committerDate, commitContent, lazyContentLoader);
+            } else {
+                logger.log(ID, "Commit content not available for commit " + commitNumber,
+                        "Executing git command was not successful", MessageType.WARNING);
+            }
+        }
+        return commit;
+    }
+    
+    /**
+     * Returns a copy of the given command, which restricts the commits to the pathspecs of the {@link PathFilter} and,
+     * for <code>git log</code>, to the {@link CommitWindow} of the {@link #settings}. Pathspecs also add the
+     * {@link #FULL_HISTORY_OPTION} to <code>git log</code>, which otherwise hides commits on side branches.
+     * 
+     * @param command the command listing or printing commits, which must not contain a "<tt>--</tt>" argument yet
+     * @return the given command, if neither pathspecs nor a window restrict the commits; the filtered copy of that
+     *         command otherwise
+     */
+    private String[] getFilteredCommand(String[] command) {
+        String[] filteredCommand = command;
+        CommitWindow commitWindow = settings.getCommitWindow();
+        if (commitWindow != null && command[1].equals("log")) {
+            filteredCommand = processUtilities.extendCommand(filteredCommand, commitWindow.getLogOptions());
+        }
+        PathFilter pathFilter = settings.getPathFilter();
+        if (pathFilter != null && pathFilter.getPathspecs().length > 0) {
+            if (command[1].equals("log")) {
+                filteredCommand = processUtilities.extendCommand(filteredCommand, FULL_HISTORY_OPTION);
+            }
+            filteredCommand = processUtilities.extendCommand(filteredCommand, "--");
+            filteredCommand = processUtilities.extendCommand(filteredCommand, pathFilter.getPathspecs());
+        }
+        return filteredCommand;
+    }
+    
+    /**
+     * Returns a copy of the given command printing commit content, in which the {@link #FULL_CONTEXT_OPTION} is
+     * replaced by the {@link #LAZY_CONTEXT_OPTION}.
+     * 
+     * @param command the command printing commit content with full context
+     * @return the command printing commit content with small context; never <code>null</code>
+     */
+    private static String[] getLazyCommand(String[] command) {
+        String[] lazyCommand = command.clone();
+        for (int i = 0; i < lazyCommand.length; i++) {
+            if (lazyCommand[i].equals(FULL_CONTEXT_OPTION)) {
+                lazyCommand[i] = LAZY_CONTEXT_OPTION;
+            }
+        }
+        return lazyCommand;
+    }
+    
+    /**
+     * Replaces the given commit, which was extracted with small context, by the same commit extracted with full
+     * context, if it is a merge commit with a combined diff. Git prints the combined diff before the first regular diff
+     * header, which makes it part of the commit header instead of the changed artifacts. Hence, it cannot be loaded
+     * lazily. As most merge commits have no combined diff, only few commits are extracted twice.
+     * 
+     * @param commit the {@link Commit} extracted with small context
+     * @param repositoryDirectory the {@link File} defining the repository from which the commit was extracted
+     * @return the given commit, if it has no combined diff or extracting it with full context failed; the commit
+     *         extracted with full context otherwise
+     */
+    private Commit completeCombinedDiff(Commit commit, File repositoryDirectory) {
+        Commit completeCommit = commit;
+        boolean combinedDiffFound = false;
+        String[] commitHeader = commit.getCommitHeader();
+        for (int i = 0; !combinedDiffFound && i < commitHeader.length; i++) {
+            combinedDiffFound = commitHeader[i].startsWith(COMBINED_DIFF_START_PATTERN);
+        }
+        if (combinedDiffFound) {
+            logger.log(ID, "Extracting merge commit " + commit.getId() + " with full context", null,
+                    MessageType.DEBUG);
+            Commit fullCommit = extractCommitContent(commit.getId(), commit.getDate(), null, repositoryDirectory);
+            if (fullCommit != null) {
+                completeCommit = fullCommit;
+            }
+        }
+        return completeCommit;
+    }
+    
+    /**
+     * Extracts the commit identified by the given commit number using the {@link #repositoryReader} instead of Git
+     * processes. This method may be called by multiple threads concurrently.
+     * 
+     * @param commitNumber the commit number (SHA) of the commit to be extracted
+     * @return the extracted {@link Commit} or <code>null</code>, if reading the commit failed
+     */
+    private Commit extractInternalCommit(String commitNumber) {
+        Commit commit = null;
+        try {
+            long startTime = System.nanoTime();
+            ObjectId commitId = repositoryReader.resolveCommit(commitNumber);
+            if (commitId == null) {
+                logger.log(ID, "Commit " + commitNumber + " not available",
+                        "The commit number does not identify a commit of the repository", MessageType.WARNING);
+            } else {
+                String committerDate = repositoryReader.getCommitterDate(commitId);
+                int contextLines = PatchPrinter.CONTEXT_LINES;
+                if (contentLoader != null) {
+                    contextLines = LAZY_CONTEXT_LINES;
+                }
+                byte[] commitContent = repositoryReader.show(commitId, contextLines);
+                metrics.record(ExtractionMetrics.Phase.OBJECT_READ, startTime);
+                metrics.recordOutputSize(commitNumber, commitContent.length);
+                logger.log(ID, "Creating commit object for commit " + commitNumber, null, MessageType.DEBUG);
+                long parsingStartTime = System.nanoTime();
+                CommitAssembler commitAssembler = createAssembler(commitNumber, committerDate, contentLoader);
+                try (Reader commitContentReader = new InputStreamReader(new ByteArrayInputStream(commitContent),
+                        GitProcess.OUTPUT_CHARSET)) {
+                    LineScanner.forEachLine(commitContentReader, commitAssembler::addLine);
+                }
+                commit = commitAssembler.getCommit();
+                metrics.record(ExtractionMetrics.Phase.PARSING, parsingStartTime);
+            }
+        } catch (IOException e) {
+            logger.log(ID, "Commit content not available for commit " + commitNumber,
+                    "Reading the commit from the repository was not successful: " + e.getMessage(),
+                    MessageType.WARNING);
+        }
+        return commit;
+    }
+    
+    /**
+     * Creates a new {@link Commit} based on the given committer date and the commit content printed by the given
+     * command. In contrast to {@link #createCommit(String, String, String, LazyContentLoader)}, the commit content is
+     * not held in memory as a single string, but buffered in a {@link CommitBuffer}. This buffer writes the content to
+     * a temporary file, if it exceeds the in-memory limits defined by the {@link ExtractionSettings}.
+     * 
+     * @param commitNumber the commit numbers (SHAs) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     * @param command the command printing the commit content
+     * @param lazyContentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts, if the
+     *        given command prints small context; may be <code>null</code>, if the command prints the full content
+     * @param repositoryDirectory the {@link File} defining the repository from which the commit will be extracted
+     * @return the commit created by processing the given date and content or <code>null</code>, if retrieving the
+     *         commit content failed
+     */
+    private Commit createBufferedCommit(String commitNumber, String committerDate, String[] command,
+            LazyContentLoader lazyContentLoader, File repositoryDirectory) {
+        Commit commit = null;
+        try (CommitBuffer commitBuffer = new CommitBuffer(settings.getMaxInMemoryBytes(), memoryBudget)) {
+            long startTime = System.nanoTime();
+            GitProcess gitProcess = new GitProcess(command, repositoryDirectory);
+            metrics.record(ExtractionMetrics.Phase.PROCESS_START, startTime);
+            metrics.countGitProcess();
+            try (PushbackInputStream commitContentStream = new PushbackInputStream(gitProcess.getStandardOutput())) {
+                // Git prints the commit after computing the diff, hence, the first byte marks the end of computation
+                int firstByte = commitContentStream.read();
+                if (firstByte != -1) {
+                    commitContentStream.unread(firstByte);
+                }
+                metrics.record(ExtractionMetrics.Phase.GIT_COMPUTATION, startTime);
+                startTime = System.nanoTime();
+                commitBuffer.readFrom(commitContentStream);
+                metrics.record(ExtractionMetrics.Phase.OUTPUT_TRANSFER, startTime);
+            }
+            metrics.recordOutputSize(commitNumber, commitBuffer.getSize());
+            if (gitProcess.waitFor()) {
+                if (commitBuffer.isSpilled()) {
+                    logger.log(ID, "Commit content of commit " + commitNumber + " buffered in temporary file",
+                            commitBuffer.getSize() + " bytes exceed the in-memory limits", MessageType.DEBUG);
+                }
+                logger.log(ID, "Creating commit object for commit " + commitNumber, null, MessageType.DEBUG);
+                long parsingStartTime = System.nanoTime();
+                CommitAssembler commitAssembler = createAssembler(commitNumber, committerDate,
+                        lazyContentLoader);
+                try (Reader commitContentReader = commitBuffer.openReader()) {
+                    LineScanner.forEachLine(commitContentReader, commitAssembler::addLine);
+                }
+                commit = commitAssembler.getCommit();
+                metrics.record(ExtractionMetrics.Phase.PARSING, parsingStartTime);
+            } else {
+                logger.log(ID, "Commit content not available for commit " + commitNumber,
+                        "Executing git command was not successful: " + gitProcess.getErrorOutputData(),
+                        MessageType.WARNING);
+            }
+        } catch (IOException e) {
+            logger.log(ID, "Commit content not available for commit " + commitNumber,
+                    "Buffering the output of the git command was not successful: " + e.getMessage(),
+                    MessageType.WARNING);
+        }
+        return commit;
+    }
+    
+    /**
+     * Extracts all commits from the defined repository included in the given commit list using two Git processes: the
+     * first one resolves all commit numbers at once and the second one prints all resolved commits by executing the
+     * {@link #GIT_COMMITS_BATCH_COMMAND}. Commit numbers identifying the same commit are extracted only once.
+     * 
+     * @param commitList the list of commit numbers to be extracted
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractBatch(List<String> commitList, File repositoryDirectory) {
+        boolean extractionSuccessful = false;
+        Map<String, String> commitNumbers = resolveCommitList(commitList, repositoryDirectory);
+        if (commitNumbers != null) {
+            extractionSuccessful = extractResolved(commitNumbers, repositoryDirectory);
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Resolves the commit numbers of the given commit list using a {@link CommitResolver} or, if available, the
+     * {@link #repositoryReader}. Commit numbers, which do not identify a commit of the repository, are logged and
+     * ignored. Commit numbers identifying the same commit are resolved only once.
+     * 
+     * @param commitList the list of commit numbers to be resolved
+     * @param repositoryDirectory the {@link File} defining the repository containing the commits
+     * @return the mapping of full commit numbers to the commit numbers of the commit list in the order of the list or
+     *         <code>null</code>, if resolving the commit numbers failed
+     */
+    private Map<String, String> resolveCommitList(List<String> commitList, File repositoryDirectory) {
+        Map<String, String> commitNumbers = null;
+        try {
+            List<String> unresolvedCommitNumbers;
+            if (repositoryReader != null) {
+                unresolvedCommitNumbers = new ArrayList<String>();
+                commitNumbers = resolveInternalCommitList(commitList, unresolvedCommitNumbers);
+            } else {
+                CommitResolver commitResolver = new CommitResolver(repositoryDirectory);
+                commitNumbers = commitResolver.resolve(commitList);
+                unresolvedCommitNumbers = commitResolver.getUnresolvedCommitNumbers();
+            }
+            for (String unresolvedCommitNumber : unresolvedCommitNumbers) {
+                logger.log(ID, "Commit " + unresolvedCommitNumber + " not available",
+                        "The commit number does not identify a commit of the repository", MessageType.WARNING);
+            }
+        } catch (IOException e) {
+            logger.log(ID, "Resolving the commit numbers of the commit list failed", e.getMessage(),
+                    MessageType.ERROR);
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Resolves the commit numbers of the given commit list using the {@link #repositoryReader} like a
+     * {@link CommitResolver} does.
+     * 
+     * @param commitList the list of commit numbers to be resolved
+     * @param unresolvedCommitNumbers the list, to which the commit numbers not identifying a commit are added
+     * @return the mapping of full commit numbers to the first commit number of the commit list identifying the
+     *         respective commit in the order of the list; never <code>null</code>
+     * @throws IOException if reading the objects of the repository fails
+     */
+    private Map<String, String> resolveInternalCommitList(List<String> commitList,
+            List<String> unresolvedCommitNumbers) throws IOException {
+        Map<String, String> commitNumbers = new LinkedHashMap<String, String>();
+        for (String commitNumber : commitList) {
+            String trimmedCommitNumber = commitNumber.trim();
+            if (!trimmedCommitNumber.isEmpty()) {
+                ObjectId commitId = repositoryReader.resolveCommit(trimmedCommitNumber);
+                if (commitId == null) {
+                    unresolvedCommitNumbers.add(trimmedCommitNumber);
+                } else {
+                    commitNumbers.putIfAbsent(commitId.toHex(), trimmedCommitNumber);
+                }
+            }
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Extracts the given commits, which were selected from the commit log before. The {@link #extractResolved(Map,
+     * File)} extracts them as a batch, if the {@link ExtractionSettings.Backend#STREAM} backend is used; otherwise,
+     * they are extracted individually by their abbreviated commit numbers.
+     * 
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits in the order, in which the commits shall be added to the commit queue
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractSelected(Map<String, String> commitNumbers, File repositoryDirectory) {
+        boolean extractionSuccessful = false;
+        if (settings.getBackend() == ExtractionSettings.Backend.STREAM) {
+            extractionSuccessful = extractResolved(commitNumbers, repositoryDirectory);
+        } else {
+            extractionSuccessful = extract(commitNumbers.values().toArray(new String[0]), repositoryDirectory);
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Extracts the shard defined by the {@link ExtractionSettings#getShardIndex()} of the given commits. The commits
+     * are weighed by a {@link ShardPlanner} and split by a {@link ShardManifest} into the
+     * {@link ExtractionSettings#getShardCount()} contiguous slices of similar weight. Afterwards, the manifest of the
+     * shard is written to the {@link ExtractionSettings#getShardDirectory()}. If the manifests of all shards exist
+     * then, they are verified to cover each commit exactly once.
+     * 
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits of all shards in the order of extraction; may be <code>null</code>, if determining the
+     *        commits failed
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits and writing the manifest was successful; <code>false</code>
+     *         otherwise
+     */
+    private boolean extractShard(Map<String, String> commitNumbers, File repositoryDirectory) {
+        boolean extractionSuccessful = false;
+        if (commitNumbers != null) {
+            ShardManifest manifest = new ShardManifest(settings.getShardIndex(), settings.getShardCount());
+            try {
+                long startTime = System.nanoTime();
+                String repositoryName = repositoryDirectory.getCanonicalFile().getName();
+                List<String> fullCommitNumbers = new ArrayList<String>(commitNumbers.keySet());
+                PathFilter pathFilter = settings.getPathFilter();
+                ShardPlanner shardPlanner = new ShardPlanner(repositoryDirectory,
+                        pathFilter == null ? new String[0] : pathFilter.getPathspecs());
+                manifest.assign(fullCommitNumbers, shardPlanner.weigh(fullCommitNumbers));
+                metrics.record(ExtractionMetrics.Phase.SHARD_PLANNING, startTime);
+                logger.log(ID, "Extracting shard of repository " + repositoryName, manifest.getDescription(),
+                        MessageType.INFO);
+                Map<String, String> shardCommitNumbers = new LinkedHashMap<String, String>();
+                for (String fullCommitNumber : fullCommitNumbers.subList(manifest.getRangeStart(),
+                        manifest.getRangeEnd())) {
+                    shardCommitNumbers.put(fullCommitNumber, commitNumbers.get(fullCommitNumber));
+                }
+                extractionSuccessful = extractSelected(shardCommitNumbers, repositoryDirectory);
+                manifest.write(ShardManifest.getFile(settings.getShardDirectory(), repositoryName,
+                        settings.getShardIndex(), settings.getShardCount()), repositoryName, metrics,
+                        extractionSuccessful);
+                verifyShards(repositoryName);
+            } catch (IOException e) {
+                extractionSuccessful = false;
+                logger.log(ID, "Extracting shard " + settings.getShardIndex() + " of repository " + repositoryDirectory
+                        + " failed", e.getMessage(), MessageType.ERROR);
+            }
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Verifies that the manifests of all shards of the given repository cover each commit exactly once, if all of
+     * them exist. Hence, the extraction finishing the last shard logs the result of the verification.
+     * 
+     * @param repositoryName the name of the directory of the repository
+     * @throws IOException if reading a manifest file fails
+     */
+    private void verifyShards(String repositoryName) throws IOException {
+        List<File> manifestFiles = new ArrayList<File>();
+        boolean allShardsWritten = true;
+        for (int i = 0; allShardsWritten && i < settings.getShardCount(); i++) {
+            File manifestFile = ShardManifest.getFile(settings.getShardDirectory(), repositoryName, i,
+                    settings.getShardCount());
+            allShardsWritten = manifestFile.isFile();
+            manifestFiles.add(manifestFile);
+        }
+        if (allShardsWritten) {
+            String problem = ShardManifest.verify(manifestFiles);
+            if (problem == null) {
+                logger.log(ID, "All " + settings.getShardCount() + " shards of repository " + repositoryName
+                        + " extracted", "The shards cover each commit exactly once", MessageType.INFO);
+            } else {
+                logger.log(ID, "The shards of repository " + repositoryName + " do not cover each commit exactly "
+                        + "once", problem, MessageType.WARNING);
+            }
+        }
+    }
+    
+    /**
+     * Extracts the commits identified by the given full commit numbers using a single Git process executing the
+     * {@link #GIT_COMMITS_BATCH_COMMAND}. If a {@link #commitCache} is used, only the commits not cached are extracted
+     * by that process. The cached commits are added to the commit queue in between, such that the order of the given
+     * commit numbers is preserved.
+     * 
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits in the order, in which the commits shall be added to the commit queue
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractResolved(Map<String, String> commitNumbers, File repositoryDirectory) {
+        boolean extractionSuccessful = true;
+        if (commitCache == null) {
+            extractionSuccessful = extractStream(GIT_COMMITS_BATCH_COMMAND, repositoryDirectory, commitNumbers,
+                    this::addToQueue);
+        } else {
+            Map<String, Boolean> commitSequence = new LinkedHashMap<String, Boolean>();
+            Map<String, String> uncachedCommitNumbers = new LinkedHashMap<String, String>();
+            Map<String, String> fullCommitNumbers = new HashMap<String, String>();
+            for (Map.Entry<String, String> commitNumber : commitNumbers.entrySet()) {
+                boolean cached = commitCache.contains(commitNumber.getKey());
+                commitSequence.put(commitNumber.getKey(), cached);
+                if (!cached) {
+                    uncachedCommitNumbers.put(commitNumber.getKey(), commitNumber.getValue());
+                    fullCommitNumbers.put(commitNumber.getValue(), commitNumber.getKey());
+                }
+            }
+            logger.log(ID, (commitNumbers.size() - uncachedCommitNumbers.size()) + " of " + commitNumbers.size()
+                    + " commits available in cache", null, MessageType.DEBUG);
+            Iterator<Map.Entry<String, Boolean>> commitSequenceIterator = commitSequence.entrySet().iterator();
+            if (!uncachedCommitNumbers.isEmpty()) {
+                extractionSuccessful = extractStream(GIT_COMMITS_BATCH_COMMAND, repositoryDirectory,
+                        uncachedCommitNumbers, commit -> {
+                            String fullCommitNumber = fullCommitNumbers.get(commit.getId());
+                            cacheCommit(fullCommitNumber, commit);
+                            deliverCachedCommits(commitSequenceIterator, fullCommitNumber, commitNumbers,
+                                    repositoryDirectory);
+                            addToQueue(commit);
+                        });
+            }
+            deliverCachedCommits(commitSequenceIterator, null, commitNumbers, repositoryDirectory);
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Adds the cached commits of the given commit sequence to the commit queue until the given commit is reached.
+     * If a cached commit was removed from the {@link #commitCache} in the meantime, e.g., by another process, it is
+     * extracted via {@link #extractCommit(String, String, File)} instead.
+     * 
+     * @param commitSequence the {@link Iterator} over the full commit numbers and their definition of whether the
+     *        respective commit is cached in the order, in which the commits shall be added to the commit queue
+     * @param fullCommitNumber the full commit number of the commit at which adding cached commits stops; may be
+     *        <code>null</code> to add all remaining cached commits
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     */
+    private void deliverCachedCommits(Iterator<Map.Entry<String, Boolean>> commitSequence, String fullCommitNumber,
+            Map<String, String> commitNumbers, File repositoryDirectory) {
+        boolean commitReached = false;
+        while (!commitReached && commitSequence.hasNext()) {
+            Map.Entry<String, Boolean> nextCommit = commitSequence.next();
+            if (nextCommit.getKey().equals(fullCommitNumber)) {
+                commitReached = true;
+            } else if (nextCommit.getValue()) {
+                Commit commit = extractCommit(commitNumbers.get(nextCommit.getKey()), nextCommit.getKey(),
+                        repositoryDirectory);
+                if (commit != null) {
+                    addToQueue(commit);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Extracts commits from the given repository using a single Git process executing the given command. Each commit
+     * is added to the commit queue as soon as its last line is read from the output of that process.
+     * 
+     * @param command the command printing the commits using the {@link CommitStreamReader#COMMIT_FORMAT}
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits; the full commit numbers are written to the standard input stream of the process, which
+     *        is required by the {@link #GIT_COMMITS_BATCH_COMMAND}; may be <code>null</code>, if the command does not
+     *        read any input
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractStream(String[] command, File repositoryDirectory, Map<String, String> commitNumbers) {
+        return extractStream(command, repositoryDirectory, commitNumbers, this::addToQueue);
+    }
+    
+    /**
+     * Extracts commits from the given repository using a single Git process executing the given command. Each commit
+     * is passed to the given {@link Consumer} as soon as its last line is read from the output of that process. If a
+     * {@link #contentLoader} exists, the command prints small context instead of the full content.
+     * 
+     * @param command the command printing the commits using the {@link CommitStreamReader#COMMIT_FORMAT}
+     * @param repositoryDirectory the {@link File} defining the repository from which the commits will be extracted
+     * @param commitNumbers the mapping of full commit numbers to the commit numbers used as identifiers of the
+     *        extracted commits; the full commit numbers are written to the standard input stream of the process, which
+     *        is required by the {@link #GIT_COMMITS_BATCH_COMMAND}; may be <code>null</code>, if the command does not
+     *        read any input
+     * @param commitConsumer the {@link Consumer} receiving the extracted commits, like {@link #addToQueue(Commit)}
+     * @return <code>true</code> if extracting the commits was successful; <code>false</code> otherwise
+     */
+    private boolean extractStream(String[] command, File repositoryDirectory, Map<String, String> commitNumbers,
+            Consumer<Commit> commitConsumer) {
+        boolean extractionSuccessful = false;
+        String[] streamCommand = getFilteredCommand(command);
+        Consumer<Commit> streamConsumer = commitConsumer;
+        if (contentLoader != null) {
+            streamCommand = getLazyCommand(streamCommand);
+            streamConsumer = commit -> commitConsumer.accept(completeCombinedDiff(commit, repositoryDirectory));
+        }
+        GitProcess gitProcess = null;
+        try {
+            long processStartTime = System.nanoTime();
+            gitProcess = new GitProcess(streamCommand, repositoryDirectory);
+            metrics.record(ExtractionMetrics.Phase.PROCESS_START, processStartTime);
+            metrics.countGitProcess();
+            if (commitNumbers != null) {
+                gitProcess.writeInput(commitNumbers.keySet());
+            }
+            int commitCounter;
+            try (Reader commitStream = gitProcess.getStandardOutputReader()) {
+                CommitStreamReader commitStreamReader = new CommitStreamReader(commitStream, streamConsumer,
+                        commitNumbers, metrics, (commitNumber, committerDate) -> createAssembler(commitNumber,
+                        committerDate, contentLoader));
+                commitCounter = commitStreamReader.read();
+            }
+            if (gitProcess.waitFor()) {
+                logger.log(ID, "Extracted " + commitCounter + " commits", null, MessageType.DEBUG);
+                extractionSuccessful = true;
+            } else {
+                logger.log(ID, "Extracting the available commits failed", "Executing the command \"" 
+                        + processUtilities.getCommandString(streamCommand) + "\" was not successful: " 
+                        + gitProcess.getErrorOutputData(), MessageType.ERROR);
+            }
+        } catch (IOException e) {
+            if (gitProcess != null) {
+                gitProcess.destroy();
+            }
+            logger.log(ID, "Extracting the available commits failed", "Reading the output of the command \"" 
+                    + processUtilities.getCommandString(streamCommand) + "\" was not successful: " 
+                    + e.getMessage(), MessageType.ERROR);
+        }
+        return extractionSuccessful;
+    }
+    
+    /**
+     * Adds the given commit to the commit queue via the {@link #commitHandoff}, which waits while the buffered commits
+     * exceed the {@link ExtractionSettings#getMaxPendingBytes()}. The commit is marked as delivered in the
+     * {@link #checkpoint} once the queue accepts it or, if the {@link PathFilter} skips it, immediately. If a
+     * {@link #sourceRepository} is defined, the commit is added as {@link RepositoryCommit} tagged with it.
+     * 
+     * @param commit the {@link Commit} to be added to the commit queue
+     */
+    private void addToQueue(Commit commit) {
+        ExtractionCheckpoint commitCheckpoint = checkpoint;
+        if (isSkipped(commit)) {
+            metrics.countSkippedCommit();
+            logger.log(ID, "Skipping commit " + commit.getId(), "None of its changed artifacts matches the path filter",
+                    MessageType.DEBUG);
+            markDelivered(commitCheckpoint, commit.getId());
+        } else {
+            Commit queuedCommit = commit;
+            if (sourceRepository != null) {
+                queuedCommit = new RepositoryCommit(sourceRepository, commit);
+            }
+            long queueStartTime = System.nanoTime();
+            if (commitHandoff.add(queuedCommit, () -> {
+                metrics.countDeliveredCommit();
+                markDelivered(commitCheckpoint, commit.getId());
+            })) {
+                metrics.countQueueStall();
+                logger.log(ID, "Waited for the commit queue to accept the commits before commit " + commit.getId(),
+                        null, MessageType.DEBUG);
+            }
+            metrics.record(ExtractionMetrics.Phase.QUEUE_WAIT, queueStartTime);
+            metrics.recordPendingBytes(commitHandoff.getPendingBytes());
+        }
+    }
+    
+    /**
+     * Marks the commit identified by the given commit number as delivered in the given checkpoint, if it exists.
+     * 
+     * @param commitCheckpoint the {@link ExtractionCheckpoint} of the incremental extraction delivering the commit or
+     *        <code>null</code>, if no incremental extraction is running
+     * @param commitNumber the commit number of the delivered commit
+     */
+    private void markDelivered(ExtractionCheckpoint commitCheckpoint, String commitNumber) {
+        if (commitCheckpoint != null) {
+            try {
+                commitCheckpoint.markDelivered(commitNumber);
+            } catch (IOException e) {
+                logger.log(ID, "Marking commit " + commitNumber + " as delivered failed",
+                        "The next extraction delivers this commit again: " + e.getMessage(), MessageType.WARNING);
+            }
+        }
+    }
+    
+    /**
+     * Checks whether the given commit is skipped instead of added to the commit queue, because a {@link PathFilter}
+     * restricts the changed artifacts and the commit has neither a changed artifact nor a combined diff left.
+     * 
+     * @param commit the {@link Commit} to be checked
+     * @return <code>true</code>, if the commit is skipped; <code>false</code> otherwise
+     */
+    private boolean isSkipped(Commit commit) {
+        boolean skipped = false;
+        if (settings.getPathFilter() != null
+                && (commit.getChangedArtifacts() == null || commit.getChangedArtifacts().isEmpty())) {
+            skipped = true;
+            String[] commitHeader = commit.getCommitHeader();
+            for (int i = 0; skipped && i < commitHeader.length; i++) {
+                skipped = !commitHeader[i].startsWith(COMBINED_DIFF_START_PATTERN);
+            }
+        }
+        return skipped;
+    }
+    
+    /**
+     * Retrieves commit information by executing the given command in the given working directory.
+     * 
+     * @param command the command to be executed to retrieve the desired commit information
+     * @param workingDirectory the directory in which the process with the given command shall be executed
+     * @return the commit information as provided by the standard output stream of the process executing the given
+     *         command or <code>null</code>, if the execution was not successful
+     */
+    private String getCommitInformation(String[] command, File workingDirectory) {
+        String commitInformation = null;
+        long startTime = System.nanoTime();
+        ExecutionResult executionResult = processUtilities.executeCommand(command, workingDirectory);
+        metrics.record(ExtractionMetrics.Phase.GIT_COMMAND, startTime);
+        metrics.countGitProcess();
+        if (executionResult.executionSuccessful()) {
+            commitInformation = executionResult.getStandardOutputData();
+        }
+        return commitInformation;
+    }
+    
+    /**
+     * Creates a new {@link Commit} based on the given committer date and commit content.
+     * 
+     * @param commitNumber the commit numbers (SHAs) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     * @param commitContent the commit content of the commit to be created
+     * @param lazyContentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts, if the
+     *        given commit content has small context; may be <code>null</code>, if it includes the full content
+     * @return the commit created by processing the given date and content; may be <code>null</code> or <i>empty</i>
+     */
+    private Commit createCommit(String commitNumber, String committerDate, String commitContent,
+            LazyContentLoader lazyContentLoader) {
+        logger.log(ID, "Creating commit object for commit " + commitNumber, null, MessageType.DEBUG);
+        long startTime = System.nanoTime();
+        CommitAssembler commitAssembler = createAssembler(commitNumber, committerDate, lazyContentLoader);
+        LineScanner.forEachLine(commitContent, commitAssembler::addLine);
+        Commit commit = commitAssembler.getCommit();
+        metrics.record(ExtractionMetrics.Phase.PARSING, startTime);
+        metrics.recordOutputSize(commitNumber, commitContent.length());
+        return commit;
+    }
+    
+    /**
+     * Creates a new {@link CommitAssembler} for the commit with the given commit number and committer date, which
+     * applies the {@link PathFilter} of the {@link #settings}, if defined.
+     * 
+     * @param commitNumber the commit number (SHA) of the commit to be created
+     * @param committerDate the committer date of the commit to be created
+     * @param lazyContentLoader the {@link LazyContentLoader} loading the full content of the changed artifacts; may
+     *        be <code>null</code>, if the lines added to the assembler include the full content
+     * @return the new {@link CommitAssembler}; never <code>null</code>
+     */
+    private CommitAssembler createAssembler(String commitNumber, String committerDate,
+            LazyContentLoader lazyContentLoader) {
+        return new CommitAssembler(commitNumber, committerDate, lazyContentLoader, settings.getPathFilter());
+    }
+       
+    /**
+     * Extracts the commit numbers (SHAs) from the commit log as returned by the {@link #GIT_COMMITS_COMMAND} command,
+     * which this method executes at the location of the given repository.
+     * 
+     * @param repository the {@link File} representing the repository directory; never <code>null</code> and always a
+     *        directory
+     * @return the set of commit numbers or <code>null</code>, if extracting the commit numbers failed
+     */
+    private String[] getCommitNumbers(File repository) {
+        logger.log(ID, "Extracting commit numbers from log", null, MessageType.DEBUG);
+        String[] commitNumbers = null;
+        if (repositoryReader != null) {
+            commitNumbers = getInternalCommitNumbers();
+        } else {
+            commitNumbers = getLoggedCommitNumbers(repository);
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Extracts the commit numbers (SHAs) in the same order as the {@link #GIT_COMMITS_COMMAND} using the
+     * {@link #repositoryReader}.
+     * 
+     * @return the set of commit numbers or <code>null</code>, if extracting the commit numbers failed
+     */
+    private String[] getInternalCommitNumbers() {
+        String[] commitNumbers = null;
+        try {
+            List<ObjectId> commitIds = repositoryReader.getLog(repositoryReader.resolveHead(), null,
+                    settings.getCommitWindow());
+            commitNumbers = new String[commitIds.size()];
+            for (int i = 0; i < commitNumbers.length; i++) {
+                commitNumbers[i] = repositoryReader.abbreviate(commitIds.get(i));
+            }
+        } catch (IOException e) {
+            logger.log(ID, "Extracting the available commit numbers failed", e.getMessage(), MessageType.ERROR);
+        }
+        return commitNumbers;
+    }
+    
+    /**
+     * Extracts the commit numbers (SHAs) from the commit log as returned by the {@link #GIT_COMMITS_COMMAND} command,
+     * which this method executes at the location of the given repository.
+     * 
+     * @param repository the {@link File} representing the repository directory
+     * @return the set of commit numbers or <code>null</code>, if extracting the commit numbers failed
+     */
+    private String[] getLoggedCommitNumbers(File repository) {
         String[] commitNumbers = null;
-        ExecutionResult executionResult = processUtilities.executeCommand(GIT_COMMITS_COMMAND, repository);
+        String[] command = getFilteredCommand(GIT_COMMITS_COMMAND);
+        ExecutionResult executionResult = processUtilities.executeCommand(command, repository);
         if (executionResult.executionSuccessful()) {
             // We assume that the standard output stream of the process executed above contains the commit numbers
             String commitLog = executionResult.getStandardOutputData();
@@ -397,7 +1842,7 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
             }
         } else {
             logger.log(ID, "Extracting the available commit numbers failed", "Executing the command \"" 
-                    + processUtilities.getCommandString(GIT_COMMITS_COMMAND) + "\" was not successful: " 
+                    + processUtilities.getCommandString(command) + "\" was not successful: " 
                     + executionResult.getErrorOutputData(), MessageType.ERROR);
         }
         return commitNumbers;
@@ -422,4 +1867,4 @@ public class GitCommitExtractor extends AbstractCommitExtractor {
         logger.log(ID, "Supported version control system: " + supportedVCS, null, MessageType.DEBUG);
         return versionControlSystem.equalsIgnoreCase(supportedVCS);
     }
-}
\ No newline at end of file
+}
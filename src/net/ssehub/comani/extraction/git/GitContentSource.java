@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class provides the full content of changed artifacts by executing a <code>git show</code> process, which is
+ * restricted to the requested files of a commit. Hence, only the artifacts actually accessed are printed with full
+ * context instead of all artifacts of all commits.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class GitContentSource implements ArtifactContentSource {
+
+    /**
+     * The constant part of the command for printing the diffs of changed files of a commit with the content of these
+     * files (100.000 lines of context). The commit number, a "<tt>--</tt>" separator, and the paths of the files must
+     * be appended. The paths are treated literally instead of as patterns.<br>
+     * <br>
+     * Command: <code>git --literal-pathspecs show -U100000 --no-renames --format=</code>
+     */
+    private static final String[] GIT_CONTENT_COMMAND = {"git", "--literal-pathspecs", "show", "-U100000",
+        "--no-renames", "--format="};
+
+    /**
+     * The maximum number of paths appended to the {@link #GIT_CONTENT_COMMAND}. If more paths are requested, the
+     * diffs of all files of the commit are printed instead to avoid exceeding the maximum length of command lines.
+     */
+    private static final int MAX_PATHS = 64;
+
+    /**
+     * The {@link File} defining the repository containing the commits.
+     */
+    private File repositoryDirectory;
+
+    /**
+     * Constructs a new {@link GitContentSource} for the given repository.
+     *
+     * @param repositoryDirectory the {@link File} defining the repository containing the commits
+     */
+    GitContentSource(File repositoryDirectory) {
+        this.repositoryDirectory = repositoryDirectory;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * If more than {@link #MAX_PATHS} paths are given, the diffs of all files changed by the commit are passed to the
+     * given {@link Consumer}.
+     */
+    @Override
+    public void read(String commitNumber, List<String> paths, Consumer<String> lineConsumer) throws IOException {
+        String[] command = Arrays.copyOf(GIT_CONTENT_COMMAND, GIT_CONTENT_COMMAND.length + 2);
+        command[GIT_CONTENT_COMMAND.length] = commitNumber;
+        command[GIT_CONTENT_COMMAND.length + 1] = "--";
+        if (paths.size() <= MAX_PATHS) {
+            command = Arrays.copyOf(command, command.length + paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                command[GIT_CONTENT_COMMAND.length + 2 + i] = paths.get(i);
+            }
+        }
+        GitProcess gitProcess = new GitProcess(command, repositoryDirectory);
+        try (Reader contentReader = gitProcess.getStandardOutputReader()) {
+            LineScanner.forEachLine(contentReader, lineConsumer);
+        } catch (IOException e) {
+            gitProcess.destroy();
+            throw e;
+        }
+        if (!gitProcess.waitFor()) {
+            throw new IOException("Executing the command \"" + String.join(" ", GIT_CONTENT_COMMAND) + " "
+                    + commitNumber + "\" was not successful: " + gitProcess.getErrorOutputData());
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+/**
+ * This class represents the inflated content of a Git object as read by the {@link ObjectDatabase}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+final class GitObject {
+
+    /**
+     * The type of commit objects as used in pack files.
+     */
+    static final int TYPE_COMMIT = 1;
+
+    /**
+     * The type of tree objects as used in pack files.
+     */
+    static final int TYPE_TREE = 2;
+
+    /**
+     * The type of blob objects as used in pack files.
+     */
+    static final int TYPE_BLOB = 3;
+
+    /**
+     * The type of annotated tag objects as used in pack files.
+     */
+    static final int TYPE_TAG = 4;
+
+    /**
+     * The names of the object types as used in the headers of loose objects in the order of their type numbers.
+     */
+    private static final String[] TYPE_NAMES = {null, "commit", "tree", "blob", "tag"};
+
+    /**
+     * The type of this object, like {@link #TYPE_COMMIT}.
+     */
+    private int type;
+
+    /**
+     * The content of this object.
+     */
+    private byte[] data;
+
+    /**
+     * Constructs a new {@link GitObject}.
+     *
+     * @param type the type of the object, like {@link #TYPE_COMMIT}
+     * @param data the inflated content of the object; the array is not copied
+     */
+    GitObject(int type, byte[] data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    /**
+     * Returns the type number of the object type with the given name.
+     *
+     * @param typeName the name of the object type as used in the headers of loose objects, like "<tt>commit</tt>"
+     * @return the type number, like {@link #TYPE_COMMIT}, or <code>-1</code>, if the given name does not denote an
+     *         object type
+     */
+    static int getType(String typeName) {
+        int typeNumber = -1;
+        for (int i = 1; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equals(typeName)) {
+                typeNumber = i;
+            }
+        }
+        return typeNumber;
+    }
+
+    /**
+     * Returns the name of the given object type.
+     *
+     * @param type the type of an object, like {@link #TYPE_COMMIT}
+     * @return the name of the object type, like "<tt>commit</tt>", or "<tt>unknown</tt>", if the given number does
+     *         not denote an object type
+     */
+    static String getTypeName(int type) {
+        return (type > 0 && type < TYPE_NAMES.length) ? TYPE_NAMES[type] : "unknown";
+    }
+
+    /**
+     * Returns the type of this object.
+     *
+     * @return the type of this object, like {@link #TYPE_COMMIT}
+     */
+    int getType() {
+        return type;
+    }
+
+    /**
+     * Returns the content of this object.
+     *
+     * @return the inflated content of this object; never <code>null</code>; the array must not be changed
+     */
+    byte[] getData() {
+        return data;
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+/**
+ * This class represents a running Git process. In contrast to the
+ * {@link net.ssehub.comani.utility.ProcessUtilities}, which return the output of a process after its termination,
+ * this class provides direct access to the standard streams of the process. This enables reading its output while the
+ * process is still running as well as sending further input to long-living processes.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class GitProcess {
+
+    /**
+     * The charset decoding the output of Git and encoding its input in all backends. Git prints commit messages in
+     * UTF-8 by default, but file contents and paths as stored in the repository. Hence, the output is decoded using the
+     * platform default charset like the {@link net.ssehub.comani.utility.ProcessUtilities} do, such that each backend
+     * provides the same strings for the same commit. Repositories with non-ASCII content require UTF-8 as platform
+     * default charset, e.g., by starting the JVM with <code>-Dfile.encoding=UTF-8</code>.
+     */
+    static final Charset OUTPUT_CHARSET = Charset.defaultCharset();
+
+    /**
+     * The underlying {@link Process} executing the Git command.
+     */
+    private Process process;
+
+    /**
+     * The data of the error output stream of the {@link #process}, which is collected by the {@link #errorReader}.
+     */
+    private StringBuffer errorOutputData;
+
+    /**
+     * The {@link Thread} continuously reading the error output stream of the {@link #process} to avoid blocking the
+     * process due to a full stream buffer.
+     */
+    private Thread errorReader;
+
+    /**
+     * The {@link Thread} writing the lines passed to {@link #writeInput(Collection)} to the standard input stream of
+     * the {@link #process} or <code>null</code>, if no input is written.
+     */
+    private Thread inputWriter;
+
+    /**
+     * Constructs and starts a new {@link GitProcess} executing the given command.
+     *
+     * @param command the command to be executed; should never be <code>null</code>
+     * @param workingDirectory the directory in which the process with the given command shall be executed; may be
+     *        <code>null</code> to use the current working directory
+     * @throws IOException if starting the process failed
+     */
+    GitProcess(String[] command, File workingDirectory) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(workingDirectory);
+        process = processBuilder.start();
+        errorOutputData = new StringBuffer();
+        errorReader = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                readErrorOutput();
+            }
+
+        }, "GitProcess-stderr");
+        errorReader.setDaemon(true);
+        errorReader.start();
+    }
+
+    /**
+     * Reads the error output stream of the {@link #process} until its end and collects the read data in
+     * {@link #errorOutputData}.
+     */
+    private void readErrorOutput() {
+        try (Reader errorStreamReader = new InputStreamReader(process.getErrorStream(), OUTPUT_CHARSET)) {
+            char[] buffer = new char[1024];
+            int readChars = errorStreamReader.read(buffer);
+            while (readChars != -1) {
+                errorOutputData.append(buffer, 0, readChars);
+                readChars = errorStreamReader.read(buffer);
+            }
+        } catch (IOException e) {
+            errorOutputData.append(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the standard output stream of this process.
+     *
+     * @return the {@link InputStream} providing the standard output of this process; never <code>null</code>
+     */
+    InputStream getStandardOutput() {
+        return process.getInputStream();
+    }
+
+    /**
+     * Returns a {@link Reader} for the standard output stream of this process, which decodes the output using the
+     * {@link #OUTPUT_CHARSET}.
+     *
+     * @return the {@link Reader} providing the standard output of this process; never <code>null</code>
+     */
+    Reader getStandardOutputReader() {
+        return new InputStreamReader(process.getInputStream(), OUTPUT_CHARSET);
+    }
+
+    /**
+     * Returns the standard input stream of this process.
+     *
+     * @return the {@link OutputStream} providing the standard input of this process; never <code>null</code>
+     */
+    OutputStream getStandardInput() {
+        return process.getOutputStream();
+    }
+
+    /**
+     * Writes the given lines to the standard input stream of this process and closes that stream afterwards. Writing
+     * is performed by a separate thread, which allows reading the output of the process while its input is written.
+     * This avoids blocking the process, if it produces output for the first lines before all lines are written. Errors
+     * while writing are added to the error output data of this process.
+     *
+     * @param inputLines the lines to be written to the standard input stream of this process; should never be
+     *        <code>null</code>
+     */
+    void writeInput(Collection<String> inputLines) {
+        inputWriter = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try (Writer inputStreamWriter = new OutputStreamWriter(process.getOutputStream(), OUTPUT_CHARSET)) {
+                    for (String inputLine : inputLines) {
+                        inputStreamWriter.write(inputLine);
+                        inputStreamWriter.write('\n');
+                    }
+                } catch (IOException e) {
+                    errorOutputData.append(e.getMessage());
+                }
+            }
+
+        }, "GitProcess-stdin");
+        inputWriter.setDaemon(true);
+        inputWriter.start();
+    }
+
+    /**
+     * Waits for the termination of this process.
+     *
+     * @return <code>true</code>, if the process terminated with exit value <code>0</code>; <code>false</code>
+     *         otherwise or if waiting for the termination was interrupted
+     */
+    boolean waitFor() {
+        boolean executionSuccessful = false;
+        try {
+            executionSuccessful = process.waitFor() == 0;
+            errorReader.join();
+            if (inputWriter != null) {
+                inputWriter.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorOutputData.append("Waiting for process termination interrupted");
+        }
+        return executionSuccessful;
+    }
+
+    /**
+     * Terminates this process immediately. This method has no effect, if the process is already terminated.
+     */
+    void destroy() {
+        process.destroy();
+    }
+
+    /**
+     * Returns the data of the error output stream of this process collected so far.
+     *
+     * @return the error output data of this process; never <code>null</code>, but may be <i>empty</i>
+     */
+    String getErrorOutputData() {
+        return errorOutputData.toString();
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.ssehub.comani.data.ChangedArtifact;
+
+/**
+ * This class represents a changed artifact extracted with small context, like <code>git show -U3</code> prints it. Its
+ * diff header and content are replaced by the full content loaded by a {@link LazyContentLoader} on first access.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class LazyChangedArtifact extends ChangedArtifact {
+
+    /**
+     * The prefix of the diff header line identifying the original file.
+     */
+    private static final String OLD_FILE_PREFIX = "--- ";
+
+    /**
+     * The prefix of the diff header line identifying the changed file.
+     */
+    private static final String NEW_FILE_PREFIX = "+++ ";
+
+    /**
+     * The label of absent files in diff headers.
+     */
+    private static final String DEV_NULL = "/dev/null";
+
+    /**
+     * The {@link LazyContentLoader} loading the full content of this artifact.
+     */
+    private LazyContentLoader contentLoader;
+
+    /**
+     * The commit number (SHA) of the commit changing this artifact.
+     */
+    private String commitNumber;
+
+    /**
+     * The {@link LazyChangedArtifact}s of the same commit including this one, which the {@link #contentLoader} may load
+     * together. All artifacts of a commit are loaded while holding the lock of this list.
+     */
+    private List<LazyChangedArtifact> commitArtifacts;
+
+    /**
+     * The diff header lines added by the extraction with small context or <code>null</code>, if this artifact is
+     * {@link #loaded}.
+     */
+    private List<String> extractedDiffHeader;
+
+    /**
+     * The content lines added by the extraction with small context or <code>null</code>, if this artifact is
+     * {@link #loaded}.
+     */
+    private List<String> extractedContent;
+
+    /**
+     * The definition of whether the diff header and content of this artifact are complete (<code>true</code>) or not
+     * (<code>false</code>).
+     */
+    private volatile boolean loaded;
+
+    /**
+     * The number of characters of all diff header and content lines currently held by this artifact. This count is
+     * maintained while lines are added, hence, counting never iterates lists, which {@link #complete(ChangedArtifact)}
+     * may change concurrently. Lines are only added by one thread at a time: the extracting thread or the
+     * {@link #contentLoader} holding the lock of the {@link #commitArtifacts}.
+     */
+    private volatile long characterCount;
+
+    /**
+     * Constructs a new {@link LazyChangedArtifact}. The caller has to add the new artifact to the given list of
+     * artifacts of the same commit.
+     *
+     * @param contentLoader the {@link LazyContentLoader} loading the full content of this artifact
+     * @param commitNumber the commit number (SHA) of the commit changing this artifact
+     * @param commitArtifacts the {@link LazyChangedArtifact}s of the same commit
+     */
+    LazyChangedArtifact(LazyContentLoader contentLoader, String commitNumber,
+            List<LazyChangedArtifact> commitArtifacts) {
+        this.contentLoader = contentLoader;
+        this.commitNumber = commitNumber;
+        this.commitArtifacts = commitArtifacts;
+        extractedDiffHeader = new ArrayList<String>();
+        extractedContent = new ArrayList<String>();
+        loaded = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDiffHeaderLine(String diffHeaderLine) {
+        characterCount += diffHeaderLine.length();
+        if (loaded) {
+            super.addDiffHeaderLine(diffHeaderLine);
+        } else {
+            extractedDiffHeader.add(diffHeaderLine);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addContentLine(String contentLine) {
+        characterCount += contentLine.length();
+        if (loaded) {
+            super.addContentLine(contentLine);
+        } else {
+            extractedContent.add(contentLine);
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * Accessing the diff header loads the full content of this artifact, if it is not loaded yet.
+     */
+    @Override
+    public List<String> getDiffHeader() {
+        load();
+        return super.getDiffHeader();
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * Accessing the content loads the full content of this artifact, if it is not loaded yet.
+     */
+    @Override
+    public List<String> getContent() {
+        load();
+        return super.getContent();
+    }
+
+    /**
+     * Loads the full content of this artifact via the {@link #contentLoader}, if it is not loaded yet.
+     */
+    private void load() {
+        if (!loaded) {
+            contentLoader.load(commitNumber, commitArtifacts, this);
+        }
+    }
+
+    /**
+     * Checks whether the diff header and content of this artifact are complete.
+     *
+     * @return <code>true</code>, if this artifact is loaded; <code>false</code> otherwise
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the path of this artifact, which identifies it for loading its full content. Only modified files with
+     * at least one hunk require loading; the hunks of added and deleted files already include all lines and other
+     * artifacts have no content.
+     *
+     * @return the path of this artifact relative to the root of the repository or <code>null</code>, if loading is not
+     *         required or this artifact is already loaded
+     */
+    String getLoadPath() {
+        String loadPath = null;
+        if (!loaded) {
+            loadPath = getLoadPath(extractedDiffHeader);
+        }
+        return loadPath;
+    }
+
+    /**
+     * Completes this artifact by adding the diff header and content of the given artifact. If the given artifact is
+     * <code>null</code>, the lines added by the extraction with small context complete this artifact instead. This
+     * method must only be called by the {@link #contentLoader} while holding the lock of the {@link #commitArtifacts}.
+     *
+     * @param fullArtifact the {@link ChangedArtifact} providing the full content of this artifact; may be
+     *        <code>null</code>
+     */
+    void complete(ChangedArtifact fullArtifact) {
+        List<String> diffHeader = extractedDiffHeader;
+        List<String> content = extractedContent;
+        if (fullArtifact != null) {
+            diffHeader = fullArtifact.getDiffHeader();
+            content = new ArrayList<String>(fullArtifact.getContent());
+            // The empty line after the last artifact of a commit depends on the position of the artifact
+            boolean extractedAsLast = !extractedContent.isEmpty()
+                    && extractedContent.get(extractedContent.size() - 1).isEmpty();
+            if (!content.isEmpty() && content.get(content.size() - 1).isEmpty()) {
+                content.remove(content.size() - 1);
+            }
+            if (extractedAsLast) {
+                content.add("");
+            }
+        }
+        for (String diffHeaderLine : diffHeader) {
+            super.addDiffHeaderLine(diffHeaderLine);
+        }
+        for (String contentLine : content) {
+            super.addContentLine(contentLine);
+        }
+        extractedDiffHeader = null;
+        extractedContent = null;
+        characterCount = countCharacters(diffHeader) + countCharacters(content);
+        loaded = true;
+    }
+
+    /**
+     * Counts the characters of the diff header and content lines currently held by this artifact without loading its
+     * full content. This method may be called concurrently to {@link #complete(ChangedArtifact)} and returns the
+     * count either before or after completion.
+     *
+     * @return the number of characters of all lines held by this artifact
+     */
+    long countCharacters() {
+        return characterCount;
+    }
+
+    /**
+     * Counts the characters of the given lines.
+     *
+     * @param lines the lines to count the characters of
+     * @return the number of characters of all given lines
+     */
+    private static long countCharacters(List<String> lines) {
+        long characters = 0;
+        for (String line : lines) {
+            characters += line.length();
+        }
+        return characters;
+    }
+
+    /**
+     * Returns the path of the changed file described by the given diff header, if that file is modified and the diff
+     * header is followed by at least one hunk. The path is read from the line starting with {@link #NEW_FILE_PREFIX},
+     * which Git quotes like a C string, if it contains special characters.
+     *
+     * @param diffHeader the lines of the diff header of a changed artifact
+     * @return the path of the changed file relative to the root of the repository or <code>null</code>, if the diff
+     *         header does not describe a modified file with hunks
+     */
+    static String getLoadPath(List<String> diffHeader) {
+        String oldLabel = null;
+        String newLabel = null;
+        boolean hunkFound = false;
+        for (String diffHeaderLine : diffHeader) {
+            if (diffHeaderLine.startsWith(OLD_FILE_PREFIX)) {
+                oldLabel = getLabel(diffHeaderLine);
+            } else if (diffHeaderLine.startsWith(NEW_FILE_PREFIX)) {
+                newLabel = getLabel(diffHeaderLine);
+            } else if (diffHeaderLine.startsWith(CommitAssembler.DIFF_HEADER_END_PATTERN)) {
+                hunkFound = true;
+            }
+        }
+        String loadPath = null;
+        if (hunkFound && oldLabel != null && newLabel != null && !oldLabel.equals(DEV_NULL)
+                && !newLabel.equals(DEV_NULL)) {
+            loadPath = newLabel;
+            if (loadPath.startsWith("b/")) {
+                loadPath = loadPath.substring(2);
+            }
+        }
+        return loadPath;
+    }
+
+    /**
+     * Returns the unquoted file label of the given diff header line starting with {@link #OLD_FILE_PREFIX} or
+     * {@link #NEW_FILE_PREFIX}. Git terminates labels containing spaces with a tab, which is removed as well.
+     *
+     * @param diffHeaderLine the diff header line providing the label
+     * @return the unquoted label; never <code>null</code>
+     */
+    private static String getLabel(String diffHeaderLine) {
+        int labelEndIndex = diffHeaderLine.length();
+        if (labelEndIndex > NEW_FILE_PREFIX.length() && diffHeaderLine.charAt(labelEndIndex - 1) == '\t') {
+            labelEndIndex--;
+        }
+        String label = diffHeaderLine.substring(NEW_FILE_PREFIX.length(), labelEndIndex);
+        if (label.length() > 1 && label.charAt(0) == '"' && label.charAt(label.length() - 1) == '"') {
+            label = unquote(label);
+        }
+        return label;
+    }
+
+    /**
+     * Reverts the quoting of a path by Git, which encloses the path in double quotes and escapes special characters
+     * like a C string. Octal escape sequences represent the bytes of UTF-8 encoded characters.
+     *
+     * @param quotedPath the quoted path including the enclosing double quotes
+     * @return the unquoted path; never <code>null</code>
+     */
+    static String unquote(String quotedPath) {
+        ByteArrayOutputStream pathBytes = new ByteArrayOutputStream();
+        int index = 1;
+        int endIndex = quotedPath.length() - 1;
+        while (index < endIndex) {
+            int escapeIndex = quotedPath.indexOf('\\', index);
+            if (escapeIndex == -1 || escapeIndex >= endIndex - 1) {
+                escapeIndex = endIndex;
+            }
+            byte[] unescapedBytes = quotedPath.substring(index, escapeIndex).getBytes(StandardCharsets.UTF_8);
+            pathBytes.write(unescapedBytes, 0, unescapedBytes.length);
+            index = escapeIndex;
+            if (index < endIndex) {
+                char escapedCharacter = quotedPath.charAt(index + 1);
+                if (escapedCharacter >= '0' && escapedCharacter <= '7' && index + 3 < endIndex) {
+                    pathBytes.write(Integer.parseInt(quotedPath.substring(index + 1, index + 4), 8));
+                    index += 4;
+                } else {
+                    pathBytes.write(unescape(escapedCharacter));
+                    index += 2;
+                }
+            }
+        }
+        return new String(pathBytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the character represented by the given character following a backslash in a quoted path.
+     *
+     * @param escapedCharacter the character following the backslash
+     * @return the represented character
+     */
+    private static char unescape(char escapedCharacter) {
+        char character;
+        switch (escapedCharacter) {
+        case 'a':
+            character = '\u0007';
+            break;
+        case 'b':
+            character = '\b';
+            break;
+        case 't':
+            character = '\t';
+            break;
+        case 'n':
+            character = '\n';
+            break;
+        case 'v':
+            character = '\u000B';
+            break;
+        case 'f':
+            character = '\f';
+            break;
+        case 'r':
+            character = '\r';
+            break;
+        default:
+            // Double quotes and backslashes
+            character = escapedCharacter;
+            break;
+        }
+        return character;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ssehub.comani.core.Logger;
+import net.ssehub.comani.core.Logger.MessageType;
+import net.ssehub.comani.data.ChangedArtifact;
+
+/**
+ * This class loads the full content of {@link LazyChangedArtifact}s from an {@link ArtifactContentSource} when an
+ * artifact is accessed for the first time. Depending on the prefetch definition, either only the accessed artifact or
+ * all artifacts of the same commit, which are not loaded yet, are loaded at once. If loading fails, the artifacts keep
+ * the lines of their extraction with small context.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class LazyContentLoader {
+
+    /**
+     * The identifier of this class, e.g., for printing messages.
+     */
+    private static final String ID = "LazyContentLoader";
+
+    /**
+     * The {@link ArtifactContentSource} providing the full content of the artifacts.
+     */
+    private ArtifactContentSource contentSource;
+
+    /**
+     * The definition of whether all artifacts of a commit are loaded together on the first access to one of them
+     * (<code>true</code>) or only the accessed artifact is loaded (<code>false</code>).
+     */
+    private boolean prefetch;
+
+    /**
+     * The {@link ExtractionMetrics} recording the duration of each load.
+     */
+    private ExtractionMetrics metrics;
+
+    /**
+     * Constructs a new {@link LazyContentLoader}.
+     *
+     * @param contentSource the {@link ArtifactContentSource} providing the full content of the artifacts
+     * @param prefetch <code>true</code>, if all artifacts of a commit shall be loaded together on the first access to
+     *        one of them; <code>false</code>, if only the accessed artifact shall be loaded
+     * @param metrics the {@link ExtractionMetrics} recording the duration of each load
+     */
+    LazyContentLoader(ArtifactContentSource contentSource, boolean prefetch, ExtractionMetrics metrics) {
+        this.contentSource = contentSource;
+        this.prefetch = prefetch;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Loads the full content of the given artifact and, if prefetching is enabled, of all other artifacts of the same
+     * commit, which are not loaded yet. This method may be called by multiple threads concurrently.
+     *
+     * @param commitNumber the commit number (SHA) of the commit changing the artifacts
+     * @param commitArtifacts the {@link LazyChangedArtifact}s of that commit
+     * @param accessedArtifact the {@link LazyChangedArtifact} accessed for the first time
+     */
+    void load(String commitNumber, List<LazyChangedArtifact> commitArtifacts, LazyChangedArtifact accessedArtifact) {
+        synchronized (commitArtifacts) {
+            if (!accessedArtifact.isLoaded()) {
+                List<LazyChangedArtifact> loadedArtifacts = Collections.singletonList(accessedArtifact);
+                if (prefetch) {
+                    loadedArtifacts = commitArtifacts;
+                }
+                Map<String, LazyChangedArtifact> pendingArtifacts = new LinkedHashMap<String, LazyChangedArtifact>();
+                for (LazyChangedArtifact loadedArtifact : loadedArtifacts) {
+                    String loadPath = loadedArtifact.getLoadPath();
+                    if (loadPath != null && !pendingArtifacts.containsKey(loadPath)) {
+                        pendingArtifacts.put(loadPath, loadedArtifact);
+                    } else if (!loadedArtifact.isLoaded()) {
+                        // Either the extracted lines are complete or the path is ambiguous
+                        loadedArtifact.complete(null);
+                    }
+                }
+                if (!pendingArtifacts.isEmpty()) {
+                    load(commitNumber, pendingArtifacts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the full content of the given artifacts from the {@link #contentSource}. Artifacts, for which the source
+     * does not provide the full content, are completed by the lines of their extraction with small context.
+     *
+     * @param commitNumber the commit number (SHA) of the commit changing the artifacts
+     * @param pendingArtifacts the {@link LazyChangedArtifact}s to be loaded with their paths as keys
+     */
+    private void load(String commitNumber, Map<String, LazyChangedArtifact> pendingArtifacts) {
+        long startTime = System.nanoTime();
+        CommitAssembler commitAssembler = new CommitAssembler(commitNumber, "");
+        try {
+            contentSource.read(commitNumber, new ArrayList<String>(pendingArtifacts.keySet()),
+                    commitAssembler::addLine);
+            List<ChangedArtifact> fullArtifacts = commitAssembler.getCommit().getChangedArtifacts();
+            if (fullArtifacts != null) {
+                for (ChangedArtifact fullArtifact : fullArtifacts) {
+                    LazyChangedArtifact pendingArtifact = pendingArtifacts.remove(
+                            LazyChangedArtifact.getLoadPath(fullArtifact.getDiffHeader()));
+                    if (pendingArtifact != null) {
+                        pendingArtifact.complete(fullArtifact);
+                    }
+                }
+            }
+            if (!pendingArtifacts.isEmpty()) {
+                Logger.getInstance().log(ID, "Full content of " + pendingArtifacts.size() + " artifacts of commit "
+                        + commitNumber + " not available", "Using the extracted diff with small context instead",
+                        MessageType.WARNING);
+            }
+        } catch (IOException e) {
+            Logger.getInstance().log(ID, "Loading the full content of artifacts of commit " + commitNumber + " failed",
+                    "Using the extracted diff with small context instead: " + e.getMessage(), MessageType.WARNING);
+        }
+        for (LazyChangedArtifact pendingArtifact : pendingArtifacts.values()) {
+            pendingArtifact.complete(null);
+        }
+        metrics.record(ExtractionMetrics.Phase.CONTENT_LOAD, startTime);
+    }
+
+}
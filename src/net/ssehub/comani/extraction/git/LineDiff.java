@@ -0,0 +1,1269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * This class computes the changed lines between two versions of a file exactly like the default diff algorithm of Git
+ * (xdiff) including its heuristics, as equally minimal, but different diffs would not match <code>git show</code>.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class LineDiff {
+
+    /**
+     * The maximum number of matches of a line in the other file, for which the line is considered for the comparison
+     * in any case.
+     */
+    private static final int MAX_EQUAL_LIMIT = 1024;
+
+    /**
+     * The number of lines before and after a line with multiple matches, which are examined for deciding whether to
+     * discard that line.
+     */
+    private static final int SIMILAR_SCAN_WINDOW = 100;
+
+    /**
+     * The factor defining when a run of discardable lines is long enough for discarding lines with multiple matches.
+     */
+    private static final int DISCARD_RUN_FACTOR = 4;
+
+    /**
+     * The minimum edit cost, after which the comparison of a part of both files is stopped in favor of the furthest
+     * reaching path.
+     */
+    private static final int MAX_COST_MIN = 256;
+
+    /**
+     * The edit cost, after which good diagonals are searched for splitting a part of both files.
+     */
+    private static final int HEURISTIC_MIN_COST = 256;
+
+    /**
+     * The number of equal lines forming a good diagonal ("snake").
+     */
+    private static final int SNAKE_COUNT = 20;
+
+    /**
+     * The factor defining when a diagonal reached an interesting position.
+     */
+    private static final int HEURISTIC_FACTOR = 4;
+
+    /**
+     * The maximum indentation considered by the indent heuristic.
+     */
+    private static final int MAX_INDENT = 200;
+
+    /**
+     * The maximum number of blank lines considered by the indent heuristic.
+     */
+    private static final int MAX_BLANKS = 20;
+
+    /**
+     * The maximum number of positions evaluated by the indent heuristic for a single group of changed lines.
+     */
+    private static final int MAX_SLIDING = 100;
+
+    /**
+     * The penalty for splitting at the start of a file.
+     */
+    private static final int START_OF_FILE_PENALTY = 1;
+
+    /**
+     * The penalty for splitting at the end of a file.
+     */
+    private static final int END_OF_FILE_PENALTY = 21;
+
+    /**
+     * The weight of the number of blank lines around a split.
+     */
+    private static final int TOTAL_BLANK_WEIGHT = -30;
+
+    /**
+     * The weight of the number of blank lines after a split.
+     */
+    private static final int POST_BLANK_WEIGHT = 6;
+
+    /**
+     * The penalty for a split before a line, which is indented more than the preceding line.
+     */
+    private static final int RELATIVE_INDENT_PENALTY = -4;
+
+    /**
+     * The penalty for a split before a line, which is indented more than the preceding line and separated by blank
+     * lines.
+     */
+    private static final int RELATIVE_INDENT_WITH_BLANK_PENALTY = 10;
+
+    /**
+     * The penalty for a split before a line, which is indented less than the preceding and the following line.
+     */
+    private static final int RELATIVE_OUTDENT_PENALTY = 24;
+
+    /**
+     * The penalty for a split before a line, which is indented less than the preceding and the following line and
+     * separated by blank lines.
+     */
+    private static final int RELATIVE_OUTDENT_WITH_BLANK_PENALTY = 17;
+
+    /**
+     * The penalty for a split before a line, which is indented less than the preceding line only.
+     */
+    private static final int RELATIVE_DEDENT_PENALTY = 23;
+
+    /**
+     * The penalty for a split before a line, which is indented less than the preceding line only and separated by
+     * blank lines.
+     */
+    private static final int RELATIVE_DEDENT_WITH_BLANK_PENALTY = 17;
+
+    /**
+     * The weight of the effective indentation compared to the penalties of a split.
+     */
+    private static final int INDENT_WEIGHT = 60;
+
+    /**
+     * This class represents the lines of one of the two compared files.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    static final class Lines {
+
+        /**
+         * The content of the file.
+         */
+        private byte[] content;
+
+        /**
+         * The index of the first byte of each line in the {@link #content} followed by the end of the last line.
+         */
+        private int[] lineStarts;
+
+        /**
+         * The number of lines.
+         */
+        private int lineCount;
+
+        /**
+         * The equivalence class of each line; lines with equal content including their line terminator share the same
+         * class.
+         */
+        private int[] classes;
+
+        /**
+         * The change flags of the lines with an additional unchanged entry before the first and after the last line.
+         * The flag of line <code>i</code> is stored at index <code>i + 1</code>.
+         */
+        private boolean[] changed;
+
+        /**
+         * Constructs new {@link Lines} by splitting the given content at line feeds.
+         *
+         * @param content the content of the file
+         * @param length the number of bytes of the content to consider
+         */
+        private Lines(byte[] content, int length) {
+            this.content = content;
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (content[i] == '\n') {
+                    count++;
+                }
+            }
+            if (length > 0 && content[length - 1] != '\n') {
+                count++;
+            }
+            lineCount = count;
+            lineStarts = new int[count + 1];
+            int line = 0;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (content[i] == '\n') {
+                    lineStarts[line++] = lineStart;
+                    lineStart = i + 1;
+                }
+            }
+            if (line < count) {
+                lineStarts[line] = lineStart;
+            }
+            lineStarts[count] = length;
+            classes = new int[count];
+            changed = new boolean[count + 2];
+        }
+
+        /**
+         * Returns the number of lines.
+         *
+         * @return the number of lines
+         */
+        int getLineCount() {
+            return lineCount;
+        }
+
+        /**
+         * Returns the index of the first byte of the given line.
+         *
+         * @param line the index of the line
+         * @return the index of the first byte of the line in the content
+         */
+        int getLineStart(int line) {
+            return lineStarts[line];
+        }
+
+        /**
+         * Returns the index after the last byte of the given line including its line feed, if present.
+         *
+         * @param line the index of the line
+         * @return the index after the last byte of the line in the content
+         */
+        int getLineEnd(int line) {
+            return lineStarts[line + 1];
+        }
+
+        /**
+         * Returns the content of the file.
+         *
+         * @return the content of the file; the array must not be changed
+         */
+        byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Checks whether the given line is changed.
+         *
+         * @param line the index of the line; <code>-1</code> and the number of lines denote the unchanged entries
+         *        around the lines
+         * @return <code>true</code>, if the line is changed; <code>false</code> otherwise
+         */
+        private boolean isChanged(int line) {
+            return changed[line + 1];
+        }
+
+        /**
+         * Sets the change flag of the given line.
+         *
+         * @param line the index of the line
+         * @param lineChanged the new change flag
+         */
+        private void setChanged(int line, boolean lineChanged) {
+            changed[line + 1] = lineChanged;
+        }
+
+        /**
+         * Returns the indentation of the given line, which is the number of leading spaces with tabs expanded to the
+         * next multiple of eight columns.
+         *
+         * @param line the index of the line
+         * @return the indentation of the line limited to {@link LineDiff#MAX_INDENT} or <code>-1</code>, if the line
+         *         only consists of whitespace
+         */
+        private int getIndent(int line) {
+            int indent = -1;
+            int columns = 0;
+            for (int i = lineStarts[line]; indent == -1 && i < lineStarts[line + 1]; i++) {
+                byte character = content[i];
+                if (character != ' ' && character != '\t' && character != '\n' && character != '\r') {
+                    indent = columns;
+                } else if (character == ' ') {
+                    columns++;
+                } else if (character == '\t') {
+                    columns += 8 - columns % 8;
+                }
+                if (indent == -1 && columns >= MAX_INDENT) {
+                    indent = MAX_INDENT;
+                }
+            }
+            return indent;
+        }
+
+    }
+
+    /**
+     * The lines of the old version of the file.
+     */
+    private Lines oldLines;
+
+    /**
+     * The lines of the new version of the file.
+     */
+    private Lines newLines;
+
+    /**
+     * The changes between both versions as consecutive quadruples of the index of the first changed old line, the
+     * number of changed old lines, the index of the first changed new line, and the number of changed new lines.
+     */
+    private int[] changes;
+
+    /**
+     * The number of changes in {@link #changes}.
+     */
+    private int changeCount;
+
+    /**
+     * Constructs a new {@link LineDiff} and computes the changes between the given versions of a file.
+     *
+     * @param oldContent the content of the old version of the file
+     * @param oldLength the number of bytes of the old content to compare
+     * @param newContent the content of the new version of the file
+     * @param newLength the number of bytes of the new content to compare
+     */
+    LineDiff(byte[] oldContent, int oldLength, byte[] newContent, int newLength) {
+        oldLines = new Lines(oldContent, oldLength);
+        newLines = new Lines(newContent, newLength);
+        int[][] classCounts = classify();
+        int[][] reducedLines = reduceLines(classCounts);
+        compare(reducedLines);
+        compact(oldLines, newLines);
+        compact(newLines, oldLines);
+        buildChanges();
+    }
+
+    /**
+     * Returns the number of bytes of the given contents to compare, if only changed lines are relevant. Like Git,
+     * this omits common blocks of 1024 bytes at the end of both contents, except for the remainder of the last line
+     * ending within those blocks.
+     *
+     * @param oldContent the content of the old version of the file
+     * @param newContent the content of the new version of the file
+     * @return the number of bytes to omit at the end of both contents
+     */
+    static int getCommonTailLength(byte[] oldContent, byte[] newContent) {
+        final int blockSize = 1024;
+        int smaller = Math.min(oldContent.length, newContent.length);
+        int trimmed = 0;
+        boolean equal = true;
+        while (equal && blockSize + trimmed <= smaller) {
+            int oldEnd = oldContent.length - trimmed;
+            int newEnd = newContent.length - trimmed;
+            for (int i = 1; equal && i <= blockSize; i++) {
+                equal = oldContent[oldEnd - i] == newContent[newEnd - i];
+            }
+            if (equal) {
+                trimmed += blockSize;
+            }
+        }
+        int recovered = 0;
+        boolean lineEnd = false;
+        while (!lineEnd && recovered < trimmed) {
+            lineEnd = oldContent[oldContent.length - trimmed + recovered] == '\n';
+            recovered++;
+        }
+        return trimmed - recovered;
+    }
+
+    /**
+     * Assigns the equivalence classes of all lines of both files.
+     *
+     * @return the number of old lines (index <code>0</code>) and new lines (index <code>1</code>) of each class
+     */
+    private int[][] classify() {
+        int totalLines = oldLines.lineCount + newLines.lineCount;
+        int tableSize = Integer.highestOneBit(Math.max(totalLines, 1) * 2 + 1);
+        int[] table = new int[tableSize];
+        int[] nextClass = new int[totalLines + 1];
+        int[] classHashes = new int[totalLines + 1];
+        Lines[] classFiles = new Lines[totalLines + 1];
+        int[] classLines = new int[totalLines + 1];
+        int[][] counts = new int[2][totalLines + 1];
+        int classCount = 0;
+        Lines[] files = {oldLines, newLines};
+        for (int file = 0; file < 2; file++) {
+            Lines lines = files[file];
+            for (int line = 0; line < lines.lineCount; line++) {
+                int hash = hash(lines, line);
+                int bucket = hash & (tableSize - 1);
+                int classNumber = table[bucket];
+                while (classNumber != 0 && (classHashes[classNumber] != hash
+                        || !equal(classFiles[classNumber], classLines[classNumber], lines, line))) {
+                    classNumber = nextClass[classNumber];
+                }
+                if (classNumber == 0) {
+                    classNumber = ++classCount;
+                    classHashes[classNumber] = hash;
+                    classFiles[classNumber] = lines;
+                    classLines[classNumber] = line;
+                    nextClass[classNumber] = table[bucket];
+                    table[bucket] = classNumber;
+                }
+                lines.classes[line] = classNumber;
+                counts[file][classNumber]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Computes the hash of the given line.
+     *
+     * @param lines the lines of a file
+     * @param line the index of the line
+     * @return the hash of the line including its line terminator
+     */
+    private static int hash(Lines lines, int line) {
+        int hash = 5381;
+        for (int i = lines.lineStarts[line]; i < lines.lineStarts[line + 1]; i++) {
+            hash = (hash + (hash << 5)) ^ lines.content[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Checks whether the given lines have the same content including their line terminators.
+     *
+     * @param lines1 the lines of the first file
+     * @param line1 the index of the line in the first file
+     * @param lines2 the lines of the second file
+     * @param line2 the index of the line in the second file
+     * @return <code>true</code>, if both lines are equal; <code>false</code> otherwise
+     */
+    private static boolean equal(Lines lines1, int line1, Lines lines2, int line2) {
+        int start1 = lines1.lineStarts[line1];
+        int start2 = lines2.lineStarts[line2];
+        int length = lines1.lineStarts[line1 + 1] - start1;
+        boolean equal = length == lines2.lineStarts[line2 + 1] - start2;
+        for (int i = 0; equal && i < length; i++) {
+            equal = lines1.content[start1 + i] == lines2.content[start2 + i];
+        }
+        return equal;
+    }
+
+    /**
+     * Computes the lines to compare using Myers' algorithm. Common lines at the start and the end of both files are
+     * excluded, lines without matches in the other file are marked as changed immediately, and lines with many matches
+     * are excluded, if they are surrounded by such lines.
+     *
+     * @param classCounts the number of old and new lines of each class
+     * @return the indexes of the lines to compare of the old file (index <code>0</code>) and of the new file (index
+     *         <code>1</code>)
+     */
+    private int[][] reduceLines(int[][] classCounts) {
+        int limit = Math.min(oldLines.lineCount, newLines.lineCount);
+        int start = 0;
+        while (start < limit && oldLines.classes[start] == newLines.classes[start]) {
+            start++;
+        }
+        int common = 0;
+        while (common < limit - start && oldLines.classes[oldLines.lineCount - 1 - common]
+                == newLines.classes[newLines.lineCount - 1 - common]) {
+            common++;
+        }
+        int[][] reducedLines = new int[2][];
+        reducedLines[0] = reduceLines(oldLines, start, oldLines.lineCount - common - 1, classCounts[1]);
+        reducedLines[1] = reduceLines(newLines, start, newLines.lineCount - common - 1, classCounts[0]);
+        return reducedLines;
+    }
+
+    /**
+     * Computes the lines of a single file to compare using Myers' algorithm.
+     *
+     * @param lines the lines of the file
+     * @param start the index of the first line, which is not common to both files
+     * @param end the index of the last line, which is not common to both files
+     * @param otherCounts the number of lines of each class in the other file
+     * @return the indexes of the lines to compare
+     */
+    private static int[] reduceLines(Lines lines, int start, int end, int[] otherCounts) {
+        int matchLimit = Math.min(squareRoot(lines.lineCount), MAX_EQUAL_LIMIT);
+        byte[] discards = new byte[lines.lineCount + 1];
+        for (int i = start; i <= end; i++) {
+            int matches = otherCounts[lines.classes[i]];
+            discards[i] = (byte) ((matches == 0) ? 0 : (matches >= matchLimit ? 2 : 1));
+        }
+        int[] indexes = new int[Math.max(end - start + 1, 0)];
+        int count = 0;
+        for (int i = start; i <= end; i++) {
+            if (discards[i] == 1 || (discards[i] == 2 && !isDiscardable(discards, i, start, end))) {
+                indexes[count++] = i;
+            } else {
+                lines.setChanged(i, true);
+            }
+        }
+        int[] reducedLines = new int[count];
+        System.arraycopy(indexes, 0, reducedLines, 0, count);
+        return reducedLines;
+    }
+
+    /**
+     * Checks whether the line at the given index, which has multiple matches, can be discarded, because it is
+     * surrounded by runs of lines without matches or with multiple matches, in which lines without matches
+     * dominate.
+     *
+     * @param discards the discard state of each line: <code>0</code> for no matches, <code>1</code> for some matches,
+     *        and <code>2</code> for multiple matches
+     * @param index the index of the line to check
+     * @param start the index of the first line to consider
+     * @param end the index of the last line to consider
+     * @return <code>true</code>, if the line can be discarded; <code>false</code> otherwise
+     */
+    private static boolean isDiscardable(byte[] discards, int index, int start, int end) {
+        int windowStart = (index - start > SIMILAR_SCAN_WINDOW) ? index - SIMILAR_SCAN_WINDOW : start;
+        int windowEnd = (end - index > SIMILAR_SCAN_WINDOW) ? index + SIMILAR_SCAN_WINDOW : end;
+        int unmatchedBefore = 0;
+        int multipleBefore = 1;
+        boolean run = true;
+        for (int r = 1; run && index - r >= windowStart; r++) {
+            if (discards[index - r] == 0) {
+                unmatchedBefore++;
+            } else if (discards[index - r] == 2) {
+                multipleBefore++;
+            } else {
+                run = false;
+            }
+        }
+        boolean discardable = false;
+        if (unmatchedBefore > 0) {
+            int unmatchedAfter = 0;
+            int multipleAfter = 1;
+            run = true;
+            for (int r = 1; run && index + r <= windowEnd; r++) {
+                if (discards[index + r] == 0) {
+                    unmatchedAfter++;
+                } else if (discards[index + r] == 2) {
+                    multipleAfter++;
+                } else {
+                    run = false;
+                }
+            }
+            if (unmatchedAfter > 0) {
+                int unmatched = unmatchedAfter + unmatchedBefore;
+                int multiple = multipleAfter + multipleBefore;
+                discardable = multiple * DISCARD_RUN_FACTOR < multiple + unmatched;
+            }
+        }
+        return discardable;
+    }
+
+    /**
+     * Approximates the square root of the given number as a power of two.
+     *
+     * @param number the number
+     * @return the power of two approximating the square root
+     */
+    private static int squareRoot(int number) {
+        int root = 1;
+        for (int n = number; n > 0; n >>= 2) {
+            root <<= 1;
+        }
+        return root;
+    }
+
+    /**
+     * Compares the given lines of both files using Myers' algorithm and marks all lines, which are not part of the
+     * resulting longest common subsequence, as changed. The recursive divide and conquer approach of Git is
+     * implemented using an explicit stack, which processes the parts in the same order.
+     *
+     * @param reducedLines the indexes of the lines to compare of the old file (index <code>0</code>) and of the new
+     *        file (index <code>1</code>)
+     */
+    private void compare(int[][] reducedLines) {
+        int[] lines1 = reducedLines[0];
+        int[] lines2 = reducedLines[1];
+        int[] classes1 = new int[lines1.length];
+        for (int i = 0; i < lines1.length; i++) {
+            classes1[i] = oldLines.classes[lines1[i]];
+        }
+        int[] classes2 = new int[lines2.length];
+        for (int i = 0; i < lines2.length; i++) {
+            classes2[i] = newLines.classes[lines2[i]];
+        }
+        int diagonals = lines1.length + lines2.length + 3;
+        Splitter splitter = new Splitter(classes1, classes2, Math.max(squareRoot(diagonals), MAX_COST_MIN));
+        Deque<int[]> parts = new ArrayDeque<int[]>();
+        parts.push(new int[] {0, lines1.length, 0, lines2.length, 0});
+        while (!parts.isEmpty()) {
+            int[] part = parts.pop();
+            int off1 = part[0];
+            int lim1 = part[1];
+            int off2 = part[2];
+            int lim2 = part[3];
+            while (off1 < lim1 && off2 < lim2 && classes1[off1] == classes2[off2]) {
+                off1++;
+                off2++;
+            }
+            while (off1 < lim1 && off2 < lim2 && classes1[lim1 - 1] == classes2[lim2 - 1]) {
+                lim1--;
+                lim2--;
+            }
+            if (off1 == lim1) {
+                for (int i = off2; i < lim2; i++) {
+                    newLines.setChanged(lines2[i], true);
+                }
+            } else if (off2 == lim2) {
+                for (int i = off1; i < lim1; i++) {
+                    oldLines.setChanged(lines1[i], true);
+                }
+            } else {
+                splitter.split(off1, lim1, off2, lim2, part[4] != 0);
+                // Push the upper part first to process the lower part first like the recursion of Git
+                parts.push(new int[] {splitter.split1, lim1, splitter.split2, lim2, splitter.minimalHigh ? 1 : 0});
+                parts.push(new int[] {off1, splitter.split1, off2, splitter.split2, splitter.minimalLow ? 1 : 0});
+            }
+        }
+    }
+
+    /**
+     * This class finds the middle snake of a part of the compared lines as Git's <code>xdl_split()</code> does,
+     * including its heuristics for limiting the cost of the search.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static final class Splitter {
+
+        /**
+         * The value representing an unreachable backward position.
+         */
+        private static final int LINE_MAX = Integer.MAX_VALUE;
+
+        /**
+         * The classes of the compared old lines.
+         */
+        private int[] classes1;
+
+        /**
+         * The classes of the compared new lines.
+         */
+        private int[] classes2;
+
+        /**
+         * The furthest forward positions per diagonal, shifted by {@link #diagonalOffset}.
+         */
+        private int[] forward;
+
+        /**
+         * The furthest backward positions per diagonal, shifted by {@link #diagonalOffset}.
+         */
+        private int[] backward;
+
+        /**
+         * The offset of diagonal <code>0</code> in {@link #forward} and {@link #backward}.
+         */
+        private int diagonalOffset;
+
+        /**
+         * The maximum edit cost before taking the furthest reaching path.
+         */
+        private int maxCost;
+
+        /**
+         * The old line index of the last split.
+         */
+        private int split1;
+
+        /**
+         * The new line index of the last split.
+         */
+        private int split2;
+
+        /**
+         * The definition of whether the part before the last split must be compared minimally.
+         */
+        private boolean minimalLow;
+
+        /**
+         * The definition of whether the part after the last split must be compared minimally.
+         */
+        private boolean minimalHigh;
+
+        /**
+         * Constructs a new {@link Splitter}.
+         *
+         * @param classes1 the classes of the compared old lines
+         * @param classes2 the classes of the compared new lines
+         * @param maxCost the maximum edit cost before taking the furthest reaching path
+         */
+        private Splitter(int[] classes1, int[] classes2, int maxCost) {
+            this.classes1 = classes1;
+            this.classes2 = classes2;
+            this.maxCost = maxCost;
+            int size = classes1.length + classes2.length + 3;
+            forward = new int[size];
+            backward = new int[size];
+            diagonalOffset = classes2.length + 1;
+        }
+
+        /**
+         * Splits the given part of the compared lines and stores the result in {@link #split1}, {@link #split2},
+         * {@link #minimalLow}, and {@link #minimalHigh}.
+         *
+         * @param off1 the index of the first old line of the part
+         * @param lim1 the index after the last old line of the part
+         * @param off2 the index of the first new line of the part
+         * @param lim2 the index after the last new line of the part
+         * @param needMinimal <code>true</code>, if the heuristics must not be applied; <code>false</code> otherwise
+         */
+        private void split(int off1, int lim1, int off2, int lim2, boolean needMinimal) {
+            int[] kvdf = forward;
+            int[] kvdb = backward;
+            int o = diagonalOffset;
+            int dmin = off1 - lim2;
+            int dmax = lim1 - off2;
+            int fmid = off1 - off2;
+            int bmid = lim1 - lim2;
+            boolean odd = ((fmid - bmid) & 1) != 0;
+            int fmin = fmid;
+            int fmax = fmid;
+            int bmin = bmid;
+            int bmax = bmid;
+            kvdf[o + fmid] = off1;
+            kvdb[o + bmid] = lim1;
+            boolean found = false;
+            for (int ec = 1; !found; ec++) {
+                boolean gotSnake = false;
+                if (fmin > dmin) {
+                    kvdf[o + --fmin - 1] = -1;
+                } else {
+                    ++fmin;
+                }
+                if (fmax < dmax) {
+                    kvdf[o + ++fmax + 1] = -1;
+                } else {
+                    --fmax;
+                }
+                for (int d = fmax; !found && d >= fmin; d -= 2) {
+                    int i1 = (kvdf[o + d - 1] >= kvdf[o + d + 1]) ? kvdf[o + d - 1] + 1 : kvdf[o + d + 1];
+                    int prev1 = i1;
+                    int i2 = i1 - d;
+                    while (i1 < lim1 && i2 < lim2 && classes1[i1] == classes2[i2]) {
+                        i1++;
+                        i2++;
+                    }
+                    if (i1 - prev1 > SNAKE_COUNT) {
+                        gotSnake = true;
+                    }
+                    kvdf[o + d] = i1;
+                    if (odd && bmin <= d && d <= bmax && kvdb[o + d] <= i1) {
+                        setSplit(i1, i2, true, true);
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    if (bmin > dmin) {
+                        kvdb[o + --bmin - 1] = LINE_MAX;
+                    } else {
+                        ++bmin;
+                    }
+                    if (bmax < dmax) {
+                        kvdb[o + ++bmax + 1] = LINE_MAX;
+                    } else {
+                        --bmax;
+                    }
+                }
+                for (int d = bmax; !found && d >= bmin; d -= 2) {
+                    int i1 = (kvdb[o + d - 1] < kvdb[o + d + 1]) ? kvdb[o + d - 1] : kvdb[o + d + 1] - 1;
+                    int prev1 = i1;
+                    int i2 = i1 - d;
+                    while (i1 > off1 && i2 > off2 && classes1[i1 - 1] == classes2[i2 - 1]) {
+                        i1--;
+                        i2--;
+                    }
+                    if (prev1 - i1 > SNAKE_COUNT) {
+                        gotSnake = true;
+                    }
+                    kvdb[o + d] = i1;
+                    if (!odd && fmin <= d && d <= fmax && i1 <= kvdf[o + d]) {
+                        setSplit(i1, i2, true, true);
+                        found = true;
+                    }
+                }
+                if (!found && !needMinimal) {
+                    if (gotSnake && ec > HEURISTIC_MIN_COST) {
+                        int best = 0;
+                        for (int d = fmax; d >= fmin; d -= 2) {
+                            int dd = (d > fmid) ? d - fmid : fmid - d;
+                            int i1 = kvdf[o + d];
+                            int i2 = i1 - d;
+                            int v = (i1 - off1) + (i2 - off2) - dd;
+                            if (v > HEURISTIC_FACTOR * ec && v > best && off1 + SNAKE_COUNT <= i1 && i1 < lim1
+                                    && off2 + SNAKE_COUNT <= i2 && i2 < lim2) {
+                                boolean snake = false;
+                                for (int k = 1; !snake && classes1[i1 - k] == classes2[i2 - k]; k++) {
+                                    if (k == SNAKE_COUNT) {
+                                        best = v;
+                                        setSplit(i1, i2, true, false);
+                                        snake = true;
+                                    }
+                                }
+                            }
+                        }
+                        found = best > 0;
+                        if (!found) {
+                            for (int d = bmax; d >= bmin; d -= 2) {
+                                int dd = (d > bmid) ? d - bmid : bmid - d;
+                                int i1 = kvdb[o + d];
+                                int i2 = i1 - d;
+                                int v = (lim1 - i1) + (lim2 - i2) - dd;
+                                if (v > HEURISTIC_FACTOR * ec && v > best && off1 < i1 && i1 <= lim1 - SNAKE_COUNT
+                                        && off2 < i2 && i2 <= lim2 - SNAKE_COUNT) {
+                                    boolean snake = false;
+                                    for (int k = 0; !snake && classes1[i1 + k] == classes2[i2 + k]; k++) {
+                                        if (k == SNAKE_COUNT - 1) {
+                                            best = v;
+                                            setSplit(i1, i2, false, true);
+                                            snake = true;
+                                        }
+                                    }
+                                }
+                            }
+                            found = best > 0;
+                        }
+                    }
+                    if (!found && ec >= maxCost) {
+                        splitFurthest(off1, lim1, off2, lim2, fmin, fmax, bmin, bmax);
+                        found = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Splits the given part at the furthest reaching forward or backward path, if the maximum edit cost is
+         * exceeded.
+         *
+         * @param off1 the index of the first old line of the part
+         * @param lim1 the index after the last old line of the part
+         * @param off2 the index of the first new line of the part
+         * @param lim2 the index after the last new line of the part
+         * @param fmin the lowest forward diagonal
+         * @param fmax the highest forward diagonal
+         * @param bmin the lowest backward diagonal
+         * @param bmax the highest backward diagonal
+         */
+        private void splitFurthest(int off1, int lim1, int off2, int lim2, int fmin, int fmax, int bmin,
+                int bmax) {
+            int o = diagonalOffset;
+            int fbest = -1;
+            int fbest1 = -1;
+            for (int d = fmax; d >= fmin; d -= 2) {
+                int i1 = Math.min(forward[o + d], lim1);
+                int i2 = i1 - d;
+                if (lim2 < i2) {
+                    i1 = lim2 + d;
+                    i2 = lim2;
+                }
+                if (fbest < i1 + i2) {
+                    fbest = i1 + i2;
+                    fbest1 = i1;
+                }
+            }
+            int bbest = LINE_MAX;
+            int bbest1 = LINE_MAX;
+            for (int d = bmax; d >= bmin; d -= 2) {
+                int i1 = Math.max(off1, backward[o + d]);
+                int i2 = i1 - d;
+                if (i2 < off2) {
+                    i1 = off2 + d;
+                    i2 = off2;
+                }
+                if (i1 + i2 < bbest) {
+                    bbest = i1 + i2;
+                    bbest1 = i1;
+                }
+            }
+            if ((lim1 + lim2) - bbest < fbest - (off1 + off2)) {
+                setSplit(fbest1, fbest - fbest1, true, false);
+            } else {
+                setSplit(bbest1, bbest - bbest1, false, true);
+            }
+        }
+
+        /**
+         * Stores the result of a split.
+         *
+         * @param i1 the old line index of the split
+         * @param i2 the new line index of the split
+         * @param low <code>true</code>, if the part before the split must be compared minimally
+         * @param high <code>true</code>, if the part after the split must be compared minimally
+         */
+        private void setSplit(int i1, int i2, boolean low, boolean high) {
+            split1 = i1;
+            split2 = i2;
+            minimalLow = low;
+            minimalHigh = high;
+        }
+
+    }
+
+    /**
+     * Shifts the groups of changed lines of the given file to the positions Git chooses: groups are merged with
+     * adjacent groups, if possible, aligned with groups of changed lines in the other file, or placed by the indent
+     * heuristic.
+     *
+     * @param lines the lines of the file, whose groups are shifted
+     * @param otherLines the lines of the other file
+     */
+    private static void compact(Lines lines, Lines otherLines) {
+        Group group = new Group(lines);
+        Group otherGroup = new Group(otherLines);
+        boolean more = true;
+        while (more) {
+            if (group.end != group.start) {
+                int groupSize;
+                int earliestEnd;
+                int endMatchingOther;
+                do {
+                    groupSize = group.end - group.start;
+                    endMatchingOther = -1;
+                    while (group.slideUp()) {
+                        otherGroup.previous();
+                    }
+                    earliestEnd = group.end;
+                    if (otherGroup.end > otherGroup.start) {
+                        endMatchingOther = group.end;
+                    }
+                    while (group.slideDown()) {
+                        otherGroup.next();
+                        if (otherGroup.end > otherGroup.start) {
+                            endMatchingOther = group.end;
+                        }
+                    }
+                } while (groupSize != group.end - group.start);
+                if (group.end != earliestEnd && endMatchingOther != -1) {
+                    // Align the group with the last group of changed lines in the other file it can be aligned with
+                    while (otherGroup.end == otherGroup.start) {
+                        group.slideUp();
+                        otherGroup.previous();
+                    }
+                } else if (group.end != earliestEnd) {
+                    int bestShift = getBestShift(lines, group.end, groupSize, earliestEnd);
+                    while (group.end > bestShift) {
+                        group.slideUp();
+                        otherGroup.previous();
+                    }
+                }
+            }
+            more = group.next();
+            if (more) {
+                otherGroup.next();
+            }
+        }
+    }
+
+    /**
+     * Determines the end of a group of changed lines, which results in the best split positions according to the
+     * indent heuristic.
+     *
+     * @param lines the lines of the file
+     * @param end the end of the group, which is shifted down as far as possible
+     * @param groupSize the number of lines of the group
+     * @param earliestEnd the end of the group, if it is shifted up as far as possible
+     * @return the end of the group with the lowest score
+     */
+    private static int getBestShift(Lines lines, int end, int groupSize, int earliestEnd) {
+        int shift = Math.max(earliestEnd, Math.max(end - groupSize - 1, end - MAX_SLIDING));
+        int bestShift = -1;
+        int bestIndent = 0;
+        int bestPenalty = 0;
+        for (; shift <= end; shift++) {
+            int[] score = new int[2];
+            scoreSplit(lines, shift, score);
+            scoreSplit(lines, shift - groupSize, score);
+            int indentComparison = Integer.compare(score[0], bestIndent);
+            if (bestShift == -1 || INDENT_WEIGHT * indentComparison + (score[1] - bestPenalty) <= 0) {
+                bestIndent = score[0];
+                bestPenalty = score[1];
+                bestShift = shift;
+            }
+        }
+        return bestShift;
+    }
+
+    /**
+     * Adds the score of splitting the given lines before the given line to the given score.
+     *
+     * @param lines the lines of the file
+     * @param split the index of the line following the split
+     * @param score the effective indentation (index <code>0</code>) and the penalty (index <code>1</code>) to add to
+     */
+    private static void scoreSplit(Lines lines, int split, int[] score) {
+        boolean endOfFile = split >= lines.lineCount;
+        int indent = endOfFile ? -1 : lines.getIndent(split);
+        int preBlank = 0;
+        int preIndent = -1;
+        boolean search = true;
+        for (int i = split - 1; search && i >= 0; i--) {
+            preIndent = lines.getIndent(i);
+            if (preIndent != -1) {
+                search = false;
+            } else {
+                preBlank++;
+                if (preBlank == MAX_BLANKS) {
+                    preIndent = 0;
+                    search = false;
+                }
+            }
+        }
+        int postBlank = 0;
+        int postIndent = -1;
+        search = true;
+        for (int i = split + 1; search && i < lines.lineCount; i++) {
+            postIndent = lines.getIndent(i);
+            if (postIndent != -1) {
+                search = false;
+            } else {
+                postBlank++;
+                if (postBlank == MAX_BLANKS) {
+                    postIndent = 0;
+                    search = false;
+                }
+            }
+        }
+        int penalty = 0;
+        if (preIndent == -1 && preBlank == 0) {
+            penalty += START_OF_FILE_PENALTY;
+        }
+        if (endOfFile) {
+            penalty += END_OF_FILE_PENALTY;
+        }
+        int effectivePostBlank = (indent == -1) ? 1 + postBlank : 0;
+        int totalBlank = preBlank + effectivePostBlank;
+        penalty += TOTAL_BLANK_WEIGHT * totalBlank;
+        penalty += POST_BLANK_WEIGHT * effectivePostBlank;
+        int effectiveIndent = (indent != -1) ? indent : postIndent;
+        boolean anyBlanks = totalBlank != 0;
+        if (effectiveIndent != -1 && preIndent != -1) {
+            if (effectiveIndent > preIndent) {
+                penalty += anyBlanks ? RELATIVE_INDENT_WITH_BLANK_PENALTY : RELATIVE_INDENT_PENALTY;
+            } else if (effectiveIndent < preIndent) {
+                if (postIndent != -1 && postIndent > effectiveIndent) {
+                    penalty += anyBlanks ? RELATIVE_OUTDENT_WITH_BLANK_PENALTY : RELATIVE_OUTDENT_PENALTY;
+                } else {
+                    penalty += anyBlanks ? RELATIVE_DEDENT_WITH_BLANK_PENALTY : RELATIVE_DEDENT_PENALTY;
+                }
+            }
+        }
+        score[0] += effectiveIndent;
+        score[1] += penalty;
+    }
+
+    /**
+     * This class represents a group of consecutive changed lines, which may be <i>empty</i>, while shifting groups.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static final class Group {
+
+        /**
+         * The lines of the file containing this group.
+         */
+        private Lines lines;
+
+        /**
+         * The index of the first line of this group.
+         */
+        private int start;
+
+        /**
+         * The index after the last line of this group.
+         */
+        private int end;
+
+        /**
+         * Constructs a new {@link Group} representing the first group of the given lines.
+         *
+         * @param lines the lines of the file
+         */
+        private Group(Lines lines) {
+            this.lines = lines;
+            start = 0;
+            end = 0;
+            while (lines.isChanged(end)) {
+                end++;
+            }
+        }
+
+        /**
+         * Moves to the next group.
+         *
+         * @return <code>true</code>, if there is a next group; <code>false</code>, if this is the last group
+         */
+        private boolean next() {
+            boolean moved = end != lines.lineCount;
+            if (moved) {
+                start = end + 1;
+                end = start;
+                while (lines.isChanged(end)) {
+                    end++;
+                }
+            }
+            return moved;
+        }
+
+        /**
+         * Moves to the previous group.
+         *
+         * @return <code>true</code>, if there is a previous group; <code>false</code>, if this is the first group
+         */
+        private boolean previous() {
+            boolean moved = start != 0;
+            if (moved) {
+                end = start - 1;
+                start = end;
+                while (lines.isChanged(start - 1)) {
+                    start--;
+                }
+            }
+            return moved;
+        }
+
+        /**
+         * Shifts this group down by one line, if the line after the group equals the first line of the group. The
+         * group is merged with the following group, if they become adjacent.
+         *
+         * @return <code>true</code>, if the group was shifted; <code>false</code> otherwise
+         */
+        private boolean slideDown() {
+            boolean slid = end < lines.lineCount && lines.classes[start] == lines.classes[end];
+            if (slid) {
+                lines.setChanged(start++, false);
+                lines.setChanged(end++, true);
+                while (lines.isChanged(end)) {
+                    end++;
+                }
+            }
+            return slid;
+        }
+
+        /**
+         * Shifts this group up by one line, if the line before the group equals the last line of the group. The group
+         * is merged with the preceding group, if they become adjacent.
+         *
+         * @return <code>true</code>, if the group was shifted; <code>false</code> otherwise
+         */
+        private boolean slideUp() {
+            boolean slid = start > 0 && lines.classes[start - 1] == lines.classes[end - 1];
+            if (slid) {
+                lines.setChanged(--start, true);
+                lines.setChanged(--end, false);
+                while (lines.isChanged(start - 1)) {
+                    start--;
+                }
+            }
+            return slid;
+        }
+
+    }
+
+    /**
+     * Collects the groups of changed lines of both files as {@link #changes}.
+     */
+    private void buildChanges() {
+        int[] reversedChanges = new int[16];
+        int count = 0;
+        int i1 = oldLines.lineCount;
+        int i2 = newLines.lineCount;
+        while (i1 >= 0 || i2 >= 0) {
+            if ((i1 >= 0 && oldLines.isChanged(i1 - 1)) || (i2 >= 0 && newLines.isChanged(i2 - 1))) {
+                int l1 = i1;
+                while (oldLines.isChanged(i1 - 1)) {
+                    i1--;
+                }
+                int l2 = i2;
+                while (newLines.isChanged(i2 - 1)) {
+                    i2--;
+                }
+                if (4 * count + 4 > reversedChanges.length) {
+                    int[] grownChanges = new int[reversedChanges.length * 2];
+                    System.arraycopy(reversedChanges, 0, grownChanges, 0, reversedChanges.length);
+                    reversedChanges = grownChanges;
+                }
+                reversedChanges[4 * count] = i1;
+                reversedChanges[4 * count + 1] = l1 - i1;
+                reversedChanges[4 * count + 2] = i2;
+                reversedChanges[4 * count + 3] = l2 - i2;
+                count++;
+            }
+            i1--;
+            i2--;
+        }
+        changes = new int[4 * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(reversedChanges, 4 * (count - 1 - i), changes, 4 * i, 4);
+        }
+        changeCount = count;
+    }
+
+    /**
+     * Returns the lines of the old version of the file.
+     *
+     * @return the old lines; never <code>null</code>
+     */
+    Lines getOldLines() {
+        return oldLines;
+    }
+
+    /**
+     * Returns the lines of the new version of the file.
+     *
+     * @return the new lines; never <code>null</code>
+     */
+    Lines getNewLines() {
+        return newLines;
+    }
+
+    /**
+     * Returns the number of changes, which are groups of consecutive changed lines in at least one of both files.
+     *
+     * @return the number of changes
+     */
+    int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns the index of the first old line of the given change.
+     *
+     * @param change the index of the change
+     * @return the index of the first old line; the position of inserted lines, if no old lines are changed
+     */
+    int getOldStart(int change) {
+        return changes[4 * change];
+    }
+
+    /**
+     * Returns the number of changed old lines of the given change.
+     *
+     * @param change the index of the change
+     * @return the number of changed old lines
+     */
+    int getOldCount(int change) {
+        return changes[4 * change + 1];
+    }
+
+    /**
+     * Returns the index of the first new line of the given change.
+     *
+     * @param change the index of the change
+     * @return the index of the first new line; the position of deleted lines, if no new lines are changed
+     */
+    int getNewStart(int change) {
+        return changes[4 * change + 2];
+    }
+
+    /**
+     * Returns the number of changed new lines of the given change.
+     *
+     * @param change the index of the change
+     * @return the number of changed new lines
+     */
+    int getNewCount(int change) {
+        return changes[4 * change + 3];
+    }
+
+}
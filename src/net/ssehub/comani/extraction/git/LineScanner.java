@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * This class splits character data into lines in a single pass. Lines are only separated at line feeds; all other
+ * characters, like carriage returns, remain part of the lines. The resulting lines are the same as the ones of
+ * <code>String.split("\n", -1)</code>, but neither an intermediate array of all lines nor regular expressions are
+ * required. Each line is created as a single string directly from the scanned characters.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class LineScanner {
+
+    /**
+     * The size of the {@link #buffer} in characters.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The {@link Reader} providing the characters to be split into lines.
+     */
+    private Reader reader;
+
+    /**
+     * The buffer holding the characters read from the {@link #reader}, which are not yet returned as part of a line.
+     */
+    private char[] buffer;
+
+    /**
+     * The index of the next character in the {@link #buffer}, which is not yet returned as part of a line.
+     */
+    private int bufferPosition;
+
+    /**
+     * The number of valid characters in the {@link #buffer}.
+     */
+    private int bufferLimit;
+
+    /**
+     * The definition of whether the end of the {@link #reader} was reached and the last line was returned.
+     */
+    private boolean endReached;
+
+    /**
+     * Constructs a new {@link LineScanner} for the characters provided by the given {@link Reader}.
+     *
+     * @param reader the {@link Reader} providing the characters to be split into lines; should never be
+     *        <code>null</code>
+     */
+    LineScanner(Reader reader) {
+        this.reader = reader;
+        buffer = new char[BUFFER_SIZE];
+        bufferPosition = 0;
+        bufferLimit = 0;
+        endReached = false;
+    }
+
+    /**
+     * Splits the given content into lines and passes each line in the order of their occurrence to the given
+     * {@link Consumer}.
+     *
+     * @param content the content to be split into lines; should never be <code>null</code>
+     * @param lineConsumer the {@link Consumer} receiving each line without its line terminator
+     */
+    static void forEachLine(String content, Consumer<String> lineConsumer) {
+        int lineStartIndex = 0;
+        int lineEndIndex = content.indexOf('\n');
+        while (lineEndIndex != -1) {
+            lineConsumer.accept(content.substring(lineStartIndex, lineEndIndex));
+            lineStartIndex = lineEndIndex + 1;
+            lineEndIndex = content.indexOf('\n', lineStartIndex);
+        }
+        // The last line ends at the end of the content; this line is empty, if the content ends with a line feed
+        lineConsumer.accept(content.substring(lineStartIndex));
+    }
+
+    /**
+     * Splits the characters provided by the given {@link Reader} into lines and passes each line in the order of their
+     * occurrence to the given {@link Consumer}.
+     *
+     * @param reader the {@link Reader} providing the characters to be split into lines; should never be
+     *        <code>null</code>
+     * @param lineConsumer the {@link Consumer} receiving each line without its line terminator
+     * @throws IOException if reading from the {@link Reader} fails
+     */
+    static void forEachLine(Reader reader, Consumer<String> lineConsumer) throws IOException {
+        LineScanner lineScanner = new LineScanner(reader);
+        String line = lineScanner.nextLine();
+        while (line != null) {
+            lineConsumer.accept(line);
+            line = lineScanner.nextLine();
+        }
+    }
+
+    /**
+     * Returns the next line of the characters provided by the {@link Reader} of this scanner. If the characters end
+     * with a line feed, the last line returned before <code>null</code> is an empty line.
+     *
+     * @return the next line without its line terminator or <code>null</code>, if all lines were returned
+     * @throws IOException if reading from the {@link Reader} fails
+     */
+    String nextLine() throws IOException {
+        String line = null;
+        StringBuilder lineBuilder = null;
+        while (line == null && !endReached) {
+            int lineEndIndex = indexOfLineFeed();
+            if (lineEndIndex != -1) {
+                line = createLine(lineBuilder, lineEndIndex);
+                bufferPosition = lineEndIndex + 1;
+            } else {
+                // The line continues beyond the buffered characters, which requires collecting its parts
+                lineBuilder = appendBufferedCharacters(lineBuilder);
+                bufferPosition = 0;
+                bufferLimit = reader.read(buffer);
+                if (bufferLimit == -1) {
+                    bufferLimit = 0;
+                    endReached = true;
+                    line = (lineBuilder == null) ? "" : lineBuilder.toString();
+                }
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Returns the index of the first line feed in the {@link #buffer} starting at the {@link #bufferPosition}.
+     *
+     * @return the index of the first line feed or <code>-1</code>, if the buffered characters do not contain a line
+     *         feed
+     */
+    private int indexOfLineFeed() {
+        int lineFeedIndex = -1;
+        int bufferIndex = bufferPosition;
+        while (lineFeedIndex == -1 && bufferIndex < bufferLimit) {
+            if (buffer[bufferIndex] == '\n') {
+                lineFeedIndex = bufferIndex;
+            }
+            bufferIndex++;
+        }
+        return lineFeedIndex;
+    }
+
+    /**
+     * Appends the remaining characters of the {@link #buffer} starting at the {@link #bufferPosition} to the given
+     * {@link StringBuilder}.
+     *
+     * @param lineBuilder the {@link StringBuilder} containing the beginning of the current line or <code>null</code>,
+     *        if the current line starts at the {@link #bufferPosition}
+     * @return the {@link StringBuilder} containing the current line or <code>null</code>, if the given builder is
+     *         <code>null</code> and there are no remaining characters in the buffer
+     */
+    private StringBuilder appendBufferedCharacters(StringBuilder lineBuilder) {
+        StringBuilder extendedLineBuilder = lineBuilder;
+        int remainingCharacters = bufferLimit - bufferPosition;
+        if (remainingCharacters > 0) {
+            if (extendedLineBuilder == null) {
+                extendedLineBuilder = new StringBuilder(2 * remainingCharacters);
+            }
+            extendedLineBuilder.append(buffer, bufferPosition, remainingCharacters);
+        }
+        return extendedLineBuilder;
+    }
+
+    /**
+     * Creates the line ending at the given index of the {@link #buffer}.
+     *
+     * @param lineBuilder the {@link StringBuilder} containing the beginning of the line, if it started before the
+     *        currently buffered characters; may be <code>null</code>, if the line starts at the {@link #bufferPosition}
+     * @param lineEndIndex the index of the line feed terminating the line in the {@link #buffer}
+     * @return the line without its line terminator; never <code>null</code>
+     */
+    private String createLine(StringBuilder lineBuilder, int lineEndIndex) {
+        String line;
+        if (lineBuilder == null) {
+            line = new String(buffer, bufferPosition, lineEndIndex - bufferPosition);
+        } else {
+            lineBuilder.append(buffer, bufferPosition, lineEndIndex - bufferPosition);
+            line = lineBuilder.toString();
+        }
+        return line;
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class maps author names and e-mail addresses as defined by a "<tt>.mailmap</tt>" file. Like Git, entries are
+ * looked up by e-mail address and, optionally, by name, both ignoring the case of ASCII letters. Entries defining only
+ * the e-mail address to map (simple entries) apply to all names, unless a more specific entry for the name exists.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class MailMap {
+
+    /**
+     * This class represents the replacement name and e-mail address of a single entry.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static final class Replacement {
+
+        /**
+         * The replacement name or <code>null</code>, if the name is not replaced.
+         */
+        private byte[] name;
+
+        /**
+         * The replacement e-mail address or <code>null</code>, if the e-mail address is not replaced.
+         */
+        private byte[] email;
+
+        /**
+         * The entries for specific names using the e-mail address, for which this replacement is defined, with their
+         * lower case names as keys.
+         */
+        private Map<String, Replacement> nameReplacements;
+
+    }
+
+    /**
+     * The replacements with the lower case e-mail addresses to replace as keys.
+     */
+    private Map<String, Replacement> replacements;
+
+    /**
+     * Constructs a new {@link MailMap} from the given content of a "<tt>.mailmap</tt>" file.
+     *
+     * @param content the content of the file; may be <i>empty</i>
+     * @param stripCarriageReturns <code>true</code>, if carriage returns at the end of the lines shall be removed,
+     *        which Git only does for files read from the working tree; <code>false</code> otherwise
+     */
+    MailMap(byte[] content, boolean stripCarriageReturns) {
+        replacements = new HashMap<String, Replacement>();
+        int lineStart = 0;
+        while (lineStart < content.length) {
+            int lineEnd = CommitObject.indexOf(content, (byte) '\n', lineStart);
+            int contentEnd = lineEnd;
+            if (stripCarriageReturns && contentEnd > lineStart && content[contentEnd - 1] == '\r') {
+                contentEnd--;
+            }
+            parseLine(content, lineStart, contentEnd);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Parses a single line of a "<tt>.mailmap</tt>" file, which has the form
+     * "<tt>[new name] &lt;new e-mail&gt; [[old name] &lt;old e-mail&gt;]</tt>".
+     *
+     * @param content the content of the file
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     */
+    private void parseLine(byte[] content, int start, int end) {
+        if (start < end && content[start] != '#') {
+            int[] first = parseNameAndEmail(content, start, end, false);
+            if (first != null) {
+                byte[] newName = (first[0] == -1) ? null : copy(content, first[0], first[1]);
+                byte[] newEmail = copy(content, first[2], first[3]);
+                byte[] oldName = null;
+                byte[] oldEmail = null;
+                if (first[4] < end) {
+                    int[] second = parseNameAndEmail(content, first[4], end, true);
+                    if (second != null) {
+                        oldName = (second[0] == -1) ? null : copy(content, second[0], second[1]);
+                        oldEmail = copy(content, second[2], second[3]);
+                    }
+                }
+                addReplacement(newName, newEmail, oldName, oldEmail);
+            }
+        }
+    }
+
+    /**
+     * Parses a name followed by an e-mail address in angle brackets.
+     *
+     * @param content the content of the file
+     * @param start the index of the first byte to parse
+     * @param end the index after the last byte of the line
+     * @param allowEmptyEmail <code>true</code>, if the e-mail address may be <i>empty</i>; <code>false</code> otherwise
+     * @return the start and end of the name (<code>-1</code> if there is no name), the start and end of the e-mail
+     *         address, and the index after the closing angle bracket or <code>null</code>, if there is no e-mail
+     *         address
+     */
+    private static int[] parseNameAndEmail(byte[] content, int start, int end, boolean allowEmptyEmail) {
+        int[] result = null;
+        int left = indexOf(content, (byte) '<', start, end);
+        int right = (left < end) ? indexOf(content, (byte) '>', left + 1, end) : end;
+        if (right < end && (allowEmptyEmail || left + 1 != right)) {
+            int nameStart = start;
+            while (nameStart < left && isSpace(content[nameStart])) {
+                nameStart++;
+            }
+            int nameEnd = left - 1;
+            while (nameEnd > nameStart && isSpace(content[nameEnd])) {
+                nameEnd--;
+            }
+            boolean hasName = nameStart <= nameEnd;
+            result = new int[] {hasName ? nameStart : -1, nameEnd + 1, left + 1, right, right + 1};
+        }
+        return result;
+    }
+
+    /**
+     * Adds a replacement in the same way as Git does: a line with a single e-mail address replaces the name of that
+     * e-mail address, while a line with two e-mail addresses replaces the name and e-mail address of the second
+     * one, optionally restricted to the second name.
+     *
+     * @param newName the replacement name or <code>null</code>
+     * @param newEmail the replacement e-mail address
+     * @param oldName the name to replace or <code>null</code>
+     * @param oldEmail the e-mail address to replace or <code>null</code>, if the line contains a single e-mail
+     *        address only, which is the e-mail address to replace the name of in this case
+     */
+    private void addReplacement(byte[] newName, byte[] newEmail, byte[] oldName, byte[] oldEmail) {
+        byte[] replacementEmail = newEmail;
+        byte[] replacedEmail = oldEmail;
+        if (replacedEmail == null) {
+            replacedEmail = newEmail;
+            replacementEmail = null;
+        }
+        String key = toLowerCase(replacedEmail, 0, replacedEmail.length);
+        Replacement replacement = replacements.get(key);
+        if (replacement == null) {
+            replacement = new Replacement();
+            replacement.nameReplacements = new HashMap<String, Replacement>();
+            replacements.put(key, replacement);
+        }
+        if (oldName == null) {
+            if (newName != null) {
+                replacement.name = newName;
+            }
+            if (replacementEmail != null) {
+                replacement.email = replacementEmail;
+            }
+        } else {
+            Replacement nameReplacement = new Replacement();
+            nameReplacement.name = newName;
+            nameReplacement.email = replacementEmail;
+            replacement.nameReplacements.put(toLowerCase(oldName, 0, oldName.length), nameReplacement);
+        }
+    }
+
+    /**
+     * Maps the given identity.
+     *
+     * @param identity the name (index <code>0</code>) and the e-mail address (index <code>1</code>) to map; the
+     *        entries of this array are replaced by the mapped name and e-mail address, if an entry applies
+     */
+    void map(byte[][] identity) {
+        Replacement replacement = replacements.get(toLowerCase(identity[1], 0, identity[1].length));
+        if (replacement != null && !replacement.nameReplacements.isEmpty()) {
+            Replacement nameReplacement = replacement.nameReplacements.get(toLowerCase(identity[0], 0,
+                    identity[0].length));
+            if (nameReplacement != null) {
+                replacement = nameReplacement;
+            }
+        }
+        if (replacement != null) {
+            if (replacement.email != null) {
+                identity[1] = replacement.email;
+            }
+            if (replacement.name != null) {
+                identity[0] = replacement.name;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given byte in the given range.
+     *
+     * @param content the array to search in
+     * @param value the byte to search for
+     * @param start the index to start the search at
+     * @param end the index to end the search at
+     * @return the index of the byte or the given end, if the byte does not occur
+     */
+    private static int indexOf(byte[] content, byte value, int start, int end) {
+        int index = start;
+        while (index < end && content[index] != value) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether the given byte is a whitespace character as defined by Git.
+     *
+     * @param character the byte to check
+     * @return <code>true</code>, if the byte is a space, a tab, a line feed, or a carriage return;
+     *         <code>false</code> otherwise
+     */
+    static boolean isSpace(byte character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\r';
+    }
+
+    /**
+     * Returns a copy of the given range.
+     *
+     * @param content the array to copy from
+     * @param start the index of the first byte to copy
+     * @param end the index after the last byte to copy
+     * @return the copied bytes; never <code>null</code>
+     */
+    private static byte[] copy(byte[] content, int start, int end) {
+        byte[] copy = new byte[end - start];
+        System.arraycopy(content, start, copy, 0, copy.length);
+        return copy;
+    }
+
+    /**
+     * Returns the given range as a string with ASCII letters converted to lower case, which serves as a case-
+     * insensitive key.
+     *
+     * @param content the array containing the string
+     * @param start the index of the first byte of the string
+     * @param end the index after the last byte of the string
+     * @return the key; never <code>null</code>
+     */
+    private static String toLowerCase(byte[] content, int start, int end) {
+        byte[] lowerCase = copy(content, start, end);
+        for (int i = 0; i < lowerCase.length; i++) {
+            if (lowerCase[i] >= 'A' && lowerCase[i] <= 'Z') {
+                lowerCase[i] += 'a' - 'A';
+            }
+        }
+        return new String(lowerCase, StandardCharsets.ISO_8859_1);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class limits the number of bytes held in memory by all {@link CommitBuffer}s in use at the same time. Each
+ * buffer reserves the bytes it requires before holding them in memory and releases them afterwards. If a reservation
+ * is rejected, the buffer writes its data to a temporary file instead.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class MemoryBudget {
+
+    /**
+     * The maximum number of bytes, which can be reserved at the same time.
+     */
+    private long limit;
+
+    /**
+     * The number of bytes currently reserved.
+     */
+    private AtomicLong reservedBytes;
+
+    /**
+     * Constructs a new {@link MemoryBudget}.
+     *
+     * @param limit the maximum number of bytes, which can be reserved at the same time; use {@link Long#MAX_VALUE}
+     *        for an unlimited budget
+     */
+    MemoryBudget(long limit) {
+        this.limit = limit;
+        reservedBytes = new AtomicLong();
+    }
+
+    /**
+     * Reserves the given number of bytes, if this does not exceed the limit of this budget.
+     *
+     * @param bytes the number of bytes to reserve
+     * @return <code>true</code>, if the bytes are reserved; <code>false</code> otherwise
+     */
+    boolean tryReserve(long bytes) {
+        boolean reserved = false;
+        long currentlyReservedBytes = reservedBytes.get();
+        while (!reserved && currentlyReservedBytes <= limit - bytes) {
+            reserved = reservedBytes.compareAndSet(currentlyReservedBytes, currentlyReservedBytes + bytes);
+            currentlyReservedBytes = reservedBytes.get();
+        }
+        return reserved;
+    }
+
+    /**
+     * Releases the given number of bytes previously reserved via {@link #tryReserve(long)}.
+     *
+     * @param bytes the number of bytes to release
+     */
+    void release(long bytes) {
+        reservedBytes.addAndGet(-bytes);
+    }
+
+}
@@ -0,0 +1,490 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class reads objects from the object database of a Git repository without executing any Git process. Objects
+ * are either read from loose object files or from the memory-mapped {@link PackFile}s of the repository and of its
+ * alternate object databases. An instance of this class may be used by multiple threads concurrently.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ObjectDatabase {
+
+    /**
+     * The minimum length of abbreviated object names, which Git also uses for small repositories.
+     */
+    private static final int MIN_ABBREVIATION_LENGTH = 7;
+
+    /**
+     * The maximum depth of nested alternate object databases, which Git also applies.
+     */
+    private static final int MAX_ALTERNATES_DEPTH = 5;
+
+    /**
+     * The object directories of the repository and its alternates in the order, in which they are searched.
+     */
+    private List<File> objectDirectories;
+
+    /**
+     * The {@link PackFile}s of all {@link #objectDirectories} with the most recently modified pack files first. This
+     * list is replaced entirely, if new pack files are detected.
+     */
+    private volatile List<PackFile> packFiles;
+
+    /**
+     * The names of the loose objects of each object directory and fan-out directory, which are read on first use
+     * for abbreviating object names. The key is the object directory followed by the two digits of the fan-out
+     * directory. Access to this map must be synchronized on the map itself.
+     */
+    private Map<String, String[]> looseObjectNames;
+
+    /**
+     * The default length of abbreviated object names, which depends on the number of objects in the repository, or
+     * <code>-1</code>, if it was not determined yet.
+     */
+    private volatile int abbreviationLength;
+
+    /**
+     * Constructs a new {@link ObjectDatabase} for the given object directory.
+     *
+     * @param objectDirectory the "<tt>objects</tt>" directory of a Git repository
+     * @throws IOException if the given directory does not exist or if opening one of its pack files fails
+     */
+    ObjectDatabase(File objectDirectory) throws IOException {
+        if (!objectDirectory.isDirectory()) {
+            throw new IOException("Object directory " + objectDirectory + " does not exist");
+        }
+        objectDirectories = new ArrayList<File>();
+        addObjectDirectory(objectDirectory.getCanonicalFile(), 0);
+        looseObjectNames = new HashMap<String, String[]>();
+        abbreviationLength = -1;
+        packFiles = openPackFiles(Collections.<PackFile>emptyList());
+    }
+
+    /**
+     * Adds the given object directory and, recursively, its alternate object directories listed in its
+     * "<tt>info/alternates</tt>" file to the {@link #objectDirectories}.
+     *
+     * @param objectDirectory the object directory to be added
+     * @param depth the number of alternates files read to reach the given directory
+     * @throws IOException if reading the alternates file fails
+     */
+    private void addObjectDirectory(File objectDirectory, int depth) throws IOException {
+        if (objectDirectory.isDirectory() && !objectDirectories.contains(objectDirectory)) {
+            objectDirectories.add(objectDirectory);
+            File alternatesFile = new File(objectDirectory, "info" + File.separator + "alternates");
+            if (alternatesFile.isFile() && depth < MAX_ALTERNATES_DEPTH) {
+                for (String alternate : Files.readAllLines(alternatesFile.toPath(), StandardCharsets.UTF_8)) {
+                    String alternatePath = alternate.trim();
+                    if (!alternatePath.isEmpty() && !alternatePath.startsWith("#")) {
+                        File alternateDirectory = new File(alternatePath);
+                        if (!alternateDirectory.isAbsolute()) {
+                            alternateDirectory = new File(objectDirectory, alternatePath);
+                        }
+                        addObjectDirectory(alternateDirectory.getCanonicalFile(), depth + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens all pack files of the {@link #objectDirectories}, which have an index file. Pack files already opened by
+     * the given {@link PackFile}s are reused.
+     *
+     * @param openedPackFiles the {@link PackFile}s opened so far
+     * @return the {@link PackFile}s of all object directories with the most recently modified pack files first
+     * @throws IOException if opening a pack file fails
+     */
+    private List<PackFile> openPackFiles(List<PackFile> openedPackFiles) throws IOException {
+        Map<File, PackFile> reusablePackFiles = new HashMap<File, PackFile>();
+        for (PackFile openedPackFile : openedPackFiles) {
+            reusablePackFiles.put(openedPackFile.getFile(), openedPackFile);
+        }
+        List<File> packFileLocations = new ArrayList<File>();
+        for (File objectDirectory : objectDirectories) {
+            File[] packDirectoryFiles = new File(objectDirectory, "pack").listFiles();
+            if (packDirectoryFiles != null) {
+                for (File packDirectoryFile : packDirectoryFiles) {
+                    String packFileName = packDirectoryFile.getName();
+                    if (packFileName.endsWith(".pack") && new File(packDirectoryFile.getParentFile(),
+                            packFileName.substring(0, packFileName.length() - 5) + ".idx").isFile()) {
+                        packFileLocations.add(packDirectoryFile);
+                    }
+                }
+            }
+        }
+        Collections.sort(packFileLocations, (packFile1, packFile2) -> Long.compare(packFile2.lastModified(),
+                packFile1.lastModified()));
+        List<PackFile> packs = new ArrayList<PackFile>();
+        for (File packFileLocation : packFileLocations) {
+            PackFile pack = reusablePackFiles.get(packFileLocation);
+            if (pack == null) {
+                String packFileName = packFileLocation.getName();
+                File indexFile = new File(packFileLocation.getParentFile(),
+                        packFileName.substring(0, packFileName.length() - 5) + ".idx");
+                pack = new PackFile(packFileLocation, indexFile, this);
+            }
+            packs.add(pack);
+        }
+        return Collections.unmodifiableList(packs);
+    }
+
+    /**
+     * Reads the object with the given name.
+     *
+     * @param objectId the name of the object to be read
+     * @return the object; never <code>null</code>
+     * @throws IOException if the object does not exist or reading it fails
+     */
+    GitObject read(ObjectId objectId) throws IOException {
+        GitObject gitObject = find(objectId);
+        if (gitObject == null && rescanPackFiles()) {
+            // The object may have been packed, e.g., by a concurrent garbage collection
+            gitObject = find(objectId);
+        }
+        if (gitObject == null) {
+            throw new IOException("Object " + objectId + " not found");
+        }
+        return gitObject;
+    }
+
+    /**
+     * Reads the object with the given name and checks its type.
+     *
+     * @param objectId the name of the object to be read
+     * @param expectedType the expected type of the object, like {@link GitObject#TYPE_COMMIT}
+     * @return the content of the object; never <code>null</code>
+     * @throws IOException if the object does not exist, reading it fails, or it has an unexpected type
+     */
+    byte[] read(ObjectId objectId, int expectedType) throws IOException {
+        GitObject gitObject = read(objectId);
+        if (gitObject.getType() != expectedType) {
+            throw new IOException("Object " + objectId + " is a " + GitObject.getTypeName(gitObject.getType())
+                    + ", not a " + GitObject.getTypeName(expectedType));
+        }
+        return gitObject.getData();
+    }
+
+    /**
+     * Checks whether the object with the given name exists. Like {@link #read(ObjectId)}, this considers pack files
+     * added since the last scan, if the object is not found otherwise.
+     *
+     * @param objectId the name of the object
+     * @return <code>true</code>, if the object exists; <code>false</code> otherwise
+     * @throws IOException if opening a new pack file fails
+     */
+    boolean contains(ObjectId objectId) throws IOException {
+        boolean found = isStored(objectId);
+        if (!found && rescanPackFiles()) {
+            found = isStored(objectId);
+        }
+        return found;
+    }
+
+    /**
+     * Checks whether the object with the given name is stored in one of the {@link #packFiles} or as loose object.
+     *
+     * @param objectId the name of the object
+     * @return <code>true</code>, if the object is stored; <code>false</code> otherwise
+     */
+    private boolean isStored(ObjectId objectId) {
+        boolean found = false;
+        for (PackFile pack : packFiles) {
+            found = found || pack.contains(objectId);
+        }
+        for (int i = 0; !found && i < objectDirectories.size(); i++) {
+            found = getLooseObjectFile(objectDirectories.get(i), objectId).isFile();
+        }
+        return found;
+    }
+
+    /**
+     * Searches the object with the given name in all {@link #packFiles} and loose objects.
+     *
+     * @param objectId the name of the object to be read
+     * @return the object or <code>null</code>, if it does not exist
+     * @throws IOException if reading the object fails
+     */
+    private GitObject find(ObjectId objectId) throws IOException {
+        GitObject gitObject = null;
+        List<PackFile> packs = packFiles;
+        for (int i = 0; gitObject == null && i < packs.size(); i++) {
+            gitObject = packs.get(i).read(objectId);
+        }
+        for (int i = 0; gitObject == null && i < objectDirectories.size(); i++) {
+            File looseObjectFile = getLooseObjectFile(objectDirectories.get(i), objectId);
+            if (looseObjectFile.isFile()) {
+                gitObject = readLooseObject(looseObjectFile);
+            }
+        }
+        return gitObject;
+    }
+
+    /**
+     * Opens pack files added since the last scan of the {@link #objectDirectories}.
+     *
+     * @return <code>true</code>, if new pack files were opened; <code>false</code> otherwise
+     * @throws IOException if opening a new pack file fails
+     */
+    private synchronized boolean rescanPackFiles() throws IOException {
+        List<PackFile> openedPackFiles = packFiles;
+        List<PackFile> rescannedPackFiles = openPackFiles(openedPackFiles);
+        boolean newPackFiles = false;
+        for (PackFile rescannedPackFile : rescannedPackFiles) {
+            newPackFiles = newPackFiles || !openedPackFiles.contains(rescannedPackFile);
+        }
+        packFiles = rescannedPackFiles;
+        return newPackFiles;
+    }
+
+    /**
+     * Returns the file of the loose object with the given name in the given object directory.
+     *
+     * @param objectDirectory the object directory
+     * @param objectId the name of the object
+     * @return the file of the loose object, which may not exist; never <code>null</code>
+     */
+    private static File getLooseObjectFile(File objectDirectory, ObjectId objectId) {
+        String hexName = objectId.toHex();
+        return new File(objectDirectory, hexName.substring(0, 2) + File.separator + hexName.substring(2));
+    }
+
+    /**
+     * Reads the given loose object file, which consists of the zlib-compressed header "<tt>&lt;type&gt;
+     * &lt;size&gt;</tt>" followed by a null byte and the content of the object.
+     *
+     * @param looseObjectFile the loose object file
+     * @return the object; never <code>null</code>
+     * @throws IOException if reading or inflating the file fails or if it does not have the expected format
+     */
+    private static GitObject readLooseObject(File looseObjectFile) throws IOException {
+        try (InputStream objectStream = new InflaterInputStream(new FileInputStream(looseObjectFile))) {
+            ByteArrayOutputStream headerBuilder = new ByteArrayOutputStream(32);
+            int headerByte = objectStream.read();
+            while (headerByte > 0 && headerBuilder.size() < 64) {
+                headerBuilder.write(headerByte);
+                headerByte = objectStream.read();
+            }
+            String header = new String(headerBuilder.toByteArray(), StandardCharsets.US_ASCII);
+            int separatorIndex = header.indexOf(' ');
+            int type = (separatorIndex == -1) ? -1 : GitObject.getType(header.substring(0, separatorIndex));
+            long size = -1;
+            if (type != -1 && headerByte == 0) {
+                try {
+                    size = Long.parseLong(header.substring(separatorIndex + 1));
+                } catch (NumberFormatException e) {
+                    size = -1;
+                }
+            }
+            if (size < 0 || size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Invalid loose object " + looseObjectFile);
+            }
+            byte[] data = new byte[(int) size];
+            int dataPosition = 0;
+            int readBytes = 0;
+            while (readBytes != -1 && dataPosition < data.length) {
+                readBytes = objectStream.read(data, dataPosition, data.length - dataPosition);
+                if (readBytes > 0) {
+                    dataPosition += readBytes;
+                }
+            }
+            if (dataPosition != data.length) {
+                throw new IOException("Loose object " + looseObjectFile + " is incomplete");
+            }
+            return new GitObject(type, data);
+        }
+    }
+
+    /**
+     * Returns the names of all objects starting with the given hexadecimal prefix. This method stops searching as soon
+     * as the given number of objects is found.
+     *
+     * @param hexPrefix the prefix of the object names consisting of hexadecimal digits only
+     * @param limit the maximum number of object names to return
+     * @return the names of the objects starting with the given prefix; never <code>null</code> but may be
+     *         <i>empty</i>
+     */
+    List<ObjectId> findByPrefix(String hexPrefix, int limit) {
+        String prefix = hexPrefix.toLowerCase();
+        Set<ObjectId> objectIds = new LinkedHashSet<ObjectId>();
+        if (ObjectId.isHex(prefix) && prefix.length() <= ObjectId.HEX_LENGTH) {
+            StringBuilder lowestNameBuilder = new StringBuilder(prefix);
+            while (lowestNameBuilder.length() < ObjectId.HEX_LENGTH) {
+                lowestNameBuilder.append('0');
+            }
+            ObjectId lowestObjectId = ObjectId.fromHex(lowestNameBuilder.toString());
+            for (PackFile pack : packFiles) {
+                int position = pack.findPosition(lowestObjectId);
+                if (position < 0) {
+                    position = -position - 1;
+                }
+                boolean matching = true;
+                while (matching && position < pack.getObjectCount() && objectIds.size() < limit) {
+                    ObjectId candidate = pack.getObjectId(position++);
+                    matching = candidate.toHex().startsWith(prefix);
+                    if (matching) {
+                        objectIds.add(candidate);
+                    }
+                }
+            }
+            for (int i = 0; i < objectDirectories.size() && objectIds.size() < limit; i++) {
+                for (String looseObjectName : getLooseObjectNames(objectDirectories.get(i), prefix.length() >= 2
+                        ? prefix.substring(0, 2) : null)) {
+                    if (looseObjectName.startsWith(prefix) && objectIds.size() < limit) {
+                        objectIds.add(ObjectId.fromHex(looseObjectName));
+                    }
+                }
+            }
+        }
+        return new ArrayList<ObjectId>(objectIds);
+    }
+
+    /**
+     * Returns the full names of the loose objects in the given fan-out directory of the given object directory.
+     *
+     * @param objectDirectory the object directory
+     * @param fanout the two hexadecimal digits of the fan-out directory or <code>null</code> for all fan-out
+     *        directories
+     * @return the full hexadecimal names of the loose objects; never <code>null</code>
+     */
+    private String[] getLooseObjectNames(File objectDirectory, String fanout) {
+        String[] objectNames;
+        if (fanout == null) {
+            List<String> allObjectNames = new ArrayList<String>();
+            for (int i = 0; i < 256; i++) {
+                allObjectNames.addAll(Arrays.asList(getLooseObjectNames(objectDirectory,
+                        String.format("%02x", i))));
+            }
+            objectNames = allObjectNames.toArray(new String[0]);
+        } else {
+            String key = objectDirectory.getPath() + File.separator + fanout;
+            synchronized (looseObjectNames) {
+                objectNames = looseObjectNames.get(key);
+                if (objectNames == null) {
+                    List<String> fanoutObjectNames = new ArrayList<String>();
+                    String[] fileNames = new File(objectDirectory, fanout).list();
+                    if (fileNames != null) {
+                        for (String fileName : fileNames) {
+                            if (fileName.length() == ObjectId.HEX_LENGTH - 2 && ObjectId.isHex(fileName)) {
+                                fanoutObjectNames.add(fanout + fileName.toLowerCase());
+                            }
+                        }
+                    }
+                    objectNames = fanoutObjectNames.toArray(new String[0]);
+                    looseObjectNames.put(key, objectNames);
+                }
+            }
+        }
+        return objectNames;
+    }
+
+    /**
+     * Returns the shortest unique abbreviation of the given object name, which is at least as long as the default
+     * abbreviation length of this repository. This reproduces the abbreviations of Git: the default length grows
+     * with the number of packed objects and only the neighbors of the object in each pack index as well as the loose
+     * objects sharing the default prefix are considered for extending that length.
+     *
+     * @param objectId the name of the object to be abbreviated
+     * @return the abbreviated hexadecimal object name; never <code>null</code>
+     */
+    String abbreviate(ObjectId objectId) {
+        String hexName = objectId.toHex();
+        int length = getAbbreviationLength();
+        for (PackFile pack : packFiles) {
+            if (pack.getObjectCount() > 0) {
+                int position = pack.findPosition(objectId);
+                int insertionPosition = (position < 0) ? -position - 1 : position;
+                if (position < 0 && insertionPosition < pack.getObjectCount()) {
+                    length = extendAbbreviation(objectId, pack.getObjectId(insertionPosition), 0, length);
+                } else if (position >= 0 && position < pack.getObjectCount() - 1) {
+                    length = extendAbbreviation(objectId, pack.getObjectId(position + 1), 0, length);
+                }
+                if (insertionPosition > 0) {
+                    length = extendAbbreviation(objectId, pack.getObjectId(insertionPosition - 1), 0, length);
+                }
+            }
+        }
+        int packedLength = length;
+        String prefix = hexName.substring(0, packedLength);
+        for (File objectDirectory : objectDirectories) {
+            for (String looseObjectName : getLooseObjectNames(objectDirectory, hexName.substring(0, 2))) {
+                if (looseObjectName.startsWith(prefix)) {
+                    length = extendAbbreviation(objectId, ObjectId.fromHex(looseObjectName), packedLength, length);
+                }
+            }
+        }
+        return hexName.substring(0, Math.min(length, ObjectId.HEX_LENGTH));
+    }
+
+    /**
+     * Extends the given abbreviation length, if the given other object name shares a longer prefix with the given
+     * object name.
+     *
+     * @param objectId the name of the object to be abbreviated
+     * @param otherObjectId the name of another object
+     * @param startIndex the index of the first hexadecimal digit to compare
+     * @param length the current abbreviation length
+     * @return the abbreviation length distinguishing both objects or the given length, if it is longer
+     */
+    private static int extendAbbreviation(ObjectId objectId, ObjectId otherObjectId, int startIndex, int length) {
+        int index = startIndex;
+        while (index < ObjectId.HEX_LENGTH && objectId.getHexValue(index) == otherObjectId.getHexValue(index)) {
+            index++;
+        }
+        // Like Git, ignore common prefixes longer than the maximum number of bytes of an object name
+        return (index < 32 && index >= length) ? index + 1 : length;
+    }
+
+    /**
+     * Returns the default length of abbreviated object names. Like Git, this length is derived from the number of
+     * packed objects: a repository with about 2<sup>2n</sup> objects uses <code>n</code> digits, but at least
+     * {@link #MIN_ABBREVIATION_LENGTH}.
+     *
+     * @return the default length of abbreviated object names
+     */
+    private int getAbbreviationLength() {
+        if (abbreviationLength == -1) {
+            long objectCount = 0;
+            for (PackFile pack : packFiles) {
+                objectCount += pack.getObjectCount();
+            }
+            int mostSignificantBit = 0;
+            while ((objectCount >>= 1) != 0) {
+                mostSignificantBit++;
+            }
+            abbreviationLength = Math.max((mostSignificantBit + 2) / 2, MIN_ABBREVIATION_LENGTH);
+        }
+        return abbreviationLength;
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the name (SHA-1) of a Git object, like a commit, a tree, or a blob, as read by the
+ * {@link ObjectDatabase}. Object names are compared in the same way as Git sorts them in pack index files.
+ *
+ * @author Christian Kroeher
+ *
+ */
+final class ObjectId implements Comparable<ObjectId> {
+
+    /**
+     * The number of bytes of an object name.
+     */
+    static final int RAW_LENGTH = 20;
+
+    /**
+     * The number of hexadecimal digits of an object name.
+     */
+    static final int HEX_LENGTH = 2 * RAW_LENGTH;
+
+    /**
+     * The object name consisting of zeros only, which Git uses for absent objects, e.g., in the index line of the diff
+     * of an added file.
+     */
+    static final ObjectId ZERO = new ObjectId(new byte[RAW_LENGTH]);
+
+    /**
+     * The hexadecimal digits in the order of their values.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The bytes of this object name.
+     */
+    private byte[] bytes;
+
+    /**
+     * The hash code of this object name, which are its first four bytes.
+     */
+    private int hashCode;
+
+    /**
+     * Constructs a new {@link ObjectId}.
+     *
+     * @param bytes the {@link #RAW_LENGTH} bytes of the object name; the array is not copied and must not be changed
+     *        afterwards
+     */
+    private ObjectId(byte[] bytes) {
+        this.bytes = bytes;
+        hashCode = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8)
+                | (bytes[3] & 0xFF);
+    }
+
+    /**
+     * Creates a new {@link ObjectId} from the {@link #RAW_LENGTH} bytes starting at the given offset of the given
+     * array.
+     *
+     * @param buffer the array containing the object name
+     * @param offset the index of the first byte of the object name in the given array
+     * @return the object name; never <code>null</code>
+     */
+    static ObjectId fromRaw(byte[] buffer, int offset) {
+        return new ObjectId(Arrays.copyOfRange(buffer, offset, offset + RAW_LENGTH));
+    }
+
+    /**
+     * Creates a new {@link ObjectId} from the {@link #HEX_LENGTH} hexadecimal digits starting at the given offset of
+     * the given array.
+     *
+     * @param buffer the array containing the hexadecimal object name as ASCII characters
+     * @param offset the index of the first digit in the given array
+     * @return the object name or <code>null</code>, if the array does not contain {@link #HEX_LENGTH} hexadecimal
+     *         digits at the given offset
+     */
+    static ObjectId fromHex(byte[] buffer, int offset) {
+        ObjectId objectId = null;
+        if (offset >= 0 && offset + HEX_LENGTH <= buffer.length) {
+            byte[] objectBytes = new byte[RAW_LENGTH];
+            boolean valid = true;
+            for (int i = 0; valid && i < RAW_LENGTH; i++) {
+                int highValue = Character.digit(buffer[offset + 2 * i], 16);
+                int lowValue = Character.digit(buffer[offset + 2 * i + 1], 16);
+                valid = highValue != -1 && lowValue != -1;
+                objectBytes[i] = (byte) ((highValue << 4) | lowValue);
+            }
+            if (valid) {
+                objectId = new ObjectId(objectBytes);
+            }
+        }
+        return objectId;
+    }
+
+    /**
+     * Creates a new {@link ObjectId} from the given hexadecimal object name.
+     *
+     * @param hexName the object name consisting of {@link #HEX_LENGTH} hexadecimal digits; may be <code>null</code>
+     * @return the object name or <code>null</code>, if the given string is not a full hexadecimal object name
+     */
+    static ObjectId fromHex(String hexName) {
+        ObjectId objectId = null;
+        if (hexName != null && hexName.length() == HEX_LENGTH) {
+            byte[] hexBytes = new byte[HEX_LENGTH];
+            for (int i = 0; i < HEX_LENGTH; i++) {
+                char hexCharacter = hexName.charAt(i);
+                hexBytes[i] = (hexCharacter < 0x80) ? (byte) hexCharacter : (byte) 'x';
+            }
+            objectId = fromHex(hexBytes, 0);
+        }
+        return objectId;
+    }
+
+    /**
+     * Checks whether the given string only consists of hexadecimal digits.
+     *
+     * @param string the string to be checked; may be <code>null</code>
+     * @return <code>true</code>, if the given string is not <code>null</code>, not <i>empty</i>, and only consists of
+     *         hexadecimal digits; <code>false</code> otherwise
+     */
+    static boolean isHex(String string) {
+        boolean hex = string != null && !string.isEmpty();
+        for (int i = 0; hex && i < string.length(); i++) {
+            hex = Character.digit(string.charAt(i), 16) != -1 && string.charAt(i) < 0x80;
+        }
+        return hex;
+    }
+
+    /**
+     * Returns the value of the hexadecimal digit at the given index of this object name.
+     *
+     * @param index the index of the hexadecimal digit; must be less than {@link #HEX_LENGTH}
+     * @return the value of the hexadecimal digit between <code>0</code> and <code>15</code>
+     */
+    int getHexValue(int index) {
+        int digitByte = bytes[index >> 1] & 0xFF;
+        return ((index & 1) == 0) ? digitByte >> 4 : digitByte & 0x0F;
+    }
+
+    /**
+     * Returns the first byte of this object name, which selects the fan-out entry of pack index files and the
+     * directory of loose objects.
+     *
+     * @return the first byte of this object name between <code>0</code> and <code>255</code>
+     */
+    int getFirstByte() {
+        return bytes[0] & 0xFF;
+    }
+
+    /**
+     * Compares this object name with the {@link #RAW_LENGTH} bytes starting at the given offset of the given array.
+     *
+     * @param buffer the array containing the other object name
+     * @param offset the index of the first byte of the other object name in the given array
+     * @return a negative number, zero, or a positive number, if this object name is less than, equal to, or greater
+     *         than the other object name
+     */
+    int compareTo(byte[] buffer, int offset) {
+        int comparison = 0;
+        for (int i = 0; comparison == 0 && i < RAW_LENGTH; i++) {
+            comparison = (bytes[i] & 0xFF) - (buffer[offset + i] & 0xFF);
+        }
+        return comparison;
+    }
+
+    /**
+     * Checks whether this object name is the {@link #ZERO} name.
+     *
+     * @return <code>true</code>, if this object name only consists of zeros; <code>false</code> otherwise
+     */
+    boolean isZero() {
+        return equals(ZERO);
+    }
+
+    /**
+     * Returns the hexadecimal representation of this object name.
+     *
+     * @return the {@link #HEX_LENGTH} hexadecimal digits of this object name; never <code>null</code>
+     */
+    String toHex() {
+        char[] hexCharacters = new char[HEX_LENGTH];
+        for (int i = 0; i < RAW_LENGTH; i++) {
+            hexCharacters[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            hexCharacters[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(hexCharacters);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(ObjectId otherObjectId) {
+        return compareTo(otherObjectId.bytes, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof ObjectId && Arrays.equals(bytes, ((ObjectId) object).bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+}
@@ -0,0 +1,614 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This class reads objects from a Git pack file and its index file. Both files are memory-mapped once and only read
+ * via absolute positions afterwards. Hence, multiple threads may read objects from the same pack concurrently without
+ * any synchronization except for the shared cache of recently resolved delta bases.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class PackFile {
+
+    /**
+     * The maximum number of bytes of a pack file mapped by a single {@link MappedByteBuffer}. Larger pack files are
+     * mapped by multiple consecutive buffers.
+     */
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * The first four bytes of version 2 (and later) pack index files.
+     */
+    private static final int INDEX_SIGNATURE = 0xFF744F63;
+
+    /**
+     * The first four bytes of pack files, which are "<tt>PACK</tt>".
+     */
+    private static final int PACK_SIGNATURE = 0x5041434B;
+
+    /**
+     * The number of entries of the fan-out table of pack index files.
+     */
+    private static final int FANOUT_ENTRIES = 256;
+
+    /**
+     * The type of objects stored as a delta to a base object, which is identified by its offset in the same pack.
+     */
+    private static final int TYPE_OFS_DELTA = 6;
+
+    /**
+     * The type of objects stored as a delta to a base object, which is identified by its object name.
+     */
+    private static final int TYPE_REF_DELTA = 7;
+
+    /**
+     * The maximum number of bytes of all delta bases held by the {@link #deltaBaseCache}.
+     */
+    private static final long DELTA_BASE_CACHE_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * The number of compressed bytes passed to an {@link Inflater} at once.
+     */
+    private static final int INFLATER_INPUT_SIZE = 16 * 1024;
+
+    /**
+     * The {@link Inflater} of each thread reading objects, which avoids allocating native memory for each object.
+     */
+    private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+    };
+
+    /**
+     * The pack file.
+     */
+    private File packFile;
+
+    /**
+     * The {@link MappedByteBuffer}s mapping the {@link #packFile}; each buffer maps {@link #SEGMENT_SIZE} bytes except
+     * for the last one.
+     */
+    private MappedByteBuffer[] packSegments;
+
+    /**
+     * The size of the {@link #packFile} in bytes.
+     */
+    private long packSize;
+
+    /**
+     * The {@link MappedByteBuffer} mapping the index file of the {@link #packFile}.
+     */
+    private MappedByteBuffer index;
+
+    /**
+     * The version of the index file, which is either <code>1</code> or <code>2</code>.
+     */
+    private int indexVersion;
+
+    /**
+     * The number of objects in the {@link #packFile}.
+     */
+    private int objectCount;
+
+    /**
+     * The position of the fan-out table in the {@link #index}.
+     */
+    private int fanoutPosition;
+
+    /**
+     * The {@link ObjectDatabase} resolving delta bases, which are not contained in this pack.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * The cache of recently resolved delta bases of this pack, which maps the offsets of the bases in the
+     * {@link #packFile} to their content. Access to this cache must be synchronized on the cache itself.
+     */
+    private Map<Long, GitObject> deltaBaseCache;
+
+    /**
+     * The number of bytes of all delta bases in the {@link #deltaBaseCache}.
+     */
+    private long deltaBaseCacheBytes;
+
+    /**
+     * Constructs a new {@link PackFile} by mapping the given pack file and its index file into memory.
+     *
+     * @param packFile the pack file ending with "<tt>.pack</tt>"
+     * @param indexFile the index file of the given pack file ending with "<tt>.idx</tt>"
+     * @param objectDatabase the {@link ObjectDatabase} resolving delta bases, which are not contained in this pack
+     * @throws IOException if mapping one of the files fails or if they do not have the expected format
+     */
+    PackFile(File packFile, File indexFile, ObjectDatabase objectDatabase) throws IOException {
+        this.packFile = packFile;
+        this.objectDatabase = objectDatabase;
+        index = map(indexFile, 0, indexFile.length());
+        if (index.getInt(0) == INDEX_SIGNATURE) {
+            indexVersion = index.getInt(4);
+            fanoutPosition = 8;
+        } else {
+            indexVersion = 1;
+            fanoutPosition = 0;
+        }
+        if (indexVersion != 1 && indexVersion != 2) {
+            throw new IOException("Unsupported version " + indexVersion + " of pack index " + indexFile);
+        }
+        objectCount = index.getInt(fanoutPosition + 4 * (FANOUT_ENTRIES - 1));
+        packSize = packFile.length();
+        int segmentCount = (int) ((packSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        packSegments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentStart = (long) i * SEGMENT_SIZE;
+            packSegments[i] = map(packFile, segmentStart, Math.min(SEGMENT_SIZE, packSize - segmentStart));
+        }
+        if (packSize < 12 || readInt(0) != PACK_SIGNATURE) {
+            throw new IOException("Invalid pack file " + packFile);
+        }
+        if (readInt(8) != objectCount) {
+            throw new IOException("Pack file " + packFile + " does not match its index");
+        }
+        deltaBaseCache = new LinkedHashMap<Long, GitObject>(16, 0.75f, true);
+        deltaBaseCacheBytes = 0;
+    }
+
+    /**
+     * Maps the given range of the given file into memory.
+     *
+     * @param file the file to be mapped
+     * @param position the position of the first byte to be mapped
+     * @param size the number of bytes to be mapped
+     * @return the {@link MappedByteBuffer} providing the bytes of the file
+     * @throws IOException if mapping the file fails
+     */
+    private static MappedByteBuffer map(File file, long position, long size) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return fileChannel.map(MapMode.READ_ONLY, position, size);
+        }
+    }
+
+    /**
+     * Returns the pack file read by this instance.
+     *
+     * @return the pack file; never <code>null</code>
+     */
+    File getFile() {
+        return packFile;
+    }
+
+    /**
+     * Returns the number of objects in this pack.
+     *
+     * @return the number of objects in this pack
+     */
+    int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Returns the name of the object at the given position of the sorted list of object names in the index file.
+     *
+     * @param position the position of the object name between <code>0</code> and {@link #getObjectCount()}
+     *        (exclusive)
+     * @return the name of the object at the given position; never <code>null</code>
+     */
+    ObjectId getObjectId(int position) {
+        byte[] objectBytes = new byte[ObjectId.RAW_LENGTH];
+        ByteBuffer indexView = index.duplicate();
+        indexView.position(getObjectIdPosition(position));
+        indexView.get(objectBytes);
+        return ObjectId.fromRaw(objectBytes, 0);
+    }
+
+    /**
+     * Returns the position of the object name at the given position of the sorted list of object names in the
+     * {@link #index}.
+     *
+     * @param position the position of the object name in the sorted list of object names
+     * @return the position of the first byte of the object name in the {@link #index}
+     */
+    private int getObjectIdPosition(int position) {
+        int objectIdPosition;
+        if (indexVersion == 1) {
+            objectIdPosition = fanoutPosition + 4 * FANOUT_ENTRIES + position * (4 + ObjectId.RAW_LENGTH) + 4;
+        } else {
+            objectIdPosition = fanoutPosition + 4 * FANOUT_ENTRIES + position * ObjectId.RAW_LENGTH;
+        }
+        return objectIdPosition;
+    }
+
+    /**
+     * Searches the given object name in the sorted list of object names in the index file.
+     *
+     * @param objectId the name of the object to search for
+     * @return the position of the object name, if it is contained in this pack; otherwise,
+     *         <code>(-(insertion position) - 1)</code> like {@link java.util.Arrays#binarySearch(Object[], Object)}
+     */
+    int findPosition(ObjectId objectId) {
+        int firstByte = objectId.getFirstByte();
+        int low = (firstByte == 0) ? 0 : index.getInt(fanoutPosition + 4 * (firstByte - 1));
+        int high = index.getInt(fanoutPosition + 4 * firstByte) - 1;
+        byte[] candidateBytes = new byte[ObjectId.RAW_LENGTH];
+        ByteBuffer indexView = index.duplicate();
+        int position = -1;
+        while (position < 0 && low <= high) {
+            int middle = (low + high) >>> 1;
+            indexView.position(getObjectIdPosition(middle));
+            indexView.get(candidateBytes);
+            int comparison = objectId.compareTo(candidateBytes, 0);
+            if (comparison < 0) {
+                high = middle - 1;
+            } else if (comparison > 0) {
+                low = middle + 1;
+            } else {
+                position = middle;
+            }
+        }
+        return (position < 0) ? -(low + 1) : position;
+    }
+
+    /**
+     * Returns the offset of the object at the given position of the sorted list of object names in the pack file.
+     *
+     * @param position the position of the object name between <code>0</code> and {@link #getObjectCount()}
+     *        (exclusive)
+     * @return the offset of the object in the pack file
+     */
+    private long getOffset(int position) {
+        long offset;
+        if (indexVersion == 1) {
+            offset = index.getInt(fanoutPosition + 4 * FANOUT_ENTRIES + position * (4 + ObjectId.RAW_LENGTH))
+                    & 0xFFFFFFFFL;
+        } else {
+            int offsetsPosition = fanoutPosition + 4 * FANOUT_ENTRIES + objectCount * (ObjectId.RAW_LENGTH + 4);
+            int smallOffset = index.getInt(offsetsPosition + 4 * position);
+            if (smallOffset < 0) {
+                // The most significant bit marks an index into the table of 8-byte offsets following the 4-byte ones
+                offset = index.getLong(offsetsPosition + 4 * objectCount + 8 * (smallOffset & 0x7FFFFFFF));
+            } else {
+                offset = smallOffset;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Checks whether this pack contains the object with the given name.
+     *
+     * @param objectId the name of the object
+     * @return <code>true</code>, if this pack contains the object; <code>false</code> otherwise
+     */
+    boolean contains(ObjectId objectId) {
+        return findPosition(objectId) >= 0;
+    }
+
+    /**
+     * Reads the object with the given name from this pack. If the object is stored as a delta, the delta is applied
+     * to its base object.
+     *
+     * @param objectId the name of the object to be read
+     * @return the object or <code>null</code>, if this pack does not contain the object
+     * @throws IOException if reading the object fails, e.g., due to a corrupt pack file
+     */
+    GitObject read(ObjectId objectId) throws IOException {
+        GitObject gitObject = null;
+        int position = findPosition(objectId);
+        if (position >= 0) {
+            gitObject = readAt(getOffset(position));
+        }
+        return gitObject;
+    }
+
+    /**
+     * Reads the object at the given offset of the pack file. Delta chains are resolved iteratively: all deltas down to
+     * the first base object, which is either stored entirely or available in the {@link #deltaBaseCache}, are
+     * collected first and applied in reverse order afterwards.
+     *
+     * @param offset the offset of the object in the pack file
+     * @return the object; never <code>null</code>
+     * @throws IOException if reading the object fails, e.g., due to a corrupt pack file
+     */
+    private GitObject readAt(long offset) throws IOException {
+        List<Long> deltaOffsets = new ArrayList<Long>();
+        List<byte[]> deltas = new ArrayList<byte[]>();
+        GitObject baseObject = null;
+        long currentOffset = offset;
+        boolean baseInPack = true;
+        while (baseObject == null) {
+            baseObject = getCachedDeltaBase(currentOffset);
+            if (baseObject == null) {
+                long headerPosition = currentOffset;
+                int headerByte = readByte(headerPosition++);
+                int type = (headerByte >> 4) & 0x07;
+                long size = headerByte & 0x0F;
+                int shift = 4;
+                while ((headerByte & 0x80) != 0) {
+                    headerByte = readByte(headerPosition++);
+                    size |= (long) (headerByte & 0x7F) << shift;
+                    shift += 7;
+                }
+                if (type == TYPE_OFS_DELTA) {
+                    headerByte = readByte(headerPosition++);
+                    long baseDistance = headerByte & 0x7F;
+                    while ((headerByte & 0x80) != 0) {
+                        headerByte = readByte(headerPosition++);
+                        baseDistance = ((baseDistance + 1) << 7) | (headerByte & 0x7F);
+                    }
+                    deltaOffsets.add(currentOffset);
+                    deltas.add(inflate(headerPosition, size));
+                    currentOffset -= baseDistance;
+                } else if (type == TYPE_REF_DELTA) {
+                    byte[] baseBytes = new byte[ObjectId.RAW_LENGTH];
+                    read(headerPosition, baseBytes, 0, baseBytes.length);
+                    ObjectId baseId = ObjectId.fromRaw(baseBytes, 0);
+                    deltaOffsets.add(currentOffset);
+                    deltas.add(inflate(headerPosition + ObjectId.RAW_LENGTH, size));
+                    int basePosition = findPosition(baseId);
+                    if (basePosition >= 0) {
+                        currentOffset = getOffset(basePosition);
+                    } else {
+                        baseObject = objectDatabase.read(baseId);
+                        baseInPack = false;
+                    }
+                } else if (type >= GitObject.TYPE_COMMIT && type <= GitObject.TYPE_TAG) {
+                    baseObject = new GitObject(type, inflate(headerPosition, size));
+                } else {
+                    throw new IOException("Invalid object type " + type + " at offset " + currentOffset + " of "
+                            + packFile);
+                }
+                if (currentOffset <= 0 || deltas.size() > objectCount) {
+                    throw new IOException("Invalid delta chain at offset " + offset + " of " + packFile);
+                }
+            }
+        }
+        GitObject gitObject = baseObject;
+        for (int i = deltas.size() - 1; i >= 0; i--) {
+            if (i < deltas.size() - 1) {
+                // Intermediate results are the bases of further objects, which are likely to be read again
+                cacheDeltaBase(deltaOffsets.get(i + 1), gitObject);
+            }
+            gitObject = new GitObject(gitObject.getType(), applyDelta(gitObject.getData(), deltas.get(i)));
+        }
+        if (!deltas.isEmpty() && baseInPack) {
+            cacheDeltaBase(currentOffset, baseObject);
+        }
+        return gitObject;
+    }
+
+    /**
+     * Returns the delta base at the given offset from the {@link #deltaBaseCache}.
+     *
+     * @param offset the offset of the delta base in the pack file
+     * @return the delta base or <code>null</code>, if it is not cached
+     */
+    private GitObject getCachedDeltaBase(long offset) {
+        synchronized (deltaBaseCache) {
+            return deltaBaseCache.get(offset);
+        }
+    }
+
+    /**
+     * Adds the given delta base to the {@link #deltaBaseCache}. If the cache exceeds its size limit afterwards, the
+     * least recently used delta bases are removed.
+     *
+     * @param offset the offset of the delta base in the pack file
+     * @param deltaBase the content of the delta base
+     */
+    private void cacheDeltaBase(long offset, GitObject deltaBase) {
+        if (deltaBase.getData().length <= DELTA_BASE_CACHE_BYTES / 4) {
+            synchronized (deltaBaseCache) {
+                GitObject replacedDeltaBase = deltaBaseCache.put(offset, deltaBase);
+                if (replacedDeltaBase != null) {
+                    deltaBaseCacheBytes -= replacedDeltaBase.getData().length;
+                }
+                deltaBaseCacheBytes += deltaBase.getData().length;
+                Iterator<GitObject> cachedDeltaBases = deltaBaseCache.values().iterator();
+                while (deltaBaseCacheBytes > DELTA_BASE_CACHE_BYTES && cachedDeltaBases.hasNext()) {
+                    deltaBaseCacheBytes -= cachedDeltaBases.next().getData().length;
+                    cachedDeltaBases.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the given delta to the given base object.
+     *
+     * @param base the content of the base object
+     * @param delta the inflated delta consisting of the sizes of the base and the result followed by copy and insert
+     *        instructions
+     * @return the content of the object described by the delta
+     * @throws IOException if the delta is invalid
+     */
+    private byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        int deltaPosition = 0;
+        long baseSize = 0;
+        int shift = 0;
+        int deltaByte;
+        do {
+            deltaByte = delta[deltaPosition++] & 0xFF;
+            baseSize |= (long) (deltaByte & 0x7F) << shift;
+            shift += 7;
+        } while ((deltaByte & 0x80) != 0);
+        long resultSize = 0;
+        shift = 0;
+        do {
+            deltaByte = delta[deltaPosition++] & 0xFF;
+            resultSize |= (long) (deltaByte & 0x7F) << shift;
+            shift += 7;
+        } while ((deltaByte & 0x80) != 0);
+        if (baseSize != base.length || resultSize > Integer.MAX_VALUE - 8) {
+            throw new IOException("Invalid delta in " + packFile);
+        }
+        byte[] result = new byte[(int) resultSize];
+        int resultPosition = 0;
+        try {
+            while (deltaPosition < delta.length) {
+                int instruction = delta[deltaPosition++] & 0xFF;
+                if ((instruction & 0x80) != 0) {
+                    // Copy from base: the lower bits define which bytes of the offset and the size follow
+                    long copyOffset = 0;
+                    int copySize = 0;
+                    for (int i = 0; i < 4; i++) {
+                        if ((instruction & (1 << i)) != 0) {
+                            copyOffset |= (long) (delta[deltaPosition++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    for (int i = 0; i < 3; i++) {
+                        if ((instruction & (0x10 << i)) != 0) {
+                            copySize |= (delta[deltaPosition++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    if (copySize == 0) {
+                        copySize = 0x10000;
+                    }
+                    System.arraycopy(base, (int) copyOffset, result, resultPosition, copySize);
+                    resultPosition += copySize;
+                } else if (instruction != 0) {
+                    // Insert the given number of bytes following the instruction
+                    System.arraycopy(delta, deltaPosition, result, resultPosition, instruction);
+                    deltaPosition += instruction;
+                    resultPosition += instruction;
+                } else {
+                    throw new IOException("Invalid delta instruction in " + packFile);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid delta in " + packFile, e);
+        }
+        if (resultPosition != result.length) {
+            throw new IOException("Invalid delta in " + packFile);
+        }
+        return result;
+    }
+
+    /**
+     * Inflates the zlib stream starting at the given position of the pack file.
+     *
+     * @param position the position of the first byte of the zlib stream in the pack file
+     * @param size the number of bytes of the inflated data
+     * @return the inflated data
+     * @throws IOException if the stream cannot be inflated or does not have the given size
+     */
+    private byte[] inflate(long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Object at offset " + position + " of " + packFile + " is too large");
+        }
+        byte[] data = new byte[(int) size];
+        byte[] input = new byte[(int) Math.min(INFLATER_INPUT_SIZE, Math.max(size, 64))];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        long inputPosition = position;
+        int dataPosition = 0;
+        boolean streamEnded = false;
+        try {
+            while (!streamEnded && dataPosition < data.length) {
+                if (inflater.needsInput()) {
+                    int inputLength = (int) Math.min(input.length, packSize - inputPosition);
+                    if (inputLength <= 0) {
+                        throw new IOException("Unexpected end of " + packFile);
+                    }
+                    read(inputPosition, input, 0, inputLength);
+                    inputPosition += inputLength;
+                    inflater.setInput(input, 0, inputLength);
+                }
+                int inflatedBytes = inflater.inflate(data, dataPosition, data.length - dataPosition);
+                dataPosition += inflatedBytes;
+                if (inflatedBytes == 0 && inflater.needsDictionary()) {
+                    throw new IOException("Invalid compressed data at offset " + position + " of " + packFile);
+                }
+                streamEnded = inflater.finished();
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data at offset " + position + " of " + packFile, e);
+        }
+        if (dataPosition != data.length) {
+            throw new IOException("Object at offset " + position + " of " + packFile + " is incomplete");
+        }
+        return data;
+    }
+
+    /**
+     * Returns the byte at the given position of the pack file.
+     *
+     * @param position the position of the byte in the pack file
+     * @return the byte at the given position as an unsigned value
+     * @throws IOException if the position is outside of the pack file
+     */
+    private int readByte(long position) throws IOException {
+        if (position < 0 || position >= packSize) {
+            throw new IOException("Unexpected end of " + packFile);
+        }
+        return packSegments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE)) & 0xFF;
+    }
+
+    /**
+     * Returns the big-endian integer at the given position of the pack file.
+     *
+     * @param position the position of the first byte of the integer in the pack file
+     * @return the integer at the given position
+     * @throws IOException if the position is outside of the pack file
+     */
+    private int readInt(long position) throws IOException {
+        return (readByte(position) << 24) | (readByte(position + 1) << 16) | (readByte(position + 2) << 8)
+                | readByte(position + 3);
+    }
+
+    /**
+     * Copies the given number of bytes starting at the given position of the pack file to the given array. This
+     * method only uses independent views of the mapped segments, which enables concurrent reads.
+     *
+     * @param position the position of the first byte in the pack file
+     * @param destination the array receiving the bytes
+     * @param destinationOffset the index of the first byte in the given array
+     * @param length the number of bytes to copy
+     * @throws IOException if the range is outside of the pack file
+     */
+    private void read(long position, byte[] destination, int destinationOffset, int length) throws IOException {
+        if (position < 0 || position + length > packSize) {
+            throw new IOException("Unexpected end of " + packFile);
+        }
+        long currentPosition = position;
+        int copiedBytes = 0;
+        while (copiedBytes < length) {
+            int segmentPosition = (int) (currentPosition % SEGMENT_SIZE);
+            ByteBuffer segmentView = packSegments[(int) (currentPosition / SEGMENT_SIZE)].duplicate();
+            int segmentBytes = Math.min(length - copiedBytes, segmentView.capacity() - segmentPosition);
+            segmentView.position(segmentPosition);
+            segmentView.get(destination, destinationOffset + copiedBytes, segmentBytes);
+            copiedBytes += segmentBytes;
+            currentPosition += segmentBytes;
+        }
+    }
+
+}
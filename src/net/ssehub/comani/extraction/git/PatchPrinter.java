@@ -0,0 +1,448 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class prints the diff of a single changed file in the same format as <code>git show -U100000 --no-renames</code>
+ * does for non-merge commits. This includes the diff header with its mode and index lines, the quoting of unusual
+ * paths, the detection of binary files, and the hunks with their function names.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class PatchPrinter {
+
+    /**
+     * The number of context lines around changed lines as defined by the <code>-U100000</code> option, which the
+     * {@link GitCommitExtractor} uses to include the full content of changed files.
+     */
+    static final int CONTEXT_LINES = 100000;
+
+    /**
+     * The number of bytes at the beginning of a file, which Git checks for null bytes to detect binary files.
+     */
+    private static final int BINARY_CHECK_BYTES = 8000;
+
+    /**
+     * The size in bytes, above which Git treats files as binary without checking their content.
+     */
+    private static final long BIG_FILE_THRESHOLD = 512L * 1024 * 1024;
+
+    /**
+     * The maximum number of bytes of a function name in a hunk header.
+     */
+    private static final int MAX_FUNCTION_NAME_LENGTH = 80;
+
+    /**
+     * The line Git prints after a line without a terminating line feed.
+     */
+    private static final byte[] NO_NEWLINE_MARKER = "\n\\ No newline at end of file\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The label of absent files in diff headers.
+     */
+    static final byte[] DEV_NULL = "/dev/null".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The {@link ObjectDatabase} providing the content of the changed files.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * The {@link ByteArrayOutputStream} receiving the printed diffs.
+     */
+    private ByteArrayOutputStream output;
+
+    /**
+     * The number of context lines around changed lines, like {@link #CONTEXT_LINES}.
+     */
+    private int contextLines;
+
+    /**
+     * The function name of the last printed hunk, which Git reuses, if no other function name is found before the
+     * next hunk.
+     */
+    private byte[] functionName;
+
+    /**
+     * Constructs a new {@link PatchPrinter}.
+     *
+     * @param objectDatabase the {@link ObjectDatabase} providing the content of the changed files
+     * @param output the {@link ByteArrayOutputStream} receiving the printed diffs
+     * @param contextLines the number of context lines around changed lines as defined by the <code>-U</code> option
+     */
+    PatchPrinter(ObjectDatabase objectDatabase, ByteArrayOutputStream output, int contextLines) {
+        this.objectDatabase = objectDatabase;
+        this.output = output;
+        this.contextLines = contextLines;
+    }
+
+    /**
+     * Prints the diff of the given changed file. Like Git, a change of the file type, e.g., from a regular file to a
+     * symbolic link, is printed as a deletion followed by an addition.
+     *
+     * @param change the changed file
+     * @throws IOException if reading the content of the file fails
+     */
+    void print(TreeDiff.Change change) throws IOException {
+        if (change.getOldMode() != 0 && change.getNewMode() != 0
+                && ((change.getOldMode() ^ change.getNewMode()) & TreeDiff.MODE_TYPE_MASK) != 0) {
+            print(change.getPath(), change.getOldMode(), change.getOldId(), 0, ObjectId.ZERO);
+            print(change.getPath(), 0, ObjectId.ZERO, change.getNewMode(), change.getNewId());
+        } else {
+            print(change.getPath(), change.getOldMode(), change.getOldId(), change.getNewMode(), change.getNewId());
+        }
+    }
+
+    /**
+     * Prints the diff of a single file.
+     *
+     * @param path the path of the file
+     * @param oldMode the old mode of the file or <code>0</code>, if the file was added
+     * @param oldId the old object name of the file or {@link ObjectId#ZERO}, if the file was added
+     * @param newMode the new mode of the file or <code>0</code>, if the file was deleted
+     * @param newId the new object name of the file or {@link ObjectId#ZERO}, if the file was deleted
+     * @throws IOException if reading the content of the file fails
+     */
+    private void print(byte[] path, int oldMode, ObjectId oldId, int newMode, ObjectId newId) throws IOException {
+        byte[] oldLabel = (oldMode != 0) ? quote("a/", path) : DEV_NULL;
+        byte[] newLabel = (newMode != 0) ? quote("b/", path) : DEV_NULL;
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        writeAscii(header, "diff --git ");
+        header.write(quote("a/", path));
+        writeAscii(header, " ");
+        header.write(quote("b/", path));
+        writeAscii(header, "\n");
+        String indexLine = "";
+        if (!oldId.equals(newId)) {
+            indexLine = "index " + objectDatabase.abbreviate(oldId) + ".." + objectDatabase.abbreviate(newId)
+                    + (oldMode == newMode ? " " + formatMode(oldMode) : "") + "\n";
+        }
+        boolean mustShowHeader = true;
+        if (oldMode == 0) {
+            writeAscii(header, "new file mode " + formatMode(newMode) + "\n" + indexLine);
+        } else if (newMode == 0) {
+            writeAscii(header, "deleted file mode " + formatMode(oldMode) + "\n" + indexLine);
+        } else {
+            mustShowHeader = oldMode != newMode;
+            if (mustShowHeader) {
+                writeAscii(header, "old mode " + formatMode(oldMode) + "\nnew mode " + formatMode(newMode) + "\n");
+            }
+            writeAscii(header, indexLine);
+        }
+        byte[] oldContent = (oldMode != 0) ? readContent(oldMode, oldId) : new byte[0];
+        byte[] newContent = (newMode != 0) ? readContent(newMode, newId) : new byte[0];
+        if (isBinary(oldContent) || isBinary(newContent)) {
+            if (!Arrays.equals(oldContent, newContent)) {
+                header.writeTo(output);
+                writeAscii(output, "Binary files ");
+                output.write(oldLabel);
+                writeAscii(output, " and ");
+                output.write(newLabel);
+                writeAscii(output, " differ\n");
+            } else if (mustShowHeader) {
+                header.writeTo(output);
+            }
+        } else {
+            if (mustShowHeader) {
+                header.writeTo(output);
+            }
+            LineDiff lineDiff = new LineDiff(oldContent, oldContent.length, newContent, newContent.length);
+            if (lineDiff.getChangeCount() > 0) {
+                if (!mustShowHeader) {
+                    header.writeTo(output);
+                }
+                writeLabel("--- ", oldLabel);
+                writeLabel("+++ ", newLabel);
+                printHunks(lineDiff);
+            }
+        }
+    }
+
+    /**
+     * Prints the given label line. Like Git, a tab is appended to labels containing spaces.
+     *
+     * @param prefix the prefix of the line, which is either "<tt>--- </tt>" or "<tt>+++ </tt>"
+     * @param label the quoted path of the file or {@link #DEV_NULL}
+     * @throws IOException if writing to the output fails
+     */
+    private void writeLabel(String prefix, byte[] label) throws IOException {
+        writeAscii(output, prefix);
+        output.write(label);
+        if (CommitObject.indexOf(label, (byte) ' ', 0) < label.length) {
+            writeAscii(output, "\t");
+        }
+        writeAscii(output, "\n");
+    }
+
+    /**
+     * Reads the content of a file version. The content of submodules is the name of the referenced commit.
+     *
+     * @param mode the mode of the file
+     * @param objectId the object name of the file
+     * @param objectDatabase the {@link ObjectDatabase} providing the content
+     * @return the content of the file version; never <code>null</code>
+     * @throws IOException if reading the content fails
+     */
+    static byte[] readContent(int mode, ObjectId objectId, ObjectDatabase objectDatabase) throws IOException {
+        byte[] content;
+        if (mode == TreeDiff.MODE_GITLINK) {
+            content = ("Subproject commit " + objectId.toHex() + "\n").getBytes(StandardCharsets.US_ASCII);
+        } else if (objectId.isZero()) {
+            content = new byte[0];
+        } else {
+            content = objectDatabase.read(objectId, GitObject.TYPE_BLOB);
+        }
+        return content;
+    }
+
+    /**
+     * Reads the content of a file version from the {@link #objectDatabase}.
+     *
+     * @param mode the mode of the file
+     * @param objectId the object name of the file
+     * @return the content of the file version; never <code>null</code>
+     * @throws IOException if reading the content fails
+     */
+    private byte[] readContent(int mode, ObjectId objectId) throws IOException {
+        return readContent(mode, objectId, objectDatabase);
+    }
+
+    /**
+     * Checks whether the given content is binary in the same way as Git does without attributes.
+     *
+     * @param content the content of a file
+     * @return <code>true</code>, if the content is very large or contains a null byte within its first
+     *         {@link #BINARY_CHECK_BYTES}; <code>false</code> otherwise
+     */
+    private static boolean isBinary(byte[] content) {
+        return content.length > BIG_FILE_THRESHOLD || containsNullByte(content);
+    }
+
+    /**
+     * Checks whether the given content contains a null byte within its first {@link #BINARY_CHECK_BYTES}, which is
+     * how Git detects binary content.
+     *
+     * @param content the content of a file
+     * @return <code>true</code>, if the content contains a null byte at the beginning; <code>false</code> otherwise
+     */
+    static boolean containsNullByte(byte[] content) {
+        boolean found = false;
+        for (int i = 0; !found && i < Math.min(content.length, BINARY_CHECK_BYTES); i++) {
+            found = content[i] == 0;
+        }
+        return found;
+    }
+
+    /**
+     * Prints the hunks of the given diff using {@link #contextLines} context lines. Changes separated by at most
+     * twice the number of context lines are combined into a single hunk.
+     *
+     * @param lineDiff the diff to print
+     * @throws IOException if writing to the output fails
+     */
+    private void printHunks(LineDiff lineDiff) throws IOException {
+        LineDiff.Lines oldLines = lineDiff.getOldLines();
+        LineDiff.Lines newLines = lineDiff.getNewLines();
+        functionName = new byte[0];
+        int previousFunctionLine = -1;
+        int change = 0;
+        while (change < lineDiff.getChangeCount()) {
+            int lastChange = change;
+            while (lastChange + 1 < lineDiff.getChangeCount() && lineDiff.getOldStart(lastChange + 1)
+                    - (lineDiff.getOldStart(lastChange) + lineDiff.getOldCount(lastChange)) <= 2 * contextLines) {
+                lastChange++;
+            }
+            int oldStart = Math.max(lineDiff.getOldStart(change) - contextLines, 0);
+            int newStart = Math.max(lineDiff.getNewStart(change) - contextLines, 0);
+            int oldChangeEnd = lineDiff.getOldStart(lastChange) + lineDiff.getOldCount(lastChange);
+            int newChangeEnd = lineDiff.getNewStart(lastChange) + lineDiff.getNewCount(lastChange);
+            int trailingContext = Math.min(contextLines, Math.min(oldLines.getLineCount() - oldChangeEnd,
+                    newLines.getLineCount() - newChangeEnd));
+            int oldEnd = oldChangeEnd + trailingContext;
+            int newEnd = newChangeEnd + trailingContext;
+            updateFunctionName(oldLines, oldStart - 1, previousFunctionLine);
+            previousFunctionLine = oldStart - 1;
+            printHunkHeader(oldStart + 1, oldEnd - oldStart, newStart + 1, newEnd - newStart);
+            int newLine = newStart;
+            for (int i = change; i <= lastChange; i++) {
+                while (newLine < lineDiff.getNewStart(i)) {
+                    printLine(' ', newLines, newLine++);
+                }
+                for (int oldLine = lineDiff.getOldStart(i); oldLine < lineDiff.getOldStart(i)
+                        + lineDiff.getOldCount(i); oldLine++) {
+                    printLine('-', oldLines, oldLine);
+                }
+                for (; newLine < lineDiff.getNewStart(i) + lineDiff.getNewCount(i); newLine++) {
+                    printLine('+', newLines, newLine);
+                }
+            }
+            while (newLine < newEnd) {
+                printLine(' ', newLines, newLine++);
+            }
+            change = lastChange + 1;
+        }
+    }
+
+    /**
+     * Searches the old lines backwards from the given line for a line starting with a letter, an underscore, or a
+     * dollar sign, which Git uses as function name in hunk headers. If no such line is found before the given limit,
+     * the {@link #functionName} remains unchanged.
+     *
+     * @param oldLines the old lines of the file
+     * @param start the index of the first line to check
+     * @param limit the index of the line, at which the search stops
+     */
+    private void updateFunctionName(LineDiff.Lines oldLines, int start, int limit) {
+        boolean found = false;
+        for (int line = start; !found && line != limit && line >= 0 && line < oldLines.getLineCount(); line--) {
+            byte[] content = oldLines.getContent();
+            int lineStart = oldLines.getLineStart(line);
+            int length = oldLines.getLineEnd(line) - lineStart;
+            byte first = (length > 0) ? content[lineStart] : 0;
+            if ((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z') || first == '_' || first == '$') {
+                length = Math.min(length, MAX_FUNCTION_NAME_LENGTH);
+                while (length > 0 && MailMap.isSpace(content[lineStart + length - 1])) {
+                    length--;
+                }
+                functionName = Arrays.copyOfRange(content, lineStart, lineStart + length);
+                found = true;
+            }
+        }
+    }
+
+    /**
+     * Prints a hunk header.
+     *
+     * @param oldStart the number of the first old line of the hunk starting at <code>1</code>
+     * @param oldCount the number of old lines of the hunk
+     * @param newStart the number of the first new line of the hunk starting at <code>1</code>
+     * @param newCount the number of new lines of the hunk
+     * @throws IOException if writing to the output fails
+     */
+    private void printHunkHeader(int oldStart, int oldCount, int newStart, int newCount) throws IOException {
+        StringBuilder hunkHeader = new StringBuilder("@@ -");
+        hunkHeader.append(oldCount != 0 ? oldStart : oldStart - 1);
+        if (oldCount != 1) {
+            hunkHeader.append(',').append(oldCount);
+        }
+        hunkHeader.append(" +").append(newCount != 0 ? newStart : newStart - 1);
+        if (newCount != 1) {
+            hunkHeader.append(',').append(newCount);
+        }
+        hunkHeader.append(" @@");
+        writeAscii(output, hunkHeader.toString());
+        if (functionName.length > 0) {
+            writeAscii(output, " ");
+            output.write(functionName);
+        }
+        writeAscii(output, "\n");
+    }
+
+    /**
+     * Prints a single line of a hunk. Like Git, a line without a terminating line feed is followed by a marker line.
+     *
+     * @param marker the marker of the line, which is a space for context lines, "<tt>-</tt>" for deleted lines, or
+     *        "<tt>+</tt>" for added lines
+     * @param lines the lines containing the line
+     * @param line the index of the line
+     */
+    private void printLine(char marker, LineDiff.Lines lines, int line) {
+        int lineStart = lines.getLineStart(line);
+        int lineEnd = lines.getLineEnd(line);
+        output.write(marker);
+        output.write(lines.getContent(), lineStart, lineEnd - lineStart);
+        if (lineEnd > lineStart && lines.getContent()[lineEnd - 1] != '\n') {
+            output.write(NO_NEWLINE_MARKER, 0, NO_NEWLINE_MARKER.length);
+        }
+    }
+
+    /**
+     * Formats the given mode as six octal digits.
+     *
+     * @param mode the mode to format
+     * @return the formatted mode; never <code>null</code>
+     */
+    static String formatMode(int mode) {
+        return String.format("%06o", mode);
+    }
+
+    /**
+     * Writes the given ASCII string to the given stream.
+     *
+     * @param stream the stream to write to
+     * @param string the string consisting of ASCII characters only
+     * @throws IOException if writing to the stream fails
+     */
+    static void writeAscii(ByteArrayOutputStream stream, String string) throws IOException {
+        stream.write(string.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Concatenates the given prefix and path and quotes the result in the same way as Git does for paths containing
+     * control characters, double quotes, backslashes, or non-ASCII characters: the quoted path is enclosed in double
+     * quotes and these characters are escaped using C escape sequences or three octal digits.
+     *
+     * @param prefix the prefix of the path, like "<tt>a/</tt>", consisting of ASCII characters only
+     * @param path the path as raw bytes
+     * @return the prefixed and, if necessary, quoted path; never <code>null</code>
+     */
+    static byte[] quote(String prefix, byte[] path) {
+        byte[] prefixedPath = new byte[prefix.length() + path.length];
+        for (int i = 0; i < prefix.length(); i++) {
+            prefixedPath[i] = (byte) prefix.charAt(i);
+        }
+        System.arraycopy(path, 0, prefixedPath, prefix.length(), path.length);
+        boolean quotingRequired = false;
+        for (int i = 0; !quotingRequired && i < prefixedPath.length; i++) {
+            quotingRequired = isQuotingRequired(prefixedPath[i]);
+        }
+        byte[] quotedPath = prefixedPath;
+        if (quotingRequired) {
+            StringBuilder quotedPathBuilder = new StringBuilder("\"");
+            for (byte pathByte : prefixedPath) {
+                int character = pathByte & 0xFF;
+                int escapeIndex = "\u0007\b\t\n\u000B\f\r\"\\".indexOf(character);
+                if (escapeIndex != -1) {
+                    quotedPathBuilder.append('\\').append("abtnvfr\"\\".charAt(escapeIndex));
+                } else if (isQuotingRequired(pathByte)) {
+                    quotedPathBuilder.append('\\').append((char) ('0' + ((character >> 6) & 3)))
+                            .append((char) ('0' + ((character >> 3) & 7))).append((char) ('0' + (character & 7)));
+                } else {
+                    quotedPathBuilder.append((char) character);
+                }
+            }
+            quotedPath = quotedPathBuilder.append('"').toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        return quotedPath;
+    }
+
+    /**
+     * Checks whether the given byte of a path requires quoting.
+     *
+     * @param pathByte the byte to check
+     * @return <code>true</code>, if the byte is a control character, a double quote, a backslash, or part of a
+     *         non-ASCII character; <code>false</code> otherwise
+     */
+    private static boolean isQuotingRequired(byte pathByte) {
+        int character = pathByte & 0xFF;
+        return character < 0x20 || character >= 0x7F || character == '"' || character == '\\';
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class restricts the changed artifacts of extracted commits to the files matching include and exclude patterns
+ * and, optionally, to non-binary files. The patterns use the default syntax of Git pathspecs, such that Git applies the
+ * same filter via {@link #getPathspecs()}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class PathFilter {
+
+    /**
+     * The prefix of the diff header line Git prints instead of the changes to binary files.
+     */
+    private static final String BINARY_DIFF_PREFIX = "Binary files ";
+
+    /**
+     * The prefix of the first diff header line preceding the labels of the original and the changed file.
+     */
+    private static final String DIFF_LABELS_PREFIX = CommitAssembler.DIFF_HEADER_START_PATTERN + " ";
+
+    /**
+     * The patterns of the paths to be included; an <i>empty</i> list includes all paths.
+     */
+    private List<String> includePatterns;
+
+    /**
+     * The patterns of the paths to be excluded; may be <i>empty</i>.
+     */
+    private List<String> excludePatterns;
+
+    /**
+     * The {@link #includePatterns} with one character per UTF-8 byte as returned by {@link #toBytes(String)}.
+     */
+    private List<String> includeBytePatterns;
+
+    /**
+     * The {@link #excludePatterns} with one character per UTF-8 byte as returned by {@link #toBytes(String)}.
+     */
+    private List<String> excludeBytePatterns;
+
+    /**
+     * The definition of whether changes to binary files are skipped (<code>true</code>) or not (<code>false</code>).
+     */
+    private boolean skipBinary;
+
+    /**
+     * Constructs a new {@link PathFilter}.
+     *
+     * @param includePatterns the patterns of the paths to be included; an <i>empty</i> list includes all paths
+     * @param excludePatterns the patterns of the paths to be excluded; may be <i>empty</i>
+     * @param skipBinary <code>true</code>, if changes to binary files shall be skipped; <code>false</code> otherwise
+     */
+    PathFilter(List<String> includePatterns, List<String> excludePatterns, boolean skipBinary) {
+        this.includePatterns = includePatterns;
+        this.excludePatterns = excludePatterns;
+        this.skipBinary = skipBinary;
+        includeBytePatterns = new ArrayList<String>();
+        for (String includePattern : includePatterns) {
+            includeBytePatterns.add(toBytes(includePattern));
+        }
+        excludeBytePatterns = new ArrayList<String>();
+        for (String excludePattern : excludePatterns) {
+            excludeBytePatterns.add(toBytes(excludePattern));
+        }
+    }
+
+    /**
+     * Checks whether the given path is included by the patterns of this filter.
+     *
+     * @param path the path of a file relative to the root of the repository
+     * @return <code>true</code>, if the path matches at least one include pattern (or there are none) and no exclude
+     *         pattern; <code>false</code> otherwise
+     */
+    boolean matches(String path) {
+        String bytePath = toBytes(path);
+        boolean included = includeBytePatterns.isEmpty();
+        for (int i = 0; !included && i < includeBytePatterns.size(); i++) {
+            included = matches(includeBytePatterns.get(i), bytePath);
+        }
+        for (int i = 0; included && i < excludeBytePatterns.size(); i++) {
+            included = !matches(excludeBytePatterns.get(i), bytePath);
+        }
+        return included;
+    }
+
+    /**
+     * Returns the given string with one character per byte of its UTF-8 encoding.
+     *
+     * @param string the string to be converted
+     * @return the string representing the UTF-8 bytes of the given string; never <code>null</code>
+     */
+    private static String toBytes(String string) {
+        return new String(string.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Checks whether the given diff header line marks a changed artifact, which this filter skips as binary file.
+     *
+     * @param diffHeaderLine a line of the diff header of a changed artifact
+     * @return <code>true</code>, if binary files are skipped and the line replaces the changes to a binary file;
+     *         <code>false</code> otherwise
+     */
+    boolean isSkippedBinary(String diffHeaderLine) {
+        return skipBinary && diffHeaderLine.startsWith(BINARY_DIFF_PREFIX);
+    }
+
+    /**
+     * Returns the description of this filter, which identifies the changed artifacts included by it.
+     *
+     * @return the include and exclude patterns and whether binary files are skipped; never <code>null</code>
+     */
+    String getDescription() {
+        return "include " + includePatterns + " exclude " + excludePatterns + " skip-binary " + skipBinary;
+    }
+
+    /**
+     * Returns the pathspecs for Git commands, which restrict the printed changes to the files included by this filter.
+     * All pathspecs are relative to the root of the repository, independent of the working directory of the command.
+     *
+     * @return the pathspecs to be appended to a Git command after a "<tt>--</tt>" argument or an <i>empty</i> array,
+     *         if this filter has no patterns
+     */
+    String[] getPathspecs() {
+        List<String> pathspecs = new ArrayList<String>();
+        if (!excludePatterns.isEmpty() || !includePatterns.isEmpty()) {
+            if (includePatterns.isEmpty()) {
+                pathspecs.add(":(top)");
+            }
+            for (String includePattern : includePatterns) {
+                pathspecs.add(":(top)" + includePattern);
+            }
+            for (String excludePattern : excludePatterns) {
+                pathspecs.add(":(top,exclude)" + excludePattern);
+            }
+        }
+        return pathspecs.toArray(new String[pathspecs.size()]);
+    }
+
+    /**
+     * Returns the path of the changed file described by the given first diff header line. As this extractor disables
+     * rename detection, both labels of that line identify the same path and, hence, have the same length.
+     *
+     * @param firstDiffHeaderLine the first line starting with {@link CommitAssembler#DIFF_HEADER_START_PATTERN}
+     * @return the path of the changed file relative to the root of the repository; never <code>null</code>
+     */
+    static String getPath(String firstDiffHeaderLine) {
+        String labels = firstDiffHeaderLine.substring(Math.min(DIFF_LABELS_PREFIX.length(),
+                firstDiffHeaderLine.length()));
+        String path = labels.substring((labels.length() + 1) / 2);
+        if (path.length() > 1 && path.charAt(0) == '"' && path.charAt(path.length() - 1) == '"') {
+            path = LazyChangedArtifact.unquote(path);
+        }
+        if (path.startsWith("b/")) {
+            path = path.substring(2);
+        }
+        return path;
+    }
+
+    /**
+     * Checks whether the given pattern matches the given path like a Git pathspec without magic.
+     *
+     * @param pattern the pattern
+     * @param path the path of a file relative to the root of the repository
+     * @return <code>true</code>, if the pattern matches the path; <code>false</code> otherwise
+     */
+    static boolean matches(String pattern, String path) {
+        boolean matching = pattern.isEmpty();
+        if (!matching && path.startsWith(pattern)) {
+            // Equal paths or leading directories
+            matching = path.length() == pattern.length() || pattern.endsWith("/")
+                    || path.charAt(pattern.length()) == '/';
+        }
+        if (!matching && isWildcardPattern(pattern)) {
+            matching = matchesWildcard(pattern, path);
+        }
+        return matching;
+    }
+
+    /**
+     * Checks whether the given pattern contains a wildcard or escape character.
+     *
+     * @param pattern the pattern
+     * @return <code>true</code>, if the pattern contains "<tt>*</tt>", "<tt>?</tt>", "<tt>[</tt>", or
+     *         "<tt>\</tt>"; <code>false</code> otherwise
+     */
+    private static boolean isWildcardPattern(String pattern) {
+        boolean wildcardFound = false;
+        for (int i = 0; !wildcardFound && i < pattern.length(); i++) {
+            wildcardFound = "*?[\\".indexOf(pattern.charAt(i)) != -1;
+        }
+        return wildcardFound;
+    }
+
+    /**
+     * Checks whether the given wildcard pattern matches the entire given path. An asterisk matches any sequence of
+     * characters, a question mark any single character, a bracket expression any single character of its set, and a
+     * backslash escapes the next character. The pattern is matched from left to right; after a mismatch, the last
+     * asterisk is retried with one more matched character.
+     *
+     * @param pattern the wildcard pattern
+     * @param path the path to be matched
+     * @return <code>true</code>, if the pattern matches the path; <code>false</code> otherwise
+     */
+    private static boolean matchesWildcard(String pattern, String path) {
+        int patternIndex = 0;
+        int pathIndex = 0;
+        int asteriskPatternIndex = -1;
+        int asteriskPathIndex = -1;
+        boolean mismatch = false;
+        while (!mismatch && pathIndex < path.length()) {
+            int nextPatternIndex = -1;
+            if (patternIndex < pattern.length() && pattern.charAt(patternIndex) != '*') {
+                nextPatternIndex = matchCharacter(pattern, patternIndex, path.charAt(pathIndex));
+            }
+            if (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+                patternIndex++;
+                asteriskPatternIndex = patternIndex;
+                asteriskPathIndex = pathIndex;
+            } else if (nextPatternIndex != -1) {
+                patternIndex = nextPatternIndex;
+                pathIndex++;
+            } else if (asteriskPatternIndex != -1) {
+                asteriskPathIndex++;
+                patternIndex = asteriskPatternIndex;
+                pathIndex = asteriskPathIndex;
+            } else {
+                mismatch = true;
+            }
+        }
+        while (!mismatch && patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*') {
+            patternIndex++;
+        }
+        return !mismatch && patternIndex == pattern.length();
+    }
+
+    /**
+     * Matches the given character against the single-character element of the given pattern starting at the given
+     * index, which is a question mark, a bracket expression, an escaped character, or a literal character.
+     *
+     * @param pattern the wildcard pattern
+     * @param patternIndex the index of the element in the pattern
+     * @param character the character to be matched
+     * @return the index after the element, if it matches the character; <code>-1</code> otherwise
+     */
+    private static int matchCharacter(String pattern, int patternIndex, char character) {
+        int nextPatternIndex = -1;
+        char patternCharacter = pattern.charAt(patternIndex);
+        if (patternCharacter == '?') {
+            nextPatternIndex = patternIndex + 1;
+        } else if (patternCharacter == '[') {
+            nextPatternIndex = matchBracket(pattern, patternIndex, character);
+        } else if (patternCharacter == '\\' && patternIndex + 1 < pattern.length()) {
+            if (pattern.charAt(patternIndex + 1) == character) {
+                nextPatternIndex = patternIndex + 2;
+            }
+        } else if (patternCharacter == character) {
+            nextPatternIndex = patternIndex + 1;
+        }
+        return nextPatternIndex;
+    }
+
+    /**
+     * Matches the given character against the bracket expression starting at the given index, like "<tt>[a-z_]</tt>"
+     * or the negated "<tt>[!0-9]</tt>". Like Git, an unterminated bracket expression matches nothing.
+     *
+     * @param pattern the wildcard pattern
+     * @param bracketIndex the index of the opening bracket in the pattern
+     * @param character the character to be matched
+     * @return the index after the closing bracket, if the expression matches the character; <code>-1</code> otherwise
+     */
+    private static int matchBracket(String pattern, int bracketIndex, char character) {
+        int index = bracketIndex + 1;
+        boolean negated = index < pattern.length() && (pattern.charAt(index) == '!' || pattern.charAt(index) == '^');
+        if (negated) {
+            index++;
+        }
+        boolean matching = false;
+        boolean first = true;
+        while (index < pattern.length() && (first || pattern.charAt(index) != ']')) {
+            first = false;
+            char rangeStart = pattern.charAt(index);
+            if (rangeStart == '\\' && index + 1 < pattern.length()) {
+                index++;
+                rangeStart = pattern.charAt(index);
+            }
+            char rangeEnd = rangeStart;
+            if (index + 2 < pattern.length() && pattern.charAt(index + 1) == '-' && pattern.charAt(index + 2) != ']') {
+                index += 2;
+                rangeEnd = pattern.charAt(index);
+                if (rangeEnd == '\\' && index + 1 < pattern.length()) {
+                    index++;
+                    rangeEnd = pattern.charAt(index);
+                }
+            }
+            matching |= character >= rangeStart && character <= rangeEnd;
+            index++;
+        }
+        int nextPatternIndex = -1;
+        if (index < pattern.length() && matching != negated) {
+            nextPatternIndex = index + 1;
+        }
+        return nextPatternIndex;
+    }
+
+}
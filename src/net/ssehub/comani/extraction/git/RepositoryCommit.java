@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+
+import net.ssehub.comani.data.Commit;
+
+/**
+ * This class represents a {@link Commit} tagged with the repository it was extracted from. The
+ * {@link GitCommitExtractor} adds such commits to the commit queue, if it extracts multiple repositories concurrently.
+ * In this case, the commits of the different repositories are interleaved in the commit queue and analyzers can
+ * assign them to their repositories via {@link #getRepository()}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class RepositoryCommit extends Commit {
+
+    /**
+     * The directory of the repository, from which this commit was extracted.
+     */
+    private File repository;
+
+    /**
+     * Constructs a new {@link RepositoryCommit} consisting of the data of the given commit.
+     *
+     * @param repository the directory of the repository, from which the given commit was extracted
+     * @param commit the {@link Commit} providing the data of this commit
+     */
+    RepositoryCommit(File repository, Commit commit) {
+        super(commit.getId(), commit.getDate(), commit.getCommitHeader(), commit.getChangedArtifacts());
+        this.repository = repository;
+    }
+
+    /**
+     * Returns the directory of the repository, from which this commit was extracted.
+     *
+     * @return the repository directory; never <code>null</code>
+     */
+    public File getRepository() {
+        return repository;
+    }
+
+}
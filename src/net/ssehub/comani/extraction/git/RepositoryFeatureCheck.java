@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class checks whether a repository uses features changing the output of <code>git show</code>, which the {@link
+ * RepositoryReader} does not reproduce, like replacement references, grafts, diff attributes, or configuration
+ * variables changing the format of commits.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class RepositoryFeatureCheck {
+
+    /**
+     * The configuration variables in lower case, which change the output of Git, if they are defined with any value.
+     */
+    private static final List<String> UNSUPPORTED_VARIABLES = Arrays.asList("mailmap.file", "mailmap.blob",
+        "notes.displayref", "core.notesref", "core.attributesfile", "log.date", "format.pretty", "diff.srcprefix",
+        "diff.dstprefix", "diff.external");
+
+    /**
+     * The values in lower case of the boolean <code>false</code>.
+     */
+    private static final List<String> FALSE_VALUES = Arrays.asList("false", "no", "off", "0");
+
+    /**
+     * The values in lower case of the boolean <code>true</code> including the empty value of a variable without
+     * "<tt>=</tt>".
+     */
+    private static final List<String> TRUE_VALUES = Arrays.asList("true", "yes", "on", "1", "");
+
+    /**
+     * The configuration variables in lower case, which change the output of Git, unless they are defined with one of
+     * the values in lower case mapped to them, like their default values.
+     */
+    private static final Map<String, List<String>> SUPPORTED_VALUES = createSupportedValues();
+    /**
+     * The environment variables, which override the configuration or the notes shown by Git.
+     */
+    private static final List<String> UNSUPPORTED_ENVIRONMENT = Arrays.asList("GIT_CONFIG_PARAMETERS",
+        "GIT_CONFIG_COUNT", "GIT_NOTES_REF", "GIT_NOTES_DISPLAY_REF");
+
+    /**
+     * The maximum depth of nested <tt>include.path</tt> variables followed, which Git limits as well.
+     */
+    private static final int MAX_INCLUDE_DEPTH = 10;
+
+    /**
+     * The Git directory of the repository.
+     */
+    private File gitDirectory;
+
+    /**
+     * The common directory of the repository containing the objects, the shared references, and the configuration.
+     */
+    private File commonDirectory;
+
+    /**
+     * The environment variables of the current process.
+     */
+    private Map<String, String> environment;
+
+    /**
+     * Creates the {@link #SUPPORTED_VALUES}.
+     *
+     * @return the values in lower case keeping the default output of Git with the variables as keys
+     */
+    private static Map<String, List<String>> createSupportedValues() {
+        List<String> colorValues = new ArrayList<String>(Arrays.asList("auto", "never"));
+        colorValues.addAll(TRUE_VALUES);
+        colorValues.addAll(FALSE_VALUES);
+        List<String> decorateValues = new ArrayList<String>(FALSE_VALUES);
+        decorateValues.add("auto");
+        Map<String, List<String>> supportedValues = new HashMap<String, List<String>>();
+        supportedValues.put("i18n.logoutputencoding", Arrays.asList("utf-8", "utf8"));
+        supportedValues.put("core.abbrev", Arrays.asList("auto"));
+        supportedValues.put("core.quotepath", TRUE_VALUES);
+        supportedValues.put("log.mailmap", TRUE_VALUES);
+        supportedValues.put("log.decorate", decorateValues);
+        supportedValues.put("log.abbrevcommit", FALSE_VALUES);
+        supportedValues.put("log.showsignature", FALSE_VALUES);
+        supportedValues.put("diff.noprefix", FALSE_VALUES);
+        supportedValues.put("diff.mnemonicprefix", FALSE_VALUES);
+        supportedValues.put("diff.relative", FALSE_VALUES);
+        supportedValues.put("diff.suppressblankempty", FALSE_VALUES);
+        supportedValues.put("diff.indentheuristic", TRUE_VALUES);
+        supportedValues.put("diff.algorithm", Arrays.asList("myers", "default"));
+        supportedValues.put("color.ui", colorValues);
+        supportedValues.put("color.diff", colorValues);
+        return Collections.unmodifiableMap(supportedValues);
+    }
+
+    /**
+     * Constructs a new {@link RepositoryFeatureCheck}.
+     *
+     * @param gitDirectory the Git directory of the repository
+     * @param commonDirectory the common directory of the repository
+     * @param environment the environment variables Git would see, like {@link System#getenv()}
+     */
+    RepositoryFeatureCheck(File gitDirectory, File commonDirectory, Map<String, String> environment) {
+        this.gitDirectory = gitDirectory;
+        this.commonDirectory = commonDirectory;
+        this.environment = environment;
+    }
+
+    /**
+     * Checks the repository for features not supported by the {@link RepositoryReader}.
+     *
+     * @param workingTree the working tree of the repository, whose "<tt>.gitattributes</tt>" files are checked, or
+     *        <code>null</code>, if the repository is bare
+     * @param packedReferences the names of the packed references of the repository
+     * @throws IOException if reading the files of the repository fails or the repository uses an unsupported feature
+     */
+    void check(File workingTree, Iterable<String> packedReferences) throws IOException {
+        for (String variable : UNSUPPORTED_ENVIRONMENT) {
+            if (environment.get(variable) != null) {
+                throw unsupported("environment variable " + variable);
+            }
+        }
+        checkReplacements(packedReferences);
+        if (hasContent(new File(commonDirectory, "info/grafts"))) {
+            throw unsupported("grafts file " + new File(commonDirectory, "info/grafts"));
+        }
+        for (File configFile : getConfigFiles()) {
+            checkConfig(configFile, 0);
+        }
+        checkAttributes(new File(commonDirectory, "info/attributes"));
+        checkAttributes(new File(getConfigHome(), "git/attributes"));
+        if (workingTree != null) {
+            checkWorkingTreeAttributes(workingTree);
+        }
+    }
+
+    /**
+     * Checks whether the repository defines replacement references, unless the environment disables them.
+     *
+     * @param packedReferences the names of the packed references of the repository
+     * @throws IOException if the repository defines replacement references
+     */
+    private void checkReplacements(Iterable<String> packedReferences) throws IOException {
+        if (environment.get("GIT_NO_REPLACE_OBJECTS") == null) {
+            boolean replaced = hasFiles(new File(commonDirectory, "refs/replace"));
+            for (String packedReference : packedReferences) {
+                replaced |= packedReference.startsWith("refs/replace/");
+            }
+            if (replaced) {
+                throw unsupported("replacement references (refs/replace)");
+            }
+        }
+    }
+
+    /**
+     * Returns the configuration files Git reads for the repository in the order, in which Git reads them.
+     *
+     * @return the system, global, repository, and working tree configuration files, which may not exist
+     */
+    private File[] getConfigFiles() {
+        File systemConfig = new File(environment.getOrDefault("GIT_CONFIG_SYSTEM", "/etc/gitconfig"));
+        if (environment.get("GIT_CONFIG_NOSYSTEM") != null) {
+            systemConfig = null;
+        }
+        File xdgConfig = new File(getConfigHome(), "git/config");
+        File homeConfig = new File(environment.getOrDefault("HOME", System.getProperty("user.home")), ".gitconfig");
+        if (environment.get("GIT_CONFIG_GLOBAL") != null) {
+            xdgConfig = null;
+            homeConfig = new File(environment.get("GIT_CONFIG_GLOBAL"));
+        }
+        return new File[] {systemConfig, xdgConfig, homeConfig, new File(commonDirectory, "config"),
+            new File(gitDirectory, "config.worktree")};
+    }
+
+    /**
+     * Returns the base directory of the user-specific configuration files of Git.
+     *
+     * @return the directory defined by <tt>XDG_CONFIG_HOME</tt> or the "<tt>.config</tt>" directory of the user
+     */
+    private File getConfigHome() {
+        String configHome = environment.get("XDG_CONFIG_HOME");
+        if (configHome == null || configHome.isEmpty()) {
+            configHome = new File(environment.getOrDefault("HOME", System.getProperty("user.home")), ".config")
+                    .getPath();
+        }
+        return new File(configHome);
+    }
+
+    /**
+     * Checks whether the given configuration file or one of the files it includes defines an unsupported variable.
+     * Conditional includes are followed unconditionally, which may reject supported repositories, but never misses an
+     * unsupported variable.
+     *
+     * @param configFile the configuration file to check; may be <code>null</code> or not exist
+     * @param depth the number of includes followed to reach the given file
+     * @throws IOException if reading the file fails or it defines an unsupported variable
+     */
+    private void checkConfig(File configFile, int depth) throws IOException {
+        if (configFile != null && configFile.isFile() && depth <= MAX_INCLUDE_DEPTH) {
+            String section = "";
+            for (String line : Files.readAllLines(configFile.toPath(), StandardCharsets.ISO_8859_1)) {
+                String trimmedLine = line.trim();
+                if (trimmedLine.startsWith("[") && trimmedLine.indexOf(']') > 0) {
+                    section = getSection(trimmedLine.substring(1, trimmedLine.indexOf(']')));
+                    trimmedLine = trimmedLine.substring(trimmedLine.indexOf(']') + 1).trim();
+                }
+                if (!trimmedLine.isEmpty() && Character.isLetter(trimmedLine.charAt(0))) {
+                    int separatorIndex = trimmedLine.indexOf('=');
+                    String key = separatorIndex < 0 ? trimmedLine : trimmedLine.substring(0, separatorIndex);
+                    String value = separatorIndex < 0 ? "" : getValue(trimmedLine.substring(separatorIndex + 1));
+                    String variable = section + "." + key.trim().toLowerCase();
+                    checkVariable(configFile, variable, value);
+                    if (variable.equals("include.path") || variable.startsWith("includeif.")
+                            && variable.endsWith(".path")) {
+                        checkConfig(getIncludedFile(configFile, value), depth + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the section defined by the given section header.
+     *
+     * @param sectionHeader the content of a section header between the brackets
+     * @return the section name in lower case followed by the subsection, if any, separated by a dot
+     */
+    private static String getSection(String sectionHeader) {
+        String section = sectionHeader.trim();
+        int subsectionIndex = section.indexOf('"');
+        if (subsectionIndex > 0) {
+            // Subsections are case-sensitive, while section names are not
+            section = section.substring(0, subsectionIndex).trim().toLowerCase() + "."
+                    + section.substring(subsectionIndex + 1).replaceAll("\"$", "");
+        } else {
+            section = section.toLowerCase();
+        }
+        return section;
+    }
+
+    /**
+     * Returns the given value of a configuration variable without comments and surrounding quotes.
+     *
+     * @param rawValue the text after the "<tt>=</tt>" of a variable definition
+     * @return the value of the variable
+     */
+    private static String getValue(String rawValue) {
+        String value = rawValue.replaceAll("\\s[#;].*$", "").trim();
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether the given variable is supported with the given value. Besides the {@link #UNSUPPORTED_VARIABLES}
+     * and the {@link #SUPPORTED_VALUES}, text conversions and external commands of diff drivers are not supported.
+     *
+     * @param configFile the configuration file defining the variable
+     * @param variable the name of the variable with its section in lower case
+     * @param value the value of the variable
+     * @throws IOException if the variable is not supported with the given value
+     */
+    private static void checkVariable(File configFile, String variable, String value) throws IOException {
+        List<String> supportedValues = SUPPORTED_VALUES.get(variable);
+        boolean unsupported = UNSUPPORTED_VARIABLES.contains(variable)
+                || (supportedValues != null && !supportedValues.contains(value.toLowerCase()))
+                || (variable.startsWith("diff.") && (variable.endsWith(".textconv") || variable.endsWith(".command")));
+        if (unsupported) {
+            throw new IOException("Configuration variable " + variable + " in " + configFile
+                    + " not supported by the internal backend");
+        }
+    }
+
+    /**
+     * Returns the file included by an <tt>include.path</tt> variable of the given configuration file.
+     *
+     * @param configFile the configuration file defining the variable
+     * @param path the value of the variable
+     * @return the included file; never <code>null</code>
+     */
+    private File getIncludedFile(File configFile, String path) {
+        File includedFile;
+        if (path.startsWith("~/")) {
+            includedFile = new File(environment.getOrDefault("HOME", System.getProperty("user.home")),
+                    path.substring(2));
+        } else {
+            includedFile = new File(path);
+            if (!includedFile.isAbsolute()) {
+                includedFile = new File(configFile.getParentFile(), path);
+            }
+        }
+        return includedFile;
+    }
+
+    /**
+     * Checks all "<tt>.gitattributes</tt>" files of the given working tree. The Git directory is not searched.
+     *
+     * @param workingTree the working tree of the repository
+     * @throws IOException if reading a file fails or an attribute file uses an unsupported attribute
+     */
+    private void checkWorkingTreeAttributes(File workingTree) throws IOException {
+        Files.walkFileTree(workingTree.toPath(), new SimpleFileVisitor<Path>() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+                    throws IOException {
+                FileVisitResult result = FileVisitResult.CONTINUE;
+                if (directory.getFileName() != null && directory.getFileName().toString().equals(".git")) {
+                    result = FileVisitResult.SKIP_SUBTREE;
+                } else {
+                    checkAttributes(new File(directory.toFile(), ".gitattributes"));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Checks whether the given attribute file assigns the <tt>diff</tt> attribute, which selects diff drivers and
+     * text conversions or marks files as binary, or the <tt>binary</tt> macro. Macro definitions using them are
+     * rejected as well.
+     *
+     * @param attributesFile the attribute file to check, which may not exist
+     * @throws IOException if reading the file fails or it uses an unsupported attribute
+     */
+    private static void checkAttributes(File attributesFile) throws IOException {
+        if (attributesFile.isFile()) {
+            for (String line : Files.readAllLines(attributesFile.toPath(), StandardCharsets.ISO_8859_1)) {
+                String[] tokens = line.trim().split("\\s+");
+                for (int i = 1; i < tokens.length && !tokens[0].startsWith("#"); i++) {
+                    String attribute = tokens[i].replaceFirst("^[-!]", "").replaceFirst("=.*$", "");
+                    if (attribute.equals("diff") || attribute.equals("binary")) {
+                        throw new IOException("Attribute " + tokens[i] + " in " + attributesFile
+                                + " not supported by the internal backend");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given file exists and contains at least one line, which is neither empty nor a comment.
+     *
+     * @param file the file to check
+     * @return <code>true</code>, if the file has content; <code>false</code> otherwise
+     * @throws IOException if reading the file fails
+     */
+    private static boolean hasContent(File file) throws IOException {
+        boolean hasContent = false;
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1)) {
+                hasContent |= !line.trim().isEmpty() && !line.trim().startsWith("#");
+            }
+        }
+        return hasContent;
+    }
+
+    /**
+     * Checks whether the given directory or one of its sub-directories contains a file.
+     *
+     * @param directory the directory to check, which may not exist
+     * @return <code>true</code>, if the directory contains at least one file; <code>false</code> otherwise
+     */
+    private static boolean hasFiles(File directory) {
+        boolean hasFiles = false;
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && !hasFiles && i < files.length; i++) {
+            hasFiles = files[i].isFile() || hasFiles(files[i]);
+        }
+        return hasFiles;
+    }
+
+    /**
+     * Creates the exception reporting the given unsupported feature of the repository.
+     *
+     * @param feature the description of the feature
+     * @return the exception; never <code>null</code>
+     */
+    private IOException unsupported(String feature) {
+        return new IOException("Repository " + gitDirectory + " uses " + feature
+                + ", which the internal backend does not support");
+    }
+
+}
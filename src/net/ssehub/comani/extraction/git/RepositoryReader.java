@@ -0,0 +1,686 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * This class reads commits directly from the files of a Git repository without executing Git and prints them like
+ * <code>git show -U100000 --no-renames</code> using a {@link CommitPrinter}. Opening a repository using features, which
+ * this class does not reproduce, fails as detected by a {@link RepositoryFeatureCheck}. All methods may be called by
+ * multiple threads concurrently.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class RepositoryReader implements ArtifactContentSource {
+
+    /**
+     * The patterns for finding references identified by a short name, like a branch name, in the order, in which Git
+     * applies them.
+     */
+    private static final String[] REFERENCE_PATTERNS = {"%s", "refs/%s", "refs/tags/%s", "refs/heads/%s",
+        "refs/remotes/%s", "refs/remotes/%s/HEAD"};
+
+    /**
+     * The maximum number of symbolic references followed for resolving a reference.
+     */
+    private static final int MAX_SYMBOLIC_REFERENCE_DEPTH = 5;
+
+    /**
+     * The minimum number of hexadecimal digits of an abbreviated commit number accepted by Git.
+     */
+    private static final int MIN_PREFIX_LENGTH = 4;
+
+    /**
+     * The name of the file defining the mapping of author names and e-mail addresses.
+     */
+    private static final String MAILMAP_FILE_NAME = ".mailmap";
+
+    /**
+     * The name of the notes reference, whose notes Git shows below the messages of commits by default.
+     */
+    private static final String NOTES_REFERENCE = "refs/notes/commits";
+
+    /**
+     * The Git directory of the repository, like the "<tt>.git</tt>" directory of a working tree.
+     */
+    private File gitDirectory;
+
+    /**
+     * The common directory of the repository containing the objects and shared references, which differs from the
+     * {@link #gitDirectory} for additional working trees only.
+     */
+    private File commonDirectory;
+
+    /**
+     * The packed references of the repository with their names as keys.
+     */
+    private Map<String, ObjectId> packedReferences;
+
+    /**
+     * The {@link ObjectDatabase} providing the objects of the repository.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * The names of the commits, which are the boundary of a shallow repository.
+     */
+    private Set<ObjectId> shallowCommits;
+
+    /**
+     * The {@link CommitPrinter} printing the commits of the repository.
+     */
+    private CommitPrinter commitPrinter;
+
+    /**
+     * Constructs a new {@link RepositoryReader} for the repository containing the given directory.
+     *
+     * @param directory the directory of the repository, which is either its working tree, a sub-directory of its
+     *        working tree, or its Git directory
+     * @throws IOException if the given directory is not part of a repository or reading the repository fails
+     */
+    RepositoryReader(File directory) throws IOException {
+        this(directory, null);
+    }
+
+    /**
+     * Constructs a new {@link RepositoryReader} for the repository containing the given directory, which only prints
+     * the changed files of commits included by the given {@link PathFilter}.
+     *
+     * @param directory the directory of the repository, which is either its working tree, a sub-directory of its
+     *        working tree, or its Git directory
+     * @param pathFilter the {@link PathFilter} restricting the changed files printed by
+     *        {@link #show(ObjectId, int)}; may be <code>null</code>, if all changed files shall be printed
+     * @throws IOException if the given directory is not part of a repository, the repository uses an unsupported
+     *         feature, or reading the repository fails
+     */
+    RepositoryReader(File directory, PathFilter pathFilter) throws IOException {
+        File workingTree = null;
+        File currentDirectory = directory.getAbsoluteFile();
+        while (gitDirectory == null && currentDirectory != null) {
+            File dotGit = new File(currentDirectory, ".git");
+            if (dotGit.isFile()) {
+                gitDirectory = readGitFile(dotGit);
+                workingTree = currentDirectory;
+            } else if (isGitDirectory(dotGit)) {
+                gitDirectory = dotGit;
+                workingTree = currentDirectory;
+            } else if (isGitDirectory(currentDirectory)) {
+                gitDirectory = currentDirectory;
+            }
+            currentDirectory = currentDirectory.getParentFile();
+        }
+        if (gitDirectory == null) {
+            throw new IOException(directory + " is not part of a Git repository");
+        }
+        commonDirectory = getCommonDirectory(gitDirectory);
+        checkFormat();
+        packedReferences = readPackedReferences();
+        new RepositoryFeatureCheck(gitDirectory, commonDirectory, System.getenv()).check(workingTree,
+                packedReferences.keySet());
+        objectDatabase = new ObjectDatabase(new File(commonDirectory, "objects"));
+        shallowCommits = readShallowCommits();
+        commitPrinter = new CommitPrinter(objectDatabase, readMailMap(workingTree), shallowCommits, readNotes(),
+                pathFilter);
+    }
+
+    /**
+     * Reads the location of the Git directory from the given "<tt>.git</tt>" file, which Git uses for additional
+     * working trees and submodules.
+     *
+     * @param gitFile the "<tt>.git</tt>" file
+     * @return the Git directory; never <code>null</code>
+     * @throws IOException if reading the file fails or the file does not reference a Git directory
+     */
+    private static File readGitFile(File gitFile) throws IOException {
+        String content = new String(Files.readAllBytes(gitFile.toPath()), StandardCharsets.UTF_8).trim();
+        if (!content.startsWith("gitdir:")) {
+            throw new IOException("Invalid Git file " + gitFile);
+        }
+        File gitDirectory = new File(content.substring(7).trim());
+        if (!gitDirectory.isAbsolute()) {
+            gitDirectory = new File(gitFile.getParentFile(), gitDirectory.getPath());
+        }
+        if (!isGitDirectory(gitDirectory)) {
+            throw new IOException("Git file " + gitFile + " does not reference a Git directory");
+        }
+        return gitDirectory.getCanonicalFile();
+    }
+
+    /**
+     * Checks whether the given directory is a Git directory, which requires a "<tt>HEAD</tt>" file as well as an
+     * "<tt>objects</tt>" and a "<tt>refs</tt>" directory.
+     *
+     * @param directory the directory to check
+     * @return <code>true</code>, if the given directory is a Git directory; <code>false</code> otherwise
+     */
+    private static boolean isGitDirectory(File directory) {
+        boolean isGitDirectory = false;
+        if (new File(directory, "HEAD").isFile()) {
+            try {
+                File commonDirectory = getCommonDirectory(directory);
+                isGitDirectory = new File(commonDirectory, "objects").isDirectory()
+                        && new File(commonDirectory, "refs").isDirectory();
+            } catch (IOException e) {
+                isGitDirectory = false;
+            }
+        }
+        return isGitDirectory;
+    }
+
+    /**
+     * Returns the common directory of the given Git directory, which is referenced by its "<tt>commondir</tt>" file.
+     *
+     * @param gitDirectory the Git directory
+     * @return the common directory or the given Git directory, if it has no "<tt>commondir</tt>" file; never
+     *         <code>null</code>
+     * @throws IOException if reading the "<tt>commondir</tt>" file fails
+     */
+    private static File getCommonDirectory(File gitDirectory) throws IOException {
+        File commonDirectory = gitDirectory;
+        File commonDirectoryFile = new File(gitDirectory, "commondir");
+        if (commonDirectoryFile.isFile()) {
+            String path = new String(Files.readAllBytes(commonDirectoryFile.toPath()), StandardCharsets.UTF_8).trim();
+            commonDirectory = new File(path);
+            if (!commonDirectory.isAbsolute()) {
+                commonDirectory = new File(gitDirectory, path);
+            }
+        }
+        return commonDirectory;
+    }
+
+    /**
+     * Checks whether the repository uses a format supported by this reader.
+     *
+     * @throws IOException if the repository uses SHA-256 object names or stores its references in a reftable
+     */
+    private void checkFormat() throws IOException {
+        File configFile = new File(commonDirectory, "config");
+        if (configFile.isFile()) {
+            for (String line : Files.readAllLines(configFile.toPath(), StandardCharsets.ISO_8859_1)) {
+                String setting = line.replaceAll("\\s", "").toLowerCase();
+                if (setting.startsWith("objectformat=") && !setting.equals("objectformat=sha1")) {
+                    throw new IOException("Object format of repository " + gitDirectory + " not supported");
+                }
+            }
+        }
+        if (new File(commonDirectory, "reftable").isDirectory()) {
+            throw new IOException("Reference format of repository " + gitDirectory + " not supported");
+        }
+    }
+
+    /**
+     * Reads the "<tt>packed-refs</tt>" file of the repository.
+     *
+     * @return the packed references with their names as keys; never <code>null</code> but may be <i>empty</i>
+     * @throws IOException if reading the file fails
+     */
+    private Map<String, ObjectId> readPackedReferences() throws IOException {
+        Map<String, ObjectId> references = new HashMap<String, ObjectId>();
+        File packedReferencesFile = new File(commonDirectory, "packed-refs");
+        if (packedReferencesFile.isFile()) {
+            for (String line : Files.readAllLines(packedReferencesFile.toPath(), StandardCharsets.UTF_8)) {
+                if (line.length() > ObjectId.HEX_LENGTH + 1 && line.charAt(ObjectId.HEX_LENGTH) == ' ') {
+                    ObjectId objectId = ObjectId.fromHex(line.substring(0, ObjectId.HEX_LENGTH));
+                    if (objectId != null) {
+                        references.put(line.substring(ObjectId.HEX_LENGTH + 1).trim(), objectId);
+                    }
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Reads the "<tt>shallow</tt>" file of the repository, which lists the commits, whose parents are not available.
+     *
+     * @return the names of the listed commits; never <code>null</code> but may be <i>empty</i>
+     * @throws IOException if reading the file fails
+     */
+    private Set<ObjectId> readShallowCommits() throws IOException {
+        Set<ObjectId> commits = new HashSet<ObjectId>();
+        File shallowFile = new File(commonDirectory, "shallow");
+        if (shallowFile.isFile()) {
+            for (String line : Files.readAllLines(shallowFile.toPath(), StandardCharsets.UTF_8)) {
+                ObjectId commitId = ObjectId.fromHex(line.trim());
+                if (commitId != null) {
+                    commits.add(commitId);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(commits);
+    }
+
+    /**
+     * Reads the "<tt>.mailmap</tt>" file of the repository. Like Git, this file is read from the working tree or, for
+     * bare repositories, from the tree of the <tt>HEAD</tt> commit.
+     *
+     * @param workingTree the working tree of the repository or <code>null</code>, if the repository is bare
+     * @return the {@link MailMap} defined by the file or <code>null</code>, if there is no such file
+     * @throws IOException if reading the file fails
+     */
+    private MailMap readMailMap(File workingTree) throws IOException {
+        MailMap mailMap = null;
+        if (workingTree != null) {
+            File mailMapFile = new File(workingTree, MAILMAP_FILE_NAME);
+            if (mailMapFile.isFile()) {
+                mailMap = new MailMap(Files.readAllBytes(mailMapFile.toPath()), true);
+            }
+        } else {
+            ObjectId mailMapId = getHeadMailMap();
+            if (mailMapId != null) {
+                mailMap = new MailMap(objectDatabase.read(mailMapId, GitObject.TYPE_BLOB), false);
+            }
+        }
+        return mailMap;
+    }
+
+    /**
+     * Returns the name of the "<tt>.mailmap</tt>" blob in the tree of the <tt>HEAD</tt> commit.
+     *
+     * @return the name of the blob or <code>null</code>, if there is no such blob
+     * @throws IOException if reading the commit or its tree fails
+     */
+    ObjectId getHeadMailMap() throws IOException {
+        ObjectId mailMapId = null;
+        ObjectId headId = resolveReference("HEAD", 0);
+        if (headId != null && objectDatabase.contains(headId)) {
+            ObjectId treeId = readCommit(headId).getTreeId();
+            mailMapId = findTreeEntry(objectDatabase.read(treeId, GitObject.TYPE_TREE), MAILMAP_FILE_NAME);
+        }
+        return mailMapId;
+    }
+
+    /**
+     * Returns the name of the commit the {@link #NOTES_REFERENCE} points to.
+     *
+     * @return the name of the notes commit or <code>null</code>, if the repository has no notes
+     * @throws IOException if reading the reference fails
+     */
+    ObjectId getNotesCommit() throws IOException {
+        return resolveReference(NOTES_REFERENCE, 0);
+    }
+
+    /**
+     * Reads the notes of the {@link #NOTES_REFERENCE}.
+     *
+     * @return the names of the note blobs with the names of the annotated commits as keys; never <code>null</code>
+     *         but may be <i>empty</i>
+     * @throws IOException if reading the notes fails
+     */
+    private Map<ObjectId, ObjectId> readNotes() throws IOException {
+        Map<ObjectId, ObjectId> notes = new HashMap<ObjectId, ObjectId>();
+        ObjectId notesId = resolveReference(NOTES_REFERENCE, 0);
+        if (notesId != null && objectDatabase.contains(notesId)) {
+            readNotes(readCommit(notesId).getTreeId(), "", notes);
+        }
+        return Collections.unmodifiableMap(notes);
+    }
+
+    /**
+     * Reads the notes of the given notes tree. Like Git, sub-trees are considered as fan-out directories, which
+     * contain notes with the concatenation of their path and the name of the note as annotated object name.
+     *
+     * @param treeId the name of the notes tree
+     * @param prefix the path of the notes tree relative to the root tree of the notes without separators
+     * @param notes the map to add the names of the note blobs to with the names of the annotated objects as keys
+     * @throws IOException if reading the tree fails
+     */
+    private void readNotes(ObjectId treeId, String prefix, Map<ObjectId, ObjectId> notes) throws IOException {
+        byte[] tree = objectDatabase.read(treeId, GitObject.TYPE_TREE);
+        int position = 0;
+        while (position < tree.length) {
+            int nameStart = CommitObject.indexOf(tree, (byte) ' ', position) + 1;
+            int nameEnd = CommitObject.indexOf(tree, (byte) 0, nameStart);
+            if (nameEnd + 1 + ObjectId.RAW_LENGTH > tree.length) {
+                position = tree.length;
+            } else {
+                String path = prefix + new String(tree, nameStart, nameEnd - nameStart, StandardCharsets.ISO_8859_1);
+                ObjectId entryId = ObjectId.fromRaw(tree, nameEnd + 1);
+                ObjectId annotatedId = ObjectId.fromHex(path);
+                if (tree[position] == '4' && nameEnd - nameStart == 2 && path.length() < ObjectId.HEX_LENGTH
+                        && ObjectId.isHex(path)) {
+                    readNotes(entryId, path, notes);
+                } else if (tree[position] == '1' && annotatedId != null) {
+                    notes.put(annotatedId, entryId);
+                }
+                position = nameEnd + 1 + ObjectId.RAW_LENGTH;
+            }
+        }
+    }
+
+    /**
+     * Returns the object name of the regular file with the given name in the given tree.
+     *
+     * @param tree the content of the tree object
+     * @param name the name of the file
+     * @return the object name of the file or <code>null</code>, if the tree does not contain such a file
+     */
+    private static ObjectId findTreeEntry(byte[] tree, String name) {
+        ObjectId entryId = null;
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int position = 0;
+        while (entryId == null && position < tree.length) {
+            int nameStart = CommitObject.indexOf(tree, (byte) ' ', position) + 1;
+            int nameEnd = CommitObject.indexOf(tree, (byte) 0, nameStart);
+            if (nameEnd + 1 + ObjectId.RAW_LENGTH > tree.length) {
+                position = tree.length;
+            } else {
+                if (tree[position] == '1' && nameEnd - nameStart == nameBytes.length) {
+                    boolean matches = true;
+                    for (int i = 0; matches && i < nameBytes.length; i++) {
+                        matches = tree[nameStart + i] == nameBytes[i];
+                    }
+                    if (matches) {
+                        entryId = ObjectId.fromRaw(tree, nameEnd + 1);
+                    }
+                }
+                position = nameEnd + 1 + ObjectId.RAW_LENGTH;
+            }
+        }
+        return entryId;
+    }
+
+    /**
+     * Resolves the given reference, like "<tt>HEAD</tt>" or "<tt>refs/heads/master</tt>", by following symbolic
+     * references.
+     *
+     * @param name the full name of the reference
+     * @param depth the number of symbolic references followed to reach the given reference
+     * @return the object name the reference points to or <code>null</code>, if the reference does not exist
+     * @throws IOException if reading the reference fails
+     */
+    private ObjectId resolveReference(String name, int depth) throws IOException {
+        ObjectId objectId = null;
+        boolean perWorkingTree = !name.startsWith("refs/") || name.startsWith("refs/worktree/")
+                || name.startsWith("refs/bisect/") || name.startsWith("refs/rewritten/");
+        File referenceFile = new File(perWorkingTree ? gitDirectory : commonDirectory, name);
+        if (referenceFile.isFile()) {
+            String content = new String(Files.readAllBytes(referenceFile.toPath()), StandardCharsets.UTF_8).trim();
+            if (content.startsWith("ref:")) {
+                if (depth < MAX_SYMBOLIC_REFERENCE_DEPTH) {
+                    objectId = resolveReference(content.substring(4).trim(), depth + 1);
+                }
+            } else {
+                objectId = ObjectId.fromHex(content);
+            }
+        } else if (!perWorkingTree) {
+            objectId = packedReferences.get(name);
+        }
+        return objectId;
+    }
+
+    /**
+     * Returns the name of the <tt>HEAD</tt> commit.
+     *
+     * @return the name of the <tt>HEAD</tt> commit; never <code>null</code>
+     * @throws IOException if the <tt>HEAD</tt> reference does not point to an existing commit
+     */
+    ObjectId resolveHead() throws IOException {
+        ObjectId headId = resolveReference("HEAD", 0);
+        if (headId == null || !isCommit(headId)) {
+            throw new IOException("HEAD of repository " + gitDirectory + " does not point to a commit");
+        }
+        return headId;
+    }
+
+    /**
+     * Resolves the given commit number in the same order as Git does: full commit numbers, references, like branch
+     * or tag names, and, finally, unique abbreviated commit numbers.
+     *
+     * @param commitNumber the commit number to resolve
+     * @return the name of the identified commit or <code>null</code>, if the given commit number does not identify a
+     *         commit of the repository
+     * @throws IOException if reading the references or objects of the repository fails
+     */
+    ObjectId resolveCommit(String commitNumber) throws IOException {
+        String revision = commitNumber.trim();
+        ObjectId commitId = null;
+        if (revision.length() == ObjectId.HEX_LENGTH && ObjectId.isHex(revision)) {
+            commitId = ObjectId.fromHex(revision.toLowerCase());
+        } else if (!revision.isEmpty()) {
+            for (int i = 0; commitId == null && i < REFERENCE_PATTERNS.length; i++) {
+                commitId = resolveReference(String.format(REFERENCE_PATTERNS[i], revision), 0);
+            }
+            if (commitId == null && revision.length() >= MIN_PREFIX_LENGTH && ObjectId.isHex(revision)) {
+                List<ObjectId> candidates = objectDatabase.findByPrefix(revision, 2);
+                if (candidates.size() == 1) {
+                    commitId = candidates.get(0);
+                }
+            }
+        }
+        if (commitId != null && !isCommit(commitId)) {
+            commitId = null;
+        }
+        return commitId;
+    }
+
+    /**
+     * Checks whether the given object exists and is a commit.
+     *
+     * @param objectId the name of the object
+     * @return <code>true</code>, if the object is a commit; <code>false</code> otherwise
+     * @throws IOException if reading the object fails
+     */
+    private boolean isCommit(ObjectId objectId) throws IOException {
+        return objectDatabase.contains(objectId) && objectDatabase.read(objectId).getType() == GitObject.TYPE_COMMIT;
+    }
+
+    /**
+     * Returns the commits reachable from the given start commit in the same order as <code>git log</code> does:
+     * starting with the given commit, the commit with the most recent committer date among the parents of all listed
+     * commits is listed next. Commits with equal dates are listed in the order, in which they were found. If a
+     * {@link CommitWindow} is given, only the commits inside of that window are listed and the traversal follows the
+     * parents like <code>git log</code> with the options of that window does.
+     *
+     * @param startId the name of the commit to start at
+     * @param excludedId the name of a commit, whose ancestors including itself are not listed, or <code>null</code>,
+     *        if all reachable commits shall be listed
+     * @param commitWindow the {@link CommitWindow} restricting the listed commits or <code>null</code>, if all
+     *        reachable commits shall be listed
+     * @return the names of the listed commits; never <code>null</code>
+     * @throws IOException if reading the commits fails
+     */
+    List<ObjectId> getLog(ObjectId startId, ObjectId excludedId, CommitWindow commitWindow) throws IOException {
+        Set<ObjectId> seen = new HashSet<ObjectId>();
+        if (excludedId != null) {
+            Deque<ObjectId> excludedCommits = new ArrayDeque<ObjectId>();
+            excludedCommits.add(excludedId);
+            seen.add(excludedId);
+            while (!excludedCommits.isEmpty()) {
+                for (ObjectId parentId : commitPrinter.getParentIds(readCommit(excludedCommits.poll()))) {
+                    if (seen.add(parentId)) {
+                        excludedCommits.add(parentId);
+                    }
+                }
+            }
+        }
+        List<ObjectId> log = new ArrayList<ObjectId>();
+        PriorityQueue<long[]> queue = new PriorityQueue<long[]>((first, second) -> first[0] != second[0]
+                ? Long.compare(second[0], first[0]) : Long.compare(first[1], second[1]));
+        List<ObjectId> queuedIds = new ArrayList<ObjectId>();
+        if (seen.add(startId)) {
+            queue.add(new long[] {getCommitTime(objectDatabase.read(startId, GitObject.TYPE_COMMIT)), 0});
+            queuedIds.add(startId);
+        }
+        while (!queue.isEmpty()) {
+            long[] queuedCommit = queue.poll();
+            ObjectId commitId = queuedIds.get((int) queuedCommit[1]);
+            if (commitWindow == null || commitWindow.isListed(queuedCommit[0])) {
+                log.add(commitId);
+            }
+            if (commitWindow == null || commitWindow.isTraversed(queuedCommit[0])) {
+                List<ObjectId> parentIds = commitPrinter.getParentIds(readCommit(commitId));
+                if (commitWindow != null && commitWindow.isFirstParent() && parentIds.size() > 1) {
+                    parentIds = parentIds.subList(0, 1);
+                }
+                for (ObjectId parentId : parentIds) {
+                    if (seen.add(parentId)) {
+                        queue.add(new long[] {getCommitTime(objectDatabase.read(parentId, GitObject.TYPE_COMMIT)),
+                            queuedIds.size()});
+                        queuedIds.add(parentId);
+                    }
+                }
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Returns the committer timestamp of the given commit, which Git uses for ordering the commit log. Like Git, the
+     * timestamp is only read from a committer header directly following the author header.
+     *
+     * @param data the raw content of the commit object
+     * @return the committer timestamp in seconds since the Unix epoch or <code>0</code>, if the commit has no valid
+     *         committer header
+     */
+    private static long getCommitTime(byte[] data) {
+        int lineStart = CommitObject.indexOf(data, (byte) '\n', 0) + 1;
+        while (startsWith(data, lineStart, "parent ")) {
+            lineStart = CommitObject.indexOf(data, (byte) '\n', lineStart) + 1;
+        }
+        long commitTime = 0;
+        if (startsWith(data, lineStart, "author")) {
+            lineStart = CommitObject.indexOf(data, (byte) '\n', lineStart) + 1;
+            int lineEnd = CommitObject.indexOf(data, (byte) '\n', lineStart);
+            if (startsWith(data, lineStart, "committer") && lineEnd < data.length) {
+                int dateStart = lineEnd;
+                while (dateStart > lineStart && data[dateStart - 1] != '>') {
+                    dateStart--;
+                }
+                while (dateStart < lineEnd && MailMap.isSpace(data[dateStart])) {
+                    dateStart++;
+                }
+                for (int i = dateStart; i < lineEnd && data[i] >= '0' && data[i] <= '9'; i++) {
+                    commitTime = (commitTime > (Long.MAX_VALUE - 9) / 10) ? 0 : commitTime * 10 + (data[i] - '0');
+                }
+            }
+        }
+        return commitTime;
+    }
+
+    /**
+     * Checks whether the given array contains the given ASCII prefix at the given index.
+     *
+     * @param data the array to check
+     * @param start the index of the first byte to compare
+     * @param prefix the ASCII prefix
+     * @return <code>true</code>, if the array contains the prefix at the given index; <code>false</code> otherwise
+     */
+    private static boolean startsWith(byte[] data, int start, String prefix) {
+        boolean matches = start + prefix.length() <= data.length;
+        for (int i = 0; matches && i < prefix.length(); i++) {
+            matches = data[start + i] == prefix.charAt(i);
+        }
+        return matches;
+    }
+
+    /**
+     * Reads and parses the given commit.
+     *
+     * @param commitId the name of the commit
+     * @return the parsed commit; never <code>null</code>
+     * @throws IOException if reading or parsing the commit fails
+     */
+    private CommitObject readCommit(ObjectId commitId) throws IOException {
+        return new CommitObject(commitId, objectDatabase.read(commitId, GitObject.TYPE_COMMIT));
+    }
+
+    /**
+     * Returns the shortest unique abbreviation of the given commit name, like the "<tt>%h</tt>" format of Git.
+     *
+     * @param commitId the name of the commit
+     * @return the abbreviated commit name; never <code>null</code>
+     */
+    String abbreviate(ObjectId commitId) {
+        return objectDatabase.abbreviate(commitId);
+    }
+
+    /**
+     * Returns the committer date of the given commit in the same format as <code>git show -s --format=%ci</code>.
+     *
+     * @param commitId the name of the commit
+     * @return the committer date; never <code>null</code>
+     * @throws IOException if reading the commit fails
+     */
+    String getCommitterDate(ObjectId commitId) throws IOException {
+        return CommitPrinter.getCommitterDate(objectDatabase.read(commitId, GitObject.TYPE_COMMIT));
+    }
+
+    /**
+     * Prints the given commit in the same format as <code>git show -U&lt;contextLines&gt; --no-renames</code>. Merge
+     * commits are always printed like <code>git show -U100000 --no-renames</code> does.
+     *
+     * @param commitId the name of the commit
+     * @param contextLines the number of context lines around changed lines of non-merge commits
+     * @return the printed commit as UTF-8 encoded bytes, except for file content in other encodings; never
+     *         <code>null</code>
+     * @throws IOException if reading the commit, its trees, or its files fails
+     */
+    byte[] show(ObjectId commitId, int contextLines) throws IOException {
+        byte[] data = objectDatabase.read(commitId, GitObject.TYPE_COMMIT);
+        return commitPrinter.print(new CommitObject(commitId, data), data, contextLines);
+    }
+
+    /**
+     * Prints the diffs of the given changed files of the given non-merge commit in the same format as
+     * <code>git show -U100000 --no-renames --format= &lt;commit&gt; -- &lt;paths&gt;</code>.
+     *
+     * @param commitId the name of the commit
+     * @param paths the paths of the changed files to be printed relative to the root of the repository
+     * @return the printed diffs as UTF-8 encoded bytes, except for file content in other encodings; never
+     *         <code>null</code>
+     * @throws IOException if the commit is a merge commit or reading the commit, its trees, or its files fails
+     */
+    byte[] showPatches(ObjectId commitId, Set<String> paths) throws IOException {
+        byte[] data = objectDatabase.read(commitId, GitObject.TYPE_COMMIT);
+        return commitPrinter.printPatches(new CommitObject(commitId, data), paths);
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * The diffs are printed via {@link #showPatches(ObjectId, Set)} and decoded as UTF-8.
+     */
+    @Override
+    public void read(String commitNumber, List<String> paths, Consumer<String> lineConsumer) throws IOException {
+        ObjectId commitId = resolveCommit(commitNumber);
+        if (commitId == null) {
+            throw new IOException("Commit " + commitNumber + " not available");
+        }
+        byte[] patches = showPatches(commitId, new HashSet<String>(paths));
+        try (Reader patchesReader = new InputStreamReader(new ByteArrayInputStream(patches),
+                GitProcess.OUTPUT_CHARSET)) {
+            LineScanner.forEachLine(patchesReader, lineConsumer);
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+
+/**
+ * This class extracts multiple repositories concurrently using a fixed number of repository threads. Their extractions
+ * share a bounded pool of worker threads, which serve the repositories in round-robin order.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class RepositoryScheduler {
+
+    /**
+     * The prefix of the names of the repository threads.
+     */
+    private static final String REPOSITORY_THREAD_PREFIX = "GitCommitExtractor-repository-";
+
+    /**
+     * The name of the directory or file in a non-bare repository, which identifies that repository.
+     */
+    private static final String GIT_DIRECTORY_NAME = ".git";
+
+    /**
+     * The number of repositories extracted concurrently.
+     */
+    private int repositoryThreads;
+
+    /**
+     * The number of worker threads shared by the extractions of all repositories.
+     */
+    private int workerThreads;
+
+    /**
+     * The lanes with at least one task waiting for a worker thread in the order, in which the worker threads serve
+     * them. Access to this queue and to the tasks of the lanes is synchronized on this queue.
+     */
+    private Deque<Lane> readyLanes;
+
+    /**
+     * Constructs a new {@link RepositoryScheduler}.
+     *
+     * @param repositoryThreads the number of repositories extracted concurrently; must be greater than <code>0</code>
+     * @param workerThreads the number of worker threads shared by the extractions of all repositories; if this number
+     *        is less than <code>2</code>, the extractions do not use shared worker threads
+     */
+    RepositoryScheduler(int repositoryThreads, int workerThreads) {
+        this.repositoryThreads = repositoryThreads;
+        this.workerThreads = workerThreads;
+        readyLanes = new ArrayDeque<Lane>();
+    }
+
+    /**
+     * Returns the repositories defined by the given input. If the input is a directory, the repositories are its
+     * subdirectories, which are Git repositories, in the order of their names. Otherwise, the input is a file listing
+     * the paths of the repositories, one path per line; relative paths are resolved against the directory of that
+     * file and empty lines are ignored.
+     *
+     * @param repositoryInput the directory containing the repositories or the file listing them
+     * @return the repositories defined by the given input; never <code>null</code>, but may be <i>empty</i>
+     * @throws IOException if listing the content of the directory or reading the file failed
+     */
+    static List<File> findRepositories(File repositoryInput) throws IOException {
+        List<File> repositories = new ArrayList<File>();
+        if (repositoryInput.isDirectory()) {
+            File[] subdirectories = repositoryInput.listFiles(File::isDirectory);
+            if (subdirectories == null) {
+                throw new IOException("Listing the content of " + repositoryInput + " failed");
+            }
+            Arrays.sort(subdirectories);
+            for (File subdirectory : subdirectories) {
+                if (isRepository(subdirectory)) {
+                    repositories.add(subdirectory);
+                }
+            }
+        } else {
+            File baseDirectory = repositoryInput.getAbsoluteFile().getParentFile();
+            for (String line : Files.readAllLines(repositoryInput.toPath(), StandardCharsets.UTF_8)) {
+                String repositoryPath = line.trim();
+                if (!repositoryPath.isEmpty()) {
+                    File repository = new File(repositoryPath);
+                    if (!repository.isAbsolute()) {
+                        repository = new File(baseDirectory, repositoryPath);
+                    }
+                    repositories.add(repository);
+                }
+            }
+        }
+        return repositories;
+    }
+
+    /**
+     * Checks whether the given directory is a Git repository. This is the case, if it contains a
+     * {@link #GIT_DIRECTORY_NAME} or if it is a bare repository containing a <tt>HEAD</tt> file and an
+     * <tt>objects</tt> directory.
+     *
+     * @param directory the directory to be checked
+     * @return <code>true</code>, if the directory is a Git repository; <code>false</code> otherwise
+     */
+    private static boolean isRepository(File directory) {
+        return new File(directory, GIT_DIRECTORY_NAME).exists()
+                || (new File(directory, "HEAD").isFile() && new File(directory, "objects").isDirectory());
+    }
+
+    /**
+     * Extracts the given repositories concurrently using the given {@link BiPredicate}, which is called by the
+     * repository threads. Its second argument is the lane of the repository, an {@link Executor} running tasks on
+     * the shared worker threads, or <code>null</code>, if the extractions do not use shared worker threads. This
+     * method returns after all extractions are finished.
+     *
+     * @param repositories the repositories to be extracted; should never be <code>null</code>
+     * @param repositoryExtractor the {@link BiPredicate} extracting a single repository, which returns
+     *        <code>true</code>, if the extraction was successful, or <code>false</code> otherwise
+     * @return the number of repositories, for which the extraction was not successful
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the extractions
+     */
+    int extract(List<File> repositories, BiPredicate<File, Executor> repositoryExtractor)
+            throws InterruptedException {
+        int failedRepositories = 0;
+        ExecutorService repositoryExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(repositoryThreads, repositories.size())),
+                new CommitWorkerPool.WorkerThreadFactory(REPOSITORY_THREAD_PREFIX));
+        ExecutorService workers = null;
+        if (workerThreads > 1) {
+            workers = Executors.newFixedThreadPool(workerThreads,
+                    new CommitWorkerPool.WorkerThreadFactory(CommitWorkerPool.WORKER_THREAD_PREFIX));
+        }
+        try {
+            List<Future<Boolean>> extractions = new ArrayList<Future<Boolean>>(repositories.size());
+            for (File repository : repositories) {
+                Lane lane = workers == null ? null : new Lane(workers);
+                extractions.add(repositoryExecutor.submit(() -> repositoryExtractor.test(repository, lane)));
+            }
+            for (Future<Boolean> extraction : extractions) {
+                if (!getResult(extraction)) {
+                    failedRepositories++;
+                }
+            }
+        } finally {
+            repositoryExecutor.shutdownNow();
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+        return failedRepositories;
+    }
+
+    /**
+     * Waits for the given extraction of a repository to finish and returns its result.
+     *
+     * @param extraction the {@link Future} of the extraction of a single repository
+     * @return <code>true</code>, if the extraction was successful; <code>false</code> otherwise
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the extraction to finish
+     */
+    private static boolean getResult(Future<Boolean> extraction) throws InterruptedException {
+        boolean extractionSuccessful = false;
+        try {
+            extractionSuccessful = extraction.get();
+        } catch (ExecutionException e) {
+            // The extraction predicate does not throw checked exceptions, hence, the cause is unchecked
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        return extractionSuccessful;
+    }
+
+    /**
+     * Runs the next task of the first lane in the {@link #readyLanes}. If that lane has further tasks, it is moved to
+     * the end of the ready lanes. Each task submitted to a lane also submits one call of this method to the
+     * shared worker threads. Hence, a lane with tasks is always available, when this method is called.
+     */
+    private void runNextTask() {
+        Runnable task;
+        synchronized (readyLanes) {
+            Lane lane = readyLanes.removeFirst();
+            task = lane.tasks.removeFirst();
+            if (!lane.tasks.isEmpty()) {
+                readyLanes.addLast(lane);
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * The lane of the extraction of a single repository, which queues the tasks of that extraction until a shared
+     * worker thread runs them.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private class Lane implements Executor {
+
+        /**
+         * The tasks of this lane waiting for a worker thread in the order of their submission.
+         */
+        private Deque<Runnable> tasks;
+
+        /**
+         * The {@link ExecutorService} running the tasks of all lanes on the shared worker threads.
+         */
+        private ExecutorService workers;
+
+        /**
+         * Constructs a new {@link Lane}.
+         *
+         * @param workers the {@link ExecutorService} running the tasks of all lanes on the shared worker threads
+         */
+        Lane(ExecutorService workers) {
+            this.workers = workers;
+            tasks = new ArrayDeque<Runnable>();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void execute(Runnable task) {
+            synchronized (readyLanes) {
+                if (tasks.isEmpty()) {
+                    readyLanes.addLast(this);
+                }
+                tasks.addLast(task);
+            }
+            workers.execute(RepositoryScheduler.this::runNextTask);
+        }
+
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * This class selects the commits of a single shard and describes this shard in a manifest file. The shards are
+ * contiguous slices of similar weight as computed by the {@link ShardPlanner}, such that independent processes select
+ * disjoint slices covering all commits. The manifest file contains the following lines:
+ * <ul>
+ * <li><tt>repository &lt;name&gt;</tt>: the name of the directory of the repository</li>
+ * <li><tt>shard &lt;index&gt; &lt;count&gt;</tt>: the index of this shard and the number of shards</li>
+ * <li><tt>commits &lt;count&gt; &lt;fingerprint&gt;</tt>: the number of commits of all shards and the SHA-1 hash of
+ * their full commit numbers</li>
+ * <li><tt>range &lt;start&gt; &lt;end&gt;</tt>: the positions of the first commit of this shard and after its last
+ * commit</li>
+ * <li><tt>weight &lt;shard&gt; &lt;total&gt;</tt>: the weight of this shard and of all commits</li>
+ * <li><tt>delivered</tt>, <tt>skipped</tt>, <tt>failed &lt;count&gt;</tt>: the commit counts of this shard</li>
+ * <li><tt>status completed|failed</tt>: whether the extraction of this shard was successful</li>
+ * </ul>
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ShardManifest {
+
+    /**
+     * The prefix of the line defining the name of the repository in the manifest file.
+     */
+    private static final String REPOSITORY_PREFIX = "repository ";
+
+    /**
+     * The prefix of the line defining the index of the shard and the number of shards in the manifest file.
+     */
+    private static final String SHARD_PREFIX = "shard ";
+
+    /**
+     * The prefix of the line defining the number of commits of all shards and their fingerprint in the manifest file.
+     */
+    private static final String COMMITS_PREFIX = "commits ";
+
+    /**
+     * The prefix of the line defining the range of commits of the shard in the manifest file.
+     */
+    private static final String RANGE_PREFIX = "range ";
+
+    /**
+     * The prefix of the line defining the weight of the shard and of all shards in the manifest file.
+     */
+    private static final String WEIGHT_PREFIX = "weight ";
+
+    /**
+     * The prefix of the line defining the number of commits delivered by the shard in the manifest file.
+     */
+    private static final String DELIVERED_PREFIX = "delivered ";
+
+    /**
+     * The prefix of the line defining the number of commits skipped by the shard in the manifest file.
+     */
+    private static final String SKIPPED_PREFIX = "skipped ";
+
+    /**
+     * The prefix of the line defining the number of commits failed by the shard in the manifest file.
+     */
+    private static final String FAILED_PREFIX = "failed ";
+
+    /**
+     * The prefix of the line defining the status of the extraction of the shard in the manifest file.
+     */
+    private static final String STATUS_PREFIX = "status ";
+
+    /**
+     * The status of a shard, which was extracted successfully.
+     */
+    private static final String COMPLETED_STATUS = "completed";
+
+    /**
+     * The status of a shard, which was not extracted successfully.
+     */
+    private static final String FAILED_STATUS = "failed";
+
+    /**
+     * The index of this shard starting at <code>0</code>.
+     */
+    private int shardIndex;
+
+    /**
+     * The number of shards.
+     */
+    private int shardCount;
+
+    /**
+     * The number of commits of all shards.
+     */
+    private int commitCount;
+
+    /**
+     * The SHA-1 hash of the full commit numbers of all shards in hexadecimal notation.
+     */
+    private String fingerprint;
+
+    /**
+     * The position of the first commit of this shard in the ordered set of commits of all shards.
+     */
+    private int rangeStart;
+
+    /**
+     * The position after the last commit of this shard in the ordered set of commits of all shards.
+     */
+    private int rangeEnd;
+
+    /**
+     * The weight of the commits of this shard.
+     */
+    private long shardWeight;
+
+    /**
+     * The weight of the commits of all shards.
+     */
+    private long totalWeight;
+
+    /**
+     * Constructs a new {@link ShardManifest} for the shard with the given index. The commits of this shard are
+     * selected by {@link #assign(List, long[])}.
+     *
+     * @param shardIndex the index of the shard starting at <code>0</code>
+     * @param shardCount the number of shards
+     */
+    ShardManifest(int shardIndex, int shardCount) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Selects the commits of this shard from the given ordered commits. Each commit belongs to the shard, which
+     * contains the center of its weight, if the total weight is divided into equal parts for all shards. As a commit
+     * only belongs to a shard, if the center of its weight is beyond the center of the weight of the previous commit,
+     * the shards are contiguous slices.
+     *
+     * @param fullCommitNumbers the full commit numbers (SHAs) of the commits of all shards in the order of extraction
+     * @param weights the weights of the given commits as computed by the {@link ShardPlanner}
+     */
+    void assign(List<String> fullCommitNumbers, long[] weights) {
+        commitCount = fullCommitNumbers.size();
+        fingerprint = getFingerprint(fullCommitNumbers);
+        totalWeight = 0;
+        for (long weight : weights) {
+            totalWeight += weight;
+        }
+        rangeStart = 0;
+        rangeEnd = commitCount;
+        shardWeight = 0;
+        long previousWeight = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double weightCenter = previousWeight + weights[i] / 2.0;
+            int commitShard = (int) Math.min(shardCount - 1, (long) (weightCenter * shardCount / totalWeight));
+            if (commitShard < shardIndex) {
+                rangeStart = i + 1;
+            } else if (commitShard == shardIndex) {
+                shardWeight += weights[i];
+            } else if (rangeEnd == commitCount) {
+                rangeEnd = i;
+            }
+            previousWeight += weights[i];
+        }
+        rangeEnd = Math.max(rangeStart, rangeEnd);
+    }
+
+    /**
+     * Returns the SHA-1 hash of the given full commit numbers in hexadecimal notation.
+     *
+     * @param fullCommitNumbers the full commit numbers (SHAs) of the commits of all shards in the order of extraction
+     * @return the fingerprint of the given commit numbers; never <code>null</code>
+     */
+    private static String getFingerprint(List<String> fullCommitNumbers) {
+        StringBuilder fingerprintBuilder = new StringBuilder();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String fullCommitNumber : fullCommitNumbers) {
+                digest.update((fullCommitNumber + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            for (byte hashByte : digest.digest()) {
+                fingerprintBuilder.append(String.format("%02x", hashByte));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // Each Java platform is required to support SHA-1, but fall back to the hash code of the list anyway
+            fingerprintBuilder.append(String.format("%08x", fullCommitNumbers.hashCode()));
+        }
+        return fingerprintBuilder.toString();
+    }
+
+    /**
+     * Returns the position of the first commit of this shard in the ordered set of commits of all shards.
+     *
+     * @return the start of the range of this shard
+     */
+    int getRangeStart() {
+        return rangeStart;
+    }
+
+    /**
+     * Returns the position after the last commit of this shard in the ordered set of commits of all shards.
+     *
+     * @return the end of the range of this shard; equal to the {@link #getRangeStart()}, if this shard is <i>empty</i>
+     */
+    int getRangeEnd() {
+        return rangeEnd;
+    }
+
+    /**
+     * Returns a description of this shard for logging.
+     *
+     * @return the description of this shard; never <code>null</code>
+     */
+    String getDescription() {
+        return "Shard " + shardIndex + " of " + shardCount + ": commits " + rangeStart + " to " + rangeEnd + " of "
+                + commitCount + " with weight " + shardWeight + " of " + totalWeight;
+    }
+
+    /**
+     * Returns the manifest file of the shard with the given index in the given directory.
+     *
+     * @param shardDirectory the directory containing the manifest files of all shards
+     * @param repositoryName the name of the directory of the repository
+     * @param shardIndex the index of the shard starting at <code>0</code>
+     * @param shardCount the number of shards
+     * @return the manifest file; never <code>null</code>
+     */
+    static File getFile(File shardDirectory, String repositoryName, int shardIndex, int shardCount) {
+        return new File(shardDirectory, repositoryName + ".shard-" + shardIndex + "-of-" + shardCount + ".manifest");
+    }
+
+    /**
+     * Writes this manifest to the given file. The content is written to a temporary file first, which is then moved
+     * to the given file. Hence, the manifest file is never left incomplete.
+     *
+     * @param manifestFile the manifest file to be written as returned by {@link #getFile(File, String, int, int)}
+     * @param repositoryName the name of the directory of the repository
+     * @param metrics the {@link ExtractionMetrics} of the extraction of this shard
+     * @param extractionSuccessful <code>true</code>, if the extraction of this shard was successful; <code>false</code>
+     *        otherwise
+     * @throws IOException if writing or moving the temporary file fails
+     */
+    void write(File manifestFile, String repositoryName, ExtractionMetrics metrics, boolean extractionSuccessful)
+            throws IOException {
+        StringBuilder manifestBuilder = new StringBuilder();
+        manifestBuilder.append(REPOSITORY_PREFIX).append(repositoryName).append('\n');
+        manifestBuilder.append(SHARD_PREFIX).append(shardIndex).append(' ').append(shardCount).append('\n');
+        manifestBuilder.append(COMMITS_PREFIX).append(commitCount).append(' ').append(fingerprint).append('\n');
+        manifestBuilder.append(RANGE_PREFIX).append(rangeStart).append(' ').append(rangeEnd).append('\n');
+        manifestBuilder.append(WEIGHT_PREFIX).append(shardWeight).append(' ').append(totalWeight).append('\n');
+        manifestBuilder.append(DELIVERED_PREFIX).append(metrics.getDeliveredCommits()).append('\n');
+        manifestBuilder.append(SKIPPED_PREFIX).append(metrics.getSkippedCommits()).append('\n');
+        manifestBuilder.append(FAILED_PREFIX).append(metrics.getFailedCommits()).append('\n');
+        manifestBuilder.append(STATUS_PREFIX).append(extractionSuccessful ? COMPLETED_STATUS : FAILED_STATUS)
+                .append('\n');
+        File shardDirectory = manifestFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(shardDirectory.toPath());
+        File temporaryFile = File.createTempFile(manifestFile.getName(), ".tmp", shardDirectory);
+        try {
+            Files.write(temporaryFile.toPath(), manifestBuilder.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    /**
+     * Checks whether the given manifest files of all shards of an extraction cover each commit exactly once.
+     *
+     * @param manifestFiles the manifest files of all shards ordered by their index
+     * @return the description of the first problem found or <code>null</code>, if the shards cover each commit
+     *         exactly once
+     * @throws IOException if reading a manifest file fails
+     */
+    static String verify(List<File> manifestFiles) throws IOException {
+        String problem = null;
+        String expectedCommits = null;
+        int expectedRangeStart = 0;
+        for (int i = 0; problem == null && i < manifestFiles.size(); i++) {
+            File manifestFile = manifestFiles.get(i);
+            String shard = null;
+            String commits = null;
+            String range = null;
+            String status = null;
+            for (String manifestLine : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                if (manifestLine.startsWith(SHARD_PREFIX)) {
+                    shard = manifestLine.substring(SHARD_PREFIX.length());
+                } else if (manifestLine.startsWith(COMMITS_PREFIX)) {
+                    commits = manifestLine.substring(COMMITS_PREFIX.length());
+                } else if (manifestLine.startsWith(RANGE_PREFIX)) {
+                    range = manifestLine.substring(RANGE_PREFIX.length());
+                } else if (manifestLine.startsWith(STATUS_PREFIX)) {
+                    status = manifestLine.substring(STATUS_PREFIX.length());
+                }
+            }
+            if (expectedCommits == null) {
+                expectedCommits = commits;
+            }
+            if (!(i + " " + manifestFiles.size()).equals(shard)) {
+                problem = manifestFile + " does not describe shard " + i + " of " + manifestFiles.size();
+            } else if (commits == null || !commits.equals(expectedCommits)) {
+                problem = manifestFile + " describes a different set of commits than the first shard";
+            } else if (range == null || !range.startsWith(expectedRangeStart + " ")) {
+                problem = manifestFile + " does not start at commit " + expectedRangeStart;
+            } else if (!COMPLETED_STATUS.equals(status)) {
+                problem = manifestFile + " describes an incomplete extraction";
+            } else {
+                try {
+                    expectedRangeStart = Integer.parseInt(range.substring(range.indexOf(' ') + 1));
+                } catch (NumberFormatException e) {
+                    problem = manifestFile + " defines an invalid range";
+                }
+            }
+        }
+        if (problem == null && expectedCommits != null
+                && !expectedCommits.startsWith(expectedRangeStart + " ")) {
+            problem = "The shards end at commit " + expectedRangeStart + " instead of covering all commits";
+        }
+        return problem;
+    }
+
+}
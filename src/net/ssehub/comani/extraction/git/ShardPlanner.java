@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class weighs commits by the sizes of all file versions involved in their diffs plus a {@link
+ * #COMMIT_BASE_WEIGHT}. The file versions and their sizes are read from single <code>git diff-tree --raw</code> and
+ * <code>git cat-file --batch-check</code> processes without computing any diffs.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class ShardPlanner {
+
+    /**
+     * The character starting the line of the {@link #GIT_COMMIT_OBJECTS_COMMAND}, which precedes the changed files of
+     * a commit.
+     */
+    private static final char COMMIT_MARKER = '@';
+
+    /**
+     * The command for printing the object names of the file versions changed by each commit, which is identified by a
+     * full commit number in a line of the standard input stream. Merge commits are compared to all parents like by the
+     * commands printing combined diffs.<br>
+     * <br>
+     * Command: <code>git diff-tree --stdin --always --root --cc --raw --no-abbrev --no-renames --format=@%H</code>
+     */
+    private static final String[] GIT_COMMIT_OBJECTS_COMMAND = {"git", "diff-tree", "--stdin", "--always", "--root",
+        "--cc", "--raw", "--no-abbrev", "--no-renames", "--format=" + COMMIT_MARKER + "%H"};
+
+    /**
+     * The command for printing the size of each object identified by a line of the standard input stream. For each
+     * input line, which does not identify an object, the input line followed by "<tt>missing</tt>" is printed.<br>
+     * <br>
+     * Command: <code>git cat-file --batch-check=%(objectsize)</code>
+     */
+    private static final String[] GIT_OBJECT_SIZE_COMMAND = {"git", "cat-file", "--batch-check=%(objectsize)"};
+
+    /**
+     * The character starting the lines of the {@link #GIT_COMMIT_OBJECTS_COMMAND}, which describe a changed file.
+     * Merge commits repeat this character once per parent.
+     */
+    private static final char RAW_DIFF_MARKER = ':';
+
+    /**
+     * The object name printed for missing file versions, like the old version of an added file.
+     */
+    private static final String ZERO_OBJECT_NAME = "0000000000000000000000000000000000000000";
+
+    /**
+     * The weight of each commit in addition to the sizes of its changed files. It approximates the costs independent
+     * of the changes, like printing the commit header or starting a Git process for the commit.
+     */
+    static final long COMMIT_BASE_WEIGHT = 4096;
+
+    /**
+     * The {@link File} defining the repository containing the commits to be weighed.
+     */
+    private File repositoryDirectory;
+
+    /**
+     * The pathspecs restricting the changed files considered for the weights, like the
+     * {@link PathFilter#getPathspecs()}; may be <i>empty</i>.
+     */
+    private String[] pathspecs;
+
+    /**
+     * Constructs a new {@link ShardPlanner} for the given repository.
+     *
+     * @param repositoryDirectory the {@link File} defining the repository containing the commits to be weighed
+     * @param pathspecs the pathspecs restricting the changed files considered for the weights; may be <i>empty</i>
+     */
+    ShardPlanner(File repositoryDirectory, String[] pathspecs) {
+        this.repositoryDirectory = repositoryDirectory;
+        this.pathspecs = pathspecs;
+    }
+
+    /**
+     * Weighs the commits identified by the given full commit numbers.
+     *
+     * @param fullCommitNumbers the full commit numbers (SHAs) of the commits to be weighed; should never be
+     *        <code>null</code>
+     * @return the weights of the given commits in the same order; never <code>null</code>
+     * @throws IOException if executing one of the Git processes or reading their output fails
+     */
+    long[] weigh(List<String> fullCommitNumbers) throws IOException {
+        long[] weights = new long[fullCommitNumbers.size()];
+        Arrays.fill(weights, COMMIT_BASE_WEIGHT);
+        Queue<Integer> pendingObjects = new ConcurrentLinkedQueue<Integer>();
+        GitProcess sizeProcess = new GitProcess(GIT_OBJECT_SIZE_COMMAND, repositoryDirectory);
+        ObjectSizeReader sizeReader = new ObjectSizeReader(sizeProcess, pendingObjects, weights);
+        Thread sizeReaderThread = new Thread(sizeReader, "ShardPlanner-sizes");
+        sizeReaderThread.setDaemon(true);
+        sizeReaderThread.start();
+        String[] objectsCommand = GIT_COMMIT_OBJECTS_COMMAND;
+        if (pathspecs.length > 0) {
+            objectsCommand = Arrays.copyOf(objectsCommand, objectsCommand.length + pathspecs.length + 1);
+            objectsCommand[GIT_COMMIT_OBJECTS_COMMAND.length] = "--";
+            System.arraycopy(pathspecs, 0, objectsCommand, GIT_COMMIT_OBJECTS_COMMAND.length + 1, pathspecs.length);
+        }
+        GitProcess objectsProcess = null;
+        int commitCounter = 0;
+        try (Writer sizeWriter = new BufferedWriter(new OutputStreamWriter(sizeProcess.getStandardInput(),
+                StandardCharsets.US_ASCII))) {
+            objectsProcess = new GitProcess(objectsCommand, repositoryDirectory);
+            objectsProcess.writeInput(fullCommitNumbers);
+            try (BufferedReader objectsReader = new BufferedReader(objectsProcess.getStandardOutputReader())) {
+                String objectsLine = objectsReader.readLine();
+                while (objectsLine != null) {
+                    if (!objectsLine.isEmpty() && objectsLine.charAt(0) == COMMIT_MARKER) {
+                        commitCounter++;
+                    } else if (!objectsLine.isEmpty() && objectsLine.charAt(0) == RAW_DIFF_MARKER
+                            && commitCounter > 0 && commitCounter <= weights.length) {
+                        requestObjectSizes(objectsLine, commitCounter - 1, pendingObjects, sizeWriter);
+                    }
+                    objectsLine = objectsReader.readLine();
+                }
+            }
+        } catch (IOException e) {
+            if (objectsProcess != null) {
+                objectsProcess.destroy();
+            }
+            sizeProcess.destroy();
+            throw e;
+        }
+        if (!objectsProcess.waitFor()) {
+            throw new IOException("Executing the command \"" + String.join(" ", objectsCommand)
+                    + "\" was not successful: " + objectsProcess.getErrorOutputData());
+        }
+        if (commitCounter != weights.length) {
+            throw new IOException("Weighing " + weights.length + " commits returned " + commitCounter + " commits");
+        }
+        sizeReader.join(sizeReaderThread);
+        return weights;
+    }
+
+    /**
+     * Writes the object names of the file versions described by the given raw diff line to the
+     * {@link #GIT_OBJECT_SIZE_COMMAND} process. For each object name, the index of the commit, to which its size
+     * belongs, is added to the given queue before writing the name.
+     *
+     * @param rawDiffLine the line of the {@link #GIT_COMMIT_OBJECTS_COMMAND} describing a changed file, like
+     *        "<tt>:100644 100644 &lt;old&gt; &lt;new&gt; M&lt;tab&gt;path</tt>"
+     * @param commitIndex the index of the commit changing the file
+     * @param pendingObjects the queue of the commit indexes of all object names written, but not read yet
+     * @param sizeWriter the {@link Writer} for the standard input stream of the {@link #GIT_OBJECT_SIZE_COMMAND}
+     * @throws IOException if writing fails
+     */
+    private static void requestObjectSizes(String rawDiffLine, int commitIndex, Queue<Integer> pendingObjects,
+            Writer sizeWriter) throws IOException {
+        int tabIndex = rawDiffLine.indexOf('\t');
+        String[] fields = rawDiffLine.substring(0, tabIndex == -1 ? rawDiffLine.length() : tabIndex).split(" ");
+        for (String field : fields) {
+            if (field.length() == ZERO_OBJECT_NAME.length() && !field.equals(ZERO_OBJECT_NAME)) {
+                pendingObjects.add(commitIndex);
+                sizeWriter.write(field);
+                sizeWriter.write('\n');
+            }
+        }
+    }
+
+    /**
+     * This class reads the output of the {@link ShardPlanner#GIT_OBJECT_SIZE_COMMAND} while the object names are
+     * written to that process. Each size is added to the weight of the commit, which is the next one in the queue of
+     * pending objects. The sizes of missing objects, like the commits of submodules, are ignored.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class ObjectSizeReader implements Runnable {
+
+        /**
+         * The Git process executing the {@link ShardPlanner#GIT_OBJECT_SIZE_COMMAND}.
+         */
+        private GitProcess sizeProcess;
+
+        /**
+         * The queue of the commit indexes of all object names written to the {@link #sizeProcess}, but not read yet.
+         */
+        private Queue<Integer> pendingObjects;
+
+        /**
+         * The weights of the commits, to which the sizes are added.
+         */
+        private long[] weights;
+
+        /**
+         * The exception thrown while reading the sizes or <code>null</code>, if no exception occurred.
+         */
+        private IOException readException;
+
+        /**
+         * Constructs a new {@link ObjectSizeReader}.
+         *
+         * @param sizeProcess the Git process executing the {@link ShardPlanner#GIT_OBJECT_SIZE_COMMAND}
+         * @param pendingObjects the queue of the commit indexes of all object names written to the process
+         * @param weights the weights of the commits, to which the sizes are added
+         */
+        ObjectSizeReader(GitProcess sizeProcess, Queue<Integer> pendingObjects, long[] weights) {
+            this.sizeProcess = sizeProcess;
+            this.pendingObjects = pendingObjects;
+            this.weights = weights;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            try (BufferedReader sizeReader = new BufferedReader(sizeProcess.getStandardOutputReader())) {
+                String sizeLine = sizeReader.readLine();
+                while (sizeLine != null) {
+                    Integer commitIndex = pendingObjects.poll();
+                    if (commitIndex != null && isNumber(sizeLine)) {
+                        weights[commitIndex] += Long.parseLong(sizeLine);
+                    }
+                    sizeLine = sizeReader.readLine();
+                }
+            } catch (IOException | NumberFormatException e) {
+                readException = new IOException("Reading object sizes failed: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Checks whether the given line only consists of digits.
+         *
+         * @param line the line to be checked
+         * @return <code>true</code>, if the line is a non-negative number; <code>false</code> otherwise
+         */
+        private static boolean isNumber(String line) {
+            boolean number = !line.isEmpty();
+            for (int i = 0; number && i < line.length(); i++) {
+                number = Character.isDigit(line.charAt(i));
+            }
+            return number;
+        }
+
+        /**
+         * Waits for the given thread executing this reader and for the termination of the {@link #sizeProcess}.
+         *
+         * @param readerThread the thread executing this reader
+         * @throws IOException if reading the sizes failed, the process was not successful, or waiting was interrupted
+         */
+        private void join(Thread readerThread) throws IOException {
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sizeProcess.destroy();
+                throw new IOException("Waiting for the object sizes interrupted", e);
+            }
+            if (readException != null) {
+                throw readException;
+            }
+            if (!sizeProcess.waitFor()) {
+                throw new IOException("Executing the command \"" + String.join(" ", GIT_OBJECT_SIZE_COMMAND)
+                        + "\" was not successful: " + sizeProcess.getErrorOutputData());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,441 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class computes the changed files between two trees read by the {@link ObjectDatabase}. Like
+ * <code>git diff-tree -r --no-renames</code>, both trees are walked recursively in the order of their entries and
+ * each file, symbolic link, or submodule, which is added, deleted, or changed, results in a {@link Change}. The
+ * changes are returned in the same order as Git prints them.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class TreeDiff {
+
+    /**
+     * The mode of (sub-)trees.
+     */
+    static final int MODE_TREE = 0040000;
+
+    /**
+     * The mode of regular, non-executable files.
+     */
+    static final int MODE_FILE = 0100644;
+
+    /**
+     * The mode of regular, executable files.
+     */
+    static final int MODE_EXECUTABLE_FILE = 0100755;
+
+    /**
+     * The mode of symbolic links.
+     */
+    static final int MODE_SYMLINK = 0120000;
+
+    /**
+     * The mode of submodules (gitlinks).
+     */
+    static final int MODE_GITLINK = 0160000;
+
+    /**
+     * The mask extracting the type of a mode, like {@link #MODE_TREE}.
+     */
+    static final int MODE_TYPE_MASK = 0170000;
+
+    /**
+     * This class represents a single changed file between two trees.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    static final class Change {
+
+        /**
+         * The path of the changed file relative to the root of the trees.
+         */
+        private byte[] path;
+
+        /**
+         * The mode of the file in the old tree or <code>0</code>, if the file was added.
+         */
+        private int oldMode;
+
+        /**
+         * The object name of the file in the old tree or {@link ObjectId#ZERO}, if the file was added.
+         */
+        private ObjectId oldId;
+
+        /**
+         * The mode of the file in the new tree or <code>0</code>, if the file was deleted.
+         */
+        private int newMode;
+
+        /**
+         * The object name of the file in the new tree or {@link ObjectId#ZERO}, if the file was deleted.
+         */
+        private ObjectId newId;
+
+        /**
+         * Constructs a new {@link Change}.
+         *
+         * @param path the path of the changed file
+         * @param oldMode the mode of the file in the old tree or <code>0</code>, if the file was added
+         * @param oldId the object name of the file in the old tree or {@link ObjectId#ZERO}, if the file was added
+         * @param newMode the mode of the file in the new tree or <code>0</code>, if the file was deleted
+         * @param newId the object name of the file in the new tree or {@link ObjectId#ZERO}, if the file was deleted
+         */
+        Change(byte[] path, int oldMode, ObjectId oldId, int newMode, ObjectId newId) {
+            this.path = path;
+            this.oldMode = oldMode;
+            this.oldId = oldId;
+            this.newMode = newMode;
+            this.newId = newId;
+        }
+
+        /**
+         * Returns the path of the changed file.
+         *
+         * @return the path relative to the root of the trees as raw bytes; never <code>null</code>; the array must
+         *         not be changed
+         */
+        byte[] getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the mode of the file in the old tree.
+         *
+         * @return the mode, like {@link #MODE_FILE}, or <code>0</code>, if the file was added
+         */
+        int getOldMode() {
+            return oldMode;
+        }
+
+        /**
+         * Returns the object name of the file in the old tree.
+         *
+         * @return the object name or {@link ObjectId#ZERO}, if the file was added; never <code>null</code>
+         */
+        ObjectId getOldId() {
+            return oldId;
+        }
+
+        /**
+         * Returns the mode of the file in the new tree.
+         *
+         * @return the mode, like {@link #MODE_FILE}, or <code>0</code>, if the file was deleted
+         */
+        int getNewMode() {
+            return newMode;
+        }
+
+        /**
+         * Returns the object name of the file in the new tree.
+         *
+         * @return the object name or {@link ObjectId#ZERO}, if the file was deleted; never <code>null</code>
+         */
+        ObjectId getNewId() {
+            return newId;
+        }
+
+    }
+
+    /**
+     * This class iterates the entries of a single tree object.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static final class TreeIterator {
+
+        /**
+         * The content of the tree object.
+         */
+        private byte[] data;
+
+        /**
+         * The index of the next entry in the {@link #data}.
+         */
+        private int position;
+
+        /**
+         * The canonical mode of the current entry or <code>-1</code>, if all entries were iterated.
+         */
+        private int mode;
+
+        /**
+         * The index of the first byte of the name of the current entry in the {@link #data}.
+         */
+        private int nameStart;
+
+        /**
+         * The index of the null byte terminating the name of the current entry in the {@link #data}.
+         */
+        private int nameEnd;
+
+        /**
+         * Constructs a new {@link TreeIterator} positioned at the first entry of the given tree.
+         *
+         * @param data the content of the tree object; an <i>empty</i> array for an absent tree
+         * @throws IOException if the first entry is invalid
+         */
+        private TreeIterator(byte[] data) throws IOException {
+            this.data = data;
+            position = 0;
+            next();
+        }
+
+        /**
+         * Moves this iterator to the next entry.
+         *
+         * @throws IOException if the next entry is invalid
+         */
+        private void next() throws IOException {
+            if (position >= data.length) {
+                mode = -1;
+            } else {
+                int rawMode = 0;
+                int index = position;
+                while (index < data.length && data[index] >= '0' && data[index] <= '7') {
+                    rawMode = (rawMode << 3) + (data[index++] - '0');
+                }
+                if (index == position || index >= data.length || data[index] != ' ') {
+                    throw new IOException("Invalid tree entry mode");
+                }
+                nameStart = index + 1;
+                nameEnd = CommitObject.indexOf(data, (byte) 0, nameStart);
+                if (nameEnd == nameStart || nameEnd + 1 + ObjectId.RAW_LENGTH > data.length) {
+                    throw new IOException("Invalid tree entry");
+                }
+                mode = canonicalizeMode(rawMode);
+                position = nameEnd + 1 + ObjectId.RAW_LENGTH;
+            }
+        }
+
+        /**
+         * Checks whether this iterator is positioned at an entry.
+         *
+         * @return <code>true</code>, if there is a current entry; <code>false</code>, if all entries were iterated
+         */
+        private boolean hasEntry() {
+            return mode != -1;
+        }
+
+        /**
+         * Returns the object name of the current entry.
+         *
+         * @return the object name; never <code>null</code>
+         */
+        private ObjectId getObjectId() {
+            return ObjectId.fromRaw(data, nameEnd + 1);
+        }
+
+        /**
+         * Compares the current entry of this iterator with the current entry of the given iterator in the order of
+         * tree entries, in which the names of trees are compared as if they end with a "<tt>/</tt>". Iterators without
+         * current entries sort after all entries.
+         *
+         * @param other the other iterator
+         * @return a negative number, zero, or a positive number, if the current entry of this iterator is sorted
+         *         before, at the same position, or after the current entry of the other iterator
+         */
+        private int compareTo(TreeIterator other) {
+            int comparison;
+            if (!hasEntry()) {
+                comparison = other.hasEntry() ? 1 : 0;
+            } else if (!other.hasEntry()) {
+                comparison = -1;
+            } else {
+                int length = nameEnd - nameStart;
+                int otherLength = other.nameEnd - other.nameStart;
+                int commonLength = Math.min(length, otherLength);
+                comparison = 0;
+                for (int i = 0; comparison == 0 && i < commonLength; i++) {
+                    comparison = (data[nameStart + i] & 0xFF) - (other.data[other.nameStart + i] & 0xFF);
+                }
+                if (comparison == 0) {
+                    int character = (length > commonLength) ? data[nameStart + commonLength] & 0xFF
+                            : (mode == MODE_TREE ? '/' : 0);
+                    int otherCharacter = (otherLength > commonLength)
+                            ? other.data[other.nameStart + commonLength] & 0xFF
+                            : (other.mode == MODE_TREE ? '/' : 0);
+                    comparison = character - otherCharacter;
+                }
+            }
+            return comparison;
+        }
+
+        /**
+         * Returns the path of the current entry.
+         *
+         * @param basePath the path of the tree containing the entry including a trailing "<tt>/</tt>" or an
+         *        <i>empty</i> array for the root tree
+         * @return the path of the current entry; never <code>null</code>
+         */
+        private byte[] getPath(byte[] basePath) {
+            byte[] path = Arrays.copyOf(basePath, basePath.length + nameEnd - nameStart);
+            System.arraycopy(data, nameStart, path, basePath.length, nameEnd - nameStart);
+            return path;
+        }
+
+    }
+
+    /**
+     * The {@link ObjectDatabase} providing the trees to compare.
+     */
+    private ObjectDatabase objectDatabase;
+
+    /**
+     * Constructs a new {@link TreeDiff}.
+     *
+     * @param objectDatabase the {@link ObjectDatabase} providing the trees to compare
+     */
+    TreeDiff(ObjectDatabase objectDatabase) {
+        this.objectDatabase = objectDatabase;
+    }
+
+    /**
+     * Returns the canonical mode for the given mode of a tree entry in the same way as Git does: regular files are
+     * either executable or not, while all unknown types are treated as submodules.
+     *
+     * @param mode the mode as stored in a tree object
+     * @return the canonical mode, like {@link #MODE_FILE}
+     */
+    static int canonicalizeMode(int mode) {
+        int canonicalMode;
+        switch (mode & MODE_TYPE_MASK) {
+        case 0100000:
+            canonicalMode = ((mode & 0100) != 0) ? MODE_EXECUTABLE_FILE : MODE_FILE;
+            break;
+        case MODE_SYMLINK:
+            canonicalMode = MODE_SYMLINK;
+            break;
+        case MODE_TREE:
+            canonicalMode = MODE_TREE;
+            break;
+        default:
+            canonicalMode = MODE_GITLINK;
+            break;
+        }
+        return canonicalMode;
+    }
+
+    /**
+     * Computes the changes between the given trees.
+     *
+     * @param oldTreeId the name of the old tree or <code>null</code> for an empty tree, e.g., for root commits
+     * @param newTreeId the name of the new tree or <code>null</code> for an empty tree
+     * @return the changed files in the order of the tree entries; never <code>null</code> but may be <i>empty</i>
+     * @throws IOException if reading one of the trees fails
+     */
+    List<Change> diff(ObjectId oldTreeId, ObjectId newTreeId) throws IOException {
+        List<Change> changes = new ArrayList<Change>();
+        if (oldTreeId == null || !oldTreeId.equals(newTreeId)) {
+            diff(readTree(oldTreeId), readTree(newTreeId), new byte[0], changes);
+        }
+        return changes;
+    }
+
+    /**
+     * Reads the content of the tree with the given name.
+     *
+     * @param treeId the name of the tree or <code>null</code> for an empty tree
+     * @return the content of the tree; never <code>null</code>
+     * @throws IOException if reading the tree fails
+     */
+    private byte[] readTree(ObjectId treeId) throws IOException {
+        return (treeId == null) ? new byte[0] : objectDatabase.read(treeId, GitObject.TYPE_TREE);
+    }
+
+    /**
+     * Compares the entries of the given trees and adds all changes to the given list. Subtrees are compared
+     * recursively.
+     *
+     * @param oldTree the content of the old tree
+     * @param newTree the content of the new tree
+     * @param basePath the path of both trees including a trailing "<tt>/</tt>" or an <i>empty</i> array for the root
+     *        trees
+     * @param changes the list to add the changes to
+     * @throws IOException if reading a tree fails
+     */
+    private void diff(byte[] oldTree, byte[] newTree, byte[] basePath, List<Change> changes) throws IOException {
+        TreeIterator oldEntries = new TreeIterator(oldTree);
+        TreeIterator newEntries = new TreeIterator(newTree);
+        while (oldEntries.hasEntry() || newEntries.hasEntry()) {
+            int comparison = oldEntries.compareTo(newEntries);
+            if (comparison < 0) {
+                addEntry(oldEntries, basePath, true, changes);
+                oldEntries.next();
+            } else if (comparison > 0) {
+                addEntry(newEntries, basePath, false, changes);
+                newEntries.next();
+            } else {
+                ObjectId oldId = oldEntries.getObjectId();
+                ObjectId newId = newEntries.getObjectId();
+                if (!oldId.equals(newId) || oldEntries.mode != newEntries.mode) {
+                    byte[] path = newEntries.getPath(basePath);
+                    if (oldEntries.mode == MODE_TREE) {
+                        diff(readTree(oldId), readTree(newId), withSlash(path), changes);
+                    } else {
+                        changes.add(new Change(path, oldEntries.mode, oldId, newEntries.mode, newId));
+                    }
+                }
+                oldEntries.next();
+                newEntries.next();
+            }
+        }
+    }
+
+    /**
+     * Adds the current entry of the given iterator as a deleted or added file to the given list. If the entry is a
+     * tree, all files of that tree are added recursively.
+     *
+     * @param entries the iterator positioned at the deleted or added entry
+     * @param basePath the path of the tree containing the entry
+     * @param deleted <code>true</code>, if the entry was deleted; <code>false</code>, if it was added
+     * @param changes the list to add the changes to
+     * @throws IOException if reading a tree fails
+     */
+    private void addEntry(TreeIterator entries, byte[] basePath, boolean deleted, List<Change> changes)
+            throws IOException {
+        byte[] path = entries.getPath(basePath);
+        ObjectId objectId = entries.getObjectId();
+        if (entries.mode == MODE_TREE) {
+            byte[] tree = readTree(objectId);
+            diff(deleted ? tree : new byte[0], deleted ? new byte[0] : tree, withSlash(path), changes);
+        } else if (deleted) {
+            changes.add(new Change(path, entries.mode, objectId, 0, ObjectId.ZERO));
+        } else {
+            changes.add(new Change(path, 0, ObjectId.ZERO, entries.mode, objectId));
+        }
+    }
+
+    /**
+     * Returns the given path with a trailing "<tt>/</tt>".
+     *
+     * @param path the path of a tree
+     * @return a new array containing the path and a trailing "<tt>/</tt>"; never <code>null</code>
+     */
+    private static byte[] withSlash(byte[] path) {
+        byte[] basePath = Arrays.copyOf(path, path.length + 1);
+        basePath[path.length] = '/';
+        return basePath;
+    }
+
+}
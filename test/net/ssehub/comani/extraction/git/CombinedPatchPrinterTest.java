@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link CombinedPatchPrinter}, which compare the combined diffs it prints for
+ * the files of merge commits with the dense combined diffs printed by <code>git show</code>.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CombinedPatchPrinterTest {
+
+    /**
+     * The lines, of which the merged files consist. These lines repeat frequently, which makes the position of
+     * changes ambiguous.
+     */
+    private static final String[] VOCABULARY = {"", "{", "}", "    a();", "    b();", "if (x) {", "    return;",
+        "// comment"};
+
+    /**
+     * The number of files changed by each merge.
+     */
+    private static final int FILE_COUNT = 40;
+
+    /**
+     * Tests the combined diffs of a merge with two parents, whose files were changed randomly by both parents and
+     * the merge itself, including files added or deleted by some of the commits.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testTwoParentMergeMatchesGit() throws IOException {
+        assertRandomMergeMatchesGit(2, 21);
+    }
+
+    /**
+     * Tests the combined diffs of an octopus merge with three parents like
+     * {@link #testTwoParentMergeMatchesGit()} does.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testOctopusMergeMatchesGit() throws IOException {
+        assertRandomMergeMatchesGit(3, 22);
+    }
+
+    /**
+     * Tests the combined diffs of merges of binary files, files without final line feeds, and files, whose mode
+     * changed.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testSpecialFilesMatchGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write("binary.bin", new byte[] {0, 1, 2});
+            repository.write("no-line-feed.txt", "a\nb");
+            repository.write("mode.sh", "echo a\n");
+            repository.commit("Base");
+            repository.git("checkout", "-q", "-b", "side");
+            repository.write("binary.bin", new byte[] {0, 1, 3});
+            repository.write("no-line-feed.txt", "a\nb\nc");
+            repository.write("mode.sh", "echo b\n");
+            repository.commit("Side");
+            repository.git("checkout", "-q", "main");
+            repository.write("binary.bin", new byte[] {0, 1, 4});
+            repository.write("no-line-feed.txt", "z\na\nb");
+            repository.git("update-index", "--chmod=+x", "mode.sh");
+            repository.git("commit", "-q", "-m", "Main");
+            repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "side");
+            repository.write("binary.bin", new byte[] {0, 1, 5});
+            repository.write("no-line-feed.txt", "z\na\nb\nc\n");
+            repository.write("mode.sh", "echo c\n");
+            repository.git("add", "-A");
+            repository.git("update-index", "--chmod=+x", "mode.sh");
+            repository.git("commit", "-q", "-m", "Merge");
+            assertMergeMatchesGit(repository, repository.git("rev-parse", "HEAD").trim());
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Creates a merge with the given number of parents, whose files are changed randomly, and asserts that the
+     * combined diffs of all of its files match those of Git.
+     *
+     * @param parentCount the number of parents of the merge
+     * @param seed the seed of the random changes
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    private static void assertRandomMergeMatchesGit(int parentCount, long seed) throws IOException {
+        Random random = new Random(seed);
+        TestRepository repository = new TestRepository();
+        try {
+            String[] baseVersions = new String[FILE_COUNT];
+            for (int i = 0; i < FILE_COUNT; i++) {
+                baseVersions[i] = (i % 10 == 9) ? null : join(createLines(random, 5 + random.nextInt(30)));
+                writeVersion(repository, i, baseVersions[i]);
+            }
+            repository.commit("Base");
+            String[][] parentVersions = new String[parentCount][FILE_COUNT];
+            for (int parent = parentCount - 1; parent >= 0; parent--) {
+                if (parent > 0) {
+                    repository.git("checkout", "-q", "-b", "parent" + parent, "main");
+                } else {
+                    repository.git("checkout", "-q", "main");
+                }
+                for (int i = 0; i < FILE_COUNT; i++) {
+                    parentVersions[parent][i] = edit(random, baseVersions[i]);
+                    writeVersion(repository, i, parentVersions[parent][i]);
+                }
+                repository.commit("Parent " + parent);
+            }
+            List<String> mergeArguments = new ArrayList<String>();
+            for (String argument : new String[] {"merge", "-q", "--no-ff", "--no-commit", "-s", "ours"}) {
+                mergeArguments.add(argument);
+            }
+            for (int parent = 1; parent < parentCount; parent++) {
+                mergeArguments.add("parent" + parent);
+            }
+            repository.git(mergeArguments.toArray(new String[mergeArguments.size()]));
+            for (int i = 0; i < FILE_COUNT; i++) {
+                writeVersion(repository, i, edit(random, parentVersions[random.nextInt(parentCount)][i]));
+            }
+            assertMergeMatchesGit(repository, repository.commit("Merge"));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Asserts that the combined diff of each file of the given merge, which differs from the file in all parents,
+     * matches the combined diff printed by <code>git show</code> for that file.
+     *
+     * @param repository the repository containing the merge
+     * @param mergeId the hexadecimal name of the merge commit
+     * @throws IOException if executing Git or reading an object fails
+     */
+    private static void assertMergeMatchesGit(TestRepository repository, String mergeId) throws IOException {
+        List<String> parents = repository.gitLines("rev-parse", mergeId + "^@");
+        Map<String, String[]> mergeEntries = listFiles(repository, mergeId);
+        List<Map<String, String[]>> parentEntries = new ArrayList<Map<String, String[]>>();
+        TreeSet<String> paths = new TreeSet<String>(mergeEntries.keySet());
+        for (String parent : parents) {
+            parentEntries.add(listFiles(repository, parent));
+            paths.addAll(parentEntries.get(parentEntries.size() - 1).keySet());
+        }
+        ObjectDatabase objectDatabase = ObjectDatabaseTest.createObjectDatabase(repository);
+        int printedFiles = 0;
+        for (String path : paths) {
+            String[] mergeEntry = getEntry(mergeEntries, path);
+            int[] parentModes = new int[parents.size()];
+            ObjectId[] parentIds = new ObjectId[parents.size()];
+            boolean changedInAllParents = true;
+            for (int i = 0; i < parents.size(); i++) {
+                String[] parentEntry = getEntry(parentEntries.get(i), path);
+                changedInAllParents &= !(parentEntry[0].equals(mergeEntry[0])
+                        && parentEntry[1].equals(mergeEntry[1]));
+                parentModes[i] = Integer.parseInt(parentEntry[0], 8);
+                parentIds[i] = ObjectId.fromHex(parentEntry[1]);
+            }
+            if (changedInAllParents) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                new CombinedPatchPrinter(objectDatabase, output).print(path.getBytes(StandardCharsets.UTF_8),
+                        Integer.parseInt(mergeEntry[0], 8), ObjectId.fromHex(mergeEntry[1]), parentModes, parentIds);
+                String expected = repository.git("show", "--format=", "-U100000", "--no-renames", mergeId, "--",
+                        path);
+                assertEquals(path, expected, new String(output.toByteArray(), TestRepository.getCharset()));
+                printedFiles++;
+            }
+        }
+        assertTrue(printedFiles > 0);
+    }
+
+    /**
+     * Lists the files of the given commit.
+     *
+     * @param repository the repository containing the commit
+     * @param commitId the hexadecimal name of the commit
+     * @return the mode and the hexadecimal object name of each file with the paths of the files as keys; never
+     *         <code>null</code>
+     * @throws IOException if executing Git fails
+     */
+    private static Map<String, String[]> listFiles(TestRepository repository, String commitId) throws IOException {
+        Map<String, String[]> files = new HashMap<String, String[]>();
+        for (String line : repository.gitLines("ls-tree", "-r", commitId)) {
+            if (!line.isEmpty()) {
+                String[] fields = line.substring(0, line.indexOf('\t')).split(" ");
+                files.put(line.substring(line.indexOf('\t') + 1), new String[] {fields[0], fields[2]});
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the mode and the object name of the file with the given path.
+     *
+     * @param files the files as returned by {@link #listFiles(TestRepository, String)}
+     * @param path the path of the file
+     * @return the mode and the hexadecimal object name of the file, which are <code>0</code> and the name
+     *         {@link ObjectId#ZERO}, if the file does not exist; never <code>null</code>
+     */
+    private static String[] getEntry(Map<String, String[]> files, String path) {
+        String[] entry = files.get(path);
+        if (entry == null) {
+            entry = new String[] {"0", ObjectId.ZERO.toHex()};
+        }
+        return entry;
+    }
+
+    /**
+     * Writes the given version of the file with the given index to the working tree or deletes the file.
+     *
+     * @param repository the repository
+     * @param index the index of the file
+     * @param content the content of the file or <code>null</code>, if the file shall not exist
+     * @throws IOException if writing the file fails
+     */
+    private static void writeVersion(TestRepository repository, int index, String content) throws IOException {
+        String path = String.format("file%02d.txt", index);
+        if (content == null) {
+            new File(repository.getDirectory(), path).delete();
+        } else {
+            repository.write(path, content);
+        }
+    }
+
+    /**
+     * Randomly edits the given version of a file: the file is either kept, deleted, or changed by inserting,
+     * deleting, and replacing lines. Missing files are created in some cases.
+     *
+     * @param random the random number generator
+     * @param content the content of the file or <code>null</code>, if the file does not exist
+     * @return the edited content of the file or <code>null</code>, if the file does not exist
+     */
+    private static String edit(Random random, String content) {
+        String edited = content;
+        int choice = random.nextInt(10);
+        if (content == null) {
+            edited = (choice < 5) ? join(createLines(random, 1 + random.nextInt(10))) : null;
+        } else if (choice == 0) {
+            edited = null;
+        } else if (choice > 2) {
+            List<String> lines = new ArrayList<String>();
+            for (String line : content.split("\n", -1)) {
+                lines.add(line);
+            }
+            lines.remove(lines.size() - 1);
+            int editCount = 1 + random.nextInt(4);
+            for (int i = 0; i < editCount; i++) {
+                int position = random.nextInt(lines.size() + 1);
+                int deleted = Math.min(random.nextInt(3), lines.size() - position);
+                lines.subList(position, position + deleted).clear();
+                lines.addAll(position, createLines(random, random.nextInt(3)));
+            }
+            edited = join(lines);
+        }
+        return edited;
+    }
+
+    /**
+     * Creates the given number of random lines of the {@link #VOCABULARY}.
+     *
+     * @param random the random number generator
+     * @param count the number of lines
+     * @return the lines; never <code>null</code>
+     */
+    private static List<String> createLines(Random random, int count) {
+        List<String> lines = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        return lines;
+    }
+
+    /**
+     * Joins the given lines to the content of a file, in which each line is terminated by a line feed.
+     *
+     * @param lines the lines of the file
+     * @return the content of the file; never <code>null</code>
+     */
+    private static String join(List<String> lines) {
+        StringBuilder content = new StringBuilder();
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        return content.toString();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link CommitAssembler}, which must determine the same paths and names of
+ * changed artifacts as the regular expressions used by the extractor before.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitAssemblerTest {
+
+    /**
+     * The first diff header lines, from which the tests of this class determine the paths of changed artifacts.
+     */
+    private static final String[] DIFF_HEADER_LINES = {"diff --git a/a.txt b/a.txt", "diff --git a/x/y.c b/x/y.c",
+        "diff --cc a.txt", "diff --git a/with space.txt b/with space.txt", "diff --git a/b/c b/b/c",
+        "diff --git  a/a.txt\tb/a.txt ", " diff --git a/a b/a", "diff --git a/a b/", "diff", "", "b/x b/y c d"};
+
+    /**
+     * Tests that the artifact paths and names equal the ones determined by splitting via regular expressions.
+     */
+    @Test
+    public void testArtifactPathAndNameMatchRegularExpression() {
+        for (String diffHeaderLine : DIFF_HEADER_LINES) {
+            String artifactPath = CommitAssembler.getArtifactPath(diffHeaderLine);
+            assertEquals(diffHeaderLine, getArtifactPathByRegularExpression(diffHeaderLine), artifactPath);
+            if (!artifactPath.equals("/")) {
+                // The regular expression fails for the path "/", which has no non-empty part
+                assertEquals(diffHeaderLine, getArtifactNameByRegularExpression(artifactPath),
+                        CommitAssembler.getArtifactName(artifactPath));
+            }
+        }
+    }
+
+    /**
+     * Determines the artifact path like the extractor before the single-pass parsing.
+     *
+     * @param firstDiffHeaderLine the first diff header line
+     * @return the relative path to the changed artifact; may be <i>empty</i>
+     */
+    private static String getArtifactPathByRegularExpression(String firstDiffHeaderLine) {
+        String artifactPath = "";
+        String[] firstDiffHeaderLineParts = firstDiffHeaderLine.split("\\s+");
+        if (firstDiffHeaderLineParts.length >= 4) {
+            int partsCounter = firstDiffHeaderLineParts.length - 1;
+            while (artifactPath.isEmpty() && partsCounter >= 0) {
+                if (firstDiffHeaderLineParts[partsCounter].startsWith("b/")) {
+                    artifactPath = firstDiffHeaderLineParts[partsCounter].substring(1);
+                }
+                partsCounter--;
+            }
+        }
+        return artifactPath;
+    }
+
+    /**
+     * Determines the artifact name like the extractor before the single-pass parsing.
+     *
+     * @param changedArtifactPath the relative path to the changed artifact
+     * @return the name of the changed artifact; may be <i>empty</i>
+     */
+    private static String getArtifactNameByRegularExpression(String changedArtifactPath) {
+        String[] changedArtifactPathParts = changedArtifactPath.split("/");
+        return changedArtifactPathParts[changedArtifactPathParts.length - 1];
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.data.IExtractionQueue;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class provides the extraction of commits and the assertions shared by the tests of the
+ * {@link GitCommitExtractor}. The expected output of each commit is the output of the baseline command
+ * <code>git show -U100000 --no-renames</code>, which the extractor processed before any backend was added.
+ *
+ * @author Christian Kroeher
+ *
+ */
+final class CommitAssertions {
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private CommitAssertions() {}
+
+    /**
+     * Creates the extraction properties defined by the given key-value pairs. Metrics are disabled, unless the pairs
+     * define them, such that tests do not register MBeans. The experimental internal backend is enabled, unless the
+     * pairs disable it.
+     *
+     * @param keyValuePairs the alternating property keys and values
+     * @return the extraction properties; never <code>null</code>
+     */
+    static Properties properties(String... keyValuePairs) {
+        Properties properties = new Properties();
+        properties.setProperty(ExtractionSettings.PROPERTY_METRICS, "false");
+        properties.setProperty(ExtractionSettings.PROPERTY_EXPERIMENTAL_INTERNAL, "true");
+        for (int i = 0; i < keyValuePairs.length; i += 2) {
+            properties.setProperty(keyValuePairs[i], keyValuePairs[i + 1]);
+        }
+        return properties;
+    }
+
+    /**
+     * Extracts all commits of the given repository with the given properties.
+     *
+     * @param properties the extraction properties
+     * @param repository the repository to extract
+     * @return the extracted commits in the order of their delivery
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    static List<Commit> extract(Properties properties, File repository) throws ExtractionSetupException {
+        return extract(properties, repository, null);
+    }
+
+    /**
+     * Extracts the given commits or all commits of the given repository with the given properties. The extraction
+     * must succeed.
+     *
+     * @param properties the extraction properties
+     * @param repository the repository to extract
+     * @param commitList the commit numbers to extract or <code>null</code>, if all commits shall be extracted
+     * @return the extracted commits in the order of their delivery
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    static List<Commit> extract(Properties properties, File repository, List<String> commitList)
+            throws ExtractionSetupException {
+        List<Commit> commits = Collections.synchronizedList(new ArrayList<Commit>());
+        IExtractionQueue queue = new IExtractionQueue() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean addCommit(Commit commit) {
+                return commits.add(commit);
+            }
+        };
+        GitCommitExtractor extractor = new GitCommitExtractor(properties, queue);
+        boolean extracted;
+        if (commitList == null) {
+            extracted = extractor.extract(repository);
+        } else {
+            extracted = extractor.extract(repository, commitList);
+        }
+        assertTrue("Extraction failed", extracted);
+        return new ArrayList<Commit>(commits);
+    }
+
+    /**
+     * Renders the given commit as the lines of its header followed by the diff header and content lines of each of
+     * its changed artifacts. Trailing empty lines are removed.
+     *
+     * @param commit the commit to render
+     * @return the lines of the commit
+     */
+    static List<String> render(Commit commit) {
+        List<String> lines = new ArrayList<String>(Arrays.asList(commit.getCommitHeader()));
+        if (commit.getChangedArtifacts() != null) {
+            for (ChangedArtifact changedArtifact : commit.getChangedArtifacts()) {
+                lines.addAll(changedArtifact.getDiffHeader());
+                lines.addAll(changedArtifact.getContent());
+            }
+        }
+        return trimTrailingEmptyLines(lines);
+    }
+
+    /**
+     * Asserts that the given commit equals the output of <code>git show -U100000 --no-renames</code> and its date
+     * equals the committer date of that commit.
+     *
+     * @param repository the repository containing the commit
+     * @param commit the extracted commit
+     * @throws IOException if executing Git fails
+     */
+    static void assertMatchesGitShow(TestRepository repository, Commit commit) throws IOException {
+        String id = commit.getId();
+        assertEquals("Date of " + id, repository.git("show", "-s", "--format=%ci", id).trim(), commit.getDate());
+        List<String> expected = trimTrailingEmptyLines(repository.gitLines("show", "-U100000", "--no-renames", id));
+        assertEquals("Output of " + id, String.join("\n", expected), String.join("\n", render(commit)));
+    }
+
+    /**
+     * Asserts that each of the given commits equals the output of <code>git show -U100000 --no-renames</code>.
+     *
+     * @param repository the repository containing the commits
+     * @param commits the extracted commits
+     * @throws IOException if executing Git fails
+     */
+    static void assertMatchGitShow(TestRepository repository, List<Commit> commits) throws IOException {
+        for (Commit commit : commits) {
+            assertMatchesGitShow(repository, commit);
+        }
+    }
+
+    /**
+     * Asserts that the given commits have the same numbers, dates, and lines in the same order.
+     *
+     * @param expected the expected commits
+     * @param actual the actual commits
+     */
+    static void assertSameCommits(List<Commit> expected, List<Commit> actual) {
+        assertEquals("Commit numbers", ids(expected), ids(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            String id = expected.get(i).getId();
+            assertEquals("Date of " + id, expected.get(i).getDate(), actual.get(i).getDate());
+            assertEquals("Output of " + id, String.join("\n", render(expected.get(i))),
+                    String.join("\n", render(actual.get(i))));
+        }
+    }
+
+    /**
+     * Returns the numbers of the given commits.
+     *
+     * @param commits the commits
+     * @return the commit numbers in the order of the given commits
+     */
+    static List<String> ids(List<Commit> commits) {
+        List<String> ids = new ArrayList<String>();
+        for (Commit commit : commits) {
+            ids.add(commit.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Removes the trailing empty lines of the given lines. The output of Git ends with a line feed, which some
+     * readers turn into an empty last line.
+     *
+     * @param lines the lines to trim
+     * @return the given lines without trailing empty lines
+     */
+    static List<String> trimTrailingEmptyLines(List<String> lines) {
+        List<String> trimmedLines = new ArrayList<String>(lines);
+        while (!trimmedLines.isEmpty() && trimmedLines.get(trimmedLines.size() - 1).isEmpty()) {
+            trimmedLines.remove(trimmedLines.size() - 1);
+        }
+        return trimmedLines;
+    }
+
+}
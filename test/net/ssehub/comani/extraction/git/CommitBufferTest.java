@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitBuffer}, which writes its data to a temporary file, if the data
+ * exceeds the in-memory limit of the buffer or the shared {@link MemoryBudget}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitBufferTest {
+
+    /**
+     * The in-memory limit of the buffers created by the tests of this class in bytes.
+     */
+    private static final int MAX_INMEMORY_BYTES = 10000;
+
+    /**
+     * Tests that data up to the in-memory limit is held in memory and data exceeding the limit by a single byte is
+     * written to a temporary file, while both are read back unchanged.
+     *
+     * @throws IOException if buffering fails
+     */
+    @Test
+    public void testSpillThreshold() throws IOException {
+        String content = createContent(MAX_INMEMORY_BYTES);
+        try (CommitBuffer commitBuffer = new CommitBuffer(MAX_INMEMORY_BYTES, new MemoryBudget(Long.MAX_VALUE))) {
+            commitBuffer.readFrom(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+            assertFalse(commitBuffer.isSpilled());
+            assertEquals(MAX_INMEMORY_BYTES, commitBuffer.getSize());
+            assertEquals(content, read(commitBuffer));
+        }
+        String largerContent = content + "+";
+        try (CommitBuffer commitBuffer = new CommitBuffer(MAX_INMEMORY_BYTES, new MemoryBudget(Long.MAX_VALUE))) {
+            commitBuffer.readFrom(new ByteArrayInputStream(largerContent.getBytes(StandardCharsets.US_ASCII)));
+            assertTrue(commitBuffer.isSpilled());
+            assertEquals(MAX_INMEMORY_BYTES + 1, commitBuffer.getSize());
+            assertEquals(largerContent, read(commitBuffer));
+        }
+    }
+
+    /**
+     * Tests that data within the in-memory limit is written to a temporary file, if the shared {@link MemoryBudget} is
+     * exhausted, and that closing a buffer releases the bytes it reserved.
+     *
+     * @throws IOException if buffering fails
+     */
+    @Test
+    public void testSharedBudgetSpillsAndIsReleased() throws IOException {
+        String content = createContent(MAX_INMEMORY_BYTES);
+        MemoryBudget memoryBudget = new MemoryBudget(MAX_INMEMORY_BYTES);
+        try (CommitBuffer firstBuffer = new CommitBuffer(MAX_INMEMORY_BYTES, memoryBudget);
+                CommitBuffer secondBuffer = new CommitBuffer(MAX_INMEMORY_BYTES, memoryBudget)) {
+            firstBuffer.readFrom(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+            secondBuffer.readFrom(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+            assertFalse(firstBuffer.isSpilled());
+            assertTrue(secondBuffer.isSpilled());
+            assertEquals(content, read(secondBuffer));
+        }
+        assertTrue(memoryBudget.tryReserve(MAX_INMEMORY_BYTES));
+    }
+
+    /**
+     * Tests that the extraction writing the output of each commit to a temporary file extracts the same commits as
+     * the extraction holding all outputs in memory and that each commit equals the output of <code>git show</code>.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testSpilledExtractionMatchesGitShow() throws IOException, ExtractionSetupException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            List<Commit> expected = CommitAssertions.extract(CommitAssertions.properties(),
+                    repository.getDirectory());
+            List<Commit> actual = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_MAX_INMEMORY_BYTES, "1"), repository.getDirectory());
+            CommitAssertions.assertSameCommits(expected, actual);
+            CommitAssertions.assertMatchGitShow(repository, actual);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Creates content consisting of lines of ASCII characters.
+     *
+     * @param length the number of characters of the content
+     * @return the content of the given length
+     */
+    private static String createContent(int length) {
+        StringBuilder contentBuilder = new StringBuilder(length);
+        while (contentBuilder.length() < length) {
+            contentBuilder.append(contentBuilder.length() % 80 == 79 ? '\n' : (char) ('a' + contentBuilder.length()
+                    % 26));
+        }
+        return contentBuilder.toString();
+    }
+
+    /**
+     * Reads all characters of the given buffer.
+     *
+     * @param commitBuffer the buffer to read
+     * @return the characters of the buffer
+     * @throws IOException if reading fails
+     */
+    private static String read(CommitBuffer commitBuffer) throws IOException {
+        StringBuilder contentBuilder = new StringBuilder();
+        try (Reader reader = commitBuffer.openReader()) {
+            char[] characters = new char[4096];
+            int read = reader.read(characters);
+            while (read != -1) {
+                contentBuilder.append(characters, 0, read);
+                read = reader.read(characters);
+            }
+        }
+        return contentBuilder.toString();
+    }
+
+}
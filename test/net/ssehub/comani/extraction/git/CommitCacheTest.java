@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitCache} and the extraction using it.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitCacheTest {
+
+    /**
+     * The repository providing the commits of all tests of this class.
+     */
+    private static TestRepository repository;
+
+    /**
+     * Creates the {@link #repository}.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that each commit read from the cache equals the commit written to it, except for its identifier, which is
+     * the given commit number.
+     *
+     * @throws IOException if executing Git or accessing the cache fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testRoundTrip() throws IOException, ExtractionSetupException {
+        CommitCache commitCache = new CommitCache(new File(repository.getDirectory(), ".git/round-trip-cache"),
+                Long.MAX_VALUE);
+        List<String> fullCommitNumbers = repository.gitLines("log", "--format=%H");
+        List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(), repository.getDirectory(),
+                fullCommitNumbers);
+        List<Commit> cachedCommits = new ArrayList<Commit>();
+        for (Commit commit : commits) {
+            assertFalse(commitCache.contains(commit.getId()));
+            commitCache.put(commit.getId(), commit);
+            assertTrue(commitCache.contains(commit.getId()));
+            cachedCommits.add(commitCache.get(commit.getId(), commit.getId()));
+        }
+        CommitAssertions.assertSameCommits(commits, cachedCommits);
+        Commit renamedCommit = commitCache.get(fullCommitNumbers.get(0), "HEAD");
+        assertEquals("HEAD", renamedCommit.getId());
+        assertEquals(CommitAssertions.render(commits.get(0)), CommitAssertions.render(renamedCommit));
+        assertEquals(artifactPaths(commits.get(0)), artifactPaths(renamedCommit));
+        assertNull(commitCache.get("0123456789abcdef0123456789abcdef01234567", "unknown"));
+    }
+
+    /**
+     * Tests that adding a commit, which exceeds the limit of the cache, evicts the least recently used commit.
+     *
+     * @throws IOException if executing Git or accessing the cache fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException, ExtractionSetupException {
+        List<String> fullCommitNumbers = repository.gitLines("log", "--format=%H").subList(0, 3);
+        Commit commit = CommitAssertions.extract(CommitAssertions.properties(), repository.getDirectory(),
+                fullCommitNumbers.subList(0, 1)).get(0);
+        File cacheDirectory = new File(repository.getDirectory(), ".git/eviction-cache");
+        // All entries have the same size, as they contain the same commit
+        CommitCache commitCache = new CommitCache(cacheDirectory, Long.MAX_VALUE);
+        commitCache.put(fullCommitNumbers.get(0), commit);
+        long entryBytes = commitCache.getEntryFile(fullCommitNumbers.get(0)).length();
+        assertTrue(commitCache.getEntryFile(fullCommitNumbers.get(0)).delete());
+
+        commitCache = new CommitCache(cacheDirectory, entryBytes * 5 / 2);
+        commitCache.put(fullCommitNumbers.get(0), commit);
+        commitCache.put(fullCommitNumbers.get(1), commit);
+        long past = System.currentTimeMillis() - 60000;
+        assertTrue(commitCache.getEntryFile(fullCommitNumbers.get(0)).setLastModified(past));
+        assertTrue(commitCache.getEntryFile(fullCommitNumbers.get(1)).setLastModified(past + 1000));
+        // Reading the older entry marks it as recently used
+        commitCache.get(fullCommitNumbers.get(0), "first");
+        commitCache.put(fullCommitNumbers.get(2), commit);
+        assertTrue(commitCache.contains(fullCommitNumbers.get(0)));
+        assertFalse(commitCache.contains(fullCommitNumbers.get(1)));
+        assertTrue(commitCache.contains(fullCommitNumbers.get(2)));
+    }
+
+    /**
+     * Tests that a repeated extraction, which reads all commits from the cache, extracts the same commits as the first
+     * extraction filling the cache and that each commit equals the output of <code>git show</code>.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testCachedExtractionMatchesGitShow() throws IOException, ExtractionSetupException {
+        File cacheDirectory = new File(repository.getDirectory(), ".git/extraction-cache");
+        for (String backend : Arrays.asList("process", "stream")) {
+            Properties properties = CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_CACHE_DIR, cacheDirectory.getPath());
+            List<Commit> expected = CommitAssertions.extract(properties, repository.getDirectory());
+            for (String fullCommitNumber : repository.gitLines("log", "--format=%H")) {
+                assertEquals(backend, 1, getEntryFiles(cacheDirectory, fullCommitNumber).size());
+            }
+            List<Commit> actual = CommitAssertions.extract(properties, repository.getDirectory());
+            CommitAssertions.assertSameCommits(expected, actual);
+            CommitAssertions.assertMatchGitShow(repository, actual);
+        }
+    }
+
+    /**
+     * Tests that commits cached in one context are neither available in another context nor in the default context,
+     * but in the same context of another cache using the same directory.
+     *
+     * @throws IOException if executing Git or accessing the cache fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testContextsSeparateCommits() throws IOException, ExtractionSetupException {
+        String fullCommitNumber = repository.git("rev-parse", "HEAD").trim();
+        Commit commit = CommitAssertions.extract(CommitAssertions.properties(), repository.getDirectory(),
+                Arrays.asList(fullCommitNumber)).get(0);
+        File cacheDirectory = new File(repository.getDirectory(), ".git/context-cache");
+        CommitCache commitCache = new CommitCache(cacheDirectory, Long.MAX_VALUE);
+        commitCache.withContext("charset UTF-8").put(fullCommitNumber, commit);
+        assertFalse(commitCache.contains(fullCommitNumber));
+        assertFalse(commitCache.withContext("charset ISO-8859-1").contains(fullCommitNumber));
+        assertNull(commitCache.withContext("charset ISO-8859-1").get(fullCommitNumber, fullCommitNumber));
+        CommitCache otherCache = new CommitCache(cacheDirectory, Long.MAX_VALUE).withContext("charset UTF-8");
+        assertEquals(CommitAssertions.render(commit),
+                CommitAssertions.render(otherCache.get(fullCommitNumber, fullCommitNumber)));
+    }
+
+    /**
+     * Tests that multiple threads using two caches with the same directory, which is too small for all commits, can
+     * add and read commits concurrently, while the caches evict commits. Each commit read from the caches must either
+     * be <code>null</code>, if it was evicted, or equal the commit written to it.
+     *
+     * @throws IOException if executing Git or accessing the cache fails
+     * @throws ExtractionSetupException if the properties are invalid
+     * @throws InterruptedException if waiting for the threads is interrupted
+     */
+    @Test
+    public void testConcurrentEviction() throws IOException, ExtractionSetupException, InterruptedException {
+        List<String> fullCommitNumbers = repository.gitLines("log", "--format=%H");
+        List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(), repository.getDirectory(),
+                fullCommitNumbers);
+        File cacheDirectory = new File(repository.getDirectory(), ".git/concurrent-cache");
+        CommitCache firstCache = new CommitCache(cacheDirectory, Long.MAX_VALUE);
+        firstCache.put(fullCommitNumbers.get(0), commits.get(0));
+        long maxBytes = firstCache.getEntryFile(fullCommitNumbers.get(0)).length() * 2;
+        CommitCache[] caches = {new CommitCache(cacheDirectory, maxBytes), new CommitCache(cacheDirectory, maxBytes)};
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            CommitCache commitCache = caches[i % caches.length];
+            int offset = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 200; j++) {
+                        int index = (offset + j) % commits.size();
+                        commitCache.put(fullCommitNumbers.get(index), commits.get(index));
+                        int readIndex = (offset + j * 7) % commits.size();
+                        Commit cachedCommit = commitCache.get(fullCommitNumbers.get(readIndex), "read");
+                        if (cachedCommit != null) {
+                            assertEquals(CommitAssertions.render(commits.get(readIndex)),
+                                    CommitAssertions.render(cachedCommit));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.emptyList(), failures);
+    }
+
+    /**
+     * Tests that adding notes and changing the "<tt>.mailmap</tt>" file after filling the cache does not deliver the
+     * previously cached commits, but commits equal to the output of <code>git show</code> for each backend.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testNotesAndMailMapChangeContext() throws IOException, ExtractionSetupException {
+        TestRepository changedRepository = TestRepository.createSample();
+        try {
+            File cacheDirectory = new File(changedRepository.getDirectory(), ".git/changed-cache");
+            List<String> backends = Arrays.asList("process", "stream", "internal");
+            for (String backend : backends) {
+                CommitAssertions.extract(cacheProperties(backend, cacheDirectory), changedRepository.getDirectory());
+            }
+            changedRepository.git("notes", "add", "-f", "-m", "A changed note", "HEAD");
+            String authorEmail = changedRepository.git("log", "-1", "--format=%ae").trim();
+            changedRepository.write(".mailmap", "Mapped Author <" + authorEmail + ">\n");
+            for (String backend : backends) {
+                List<Commit> commits = CommitAssertions.extract(cacheProperties(backend, cacheDirectory),
+                        changedRepository.getDirectory());
+                CommitAssertions.assertMatchGitShow(changedRepository, commits);
+            }
+        } finally {
+            changedRepository.delete();
+        }
+    }
+
+    /**
+     * Returns the properties for an extraction using the given backend and cache directory.
+     *
+     * @param backend the name of the backend
+     * @param cacheDirectory the directory of the cache
+     * @return the properties of the extraction
+     */
+    private static Properties cacheProperties(String backend, File cacheDirectory) {
+        return CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, backend,
+                ExtractionSettings.PROPERTY_CACHE_DIR, cacheDirectory.getPath());
+    }
+
+    /**
+     * Returns the cache files of the commit identified by the given full commit number in all contexts.
+     *
+     * @param cacheDirectory the directory of the cache
+     * @param fullCommitNumber the full commit number of the commit
+     * @return the cache files, which may be <i>empty</i>
+     */
+    private static List<File> getEntryFiles(File cacheDirectory, String fullCommitNumber) {
+        List<File> entryFiles = new ArrayList<File>();
+        File[] files = new File(cacheDirectory, fullCommitNumber.substring(0, 2)).listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].getName().startsWith(fullCommitNumber.substring(2) + "-")) {
+                entryFiles.add(files[i]);
+            }
+        }
+        return entryFiles;
+    }
+
+    /**
+     * Returns the paths and names of the changed artifacts of the given commit.
+     *
+     * @param commit the commit
+     * @return the path and name of each changed artifact separated by "<tt>|</tt>"
+     */
+    private static List<String> artifactPaths(Commit commit) {
+        List<String> artifactPaths = new ArrayList<String>();
+        for (ChangedArtifact changedArtifact : commit.getChangedArtifacts()) {
+            artifactPaths.add(changedArtifact.getArtifactPath() + "|" + changedArtifact.getArtifactName());
+        }
+        return artifactPaths;
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitDumpReader} and the extraction of commit dumps.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitDumpReaderTest {
+
+    /**
+     * The options of <code>git log</code> creating the dumps, which print the commits like the baseline command
+     * <code>git show -U100000 --no-renames</code>.
+     */
+    private static final String[] DUMP_OPTIONS = {"log", "-p", "--cc", "-U100000", "--no-renames"};
+
+    /**
+     * The repository, from which the dumps of all tests of this class are created.
+     */
+    private static TestRepository repository;
+
+    /**
+     * The full commit number of the commit of the {@link #repository}, whose message and changed file contain lines
+     * starting with "<tt>commit &lt;SHA&gt;</tt>".
+     */
+    private static String commitLinesCommit;
+
+    /**
+     * Creates the {@link #repository}, which additionally contains a file encoded as ISO-8859-1, whose content is not
+     * valid UTF-8, and the {@link #commitLinesCommit}.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+        repository.write("latin1.txt", new byte[] {'G', 'r', (byte) 0xfc, (byte) 0xdf, 'e', '\n'});
+        String latin1Commit = repository.commit("Add ISO-8859-1 file");
+        repository.write("revert.txt", "commit " + latin1Commit + "\ncommit " + latin1Commit + " (HEAD)\n");
+        commitLinesCommit = repository.commit("Revert latin1\n\ncommit " + latin1Commit + "\nThis reverts commit "
+                + latin1Commit + ".");
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that each commit read from a dump equals the output of <code>git show</code> for that commit and the
+     * commit extracted from the repository by the <code>stream</code> backend, which both decode the output of Git
+     * using the same charset.
+     *
+     * @throws IOException if executing Git or writing the dump fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testDumpMatchesGitShow() throws IOException, ExtractionSetupException {
+        File dumpFile = new File(repository.getDirectory(), ".git/commits.dump");
+        Files.write(dumpFile.toPath(), repository.gitBytes(DUMP_OPTIONS));
+        List<Commit> commits = extractDump(dumpFile);
+        assertEquals(repository.gitLines("log", "--format=%H"), CommitAssertions.ids(commits));
+        CommitAssertions.assertMatchGitShow(repository, commits);
+        List<Commit> streamedCommits = CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, "stream"), repository.getDirectory());
+        assertEquals(renderAll(streamedCommits), renderAll(commits));
+    }
+
+    /**
+     * Tests that a dump compressed with gzip and created with <code>--pretty=fuller</code> provides the committer
+     * dates and the output of <code>git show --pretty=fuller</code>.
+     *
+     * @throws IOException if executing Git or writing the dump fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testCompressedFullerDumpMatchesGitShow() throws IOException, ExtractionSetupException {
+        File dumpFile = new File(repository.getDirectory(), ".git/commits.dump.gz");
+        List<String> dumpArguments = new ArrayList<String>();
+        for (String option : DUMP_OPTIONS) {
+            dumpArguments.add(option);
+        }
+        dumpArguments.add("--pretty=fuller");
+        try (OutputStream dumpStream = new GZIPOutputStream(new FileOutputStream(dumpFile))) {
+            dumpStream.write(repository.gitBytes(dumpArguments.toArray(new String[dumpArguments.size()])));
+        }
+        List<Commit> commits = extractDump(dumpFile);
+        assertEquals(repository.gitLines("log", "--format=%H"), CommitAssertions.ids(commits));
+        for (Commit commit : commits) {
+            String id = commit.getId();
+            assertEquals("Date of " + id, repository.git("show", "-s", "--format=%ci", id).trim(), commit.getDate());
+            List<String> expected = CommitAssertions.trimTrailingEmptyLines(repository.gitLines("show", "-U100000",
+                    "--no-renames", "--pretty=fuller", id));
+            assertEquals("Output of " + id, String.join("\n", expected),
+                    String.join("\n", CommitAssertions.render(commit)));
+        }
+    }
+
+    /**
+     * Tests that lines starting with "<tt>commit &lt;SHA&gt;</tt>" in the message and in a changed file of a commit,
+     * which Git prints indented or prefixed, do not split the commit.
+     *
+     * @throws IOException if executing Git or writing the dump fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testCommitLinesInMessageAndFile() throws IOException, ExtractionSetupException {
+        File dumpFile = new File(repository.getDirectory(), ".git/commit-lines.dump");
+        List<String> dumpArguments = new ArrayList<String>();
+        for (String option : DUMP_OPTIONS) {
+            dumpArguments.add(option);
+        }
+        dumpArguments.add("-1");
+        dumpArguments.add(commitLinesCommit);
+        Files.write(dumpFile.toPath(), repository.gitBytes(dumpArguments.toArray(new String[dumpArguments.size()])));
+        List<Commit> commits = extractDump(dumpFile);
+        assertEquals(1, commits.size());
+        CommitAssertions.assertMatchGitShow(repository, commits);
+    }
+
+    /**
+     * Tests that lines starting with "<tt>commit </tt>", but not followed by a commit number, do not start a new
+     * commit, even if they are neither indented nor prefixed, while lines with abbreviated commit numbers and
+     * decorations do.
+     *
+     * @throws IOException if reading the dump fails
+     */
+    @Test
+    public void testOnlyCommitNumbersStartCommits() throws IOException {
+        String dump = "commit 0123abc (HEAD -> main)\nAuthor: A <a@example.org>\n"
+                + "Date:   Wed Jan 1 00:00:00 2020 +0000\n\n    Message\ncommit message\ncommit 12\ncommit 0123abcz\n\n"
+                + "commit 4567def\nAuthor: A <a@example.org>\n\n    Second\n";
+        List<Commit> commits = new ArrayList<Commit>();
+        CommitDumpReader commitDumpReader = new CommitDumpReader(new StringReader(dump), commits::add,
+                new ExtractionMetrics(), CommitAssembler::new);
+        assertEquals(2, commitDumpReader.read());
+        assertEquals("[0123abc, 4567def]", CommitAssertions.ids(commits).toString());
+        assertEquals("2020-01-01 00:00:00 +0000", commits.get(0).getDate());
+        assertEquals(CommitDumpReader.NO_DATE, commits.get(1).getDate());
+        assertTrue(String.join("\n", commits.get(0).getCommitHeader()).contains("\ncommit 0123abcz"));
+    }
+
+    /**
+     * Tests that the reader counts the commits having the author date, as the dump was created without
+     * <code>--pretty=fuller</code>, and that these commits have the author date.
+     *
+     * @throws IOException if executing Git or reading the dump fails
+     */
+    @Test
+    public void testCountsAuthorDates() throws IOException {
+        List<Commit> commits = new ArrayList<Commit>();
+        CommitDumpReader plainReader = new CommitDumpReader(new StringReader(repository.git(DUMP_OPTIONS)),
+                commits::add, new ExtractionMetrics(), CommitAssembler::new);
+        int commitCount = plainReader.read();
+        assertEquals(commitCount, plainReader.getAuthorDateCount());
+        for (Commit commit : commits) {
+            assertEquals(repository.git("show", "-s", "--format=%ai", commit.getId()).trim(), commit.getDate());
+        }
+        List<String> fullerArguments = new ArrayList<String>();
+        for (String option : DUMP_OPTIONS) {
+            fullerArguments.add(option);
+        }
+        fullerArguments.add("--pretty=fuller");
+        CommitDumpReader fullerReader = new CommitDumpReader(new StringReader(repository.git(
+                fullerArguments.toArray(new String[fullerArguments.size()]))), commit -> { }, new ExtractionMetrics(),
+                CommitAssembler::new);
+        assertEquals(commitCount, fullerReader.read());
+        assertEquals(0, fullerReader.getAuthorDateCount());
+    }
+
+    /**
+     * Tests that a dump consisting of multiple concatenated gzip members, e.g., created by appending the compressed
+     * output of several <code>git log</code> commands, provides the commits of all members.
+     *
+     * @throws IOException if executing Git or writing the dump fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testConcatenatedGzipMembers() throws IOException, ExtractionSetupException {
+        List<String> fullCommitNumbers = repository.gitLines("log", "--format=%H");
+        String middleCommit = fullCommitNumbers.get(fullCommitNumbers.size() / 2);
+        File dumpFile = new File(repository.getDirectory(), ".git/concatenated.dump.gz");
+        try (OutputStream fileStream = new FileOutputStream(dumpFile)) {
+            for (String range : new String[] {middleCommit + "..HEAD", middleCommit}) {
+                List<String> dumpArguments = new ArrayList<String>();
+                for (String option : DUMP_OPTIONS) {
+                    dumpArguments.add(option);
+                }
+                dumpArguments.add(range);
+                GZIPOutputStream memberStream = new GZIPOutputStream(fileStream);
+                memberStream.write(repository.gitBytes(dumpArguments.toArray(new String[dumpArguments.size()])));
+                memberStream.finish();
+            }
+        }
+        List<Commit> commits = extractDump(dumpFile);
+        assertEquals(fullCommitNumbers, CommitAssertions.ids(commits));
+        CommitAssertions.assertMatchGitShow(repository, commits);
+    }
+
+    /**
+     * Tests that extracting a single commit given as string creates exactly one commit without date from the output
+     * of <code>git show</code>, even if its message contains lines starting with "<tt>commit &lt;SHA&gt;</tt>".
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testExtractCommitString() throws IOException, ExtractionSetupException {
+        List<Commit> commits = new ArrayList<Commit>();
+        GitCommitExtractor extractor = new GitCommitExtractor(CommitAssertions.properties(), commits::add);
+        assertTrue(extractor.extract(repository.git("show", "-U100000", "--no-renames", commitLinesCommit)));
+        assertEquals(1, commits.size());
+        assertEquals(commitLinesCommit, commits.get(0).getId());
+        assertEquals(CommitDumpReader.NO_DATE, commits.get(0).getDate());
+        assertEquals(String.join("\n", CommitAssertions.trimTrailingEmptyLines(repository.gitLines("show", "-U100000",
+                "--no-renames", commitLinesCommit))), String.join("\n", CommitAssertions.render(commits.get(0))));
+    }
+
+    /**
+     * Extracts all commits of the given dump file.
+     *
+     * @param dumpFile the dump file
+     * @return the extracted commits in the order of the dump
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private static List<Commit> extractDump(File dumpFile) throws ExtractionSetupException {
+        return CommitAssertions.extract(CommitAssertions.properties(ExtractionSettings.PROPERTY_DUMP_INPUT, "true"),
+                dumpFile);
+    }
+
+    /**
+     * Renders each of the given commits.
+     *
+     * @param commits the commits to render
+     * @return the rendered commits in the given order; never <code>null</code>
+     */
+    private static List<String> renderAll(List<Commit> commits) {
+        List<String> renderedCommits = new ArrayList<String>();
+        for (Commit commit : commits) {
+            renderedCommits.add(String.join("\n", CommitAssertions.render(commit)));
+        }
+        return renderedCommits;
+    }
+
+}
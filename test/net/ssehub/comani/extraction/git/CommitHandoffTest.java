@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.data.IExtractionQueue;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitHandoff} and the extraction delivering commits to a commit queue,
+ * which is full most of the time.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitHandoffTest {
+
+    /**
+     * The maximum duration to wait for another thread in milliseconds.
+     */
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Tests that commits rejected by the queue are buffered without blocking the calling thread, as long as they fit
+     * into the budget, and added to the queue in their original order as soon as it accepts commits again.
+     */
+    @Test
+    public void testBuffersRejectedCommits() {
+        TestQueue queue = new TestQueue();
+        CommitHandoff commitHandoff = new CommitHandoff(queue, Long.MAX_VALUE);
+        List<String> deliveredIds = Collections.synchronizedList(new ArrayList<String>());
+        for (int i = 0; i < 3; i++) {
+            Commit commit = createCommit("c" + i);
+            assertFalse(commitHandoff.add(commit, () -> deliveredIds.add(commit.getId())));
+        }
+        assertEquals(Collections.emptyList(), deliveredIds);
+        assertEquals(3 * CommitWorkerPool.estimateSize(createCommit("c0")), commitHandoff.getPendingBytes());
+        queue.open();
+        Commit lastCommit = createCommit("c3");
+        assertFalse(commitHandoff.add(lastCommit, () -> deliveredIds.add(lastCommit.getId())));
+        assertEquals(Arrays.asList("c0", "c1", "c2", "c3"), deliveredIds);
+        assertEquals(Arrays.asList("c0", "c1", "c2", "c3"), queue.getIds());
+        assertEquals(0, commitHandoff.getPendingBytes());
+    }
+
+    /**
+     * Tests that a thread adding a commit, which exceeds the budget, blocks until the queue accepts the buffered
+     * commits, that it releases the lock of the handoff while blocking, and that interrupting it neither aborts
+     * waiting nor loses its commit, but keeps its interrupt status.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testBlocksWhileBudgetExceeded() throws InterruptedException {
+        TestQueue queue = new TestQueue();
+        long commitBytes = CommitWorkerPool.estimateSize(createCommit("c0"));
+        CommitHandoff commitHandoff = new CommitHandoff(queue, commitBytes * 3 / 2);
+        // The first commit is buffered regardless of its size
+        assertFalse(commitHandoff.add(createCommit("c0"), () -> { }));
+        AtomicBoolean stalled = new AtomicBoolean();
+        AtomicBoolean interruptKept = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            stalled.set(commitHandoff.add(createCommit("c1"), () -> { }));
+            interruptKept.set(Thread.currentThread().isInterrupted());
+        });
+        producer.start();
+        waitUntilBlocked(producer);
+        producer.interrupt();
+        // The blocked thread released the lock, hence, reading the pending bytes does not block
+        assertEquals(commitBytes, commitHandoff.getPendingBytes());
+        Thread.sleep(50);
+        assertTrue(producer.isAlive());
+        queue.open();
+        producer.join(TIMEOUT_MILLIS);
+        assertFalse(producer.isAlive());
+        assertTrue(stalled.get());
+        assertTrue(interruptKept.get());
+        assertEquals(Arrays.asList("c0", "c1"), queue.getIds());
+    }
+
+    /**
+     * Tests that flushing blocks until the queue accepted all buffered commits.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testFlushDeliversAllCommits() throws InterruptedException {
+        TestQueue queue = new TestQueue();
+        CommitHandoff commitHandoff = new CommitHandoff(queue, Long.MAX_VALUE);
+        AtomicInteger deliveredCommits = new AtomicInteger();
+        commitHandoff.add(createCommit("c0"), deliveredCommits::incrementAndGet);
+        commitHandoff.add(createCommit("c1"), deliveredCommits::incrementAndGet);
+        Thread flusher = new Thread(commitHandoff::flush);
+        flusher.start();
+        waitUntilBlocked(flusher);
+        assertEquals(0, deliveredCommits.get());
+        queue.open();
+        flusher.join(TIMEOUT_MILLIS);
+        assertFalse(flusher.isAlive());
+        assertEquals(2, deliveredCommits.get());
+        assertEquals(Arrays.asList("c0", "c1"), queue.getIds());
+    }
+
+    /**
+     * Tests that the extraction of all commits delivers them in the order of <code>git log</code> and equal to the
+     * output of <code>git show</code> for each backend and for commit dumps, if the commit queue rejects most
+     * additions and the budget only allows buffering a single commit.
+     *
+     * @throws IOException if creating the repository or the dump fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testExtractionWithFullQueue() throws IOException, ExtractionSetupException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            List<String> expectedIds = repository.gitLines("log", "--format=%H");
+            File dumpFile = new File(repository.getDirectory(), ".git/commits.dump");
+            Files.write(dumpFile.toPath(), repository.gitBytes("log", "-p", "--cc", "-U100000", "--no-renames"));
+            for (String backend : Arrays.asList("process", "stream", "internal", "dump")) {
+                TestQueue queue = new TestQueue();
+                queue.rejectEvery(3);
+                GitCommitExtractor extractor = new GitCommitExtractor(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend.equals("dump") ? "process" : backend,
+                        ExtractionSettings.PROPERTY_DUMP_INPUT, String.valueOf(backend.equals("dump")),
+                        ExtractionSettings.PROPERTY_MAX_PENDING_BYTES, "1"), queue);
+                assertTrue(backend, extractor.extract(backend.equals("dump") ? dumpFile : repository.getDirectory()));
+                List<String> ids = queue.getIds();
+                assertEquals(backend, expectedIds.size(), ids.size());
+                for (int i = 0; i < ids.size(); i++) {
+                    // The backends identify commits by abbreviated or full commit numbers
+                    assertTrue(backend + ": " + ids, expectedIds.get(i).startsWith(ids.get(i)));
+                }
+                CommitAssertions.assertMatchGitShow(repository, queue.getCommits());
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Waits until the given thread is waiting or timed waiting.
+     *
+     * @param thread the thread to wait for
+     * @throws InterruptedException if waiting is interrupted
+     */
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(thread.isAlive());
+    }
+
+    /**
+     * Creates a commit with the given identifier and a single changed artifact.
+     *
+     * @param id the identifier of the commit
+     * @return the commit
+     */
+    private static Commit createCommit(String id) {
+        ChangedArtifact changedArtifact = new ChangedArtifact();
+        changedArtifact.addDiffHeaderLine("diff --git a/file.txt b/file.txt");
+        changedArtifact.addContentLine("+line of " + id);
+        return new Commit(id, "2020-01-01 00:00:00 +0000", new String[] {"commit " + id},
+                new ArrayList<ChangedArtifact>(Arrays.asList(changedArtifact)));
+    }
+
+    /**
+     * This {@link IExtractionQueue} rejects all commits until it is opened or, if defined, a fraction of the
+     * additions, like the queue of a slow analyzer.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class TestQueue implements IExtractionQueue {
+
+        /**
+         * The commits accepted so far.
+         */
+        private List<Commit> commits = Collections.synchronizedList(new ArrayList<Commit>());
+
+        /**
+         * The definition of whether this queue accepts commits (<code>true</code>) or not (<code>false</code>).
+         */
+        private volatile boolean open;
+
+        /**
+         * The number of calls of {@link #addCommit(Commit)}, of which only the last one is accepted, or
+         * <code>0</code>, if all calls are accepted while this queue is open.
+         */
+        private volatile int rejectedCalls;
+
+        /**
+         * The number of calls of {@link #addCommit(Commit)} so far.
+         */
+        private AtomicInteger calls = new AtomicInteger();
+
+        /**
+         * Opens this queue, such that it accepts commits.
+         */
+        private void open() {
+            open = true;
+        }
+
+        /**
+         * Opens this queue, such that it only accepts each given number-th addition.
+         *
+         * @param period the number of calls, of which only the last one is accepted
+         */
+        private void rejectEvery(int period) {
+            rejectedCalls = period;
+            open = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addCommit(Commit commit) {
+            boolean accepted = open && (rejectedCalls == 0 || calls.incrementAndGet() % rejectedCalls == 0);
+            if (accepted) {
+                commits.add(commit);
+            }
+            return accepted;
+        }
+
+        /**
+         * Returns the commits accepted so far.
+         *
+         * @return the accepted commits in the order of their addition
+         */
+        private List<Commit> getCommits() {
+            return new ArrayList<Commit>(commits);
+        }
+
+        /**
+         * Returns the identifiers of the commits accepted so far.
+         *
+         * @return the identifiers in the order of the addition of their commits
+         */
+        private List<String> getIds() {
+            return CommitAssertions.ids(getCommits());
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitPrinter}, which compare the commits printed by the
+ * {@link RepositoryReader} with the output of <code>git show</code> byte by byte.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitPrinterTest {
+
+    /**
+     * Tests that all commits of the sample repository, which contains notes, a merge, a rename, binary and non-ASCII
+     * files, and a message with tabs, are printed like Git prints them, before and after the repository is packed.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testSampleRepositoryMatchesGit() throws IOException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            assertAllCommitsMatchGit(repository);
+            repository.git("gc", "-q", "--aggressive");
+            assertAllCommitsMatchGit(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that the internal backend extracts the commits of the sample repository like <code>git show</code> prints
+     * them and like the process backend extracts them.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testInternalBackendMatchesGitShow() throws IOException, ExtractionSetupException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, "internal"), repository.getDirectory());
+            CommitAssertions.assertMatchGitShow(repository, commits);
+            CommitAssertions.assertSameCommits(CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, "process"), repository.getDirectory()), commits);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that commits with unusual headers and messages are printed like Git prints them: messages in a declared
+     * legacy encoding, messages with blank lines, carriage returns, tabs after wide characters, and trailing white
+     * space, <i>empty</i> messages, and dates in different time zones.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testUnusualCommitsMatchGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write("file.txt", "content\n");
+            repository.commit("Initial commit");
+            commitRaw(repository, "+0530", "ISO-8859-1",
+                    "Gr\u00fc\u00dfe aus M\u00fcnchen\n\nZeile mit \u00e4\n".getBytes(StandardCharsets.ISO_8859_1));
+            commitRaw(repository, "-0800", null, ("\n\nSubject with trailing space  \r\n"
+                    + "\tTab\tat\tcolumns\n\u65e5\u672c\tafter wide characters\n   \n\n\n").getBytes(
+                    StandardCharsets.UTF_8));
+            commitRaw(repository, "+0000", null, new byte[0]);
+            commitRaw(repository, "-0000", "UTF-8", "Declared UTF-8\n".getBytes(StandardCharsets.UTF_8));
+            assertAllCommitsMatchGit(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that authors are mapped by the "<tt>.mailmap</tt>" file of the working tree and that notes with white
+     * space, which <code>git notes add -m</code> would remove, are printed unchanged like Git prints them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testMailMapAndNotesMatchGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write(".mailmap", "Mapped Author <mapped@example.org> <author@example.org>\n");
+            repository.write("file.txt", "content\n");
+            String commit = repository.commit("Add mailmap");
+            repository.write(".git/note.txt", "Tab\tnote  \n\n\n    indented\nlast");
+            String note = repository.git("hash-object", "-w", ".git/note.txt").trim();
+            repository.git("notes", "add", "-C", note, commit);
+            repository.write("file.txt", "changed content\n");
+            commit = repository.commit("Change file");
+            repository.git("notes", "add", "-m", "Regular note", commit);
+            assertAllCommitsMatchGit(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that an octopus merge with an <i>empty</i> combined diff and a merge with a combined diff are printed like
+     * Git prints them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testMergesMatchGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write("shared.txt", "one\ntwo\nthree\n");
+            repository.commit("Base");
+            for (String branch : new String[] {"first", "second"}) {
+                repository.git("checkout", "-q", "-b", branch, "main");
+                repository.write(branch + ".txt", branch + "\n");
+                repository.write("shared.txt", "one " + branch + "\ntwo\nthree\n");
+                repository.commit("Change on " + branch);
+            }
+            repository.git("checkout", "-q", "main");
+            repository.write("shared.txt", "one\ntwo\nthree main\n");
+            repository.commit("Change on main");
+            repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "first", "second");
+            repository.commit("Octopus merge");
+            repository.git("checkout", "-q", "-b", "third", "main~1");
+            repository.write("shared.txt", "one\ntwo third\nthree\n");
+            repository.commit("Change on third");
+            repository.git("checkout", "-q", "main");
+            repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "third");
+            repository.write("shared.txt", "one merged\ntwo third\nthree main\n");
+            repository.commit("Merge third");
+            assertAllCommitsMatchGit(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Creates a commit from the given raw header fields and message, which cannot be created by
+     * <code>git commit</code>, and makes it the new <tt>HEAD</tt> commit without changing the tree.
+     *
+     * @param repository the repository
+     * @param timeZone the time zone of the author and committer dates
+     * @param encoding the encoding declared by the commit or <code>null</code>, if it shall not declare one
+     * @param message the raw message
+     * @throws IOException if writing the commit or executing Git fails
+     */
+    private static void commitRaw(TestRepository repository, String timeZone, String encoding, byte[] message)
+            throws IOException {
+        ByteArrayOutputStream commit = new ByteArrayOutputStream();
+        StringBuilder header = new StringBuilder();
+        header.append("tree ").append(repository.git("rev-parse", "HEAD^{tree}").trim()).append('\n');
+        header.append("parent ").append(repository.git("rev-parse", "HEAD").trim()).append('\n');
+        header.append("author Raw Author <raw@example.org> 1577836800 ").append(timeZone).append('\n');
+        header.append("committer Raw Committer <raw@example.org> 1577840400 ").append(timeZone).append('\n');
+        if (encoding != null) {
+            header.append("encoding ").append(encoding).append('\n');
+        }
+        commit.write(header.append('\n').toString().getBytes(StandardCharsets.US_ASCII));
+        commit.write(message);
+        repository.write(".git/commit.tmp", commit.toByteArray());
+        String commitId = repository.git("hash-object", "-t", "commit", "-w", ".git/commit.tmp").trim();
+        repository.git("update-ref", "HEAD", commitId);
+    }
+
+    /**
+     * Asserts that all commits reachable from <tt>HEAD</tt> are printed like <code>git show -U100000
+     * --no-renames</code> prints them. Non-merge commits are also compared with three context lines, which are used
+     * for lazily loaded file contents.
+     *
+     * @param repository the repository
+     * @throws IOException if executing Git or reading an object fails
+     */
+    private static void assertAllCommitsMatchGit(TestRepository repository) throws IOException {
+        RepositoryReader repositoryReader = new RepositoryReader(repository.getDirectory());
+        for (String line : repository.gitLines("log", "--format=%H %p")) {
+            String commitId = line.substring(0, ObjectId.HEX_LENGTH);
+            assertEquals(new String(repository.gitBytes("show", "-U100000", "--no-renames", commitId),
+                    StandardCharsets.ISO_8859_1), new String(repositoryReader.show(ObjectId.fromHex(commitId),
+                    PatchPrinter.CONTEXT_LINES), StandardCharsets.ISO_8859_1));
+            if (line.split(" ").length <= 2) {
+                assertEquals(new String(repository.gitBytes("show", "-U3", "--no-renames", commitId),
+                        StandardCharsets.ISO_8859_1), new String(repositoryReader.show(ObjectId.fromHex(commitId),
+                        3), StandardCharsets.ISO_8859_1));
+            }
+        }
+    }
+
+}
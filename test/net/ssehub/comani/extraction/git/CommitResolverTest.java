@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitResolver} and the extraction of commit lists, which all backends
+ * resolve before extracting the commits.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitResolverTest {
+
+    /**
+     * The commit number not identifying any commit of the {@link #repository}.
+     */
+    private static final String UNKNOWN_COMMIT_NUMBER = "0123456789abcdef0123456789abcdef01234567";
+
+    /**
+     * The repository extracted by all tests of this class.
+     */
+    private static TestRepository repository;
+
+    /**
+     * The full commit numbers of all commits of the {@link #repository} from the newest to the oldest commit.
+     */
+    private static List<String> fullCommitNumbers;
+
+    /**
+     * Creates the {@link #repository}.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+        fullCommitNumbers = repository.gitLines("log", "--format=%H");
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that abbreviated and full commit numbers are resolved, unknown commit numbers are reported, and commit
+     * numbers identifying an already resolved commit are ignored.
+     *
+     * @throws IOException if executing Git fails
+     */
+    @Test
+    public void testResolveReportsUnknownAndIgnoresDuplicates() throws IOException {
+        String abbreviated = fullCommitNumbers.get(2).substring(0, 7);
+        CommitResolver commitResolver = new CommitResolver(repository.getDirectory());
+        Map<String, String> resolved = commitResolver.resolve(Arrays.asList(abbreviated, fullCommitNumbers.get(0),
+                UNKNOWN_COMMIT_NUMBER, fullCommitNumbers.get(2)));
+        assertEquals(Arrays.asList(fullCommitNumbers.get(2), fullCommitNumbers.get(0)),
+                new ArrayList<String>(resolved.keySet()));
+        assertEquals(Arrays.asList(abbreviated, fullCommitNumbers.get(0)), new ArrayList<String>(resolved.values()));
+        assertEquals(Arrays.asList(UNKNOWN_COMMIT_NUMBER), commitResolver.getUnresolvedCommitNumbers());
+    }
+
+    /**
+     * Tests that the batch extraction of a commit list extracts the resolved commits in the order of the list equal to
+     * the process backend and to the output of <code>git show</code>.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testBatchExtractionMatchesGitShow() throws IOException, ExtractionSetupException {
+        List<String> resolvableCommitList = new ArrayList<String>(fullCommitNumbers);
+        // The oldest commit is the root commit, which the batch extraction must print with its full diff as well
+        resolvableCommitList.add(0, resolvableCommitList.remove(resolvableCommitList.size() - 1));
+        List<String> commitList = new ArrayList<String>(resolvableCommitList);
+        commitList.add(UNKNOWN_COMMIT_NUMBER);
+        commitList.add(resolvableCommitList.get(1));
+        List<Commit> expected = CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, "process"), repository.getDirectory(), resolvableCommitList);
+        List<Commit> actual = CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, "stream"), repository.getDirectory(), commitList);
+        assertEquals(resolvableCommitList, CommitAssertions.ids(actual));
+        CommitAssertions.assertSameCommits(expected, actual);
+        CommitAssertions.assertMatchGitShow(repository, actual);
+    }
+
+    /**
+     * Tests that all backends, also with multiple threads, resolve the commit list before extracting any commit. Hence,
+     * they skip commit numbers not identifying a commit, extract commits listed multiple times (also by different
+     * commit numbers) only once, and accept branch names.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testAllBackendsResolveCommitList() throws IOException, ExtractionSetupException {
+        String abbreviated = fullCommitNumbers.get(3).substring(0, 7);
+        List<String> commitList = Arrays.asList(abbreviated, UNKNOWN_COMMIT_NUMBER, "main", "  ",
+                fullCommitNumbers.get(3), "no-such-branch", fullCommitNumbers.get(0), fullCommitNumbers.get(5));
+        List<String> expectedIds = Arrays.asList(abbreviated, "main", fullCommitNumbers.get(5));
+        for (String backend : Arrays.asList("process", "stream", "internal")) {
+            for (String threads : Arrays.asList("1", "2")) {
+                List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend,
+                        ExtractionSettings.PROPERTY_THREADS, threads), repository.getDirectory(), commitList);
+                assertEquals(backend + " with " + threads + " threads", expectedIds, CommitAssertions.ids(commits));
+                CommitAssertions.assertMatchGitShow(repository, commits);
+            }
+        }
+    }
+
+}
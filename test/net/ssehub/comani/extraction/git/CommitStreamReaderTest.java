@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the stream backend, which parses the output of a single <code>git log</code>
+ * process using the {@link CommitStreamReader}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitStreamReaderTest {
+
+    /**
+     * The repository extracted by all tests of this class.
+     */
+    private static TestRepository repository;
+
+    /**
+     * Creates the {@link #repository}.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that each streamed commit equals the output of <code>git show</code> for that commit, including the git
+     * notes, the tabs in the commit message, and the combined diff of the merge.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testStreamedCommitsMatchGitShow() throws IOException, ExtractionSetupException {
+        List<Commit> commits = CommitAssertions.extract(
+                CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, "stream"),
+                repository.getDirectory());
+        assertEquals(repository.gitLines("log", "--format=%h"), CommitAssertions.ids(commits));
+        CommitAssertions.assertMatchGitShow(repository, commits);
+    }
+
+    /**
+     * Tests that the stream backend extracts the same commits in the same order as the process backend.
+     *
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testStreamMatchesProcessBackend() throws ExtractionSetupException {
+        List<Commit> expected = CommitAssertions.extract(
+                CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, "process"),
+                repository.getDirectory());
+        List<Commit> actual = CommitAssertions.extract(
+                CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, "stream"),
+                repository.getDirectory());
+        CommitAssertions.assertSameCommits(expected, actual);
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitWindow} and the {@link CommitSampler}, which compare the
+ * commits selected by all backends with the commits listed by <code>git log</code> with the equivalent options.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitWindowTest {
+
+    /**
+     * The backends tested with the commit selection properties.
+     */
+    private static final List<String> BACKENDS = Arrays.asList("process", "stream", "internal");
+
+    /**
+     * The repository providing the commits of all tests of this class.
+     */
+    private static TestRepository repository;
+
+    /**
+     * The committer timestamps of the commits of the {@link #repository} in the order of the commit log.
+     */
+    private static List<Long> commitTimes;
+
+    /**
+     * Creates the {@link #repository}, which contains interleaved commits of two merged branches and a commit with a
+     * committer date older than the one of its parent.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+        repository.git("checkout", "-q", "-b", "topic");
+        for (int i = 0; i < 6; i++) {
+            String branch = i % 2 == 0 ? "topic" : "main";
+            repository.git("checkout", "-q", branch);
+            repository.write(branch + ".txt", "Commit " + i + "\n");
+            repository.commit("Change " + branch + " " + i);
+        }
+        repository.git("merge", "-q", "--no-ff", "-m", "Merge topic", "topic");
+        // A commit committed before its parent, like after a clock skew, stops the traversal of Git at its parent
+        String tree = repository.git("rev-parse", "HEAD^{tree}").trim();
+        String parent = repository.git("rev-parse", "HEAD").trim();
+        long skewedTime = Long.parseLong(repository.git("log", "-1", "--format=%ct").trim()) - 3 * 3600 - 1800;
+        String identity = "Test Author <author@example.org> " + skewedTime + " +0000";
+        File commitFile = new File(repository.getDirectory(), ".git/skewed-commit");
+        Files.write(commitFile.toPath(), ("tree " + tree + "\nparent " + parent + "\nauthor " + identity
+                + "\ncommitter " + identity + "\n\nSkewed commit\n").getBytes(StandardCharsets.UTF_8));
+        String skewedId = repository.git("hash-object", "-t", "commit", "-w", commitFile.getAbsolutePath()).trim();
+        repository.git("update-ref", "refs/heads/main", skewedId);
+        repository.write("main.txt", "After the skewed commit\n");
+        repository.commit("Change after skewed commit");
+        commitTimes = new ArrayList<Long>();
+        for (String commitTime : repository.gitLines("log", "--format=%ct")) {
+            commitTimes.add(Long.parseLong(commitTime));
+        }
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that all backends extract the commits listed by <code>git log --since --until</code> for inclusive bounds
+     * equal to the dates of commits, each equal to the output of <code>git show</code>.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testSinceAndUntilMatchGitLog() throws IOException, ExtractionSetupException {
+        long since = commitTimes.get(8);
+        long until = commitTimes.get(3);
+        List<String> expected = repository.gitLines("log", "--format=%h", "--since=@" + since, "--until=@" + until);
+        assertTrue(expected.size() > 2);
+        for (String backend : BACKENDS) {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_SINCE, "@" + since,
+                    ExtractionSettings.PROPERTY_UNTIL, "@" + until), repository.getDirectory());
+            assertEquals(backend, expected, CommitAssertions.ids(commits));
+            CommitAssertions.assertMatchGitShow(repository, commits);
+        }
+    }
+
+    /**
+     * Tests that dates in the format of <code>%ci</code> select the same commits as <code>git log</code> with the
+     * equivalent timestamps.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testFormattedDatesMatchGitLog() throws IOException, ExtractionSetupException {
+        // 2020-01-01 07:30:00 +0200 is between the commits at 05:00:00 and 06:00:00 UTC
+        long since = 1577836800L + 5 * 3600 + 1800;
+        List<String> expected = repository.gitLines("log", "--format=%h", "--since=@" + since);
+        assertTrue(expected.size() > 2);
+        for (String backend : BACKENDS) {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_SINCE, "2020-01-01 07:30:00 +0200"), repository.getDirectory());
+            assertEquals(backend, expected, CommitAssertions.ids(commits));
+        }
+    }
+
+    /**
+     * Tests that all backends stop the traversal at a commit older than the start of the window like
+     * <code>git log --since</code>, even if its ancestors are inside of the window.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testSinceStopsAtSkewedCommit() throws IOException, ExtractionSetupException {
+        long since = commitTimes.get(1) + 1;
+        assertTrue(since < commitTimes.get(2));
+        List<String> expected = repository.gitLines("log", "--format=%h", "--since=@" + since);
+        assertEquals(Arrays.asList(repository.git("log", "-1", "--format=%h").trim()), expected);
+        for (String backend : BACKENDS) {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_SINCE, "@" + since), repository.getDirectory());
+            assertEquals(backend, expected, CommitAssertions.ids(commits));
+        }
+    }
+
+    /**
+     * Tests that all backends extract the commits listed by <code>git log --first-parent</code>, including the merges
+     * with their combined diffs.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testFirstParentMatchesGitLog() throws IOException, ExtractionSetupException {
+        List<String> expected = repository.gitLines("log", "--format=%h", "--first-parent", "HEAD~2");
+        assertTrue(expected.size() < repository.gitLines("log", "--format=%h", "HEAD~2").size());
+        long until = Long.parseLong(repository.git("log", "-1", "--format=%ct", "HEAD~2").trim());
+        for (String backend : BACKENDS) {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_FIRST_PARENT, "true",
+                    ExtractionSettings.PROPERTY_UNTIL, "@" + until), repository.getDirectory());
+            assertEquals(backend, repository.gitLines("log", "--format=%h", "--first-parent", "--until=@" + until),
+                    CommitAssertions.ids(commits));
+            CommitAssertions.assertMatchGitShow(repository, commits);
+        }
+    }
+
+    /**
+     * Tests that all backends extract the first and every n-th following commit of the commits listed by
+     * <code>git log --first-parent</code>.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testSampleEveryMatchesGitLog() throws IOException, ExtractionSetupException {
+        List<String> listed = repository.gitLines("log", "--format=%h", "--first-parent");
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < listed.size(); i += 3) {
+            expected.add(listed.get(i));
+        }
+        for (String backend : BACKENDS) {
+            List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_FIRST_PARENT, "true",
+                    ExtractionSettings.PROPERTY_SAMPLE_EVERY, "3"), repository.getDirectory());
+            assertEquals(backend, expected, CommitAssertions.ids(commits));
+            CommitAssertions.assertMatchGitShow(repository, commits);
+        }
+    }
+
+    /**
+     * Tests that all backends extract the same sample of the commits listed by <code>git log</code> for the same
+     * rate and seed in the order of the log, and that different seeds select different samples.
+     *
+     * @throws IOException if executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testSampleRateSelectsSubsequenceOfGitLog() throws IOException, ExtractionSetupException {
+        List<String> listed = repository.gitLines("log", "--format=%h");
+        List<String> firstSample = null;
+        for (String backend : BACKENDS) {
+            List<String> sample = extractSample(backend, "7");
+            if (firstSample == null) {
+                firstSample = sample;
+            }
+            assertEquals(backend, firstSample, sample);
+        }
+        List<String> selected = new ArrayList<String>(listed);
+        selected.retainAll(firstSample);
+        assertEquals(selected, firstSample);
+        assertTrue(firstSample.size() > 0 && firstSample.size() < listed.size());
+        assertNotEquals(firstSample, extractSample("process", "8"));
+    }
+
+    /**
+     * Extracts half of the commits of the {@link #repository} selected by the given seed.
+     *
+     * @param backend the backend extracting the commits
+     * @param seed the seed selecting the commits
+     * @return the identifiers of the extracted commits in the order of their delivery
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private static List<String> extractSample(String backend, String seed) throws ExtractionSetupException {
+        return CommitAssertions.ids(CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, backend,
+                ExtractionSettings.PROPERTY_SAMPLE_RATE, "0.5",
+                ExtractionSettings.PROPERTY_SAMPLE_SEED, seed), repository.getDirectory()));
+    }
+
+}
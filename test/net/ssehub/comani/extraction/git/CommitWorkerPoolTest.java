@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.ChangedArtifact;
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link CommitWorkerPool} and the concurrent extraction using the process
+ * backend.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class CommitWorkerPoolTest {
+
+    /**
+     * The commit numbers extracted by the tests of the {@link CommitWorkerPool} alone.
+     */
+    private static final String[] COMMIT_NUMBERS = {"c0", "c1", "c2", "c3", "c4", "c5", "c6", "c7", "c8", "c9"};
+
+    /**
+     * Tests that ordered delivery passes the commits to the consumer in the order of the commit numbers, although the
+     * extraction of later commits finishes earlier, and that the consumer is only called by the calling thread.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testOrderedDeliveryKeepsCommitOrder() throws InterruptedException {
+        CommitWorkerPool workerPool = new CommitWorkerPool(null, 4, true, Long.MAX_VALUE);
+        List<String> deliveredIds = new ArrayList<String>();
+        List<Thread> consumerThreads = new ArrayList<Thread>();
+        workerPool.extract(COMMIT_NUMBERS, new SlowExtraction(), commit -> {
+            deliveredIds.add(commit.getId());
+            consumerThreads.add(Thread.currentThread());
+        });
+        assertEquals(Arrays.asList(COMMIT_NUMBERS), deliveredIds);
+        assertEquals(Collections.nCopies(COMMIT_NUMBERS.length, Thread.currentThread()), consumerThreads);
+    }
+
+    /**
+     * Tests that unordered delivery passes each extracted commit to the consumer exactly once and skips commits, whose
+     * extraction returns <code>null</code>.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testUnorderedDeliveryDeliversEachCommitOnce() throws InterruptedException {
+        CommitWorkerPool workerPool = new CommitWorkerPool(null, 4, false, Long.MAX_VALUE);
+        List<String> deliveredIds = new ArrayList<String>();
+        SlowExtraction extraction = new SlowExtraction();
+        workerPool.extract(COMMIT_NUMBERS, commitNumber -> commitNumber.equals("c3") ? null
+                : extraction.apply(commitNumber), commit -> deliveredIds.add(commit.getId()));
+        List<String> expectedIds = new ArrayList<String>(Arrays.asList(COMMIT_NUMBERS));
+        expectedIds.remove("c3");
+        Collections.sort(deliveredIds);
+        assertEquals(expectedIds, deliveredIds);
+    }
+
+    /**
+     * Tests that the pending bytes return to zero after each extraction, even if the consumer changes the size of the
+     * delivered commits, because the size estimated when an extraction finished is released on delivery.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testPendingBytesIgnoreChangesAfterDelivery() throws InterruptedException {
+        for (boolean orderedDelivery : new boolean[] {true, false}) {
+            CommitWorkerPool workerPool = new CommitWorkerPool(null, 4, orderedDelivery, Long.MAX_VALUE);
+            for (int run = 0; run < 2; run++) {
+                workerPool.extract(COMMIT_NUMBERS, new SlowExtraction(), commit -> {
+                    ChangedArtifact changedArtifact = new ChangedArtifact();
+                    changedArtifact.addContentLine("+line added by the consumer");
+                    commit.getChangedArtifacts().add(changedArtifact);
+                });
+                assertEquals(0, workerPool.getPendingBytes());
+            }
+            assertTrue(workerPool.getPeakPendingBytes() > 0);
+        }
+    }
+
+    /**
+     * Tests that the pending bytes of commits, which were extracted but not delivered, because the consumer failed,
+     * are released when the extraction ends.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testPendingBytesReleasedOnConsumerFailure() throws InterruptedException {
+        for (boolean orderedDelivery : new boolean[] {true, false}) {
+            CommitWorkerPool workerPool = new CommitWorkerPool(null, 4, orderedDelivery, Long.MAX_VALUE);
+            List<String> deliveredIds = new ArrayList<String>();
+            try {
+                workerPool.extract(COMMIT_NUMBERS, new SlowExtraction(), commit -> {
+                    deliveredIds.add(commit.getId());
+                    if (deliveredIds.size() == 3) {
+                        throw new IllegalStateException("Consumer failed");
+                    }
+                });
+                fail("Failure of the consumer not propagated");
+            } catch (IllegalStateException e) {
+                assertEquals(3, deliveredIds.size());
+            }
+            assertEquals(0, workerPool.getPendingBytes());
+        }
+    }
+
+    /**
+     * Tests that the concurrent extraction with ordered delivery extracts the same commits in the same order as the
+     * extraction using a single thread and that each commit equals the output of <code>git show</code>.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testConcurrentExtractionMatchesGitShow() throws IOException, ExtractionSetupException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            List<Commit> expected = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_THREADS, "1"), repository.getDirectory());
+            List<Commit> actual = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_THREADS, "4",
+                    ExtractionSettings.PROPERTY_ORDERED_DELIVERY, "true"), repository.getDirectory());
+            CommitAssertions.assertSameCommits(expected, actual);
+            CommitAssertions.assertMatchGitShow(repository, actual);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * This {@link Function} creates a commit for a given commit number of the form "<tt>c&lt;index&gt;</tt>". The
+     * larger the index, the faster the creation finishes.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class SlowExtraction implements Function<String, Commit> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Commit apply(String commitNumber) {
+            int index = Integer.parseInt(commitNumber.substring(1));
+            try {
+                TimeUnit.MILLISECONDS.sleep((COMMIT_NUMBERS.length - index) * 5L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Commit(commitNumber, "2020-01-01 00:00:00 +0000", new String[] {"commit " + commitNumber},
+                    new ArrayList<ChangedArtifact>());
+        }
+
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.data.IExtractionQueue;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the incremental extraction, which persists its progress in an
+ * {@link ExtractionCheckpoint} and resumes interrupted extractions.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class ExtractionCheckpointTest {
+
+    /**
+     * The number of commits delivered before the first extraction of each test is interrupted.
+     */
+    private static final int DELIVERED_BEFORE_INTERRUPT = 3;
+
+    /**
+     * Tests the interruption and resumption of an extraction using the process backend.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testResumeProcessBackend() throws IOException, ExtractionSetupException {
+        testResume("process");
+    }
+
+    /**
+     * Tests the interruption and resumption of an extraction using the stream backend.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testResumeStreamBackend() throws IOException, ExtractionSetupException {
+        testResume("stream");
+    }
+
+    /**
+     * Tests the interruption and resumption of an extraction using the internal backend.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testResumeInternalBackend() throws IOException, ExtractionSetupException {
+        testResume("internal");
+    }
+
+    /**
+     * Tests that all backends resume an extraction from a partial checkpoint file, whose last line was cut in the
+     * middle of its commit number by the interruption. The commit of this line is delivered again by the next
+     * extraction, which is interrupted as well. The final extraction delivers all remaining commits including a commit
+     * added in the meantime. Apart from the commit of the cut line, each commit is delivered exactly once.
+     *
+     * @throws IOException if creating the repository, executing Git, or accessing the checkpoint file fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testResumePartialCheckpoint() throws IOException, ExtractionSetupException {
+        for (String backend : Arrays.asList("process", "stream", "internal")) {
+            TestRepository repository = TestRepository.createSample();
+            try {
+                File stateDirectory = new File(repository.getDirectory(), ".git/comani-state");
+                Properties properties = CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, backend,
+                        ExtractionSettings.PROPERTY_STATE_DIR, stateDirectory.getPath());
+                List<String> delivered = CommitAssertions.ids(extractInterrupted(properties,
+                        repository.getDirectory()));
+                List<String> fullCommitNumbers = repository.gitLines("log", "--format=%H");
+                String cutCommit = fullCommitNumbers.get(DELIVERED_BEFORE_INTERRUPT - 1);
+                ExtractionCheckpoint checkpoint = new ExtractionCheckpoint(stateDirectory, repository.getDirectory());
+                String content = new String(Files.readAllBytes(checkpoint.getFile().toPath()), StandardCharsets.UTF_8);
+                assertTrue(backend, content.endsWith("delivered " + cutCommit + "\n"));
+                Files.write(checkpoint.getFile().toPath(),
+                        content.substring(0, content.length() - 21).getBytes(StandardCharsets.UTF_8));
+                checkpoint.load();
+                assertTrue(backend, checkpoint.isInterrupted());
+                assertTrue(backend, checkpoint.isDelivered(fullCommitNumbers.get(0)));
+                assertFalse(backend, checkpoint.isDelivered(cutCommit));
+
+                delivered.addAll(CommitAssertions.ids(extractInterrupted(properties, repository.getDirectory())));
+                repository.write("new.txt", "new\n");
+                String newCommit = repository.commit("Add new file");
+                List<Commit> resumed = CommitAssertions.extract(properties, repository.getDirectory());
+                CommitAssertions.assertMatchGitShow(repository, resumed);
+                delivered.addAll(CommitAssertions.ids(resumed));
+                List<String> expected = new ArrayList<String>(fullCommitNumbers);
+                expected.add(cutCommit);
+                expected.add(newCommit);
+                assertEquals(backend, sort(expected), sort(getFullCommitNumbers(delivered, expected)));
+                checkpoint.load();
+                assertFalse(backend, checkpoint.isInterrupted());
+                assertEquals(backend, newCommit, checkpoint.getBaseCommit());
+            } finally {
+                repository.delete();
+            }
+        }
+    }
+
+    /**
+     * Tests that an extraction interrupted by the commit queue is resumed by the next extraction, which delivers
+     * exactly the commits not delivered before, and that later extractions only deliver new commits. Each delivered
+     * commit must equal the output of <code>git show</code>.
+     *
+     * @param backend the name of the backend to test
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private void testResume(String backend) throws IOException, ExtractionSetupException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            File stateDirectory = new File(repository.getDirectory(), ".git/comani-state");
+            Properties properties = CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, backend,
+                    ExtractionSettings.PROPERTY_STATE_DIR, stateDirectory.getPath());
+            List<String> allCommitNumbers = repository.gitLines("log", "--format=%h");
+            List<Commit> interrupted = extractInterrupted(properties, repository.getDirectory());
+            assertEquals(DELIVERED_BEFORE_INTERRUPT, interrupted.size());
+            List<Commit> resumed = CommitAssertions.extract(properties, repository.getDirectory());
+            List<String> deliveredCommitNumbers = CommitAssertions.ids(interrupted);
+            deliveredCommitNumbers.addAll(CommitAssertions.ids(resumed));
+            assertEquals(allCommitNumbers, deliveredCommitNumbers);
+            CommitAssertions.assertMatchGitShow(repository, interrupted);
+            CommitAssertions.assertMatchGitShow(repository, resumed);
+
+            repository.write("new.txt", "new\n");
+            String newCommit = repository.commit("Add new file");
+            List<Commit> incremental = CommitAssertions.extract(properties, repository.getDirectory());
+            assertEquals(1, incremental.size());
+            assertTrue(newCommit.startsWith(incremental.get(0).getId()));
+            CommitAssertions.assertMatchGitShow(repository, incremental);
+            assertEquals(0, CommitAssertions.extract(properties, repository.getDirectory()).size());
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Returns the full commit numbers of the given (abbreviated) commit numbers.
+     *
+     * @param commitNumbers the (abbreviated) commit numbers
+     * @param fullCommitNumbers the full commit numbers, which the commit numbers abbreviate
+     * @return the full commit number starting with each commit number or the commit number itself, if none matches;
+     *         never <code>null</code>
+     */
+    private static List<String> getFullCommitNumbers(List<String> commitNumbers, List<String> fullCommitNumbers) {
+        List<String> result = new ArrayList<String>();
+        for (String commitNumber : commitNumbers) {
+            result.add(fullCommitNumbers.stream().filter(full -> full.startsWith(commitNumber)).findFirst()
+                    .orElse(commitNumber));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the given list sorted in natural order.
+     *
+     * @param list the list to sort
+     * @return the given list after sorting it
+     */
+    private static List<String> sort(List<String> list) {
+        list.sort(null);
+        return list;
+    }
+
+    /**
+     * Extracts all commits of the given repository with a commit queue, which throws an exception instead of accepting
+     * the commit after {@link #DELIVERED_BEFORE_INTERRUPT} commits.
+     *
+     * @param properties the extraction properties
+     * @param repositoryDirectory the repository to extract
+     * @return the commits accepted by the commit queue
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private static List<Commit> extractInterrupted(Properties properties, File repositoryDirectory)
+            throws ExtractionSetupException {
+        List<Commit> commits = new ArrayList<Commit>();
+        IExtractionQueue queue = new IExtractionQueue() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean addCommit(Commit commit) {
+                if (commits.size() == DELIVERED_BEFORE_INTERRUPT) {
+                    throw new IllegalStateException("Interrupted by test");
+                }
+                return commits.add(commit);
+            }
+        };
+        try {
+            new GitCommitExtractor(properties, queue).extract(repositoryDirectory);
+            fail("Extraction not interrupted");
+        } catch (IllegalStateException e) {
+            assertEquals("Interrupted by test", e.getMessage());
+        }
+        return commits;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.data.IExtractionQueue;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link ExtractionMetrics} published via JMX while an extraction is running.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class ExtractionMetricsTest {
+
+    /**
+     * Tests that the metrics are registered at the platform MBean server while each extraction is running, count the
+     * delivered commits, and are unregistered when the extraction finishes. The delivered commits must equal the
+     * output of <code>git show</code>.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     * @throws JMException if querying the MBean server fails
+     */
+    @Test
+    public void testMetricsRegisteredOnlyWhileExtracting() throws IOException, ExtractionSetupException,
+            JMException {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName metricsPattern = new ObjectName("net.ssehub.comani.extraction.git:type=ExtractionMetrics,*");
+        Set<ObjectName> registeredBefore = mbeanServer.queryNames(metricsPattern, null);
+        TestRepository repository = TestRepository.createSample();
+        try {
+            List<Commit> commits = new ArrayList<Commit>();
+            List<Long> deliveredCounts = new ArrayList<Long>();
+            IExtractionQueue queue = new IExtractionQueue() {
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public boolean addCommit(Commit commit) {
+                    Set<ObjectName> registered = mbeanServer.queryNames(metricsPattern, null);
+                    registered.removeAll(registeredBefore);
+                    assertEquals(1, registered.size());
+                    try {
+                        deliveredCounts.add((Long) mbeanServer.getAttribute(registered.iterator().next(),
+                                "DeliveredCommits"));
+                    } catch (JMException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return commits.add(commit);
+                }
+            };
+            GitCommitExtractor extractor = new GitCommitExtractor(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_METRICS, "true"), queue);
+            for (int i = 0; i < 2; i++) {
+                commits.clear();
+                deliveredCounts.clear();
+                assertTrue(extractor.extract(repository.getDirectory()));
+                assertEquals(registeredBefore, mbeanServer.queryNames(metricsPattern, null));
+                for (int j = 0; j < deliveredCounts.size(); j++) {
+                    assertEquals(Long.valueOf(j), deliveredCounts.get(j));
+                }
+                assertEquals(repository.gitLines("log", "--format=%h"), CommitAssertions.ids(commits));
+                CommitAssertions.assertMatchGitShow(repository, commits);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link GitProcess#OUTPUT_CHARSET}, which all backends use for decoding the
+ * output of Git.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class GitProcessTest {
+
+    /**
+     * Tests that the output charset is the platform default charset.
+     */
+    @Test
+    public void testOutputCharsetIsPlatformDefault() {
+        assertEquals(Charset.defaultCharset(), GitProcess.OUTPUT_CHARSET);
+    }
+
+    /**
+     * Tests that all backends decode non-ASCII commit messages, author names, and file contents to the same
+     * strings as the output of <code>git show</code> decoded using the platform default charset.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testBackendsDecodeNonAsciiOutputEqually() throws IOException, ExtractionSetupException {
+        TestRepository repository = new TestRepository();
+        try {
+            // Arguments of processes are encoded differently than their output, hence, Git reads the text from files
+            byte[] configuration = "[user]\n\tname = J\u00fcrgen \u00d8stergaard\n".getBytes(StandardCharsets.UTF_8);
+            Files.write(new File(repository.getDirectory(), ".git/config").toPath(), configuration,
+                    StandardOpenOption.APPEND);
+            repository.write(".git/message.txt", "\u00c4ndere \u00dcbersicht\n\n\u65e5\u672c\u8a9e\n");
+            repository.write("uebersicht.txt", "\u20ac 100\n\u00df\n");
+            repository.git("add", "-A");
+            repository.git("commit", "-q", "-F", ".git/message.txt");
+            repository.write("uebersicht.txt", "\u20ac 200\n\u00df\n\u00e9t\u00e9\n");
+            repository.commit("Update");
+            List<Commit> expected = CommitAssertions.extract(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, "process"), repository.getDirectory());
+            CommitAssertions.assertMatchGitShow(repository, expected);
+            for (String backend : Arrays.asList("stream", "internal")) {
+                List<Commit> actual = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend), repository.getDirectory());
+                CommitAssertions.assertSameCommits(expected, actual);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.ChangedArtifact;
+
+/**
+ * This class contains the tests of the {@link LazyChangedArtifact}, which check the character counts used for
+ * estimating the size of pending commits before and after the full content of artifacts is loaded.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class LazyChangedArtifactTest {
+
+    /**
+     * The number of artifacts completed by {@link #testCountingDuringCompletion()}.
+     */
+    private static final int ARTIFACT_COUNT = 20000;
+
+    /**
+     * Tests that the character count equals the characters of the lines extracted with small context before the
+     * artifact is loaded and the characters of the full diff header and content afterwards.
+     */
+    @Test
+    public void testCountsExtractedAndLoadedLines() {
+        LazyChangedArtifact artifact = createArtifact();
+        long extractedCharacters = getExtractedCharacters();
+        assertEquals(extractedCharacters, artifact.countCharacters());
+        artifact.complete(createFullArtifact());
+        assertTrue(artifact.isLoaded());
+        assertEquals(countCharacters(artifact), artifact.countCharacters());
+        assertTrue(artifact.countCharacters() > extractedCharacters);
+        artifact.addContentLine("+added after loading");
+        assertEquals(countCharacters(artifact), artifact.countCharacters());
+    }
+
+    /**
+     * Tests that completing an artifact without a full artifact keeps the lines extracted with small context and
+     * their character count.
+     */
+    @Test
+    public void testCompletionWithoutFullArtifactKeepsCount() {
+        LazyChangedArtifact artifact = createArtifact();
+        long extractedCharacters = artifact.countCharacters();
+        artifact.complete(null);
+        assertNull(artifact.getLoadPath());
+        assertEquals(extractedCharacters, artifact.countCharacters());
+        assertEquals(extractedCharacters, countCharacters(artifact));
+    }
+
+    /**
+     * Tests that counting the characters of artifacts, while another thread completes them, neither fails nor
+     * returns other counts than those before or after the completion.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testCountingDuringCompletion() throws InterruptedException {
+        List<LazyChangedArtifact> artifacts = new ArrayList<LazyChangedArtifact>(ARTIFACT_COUNT);
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            artifacts.add(createArtifact());
+        }
+        long extractedCharacters = getExtractedCharacters();
+        ChangedArtifact fullArtifact = createFullArtifact();
+        LazyChangedArtifact loadedArtifact = createArtifact();
+        loadedArtifact.complete(fullArtifact);
+        long loadedCharacters = countCharacters(loadedArtifact);
+        AtomicReference<Throwable> counterFailure = new AtomicReference<Throwable>();
+        Thread counter = new Thread(() -> {
+            try {
+                boolean allLoaded = false;
+                while (!allLoaded) {
+                    allLoaded = true;
+                    for (LazyChangedArtifact artifact : artifacts) {
+                        boolean loaded = artifact.isLoaded();
+                        long characters = artifact.countCharacters();
+                        if (loaded || characters != extractedCharacters) {
+                            assertEquals(loadedCharacters, characters);
+                        }
+                        allLoaded &= loaded;
+                    }
+                }
+            } catch (RuntimeException | AssertionError e) {
+                counterFailure.set(e);
+            }
+        });
+        counter.start();
+        for (LazyChangedArtifact artifact : artifacts) {
+            artifact.complete(fullArtifact);
+        }
+        counter.join();
+        assertNull(counterFailure.get());
+    }
+
+    /**
+     * Creates an artifact with the lines of a modified file extracted with small context.
+     *
+     * @return the new artifact, which is not loaded; never <code>null</code>
+     */
+    private static LazyChangedArtifact createArtifact() {
+        LazyChangedArtifact artifact = new LazyChangedArtifact(null, "0123456",
+                new ArrayList<LazyChangedArtifact>());
+        addExtractedLines(artifact);
+        return artifact;
+    }
+
+    /**
+     * Returns the number of characters of the lines added by {@link #addExtractedLines(ChangedArtifact)}.
+     *
+     * @return the number of characters
+     */
+    private static long getExtractedCharacters() {
+        ChangedArtifact artifact = new ChangedArtifact();
+        addExtractedLines(artifact);
+        return countCharacters(artifact);
+    }
+
+    /**
+     * Adds the lines of a modified file extracted with small context to the given artifact.
+     *
+     * @param artifact the artifact to add the lines to
+     */
+    private static void addExtractedLines(ChangedArtifact artifact) {
+        artifact.addArtifactPath("file.txt");
+        artifact.addDiffHeaderLine("diff --git a/file.txt b/file.txt");
+        artifact.addDiffHeaderLine("index 1111111..2222222 100644");
+        artifact.addDiffHeaderLine("--- a/file.txt");
+        artifact.addDiffHeaderLine("+++ b/file.txt");
+        artifact.addDiffHeaderLine("@@ -10,1 +10,1 @@");
+        artifact.addContentLine("-old line");
+        artifact.addContentLine("+new line");
+    }
+
+    /**
+     * Creates the full artifact corresponding to the artifacts of {@link #createArtifact()}.
+     *
+     * @return the full artifact; never <code>null</code>
+     */
+    private static ChangedArtifact createFullArtifact() {
+        ChangedArtifact fullArtifact = new ChangedArtifact();
+        fullArtifact.addDiffHeaderLine("diff --git a/file.txt b/file.txt");
+        fullArtifact.addDiffHeaderLine("index 1111111..2222222 100644");
+        fullArtifact.addDiffHeaderLine("--- a/file.txt");
+        fullArtifact.addDiffHeaderLine("+++ b/file.txt");
+        fullArtifact.addDiffHeaderLine("@@ -1,10 +1,10 @@");
+        for (int i = 1; i < 10; i++) {
+            fullArtifact.addContentLine(" context line " + i);
+        }
+        fullArtifact.addContentLine("-old line");
+        fullArtifact.addContentLine("+new line");
+        return fullArtifact;
+    }
+
+    /**
+     * Counts the characters of the diff header and content lines of the given artifact.
+     *
+     * @param artifact the artifact
+     * @return the number of characters of all lines
+     */
+    private static long countCharacters(ChangedArtifact artifact) {
+        long characters = 0;
+        for (String line : artifact.getDiffHeader()) {
+            characters += line.length();
+        }
+        for (String line : artifact.getContent()) {
+            characters += line.length();
+        }
+        return characters;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link LineDiff}, which compare the changes it computes with the hunks printed
+ * by <code>git diff -U0</code> for the same versions of files.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class LineDiffTest {
+
+    /**
+     * The lines, of which the files compared by {@link #testRandomEditsMatchGit()} consist. These lines repeat
+     * frequently, which makes the position of changes ambiguous and, hence, exercises the heuristics of Git for
+     * choosing between equivalent diffs.
+     */
+    private static final String[] VOCABULARY = {"", "{", "}", "    a();", "    b();", "if (x) {", "    return;",
+        "// comment", "        nested();", "else {"};
+
+    /**
+     * The number of pairs of files compared by {@link #testRandomEditsMatchGit()}.
+     */
+    private static final int RANDOM_FILE_COUNT = 300;
+
+    /**
+     * Tests that the changes between randomly edited versions of files match the hunks of Git. The edits insert,
+     * delete, and replace blocks of frequently repeated lines and sometimes remove the final line feed.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    @Test
+    public void testRandomEditsMatchGit() throws IOException {
+        Random random = new Random(RANDOM_FILE_COUNT);
+        List<byte[][]> versions = new ArrayList<byte[][]>();
+        for (int i = 0; i < RANDOM_FILE_COUNT; i++) {
+            List<String> oldLines = createLines(random, 10 + random.nextInt(70));
+            List<String> newLines = new ArrayList<String>(oldLines);
+            int editCount = 1 + random.nextInt(6);
+            for (int edit = 0; edit < editCount; edit++) {
+                int position = random.nextInt(newLines.size() + 1);
+                int deleted = Math.min(random.nextInt(3) * random.nextInt(4), newLines.size() - position);
+                newLines.subList(position, position + deleted).clear();
+                newLines.addAll(position, createLines(random, random.nextInt(3) * random.nextInt(5)));
+            }
+            versions.add(new byte[][] {join(oldLines, random.nextInt(8) > 0), join(newLines, random.nextInt(8) > 0)});
+        }
+        assertMatchesGit(versions);
+    }
+
+    /**
+     * Tests that the changes between versions of files, which need the heuristics for limiting the cost of the
+     * comparison or share a long common tail omitted before the comparison, match the hunks of Git.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    @Test
+    public void testLargeFilesMatchGit() throws IOException {
+        Random random = new Random(1);
+        List<byte[][]> versions = new ArrayList<byte[][]>();
+        List<String> oldLines = new ArrayList<String>();
+        List<String> newLines = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            String line = "line " + random.nextInt(2000);
+            oldLines.add(line);
+            newLines.add(random.nextInt(3) == 0 ? "changed " + random.nextInt(2000) : line);
+        }
+        versions.add(new byte[][] {join(oldLines, true), join(newLines, true)});
+        List<String> tailLines = createLines(random, 2000);
+        oldLines = new ArrayList<String>(tailLines);
+        newLines = new ArrayList<String>(tailLines);
+        oldLines.addAll(0, createLines(random, 20));
+        newLines.addAll(0, createLines(random, 25));
+        newLines.add(1990, "    changed();");
+        versions.add(new byte[][] {join(oldLines, true), join(newLines, true)});
+        assertMatchesGit(versions);
+    }
+
+    /**
+     * Tests the changes between files, whose lines only differ by their final line feed or are <i>empty</i>.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    @Test
+    public void testEdgeCasesMatchGit() throws IOException {
+        String[][] contents = {{"a\nb\n", "a\nb"}, {"a\nb", "a\nb\n"}, {"", "a\n"}, {"a\n", ""}, {"a", "b"},
+            {"\n\n\n", "\n\n"}, {"a\nb\nc\n", "c\nb\na\n"}};
+        List<byte[][]> versions = new ArrayList<byte[][]>();
+        for (String[] content : contents) {
+            versions.add(new byte[][] {content[0].getBytes(StandardCharsets.US_ASCII),
+                content[1].getBytes(StandardCharsets.US_ASCII)});
+        }
+        assertMatchesGit(versions);
+    }
+
+    /**
+     * Creates the given number of random lines of the {@link #VOCABULARY}.
+     *
+     * @param random the random number generator
+     * @param count the number of lines
+     * @return the lines; never <code>null</code>
+     */
+    private static List<String> createLines(Random random, int count) {
+        List<String> lines = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        return lines;
+    }
+
+    /**
+     * Joins the given lines to the content of a file.
+     *
+     * @param lines the lines of the file
+     * @param finalLineFeed <code>true</code>, if the last line shall be terminated by a line feed;
+     *        <code>false</code> otherwise
+     * @return the content of the file; never <code>null</code>
+     */
+    private static byte[] join(List<String> lines, boolean finalLineFeed) {
+        String content = String.join("\n", lines);
+        if (finalLineFeed && !lines.isEmpty()) {
+            content += "\n";
+        }
+        return content.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Asserts that the changes computed for each given pair of file versions match the hunks printed by
+     * <code>git diff -U0</code>. Like Git does without context lines, the common tail of both versions is omitted.
+     *
+     * @param versions the old and the new content of each file
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    private static void assertMatchesGit(List<byte[][]> versions) throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            for (int i = 0; i < versions.size(); i++) {
+                repository.write(getFileName(i), versions.get(i)[0]);
+            }
+            repository.commit("Old versions");
+            for (int i = 0; i < versions.size(); i++) {
+                repository.write(getFileName(i), versions.get(i)[1]);
+            }
+            Map<String, List<String>> gitHunks = new HashMap<String, List<String>>();
+            List<String> fileHunks = null;
+            for (String line : repository.gitLines("diff", "-U0", "--no-color")) {
+                if (line.startsWith("diff --git a/")) {
+                    fileHunks = new ArrayList<String>();
+                    gitHunks.put(line.substring(13, line.indexOf(' ', 13)), fileHunks);
+                } else if (line.startsWith("@@ ")) {
+                    fileHunks.add(line.substring(0, line.indexOf(" @@") + 3));
+                }
+            }
+            for (int i = 0; i < versions.size(); i++) {
+                byte[] oldContent = versions.get(i)[0];
+                byte[] newContent = versions.get(i)[1];
+                int commonTailLength = LineDiff.getCommonTailLength(oldContent, newContent);
+                LineDiff lineDiff = new LineDiff(oldContent, oldContent.length - commonTailLength, newContent,
+                        newContent.length - commonTailLength);
+                List<String> hunks = new ArrayList<String>();
+                for (int change = 0; change < lineDiff.getChangeCount(); change++) {
+                    hunks.add("@@ -" + formatRange(lineDiff.getOldStart(change), lineDiff.getOldCount(change))
+                            + " +" + formatRange(lineDiff.getNewStart(change), lineDiff.getNewCount(change)) + " @@");
+                }
+                List<String> expectedHunks = gitHunks.get(getFileName(i));
+                assertEquals(getFileName(i), expectedHunks == null ? new ArrayList<String>() : expectedHunks, hunks);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Returns the name of the file used for the given pair of file versions.
+     *
+     * @param index the index of the pair of file versions
+     * @return the name of the file; never <code>null</code>
+     */
+    private static String getFileName(int index) {
+        return String.format("file%03d.txt", index);
+    }
+
+    /**
+     * Formats a range of lines like the hunk headers of Git do.
+     *
+     * @param start the index of the first line of the range
+     * @param count the number of lines of the range
+     * @return the formatted range; never <code>null</code>
+     */
+    private static String formatRange(int start, int count) {
+        String range;
+        if (count == 0) {
+            range = start + ",0";
+        } else if (count == 1) {
+            range = Integer.toString(start + 1);
+        } else {
+            range = (start + 1) + "," + count;
+        }
+        return range;
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link LineScanner}, which must split content into the same lines as the
+ * regular expression <code>split("\n", -1)</code> used by the extractor before.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class LineScannerTest {
+
+    /**
+     * The contents split by the tests of this class. They cover empty content, line feeds at the beginning and the
+     * end, carriage returns kept in lines, and lines longer than the buffer of the {@link LineScanner}.
+     */
+    private static final String[] CONTENTS = {"", "\n", "\n\n", "a", "a\n", "\na", "a\nb", "a\r\nb\r\n", "\r",
+        " \t \n\n x \n", repeat('x', 8191) + "\n" + repeat('y', 8193) + "\n\n" + repeat('z', 20000)};
+
+    /**
+     * Tests that splitting a string yields the lines of the regular expression.
+     */
+    @Test
+    public void testStringLinesMatchRegularExpression() {
+        for (String content : CONTENTS) {
+            List<String> lines = new ArrayList<String>();
+            LineScanner.forEachLine(content, lines::add);
+            assertEquals(describe(content), Arrays.asList(content.split("\n", -1)), lines);
+        }
+    }
+
+    /**
+     * Tests that splitting the characters of a {@link Reader} yields the lines of the regular expression, independent
+     * of the number of characters the reader provides at once.
+     *
+     * @throws IOException if reading fails
+     */
+    @Test
+    public void testReaderLinesMatchRegularExpression() throws IOException {
+        for (String content : CONTENTS) {
+            List<String> lines = new ArrayList<String>();
+            LineScanner.forEachLine(new StringReader(content), lines::add);
+            assertEquals(describe(content), Arrays.asList(content.split("\n", -1)), lines);
+            List<String> trickledLines = new ArrayList<String>();
+            LineScanner.forEachLine(new TricklingReader(content), trickledLines::add);
+            assertEquals(describe(content), lines, trickledLines);
+        }
+    }
+
+    /**
+     * Tests that splitting the output of <code>git show</code> yields the lines of the regular expression for each
+     * commit of a sample repository.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    @Test
+    public void testGitShowLinesMatchRegularExpression() throws IOException {
+        TestRepository repository = TestRepository.createSample();
+        try {
+            for (String commitNumber : repository.gitLines("log", "--format=%H")) {
+                String content = repository.git("show", "-U100000", "--no-renames", commitNumber);
+                List<String> lines = new ArrayList<String>();
+                LineScanner.forEachLine(new StringReader(content), lines::add);
+                assertEquals(commitNumber, Arrays.asList(content.split("\n", -1)), lines);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Creates a string repeating the given character.
+     *
+     * @param character the character to repeat
+     * @param count the number of repetitions
+     * @return the string consisting of the given number of the given character
+     */
+    private static String repeat(char character, int count) {
+        char[] characters = new char[count];
+        Arrays.fill(characters, character);
+        return new String(characters);
+    }
+
+    /**
+     * Describes the given content for assertion messages.
+     *
+     * @param content the content to describe
+     * @return the beginning of the content with escaped line terminators and the length of the content
+     */
+    private static String describe(String content) {
+        String beginning = content.length() > 20 ? content.substring(0, 20) : content;
+        return "\"" + beginning.replace("\r", "\\r").replace("\n", "\\n") + "\" (" + content.length() + " chars)";
+    }
+
+    /**
+     * This {@link Reader} provides at most one character per read.
+     *
+     * @author Christian Kroeher
+     *
+     */
+    private static class TricklingReader extends Reader {
+
+        /**
+         * The {@link Reader} providing the characters.
+         */
+        private Reader reader;
+
+        /**
+         * Constructs a new {@link TricklingReader}.
+         *
+         * @param content the characters to provide
+         */
+        TricklingReader(String content) {
+            reader = new StringReader(content);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return reader.read(buffer, offset, Math.min(length, 1));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link MailMap}, which compare the identities it maps with the identities
+ * mapped by <code>git check-mailmap</code> using the same "<tt>.mailmap</tt>" file.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class MailMapTest {
+
+    /**
+     * The content of the "<tt>.mailmap</tt>" file used by the tests, which contains all forms of entries, comments,
+     * irregular white space, carriage returns, and invalid lines.
+     */
+    private static final String MAILMAP = "# Comment line\n"
+            + "Proper Name <commit-only@example.org>\n"
+            + "<proper-email@example.org> <commit-email@example.org>\n"
+            + "Other Name <other@example.org> <Mixed.Case@Example.org>\n"
+            + "Named Proper <named@example.org> Commit Name <shared@example.org>\n"
+            + "Second Proper <second@example.org> second name <SHARED@example.org>\n"
+            + "Fallback Name <shared@example.org>\n"
+            + "   Spaced    Name   <spaced@example.org>   # trailing comment\n"
+            + "Carriage Name <carriage@example.org>\r\n"
+            + "Line without an e-mail address\n"
+            + "Unterminated <unterminated@example.org\n"
+            + "Later Name <commit-only@example.org>\n"
+            + "# <commented@example.org> <commit-email@example.org>\n"
+            + "<>\n";
+
+    /**
+     * The identities mapped by the tests as pairs of name and e-mail address.
+     */
+    private static final String[][] IDENTITIES = {{"Any Name", "commit-only@example.org"},
+        {"Any Name", "COMMIT-ONLY@example.org"}, {"Any Name", "commit-email@example.org"},
+        {"Any Name", "mixed.case@example.org"}, {"Commit Name", "shared@example.org"},
+        {"commit name", "Shared@Example.org"}, {"Second Name", "shared@example.org"},
+        {"Unknown Name", "shared@example.org"}, {"Any Name", "spaced@example.org"},
+        {"Any Name", "carriage@example.org"}, {"Any Name", "unterminated@example.org"},
+        {"Any Name", "unknown@example.org"}, {"Any Name", "commented@example.org"}};
+
+    /**
+     * Tests that identities are mapped like Git maps them, if the "<tt>.mailmap</tt>" file is read from the working
+     * tree, which includes removing carriage returns at the end of lines.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     */
+    @Test
+    public void testMapsLikeGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write(".mailmap", MAILMAP);
+            List<String> arguments = new ArrayList<String>();
+            arguments.add("check-mailmap");
+            List<String> actual = new ArrayList<String>();
+            MailMap mailMap = new MailMap(MAILMAP.getBytes(StandardCharsets.UTF_8), true);
+            for (String[] identity : IDENTITIES) {
+                arguments.add(identity[0] + " <" + identity[1] + ">");
+                byte[][] mappedIdentity = {identity[0].getBytes(StandardCharsets.UTF_8),
+                    identity[1].getBytes(StandardCharsets.UTF_8)};
+                mailMap.map(mappedIdentity);
+                actual.add(new String(mappedIdentity[0], StandardCharsets.UTF_8) + " <"
+                        + new String(mappedIdentity[1], StandardCharsets.UTF_8) + ">");
+            }
+            List<String> expected = repository.gitLines(arguments.toArray(new String[arguments.size()]));
+            assertEquals(expected, actual);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that identities are not changed by an <i>empty</i> "<tt>.mailmap</tt>" file.
+     */
+    @Test
+    public void testEmptyMailMapKeepsIdentities() {
+        MailMap mailMap = new MailMap(new byte[0], true);
+        byte[][] identity = {"Name".getBytes(StandardCharsets.UTF_8), "name@example.org".getBytes(
+                StandardCharsets.UTF_8)};
+        mailMap.map(identity);
+        assertEquals(Arrays.asList("Name", "name@example.org"), Arrays.asList(
+                new String(identity[0], StandardCharsets.UTF_8), new String(identity[1], StandardCharsets.UTF_8)));
+    }
+
+}
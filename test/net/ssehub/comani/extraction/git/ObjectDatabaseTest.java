@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link ObjectDatabase}, which compare the objects it reads from loose objects
+ * and pack files with the objects printed by <code>git cat-file</code>.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class ObjectDatabaseTest {
+
+    /**
+     * The number of lines of the text file changed by each revision created by
+     * {@link #commitRevisions(TestRepository, int, long)}.
+     */
+    private static final int TEXT_LINES = 200;
+
+    /**
+     * The number of bytes of the binary file changed by each revision created by
+     * {@link #commitRevisions(TestRepository, int, long)}.
+     */
+    private static final int BINARY_BYTES = 4096;
+
+    /**
+     * Tests that all loose objects of a repository without pack files are read like Git reads them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsLooseObjects() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 10, 1);
+            assertEquals(0, getPackIndexFiles(repository).size());
+            assertReadsAllObjects(repository, createObjectDatabase(repository));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all objects of an aggressively packed repository, which stores most revisions as chains of offset
+     * deltas, are read like Git reads them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsOffsetDeltaChains() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 40, 2);
+            repository.git("gc", "-q", "--aggressive");
+            assertTrue(getMaxDeltaDepth(repository) > 1);
+            assertReadsAllObjects(repository, createObjectDatabase(repository));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all objects of a repository packed without offset deltas, which references delta bases by their
+     * names instead, are read like Git reads them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsReferenceDeltaChains() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 40, 3);
+            repository.git("-c", "repack.useDeltaBaseOffset=false", "repack", "-q", "-a", "-d", "-f", "--depth=50",
+                    "--window=250");
+            assertTrue(getMaxDeltaDepth(repository) > 1);
+            assertReadsAllObjects(repository, createObjectDatabase(repository));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that the objects of a repository, which has older revisions packed and newer revisions stored as loose
+     * objects, are read like Git reads them, while missing objects are not found.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsLooseAndPackedObjects() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 20, 4);
+            repository.git("repack", "-q", "-a", "-d");
+            commitRevisions(repository, 10, 5);
+            assertEquals(1, getPackIndexFiles(repository).size());
+            ObjectDatabase objectDatabase = createObjectDatabase(repository);
+            assertReadsAllObjects(repository, objectDatabase);
+            ObjectId missingId = ObjectId.fromHex(repository.git("hash-object", "--stdin").trim());
+            assertFalse(objectDatabase.contains(missingId));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that objects are still found, after a garbage collection moved them from loose objects to a pack file,
+     * which did not exist when the {@link ObjectDatabase} was created.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsObjectsPackedAfterCreation() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 10, 6);
+            ObjectDatabase objectDatabase = createObjectDatabase(repository);
+            repository.git("gc", "-q");
+            assertEquals(1, getPackIndexFiles(repository).size());
+            assertReadsAllObjects(repository, objectDatabase);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that commit and tree names are abbreviated like the "<tt>%h</tt>" and "<tt>%t</tt>" formats of Git
+     * abbreviate them, if the objects are partly packed and partly loose.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testAbbreviatesLikeGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            commitRevisions(repository, 30, 7);
+            repository.git("repack", "-q", "-a", "-d");
+            commitRevisions(repository, 30, 8);
+            ObjectDatabase objectDatabase = createObjectDatabase(repository);
+            for (String line : repository.gitLines("log", "--format=%H %h %T %t")) {
+                String[] names = line.split(" ");
+                assertEquals(names[1], objectDatabase.abbreviate(ObjectId.fromHex(names[0])));
+                assertEquals(names[3], objectDatabase.abbreviate(ObjectId.fromHex(names[2])));
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Commits the given number of revisions of a text file, a binary file, and small files in changing directories,
+     * which Git stores as deltas of their previous revisions, if the repository is packed.
+     *
+     * @param repository the repository to commit to
+     * @param count the number of revisions to commit
+     * @param seed the seed of the random changes of the files
+     * @throws IOException if writing a file or committing fails
+     */
+    static void commitRevisions(TestRepository repository, int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < TEXT_LINES; i++) {
+            lines.add("line " + i + " of the text file");
+        }
+        byte[] binary = new byte[BINARY_BYTES];
+        random.nextBytes(binary);
+        for (int revision = 0; revision < count; revision++) {
+            int changedLine = random.nextInt(lines.size());
+            lines.set(changedLine, "line " + changedLine + " changed by revision " + revision + " of seed " + seed);
+            lines.add(random.nextInt(lines.size()), "line inserted by revision " + revision + " of seed " + seed);
+            repository.write("text.txt", String.join("\n", lines) + "\n");
+            for (int i = 0; i < BINARY_BYTES / 64; i++) {
+                binary[random.nextInt(BINARY_BYTES)] = (byte) random.nextInt();
+            }
+            repository.write("binary.dat", binary);
+            repository.write("dir" + (revision % 3) + "/file.txt", "revision " + revision + " of seed " + seed + "\n");
+            repository.commit("Revision " + revision + " of seed " + seed);
+        }
+    }
+
+    /**
+     * Creates an {@link ObjectDatabase} for the objects of the given repository.
+     *
+     * @param repository the repository
+     * @return the new {@link ObjectDatabase}; never <code>null</code>
+     * @throws IOException if opening the object database fails
+     */
+    static ObjectDatabase createObjectDatabase(TestRepository repository) throws IOException {
+        return new ObjectDatabase(new File(repository.getDirectory(), ".git/objects"));
+    }
+
+    /**
+     * Lists all objects of the given repository as <code>git cat-file --batch-all-objects</code> does.
+     *
+     * @param repository the repository
+     * @return the type names of all objects with the hexadecimal object names as keys in the order listed by Git;
+     *         never <code>null</code>
+     * @throws IOException if executing Git fails
+     */
+    static Map<String, String> listObjects(TestRepository repository) throws IOException {
+        Map<String, String> objects = new LinkedHashMap<String, String>();
+        for (String line : repository.gitLines("cat-file", "--batch-all-objects", "--batch-check")) {
+            String[] fields = line.split(" ");
+            objects.put(fields[0], fields[1]);
+        }
+        return objects;
+    }
+
+    /**
+     * Asserts that the given object is read with the same type and content as <code>git cat-file</code> prints.
+     *
+     * @param repository the repository containing the object
+     * @param hexName the hexadecimal name of the object
+     * @param typeName the type name of the object printed by Git
+     * @param gitObject the object as read by the extractor
+     * @throws IOException if executing Git fails
+     */
+    static void assertSameObject(TestRepository repository, String hexName, String typeName, GitObject gitObject)
+            throws IOException {
+        assertEquals(hexName, typeName, GitObject.getTypeName(gitObject.getType()));
+        assertArrayEquals(hexName, repository.gitBytes("cat-file", typeName, hexName), gitObject.getData());
+    }
+
+    /**
+     * Asserts that the given {@link ObjectDatabase} contains all objects of the given repository and reads them with
+     * the same types and contents as <code>git cat-file</code> prints.
+     *
+     * @param repository the repository
+     * @param objectDatabase the {@link ObjectDatabase} of the repository
+     * @throws IOException if executing Git or reading an object fails
+     */
+    private static void assertReadsAllObjects(TestRepository repository, ObjectDatabase objectDatabase)
+            throws IOException {
+        Map<String, String> objects = listObjects(repository);
+        assertFalse(objects.isEmpty());
+        for (Map.Entry<String, String> object : objects.entrySet()) {
+            ObjectId objectId = ObjectId.fromHex(object.getKey());
+            assertTrue(object.getKey(), objectDatabase.contains(objectId));
+            assertSameObject(repository, object.getKey(), object.getValue(), objectDatabase.read(objectId));
+        }
+    }
+
+    /**
+     * Returns the index files of the pack files of the given repository.
+     *
+     * @param repository the repository
+     * @return the index files ending with "<tt>.idx</tt>"; never <code>null</code> but may be <i>empty</i>
+     */
+    static List<File> getPackIndexFiles(TestRepository repository) {
+        List<File> indexFiles = new ArrayList<File>();
+        File[] files = new File(repository.getDirectory(), ".git/objects/pack").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".idx")) {
+                    indexFiles.add(file);
+                }
+            }
+        }
+        return indexFiles;
+    }
+
+    /**
+     * Returns the length of the longest delta chain in the pack files of the given repository as reported by
+     * <code>git verify-pack</code>.
+     *
+     * @param repository the repository
+     * @return the maximum number of deltas applied for reading a single object
+     * @throws IOException if executing Git fails
+     */
+    static int getMaxDeltaDepth(TestRepository repository) throws IOException {
+        int maxDepth = 0;
+        for (File indexFile : getPackIndexFiles(repository)) {
+            for (String line : repository.gitLines("verify-pack", "-v", indexFile.getPath())) {
+                if (line.startsWith("chain length = ")) {
+                    maxDepth = Math.max(maxDepth, Integer.parseInt(line.substring(15, line.indexOf(':'))));
+                }
+            }
+        }
+        return maxDepth;
+    }
+
+}
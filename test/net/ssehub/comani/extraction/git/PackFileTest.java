@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link PackFile}, which compare the index and the objects of pack files with
+ * the output of <code>git verify-pack</code> and <code>git cat-file</code>.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class PackFileTest {
+
+    /**
+     * Tests that the objects of a pack file with a version 2 index and offset delta chains are listed in the order
+     * of the index and read like Git reads them, in both the order of the index and the reverse order.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsVersion2Index() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            ObjectDatabaseTest.commitRevisions(repository, 30, 11);
+            repository.git("gc", "-q", "--aggressive");
+            assertTrue(ObjectDatabaseTest.getMaxDeltaDepth(repository) > 1);
+            assertReadsAllPacks(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that the objects of a pack file with a version 1 index and reference delta chains are listed in the order
+     * of the index and read like Git reads them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsVersion1Index() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            ObjectDatabaseTest.commitRevisions(repository, 30, 12);
+            repository.git("-c", "pack.indexVersion=1", "-c", "repack.useDeltaBaseOffset=false", "repack", "-q", "-a",
+                    "-d", "-f", "--depth=50", "--window=250");
+            assertTrue(ObjectDatabaseTest.getMaxDeltaDepth(repository) > 1);
+            assertReadsAllPacks(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that the objects of each pack file of a repository, which was repacked incrementally, are listed and read
+     * like Git lists and reads them.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading an object fails
+     */
+    @Test
+    public void testReadsObjectsOfMultiplePacks() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            ObjectDatabaseTest.commitRevisions(repository, 15, 13);
+            repository.git("repack", "-q", "-d");
+            ObjectDatabaseTest.commitRevisions(repository, 15, 14);
+            repository.git("repack", "-q", "-d");
+            assertEquals(2, ObjectDatabaseTest.getPackIndexFiles(repository).size());
+            assertReadsAllPacks(repository);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Asserts that each pack file of the given repository lists the same objects in the same order as
+     * <code>git verify-pack</code>, finds their positions, and reads them with the same types and contents as
+     * <code>git cat-file</code> prints, while names between the listed objects are not found.
+     *
+     * @param repository the repository
+     * @throws IOException if executing Git, opening a pack file, or reading an object fails
+     */
+    private static void assertReadsAllPacks(TestRepository repository) throws IOException {
+        ObjectDatabase objectDatabase = ObjectDatabaseTest.createObjectDatabase(repository);
+        List<File> indexFiles = ObjectDatabaseTest.getPackIndexFiles(repository);
+        assertFalse(indexFiles.isEmpty());
+        for (File indexFile : indexFiles) {
+            Map<String, String> objects = new HashMap<String, String>();
+            for (String line : repository.gitLines("verify-pack", "-v", indexFile.getPath())) {
+                String[] fields = line.split(" +");
+                if (fields.length > 2 && fields[0].length() == ObjectId.HEX_LENGTH && ObjectId.isHex(fields[0])) {
+                    objects.put(fields[0], fields[1]);
+                }
+            }
+            List<String> hexNames = new ArrayList<String>(objects.keySet());
+            Collections.sort(hexNames);
+            String packPath = indexFile.getPath();
+            PackFile pack = new PackFile(new File(packPath.substring(0, packPath.length() - 4) + ".pack"),
+                    indexFile, objectDatabase);
+            assertEquals(hexNames.size(), pack.getObjectCount());
+            for (int i = 0; i < hexNames.size(); i++) {
+                ObjectId objectId = ObjectId.fromHex(hexNames.get(i));
+                assertEquals(hexNames.get(i), pack.getObjectId(i).toHex());
+                assertEquals(i, pack.findPosition(objectId));
+                assertTrue(pack.contains(objectId));
+                ObjectId missingId = ObjectId.fromHex(hexNames.get(i).substring(0, ObjectId.HEX_LENGTH - 1)
+                        + (hexNames.get(i).endsWith("0") ? "1" : "0"));
+                assertEquals(objects.containsKey(missingId.toHex()), pack.contains(missingId));
+            }
+            for (int i = hexNames.size() - 1; i >= 0; i--) {
+                String hexName = hexNames.get(i);
+                ObjectDatabaseTest.assertSameObject(repository, hexName, objects.get(hexName),
+                        pack.read(ObjectId.fromHex(hexName)));
+            }
+            for (String hexName : hexNames) {
+                ObjectDatabaseTest.assertSameObject(repository, hexName, objects.get(hexName),
+                        pack.read(ObjectId.fromHex(hexName)));
+            }
+        }
+    }
+
+}
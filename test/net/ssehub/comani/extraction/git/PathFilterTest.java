@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link PathFilter} and its application by all backends, which compare the
+ * extracted commits with the output of <code>git show</code> restricted by the equivalent pathspecs.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class PathFilterTest {
+
+    /**
+     * The include patterns used by the tests.
+     */
+    private static final String INCLUDE_PATHS = "*.c,*.h,Kconfig";
+
+    /**
+     * The exclude patterns used by the tests.
+     */
+    private static final String EXCLUDE_PATHS = "vendor";
+
+    /**
+     * The Git pathspecs equivalent to the {@link #INCLUDE_PATHS} and {@link #EXCLUDE_PATHS}.
+     */
+    private static final String[] PATHSPECS = {"*.c", "*.h", "Kconfig", ":(exclude)vendor"};
+
+    /**
+     * The backends tested with the path filter.
+     */
+    private static final List<String> BACKENDS = Arrays.asList("process", "stream", "internal");
+
+    /**
+     * Tests that all backends extract exactly the commits changing included, non-binary files and that each commit
+     * only contains the included, non-binary files like <code>git show</code> with the equivalent pathspecs prints
+     * them. Commits only changing excluded, ignored, or binary files are skipped.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testIncludeExcludeAndSkipBinaryMatchGit() throws IOException, ExtractionSetupException {
+        TestRepository repository = createRepository();
+        try {
+            List<List<String>> expected = getExpectedCommits(repository, PATHSPECS, true);
+            for (String backend : BACKENDS) {
+                List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend,
+                        ExtractionSettings.PROPERTY_INCLUDE_PATHS, INCLUDE_PATHS,
+                        ExtractionSettings.PROPERTY_EXCLUDE_PATHS, EXCLUDE_PATHS,
+                        ExtractionSettings.PROPERTY_SKIP_BINARY, "true"), repository.getDirectory());
+                assertCommits(backend, expected, commits);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all backends extract the commits changing included binary files, if binary files are not skipped.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testIncludedBinaryFilesMatchGit() throws IOException, ExtractionSetupException {
+        TestRepository repository = createRepository();
+        try {
+            List<List<String>> expected = getExpectedCommits(repository, PATHSPECS, false);
+            assertTrue(expected.size() > getExpectedCommits(repository, PATHSPECS, true).size());
+            for (String backend : BACKENDS) {
+                List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend,
+                        ExtractionSettings.PROPERTY_INCLUDE_PATHS, INCLUDE_PATHS,
+                        ExtractionSettings.PROPERTY_EXCLUDE_PATHS, EXCLUDE_PATHS), repository.getDirectory());
+                assertCommits(backend, expected, commits);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all backends apply overlapping patterns like Git does: exclude patterns win over include patterns
+     * matching the same paths, even if an include pattern names an excluded file explicitly, and paths matched by
+     * multiple include patterns are extracted once.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testOverlappingPatternsMatchGit() throws IOException, ExtractionSetupException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write("src/main.c", "int main();\n");
+            repository.write("src/notes.txt", "Notes\n");
+            repository.write("src/gen/table.c", "int table[1];\n");
+            repository.write("lib/lib.c", "void lib();\n");
+            repository.write("docs/guide.md", "Guide\n");
+            repository.commit("Add files");
+            repository.write("src/gen/table.c", "int table[2];\n");
+            repository.write("docs/guide.md", "Guide changed\n");
+            repository.commit("Change only excluded files");
+            repository.write("src/main.c", "int main(void);\n");
+            repository.write("src/notes.txt", "Notes changed\n");
+            repository.write("src/gen/table.c", "int table[3];\n");
+            repository.write("lib/lib.c", "void lib(void);\n");
+            repository.commit("Change included and excluded files");
+            String[] pathspecs = {"src", "*.c", "src/main.c", "src/gen/table.c", "docs", ":(exclude)src/gen",
+                ":(exclude)*.txt", ":(exclude)docs"};
+            List<List<String>> expected = getExpectedCommits(repository, pathspecs, false);
+            assertEquals(2, expected.size());
+            for (String backend : BACKENDS) {
+                List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend,
+                        ExtractionSettings.PROPERTY_INCLUDE_PATHS, "src,*.c,src/main.c,src/gen/table.c,docs",
+                        ExtractionSettings.PROPERTY_EXCLUDE_PATHS, "src/gen,*.txt,docs"), repository.getDirectory());
+                assertCommits(backend, expected, commits);
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all backends detect binary files like Git does, with and without skipping them: files changing
+     * between text and binary content, null bytes just within and just beyond the checked beginning of a file, empty
+     * files, and binary files in the combined diffs of merges, which are skipped entirely, if only binary files remain.
+     *
+     * @throws IOException if creating the repository or executing Git fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testBinaryEdgeCasesMatchGit() throws IOException, ExtractionSetupException {
+        TestRepository repository = new TestRepository();
+        try {
+            repository.write("file.c", "int a;\n");
+            repository.write("empty.c", new byte[0]);
+            repository.commit("Add text and empty files");
+            repository.write("file.c", new byte[] {'i', 'n', 't', 0, '\n'});
+            repository.commit("Change text to binary");
+            repository.write("file.c", "int b;\n");
+            repository.commit("Change binary to text");
+            repository.write("late.c", getContentWithNullByte(8000));
+            repository.write("early.c", getContentWithNullByte(7999));
+            repository.commit("Add files with null bytes beyond and within the checked beginning");
+            repository.write("merged.c", new byte[] {0, 1});
+            repository.commit("Add binary file to merge");
+            repository.git("checkout", "-q", "-b", "feature");
+            repository.write("merged.c", new byte[] {0, 2});
+            repository.commit("Change binary file on feature");
+            repository.git("checkout", "-q", "main");
+            repository.write("merged.c", new byte[] {0, 3});
+            repository.commit("Change binary file on main");
+            repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "feature");
+            repository.write("merged.c", new byte[] {0, 4});
+            repository.write("file.c", "int c;\n");
+            repository.commit("Merge feature");
+            repository.git("checkout", "-q", "-b", "binary");
+            repository.write("merged.c", new byte[] {0, 5});
+            repository.commit("Change binary file on binary");
+            repository.git("checkout", "-q", "main");
+            repository.write("merged.c", new byte[] {0, 6});
+            repository.commit("Change binary file on main again");
+            repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "binary");
+            repository.write("merged.c", new byte[] {0, 7});
+            repository.commit("Merge binary only");
+            String[] pathspecs = {"*.c"};
+            assertTrue(getExpectedCommits(repository, pathspecs, false).size()
+                    > getExpectedCommits(repository, pathspecs, true).size());
+            for (boolean skipBinary : new boolean[] {false, true}) {
+                List<List<String>> expected = getExpectedCommits(repository, pathspecs, skipBinary);
+                for (String backend : BACKENDS) {
+                    List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                            ExtractionSettings.PROPERTY_BACKEND, backend,
+                            ExtractionSettings.PROPERTY_INCLUDE_PATHS, "*.c",
+                            ExtractionSettings.PROPERTY_SKIP_BINARY, String.valueOf(skipBinary)),
+                            repository.getDirectory());
+                    assertCommits(backend + " skip binary " + skipBinary, expected, commits);
+                }
+            }
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that patterns match paths like Git pathspecs do: equal paths, leading directories, and wildcards, which
+     * also match slashes.
+     */
+    @Test
+    public void testPatternSyntax() {
+        PathFilter pathFilter = new PathFilter(Arrays.asList("src", "*.c", "doc/?.txt"), Arrays.asList("src/gen"),
+                false);
+        assertTrue(pathFilter.matches("src"));
+        assertTrue(pathFilter.matches("src/main.java"));
+        assertTrue(pathFilter.matches("lib/deep/file.c"));
+        assertTrue(pathFilter.matches("doc/a.txt"));
+        assertFalse(pathFilter.matches("src/gen/file.java"));
+        assertFalse(pathFilter.matches("srcfile"));
+        assertFalse(pathFilter.matches("doc/ab.txt"));
+        assertFalse(pathFilter.matches("file.cc"));
+    }
+
+    /**
+     * Creates a repository, whose commits change included, excluded, ignored, and binary files, including a merge
+     * with a combined diff of an included file.
+     *
+     * @return the new repository; never <code>null</code>
+     * @throws IOException if creating the repository fails
+     */
+    private static TestRepository createRepository() throws IOException {
+        TestRepository repository = new TestRepository();
+        repository.write("src/main.c", "int main() {\n    return 0;\n}\n");
+        repository.write("src/main.h", "int main();\n");
+        repository.write("Kconfig", "config A\n");
+        repository.write("README.md", "Readme\n");
+        repository.write("vendor/lib.c", "void lib() {}\n");
+        repository.write("src/blob.c", new byte[] {0, 1, 2});
+        repository.commit("Add files");
+        repository.write("README.md", "Readme changed\n");
+        repository.commit("Change ignored file");
+        repository.write("vendor/lib.c", "void lib() { }\n");
+        repository.commit("Change excluded file");
+        repository.write("src/blob.c", new byte[] {0, 1, 3});
+        repository.commit("Change binary file");
+        repository.write("src/main.c", "int main() {\n    return 1;\n}\n");
+        repository.write("README.md", "Readme changed again\n");
+        repository.write("vendor/lib.c", "void lib() { return; }\n");
+        repository.commit("Change included, ignored, and excluded files");
+        repository.git("checkout", "-q", "-b", "feature");
+        repository.write("src/util.c", "void util() {}\n");
+        repository.write("src/main.c", "int main() {\n    util();\n    return 1;\n}\n");
+        repository.commit("Add file on feature");
+        repository.git("checkout", "-q", "main");
+        repository.write("Kconfig", "config A\nconfig B\n");
+        repository.write("src/main.c", "int main() {\n    return 2;\n}\n");
+        repository.commit("Change on main");
+        repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "feature");
+        repository.write("src/util.c", "void util() {}\n");
+        repository.write("src/main.c", "int main() {\n    util();\n    return 3;\n}\n");
+        repository.commit("Merge feature");
+        new File(repository.getDirectory(), "src/main.h").delete();
+        repository.write("docs/guide.md", "Guide\n");
+        repository.commit("Delete header");
+        return repository;
+    }
+
+    /**
+     * Returns text content of lines with a single null byte at the given position, which Git treats as binary, if the
+     * position is within the first 8000 bytes.
+     *
+     * @param position the position of the null byte
+     * @return the content; never <code>null</code>
+     */
+    private static byte[] getContentWithNullByte(int position) {
+        byte[] content = new byte[position + 2];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (i % 40 == 39) ? (byte) '\n' : (byte) 'x';
+        }
+        content[position] = 0;
+        content[content.length - 1] = '\n';
+        return content;
+    }
+
+    /**
+     * Returns the expected lines of the commits extracted with the path filter equivalent to the given pathspecs. These
+     * are the lines printed by <code>git show -U100000 --no-renames</code> with these pathspecs for each commit listed
+     * by <code>git log --full-history</code> with these pathspecs, optionally without the diffs of binary files.
+     * Commits without remaining diffs are omitted.
+     *
+     * @param repository the repository
+     * @param pathspecs the pathspecs equivalent to the path filter
+     * @param skipBinary <code>true</code>, if the diffs of binary files shall be removed; <code>false</code> otherwise
+     * @return the expected lines of each expected commit in the order of the log; never <code>null</code>
+     * @throws IOException if executing Git fails
+     */
+    private static List<List<String>> getExpectedCommits(TestRepository repository, String[] pathspecs,
+            boolean skipBinary)
+            throws IOException {
+        List<List<String>> expectedCommits = new ArrayList<List<String>>();
+        List<String> logArguments = new ArrayList<String>(Arrays.asList("log", "--full-history", "--format=%h",
+                "--"));
+        logArguments.addAll(Arrays.asList(pathspecs));
+        for (String commitId : repository.gitLines(logArguments.toArray(new String[logArguments.size()]))) {
+            List<String> showArguments = new ArrayList<String>(Arrays.asList("show", "-U100000", "--no-renames",
+                    commitId, "--"));
+            showArguments.addAll(Arrays.asList(pathspecs));
+            List<String> lines = new ArrayList<String>();
+            List<String> diffLines = new ArrayList<String>();
+            boolean diffFound = false;
+            for (String line : repository.gitLines(showArguments.toArray(new String[showArguments.size()]))) {
+                if (line.startsWith("diff --")) {
+                    addDiff(lines, diffLines, skipBinary);
+                    diffFound = true;
+                }
+                if (diffFound) {
+                    diffLines.add(line);
+                } else {
+                    lines.add(line);
+                }
+            }
+            addDiff(lines, diffLines, skipBinary);
+            while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+                lines.remove(lines.size() - 1);
+            }
+            if (lines.size() > 0 && lines.stream().anyMatch(line -> line.startsWith("diff --"))) {
+                expectedCommits.add(lines);
+            }
+        }
+        return expectedCommits;
+    }
+
+    /**
+     * Adds the lines of the given diff of a single file to the given lines of a commit, unless the diff shall be
+     * skipped, and clears the diff.
+     *
+     * @param lines the lines of the commit
+     * @param diffLines the lines of the diff of a single file; may be <i>empty</i>
+     * @param skipBinary <code>true</code>, if diffs of binary files shall be skipped; <code>false</code> otherwise
+     */
+    private static void addDiff(List<String> lines, List<String> diffLines, boolean skipBinary) {
+        boolean binary = diffLines.stream().anyMatch(line -> line.startsWith("Binary files "));
+        if (!(binary && skipBinary)) {
+            lines.addAll(diffLines);
+        }
+        diffLines.clear();
+    }
+
+    /**
+     * Asserts that the given extracted commits match the expected commits.
+     *
+     * @param backend the backend, which extracted the commits
+     * @param expected the expected lines of each commit
+     * @param commits the extracted commits
+     */
+    private static void assertCommits(String backend, List<List<String>> expected, List<Commit> commits) {
+        List<String> expectedOutput = new ArrayList<String>();
+        for (List<String> lines : expected) {
+            expectedOutput.add(String.join("\n", lines));
+        }
+        List<String> actualOutput = new ArrayList<String>();
+        for (Commit commit : commits) {
+            actualOutput.add(String.join("\n", CommitAssertions.render(commit)));
+        }
+        assertEquals(backend, expectedOutput, actualOutput);
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the {@link RepositoryFeatureCheck} and the opt-in of the experimental
+ * <code>internal</code> backend.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class RepositoryFeatureCheckTest {
+
+    /**
+     * The repository, to which the tests temporarily add unsupported features.
+     */
+    private static TestRepository repository;
+
+    /**
+     * Creates the {@link #repository}.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that the <code>internal</code> backend is rejected, unless the experimental property enables it.
+     *
+     * @throws ExtractionSetupException if the properties enabling the backend are rejected
+     */
+    @Test
+    public void testInternalBackendRequiresOptIn() throws ExtractionSetupException {
+        try {
+            new ExtractionSettings(CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, "internal",
+                    ExtractionSettings.PROPERTY_EXPERIMENTAL_INTERNAL, "false"));
+            fail("Internal backend accepted without opt-in");
+        } catch (ExtractionSetupException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(ExtractionSettings.PROPERTY_EXPERIMENTAL_INTERNAL));
+        }
+        new ExtractionSettings(CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, "internal"));
+    }
+
+    /**
+     * Tests that replacement references, both loose and packed, and grafts are rejected and that an extraction using
+     * the <code>internal</code> backend fails for such a repository.
+     *
+     * @throws IOException if executing Git or writing a file fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testRejectsReplacementsAndGrafts() throws IOException, ExtractionSetupException {
+        List<String> commits = repository.gitLines("log", "--format=%H");
+        repository.git("replace", commits.get(0), commits.get(1));
+        try {
+            assertRejected("refs/replace");
+            List<Commit> extractedCommits = new ArrayList<Commit>();
+            GitCommitExtractor extractor = new GitCommitExtractor(CommitAssertions.properties(
+                    ExtractionSettings.PROPERTY_BACKEND, "internal"), extractedCommits::add);
+            assertFalse(extractor.extract(repository.getDirectory()));
+            assertTrue(extractedCommits.isEmpty());
+            repository.git("pack-refs", "--all");
+            assertRejected("refs/replace");
+        } finally {
+            repository.git("replace", "-d", commits.get(0));
+        }
+        new RepositoryReader(repository.getDirectory());
+        File graftsFile = new File(repository.getDirectory(), ".git/info/grafts");
+        Files.createDirectories(graftsFile.getParentFile().toPath());
+        Files.write(graftsFile.toPath(), (commits.get(0) + "\n").getBytes("US-ASCII"));
+        try {
+            assertRejected("grafts");
+        } finally {
+            Files.delete(graftsFile.toPath());
+        }
+    }
+
+    /**
+     * Tests that attribute files assigning diff drivers, disabling diffs, or using the <code>binary</code> macro are
+     * rejected in the working tree, its sub-directories, and the Git directory, while other attributes are accepted.
+     *
+     * @throws IOException if writing a file fails
+     */
+    @Test
+    public void testRejectsDiffAttributes() throws IOException {
+        String[][] attributeFiles = {{".gitattributes", "*.bin diff=hex"}, {"renamed/.gitattributes", "*.txt -diff"},
+            {".gitattributes", "data.bin binary"}, {".git/info/attributes", "* !diff"}};
+        for (String[] attributeFile : attributeFiles) {
+            File file = new File(repository.getDirectory(), attributeFile[0]);
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), ("*.md text\n" + attributeFile[1] + "\n").getBytes("US-ASCII"));
+            try {
+                assertRejected(attributeFile[1].split(" ")[1]);
+            } finally {
+                Files.delete(file.toPath());
+            }
+        }
+        File file = new File(repository.getDirectory(), ".gitattributes");
+        Files.write(file.toPath(), "# *.bin diff=hex\n*.txt text eol=lf\n".getBytes("US-ASCII"));
+        try {
+            new RepositoryReader(repository.getDirectory());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * Tests that configuration variables changing the output of Git are rejected in the repository configuration and
+     * in included files, while their default values and unrelated variables are accepted.
+     *
+     * @throws IOException if executing Git or writing a file fails
+     */
+    @Test
+    public void testRejectsOutputConfiguration() throws IOException {
+        String[][] variables = {{"mailmap.file", "other.mailmap"}, {"mailmap.blob", "HEAD:other"},
+            {"notes.displayRef", "refs/notes/other"}, {"core.notesRef", "refs/notes/other"},
+            {"i18n.logOutputEncoding", "ISO-8859-1"}, {"log.decorate", "short"}, {"core.quotePath", "false"},
+            {"log.mailmap", "false"}, {"diff.hex.textconv", "hexdump"}, {"format.pretty", "fuller"}};
+        for (String[] variable : variables) {
+            repository.git("config", variable[0], variable[1]);
+            try {
+                assertRejected(variable[0].toLowerCase());
+            } finally {
+                repository.git("config", "--unset", variable[0]);
+            }
+        }
+        File includedFile = new File(repository.getDirectory(), ".git/included.config");
+        Files.write(includedFile.toPath(), "[notes]\n\tdisplayRef = refs/notes/*\n".getBytes("US-ASCII"));
+        repository.git("config", "include.path", "included.config");
+        try {
+            assertRejected("notes.displayref");
+        } finally {
+            repository.git("config", "--unset", "include.path");
+        }
+        repository.git("config", "i18n.logOutputEncoding", "UTF-8");
+        repository.git("config", "log.decorate", "auto");
+        repository.git("config", "diff.hex.xfuncname", "^x");
+        try {
+            new RepositoryReader(repository.getDirectory());
+        } finally {
+            repository.git("config", "--unset", "i18n.logOutputEncoding");
+            repository.git("config", "--unset", "log.decorate");
+            repository.git("config", "--unset", "diff.hex.xfuncname");
+        }
+    }
+
+    /**
+     * Tests that environment variables overriding the configuration or the notes, and the global configuration file
+     * defined by the environment are checked.
+     *
+     * @throws IOException if writing the global configuration fails
+     */
+    @Test
+    public void testChecksEnvironment() throws IOException {
+        File gitDirectory = new File(repository.getDirectory(), ".git");
+        Map<String, String> environment = new HashMap<String, String>();
+        environment.put("HOME", repository.getDirectory().getPath());
+        environment.put("GIT_CONFIG_NOSYSTEM", "1");
+        new RepositoryFeatureCheck(gitDirectory, gitDirectory, environment).check(null,
+                Collections.<String>emptyList());
+        for (String variable : new String[] {"GIT_NOTES_REF", "GIT_CONFIG_PARAMETERS"}) {
+            Map<String, String> overridingEnvironment = new HashMap<String, String>(environment);
+            overridingEnvironment.put(variable, "x");
+            assertRejected(new RepositoryFeatureCheck(gitDirectory, gitDirectory, overridingEnvironment), variable);
+        }
+        File globalConfig = new File(repository.getDirectory(), ".git/global.config");
+        Files.write(globalConfig.toPath(), "[log]\n\tdate = relative\n".getBytes("US-ASCII"));
+        environment.put("GIT_CONFIG_GLOBAL", globalConfig.getPath());
+        assertRejected(new RepositoryFeatureCheck(gitDirectory, gitDirectory, environment), "log.date");
+    }
+
+    /**
+     * Asserts that opening the {@link #repository} by a {@link RepositoryReader} fails with a message containing the
+     * given text.
+     *
+     * @param expectedText the text the message of the exception must contain
+     */
+    private static void assertRejected(String expectedText) {
+        try {
+            new RepositoryReader(repository.getDirectory());
+            fail("Repository accepted, expected rejection of " + expectedText);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedText));
+        }
+    }
+
+    /**
+     * Asserts that the given check fails with a message containing the given text.
+     *
+     * @param featureCheck the check of the {@link #repository}
+     * @param expectedText the text the message of the exception must contain
+     */
+    private static void assertRejected(RepositoryFeatureCheck featureCheck, String expectedText) {
+        try {
+            featureCheck.check(null, Collections.<String>emptyList());
+            fail("Repository accepted, expected rejection of " + expectedText);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(expectedText));
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the multi-repository extraction using the {@link RepositoryScheduler}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class RepositorySchedulerTest {
+
+    /**
+     * The backends tested with multiple repositories.
+     */
+    private static final List<String> BACKENDS = Arrays.asList("process", "stream", "internal");
+
+    /**
+     * The repositories extracted by all tests of this class.
+     */
+    private static List<TestRepository> repositories;
+
+    /**
+     * Creates the {@link #repositories}, which have different commits.
+     *
+     * @throws IOException if creating a repository fails
+     */
+    @BeforeClass
+    public static void createRepositories() throws IOException {
+        repositories = new ArrayList<TestRepository>();
+        for (int i = 0; i < 3; i++) {
+            TestRepository repository = TestRepository.createSample();
+            for (int j = 0; j <= i; j++) {
+                repository.write("repository.txt", "Repository " + i + "\nCommit " + j + "\n");
+                repository.commit("Change repository " + i);
+            }
+            repositories.add(repository);
+        }
+    }
+
+    /**
+     * Deletes the {@link #repositories}.
+     *
+     * @throws IOException if deleting a repository fails
+     */
+    @AfterClass
+    public static void deleteRepositories() throws IOException {
+        for (TestRepository repository : repositories) {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that all backends extract the repositories listed in a file, which contains absolute and relative paths
+     * and empty lines, and that each commit is tagged with its repository and equals the output of
+     * <code>git show</code> in that repository.
+     *
+     * @throws IOException if executing Git or writing the list file fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testListedRepositoriesMatchGitShow() throws IOException, ExtractionSetupException {
+        File listFile = new File(repositories.get(0).getDirectory(), ".git/repositories.txt");
+        String relativePath = "../../" + repositories.get(1).getDirectory().getName();
+        Files.write(listFile.toPath(), (repositories.get(0).getDirectory().getAbsolutePath() + "\n\n" + relativePath
+                + "\n" + repositories.get(2).getDirectory().getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String backend : BACKENDS) {
+            Map<File, List<Commit>> repositoryCommits = extractRepositories(backend, listFile);
+            assertEquals(backend, repositories.size(), repositoryCommits.size());
+            for (TestRepository repository : repositories) {
+                List<Commit> commits = repositoryCommits.get(repository.getDirectory().getCanonicalFile());
+                assertEquals(backend, repository.gitLines("log", "--format=%H").size(), commits.size());
+                for (Commit commit : commits) {
+                    CommitAssertions.assertMatchesGitShow(repository, commit);
+                }
+                List<Commit> singleCommits = CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend), repository.getDirectory());
+                CommitAssertions.assertSameCommits(singleCommits, commits);
+            }
+        }
+    }
+
+    /**
+     * Tests that the extraction of a directory extracts its subdirectories, which are repositories, including bare
+     * repositories, and ignores other subdirectories.
+     *
+     * @throws IOException if executing Git or creating the directory fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testRepositoryDirectory() throws IOException, ExtractionSetupException {
+        File parentDirectory = new File(repositories.get(0).getDirectory(), ".git/repositories");
+        assertTrue(new File(parentDirectory, "no-repository").mkdirs());
+        File clone = new File(parentDirectory, "clone");
+        File bareClone = new File(parentDirectory, "bare-clone");
+        repositories.get(1).git("clone", "-q", repositories.get(1).getDirectory().getAbsolutePath(),
+                clone.getAbsolutePath());
+        // A clone does not fetch the notes of the sample repository by default
+        repositories.get(1).git("-C", clone.getAbsolutePath(), "fetch", "-q", "origin", "refs/notes/*:refs/notes/*");
+        repositories.get(2).git("clone", "-q", "--mirror", repositories.get(2).getDirectory().getAbsolutePath(),
+                bareClone.getAbsolutePath());
+        for (String backend : BACKENDS) {
+            Map<File, List<Commit>> repositoryCommits = extractRepositories(backend, parentDirectory);
+            assertEquals(backend, Arrays.asList(bareClone.getCanonicalFile(), clone.getCanonicalFile()),
+                    new ArrayList<File>(repositoryCommits.keySet()));
+            for (int i = 1; i < repositories.size(); i++) {
+                File repositoryClone = i == 1 ? clone : bareClone;
+                CommitAssertions.assertSameCommits(CommitAssertions.extract(CommitAssertions.properties(
+                        ExtractionSettings.PROPERTY_BACKEND, backend), repositories.get(i).getDirectory()),
+                        repositoryCommits.get(repositoryClone.getCanonicalFile()));
+            }
+        }
+    }
+
+    /**
+     * Extracts the given repository input with multiple repository threads using the given backend and groups the
+     * extracted commits by the repositories they are tagged with.
+     *
+     * @param backend the backend extracting the commits
+     * @param repositoryInput the directory containing the repositories or the file listing them
+     * @return the commits of each repository in the order of their delivery, mapped by the canonical directories of
+     *         the repositories ordered by their names
+     * @throws IOException if determining a canonical directory fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private static Map<File, List<Commit>> extractRepositories(String backend, File repositoryInput)
+            throws IOException, ExtractionSetupException {
+        List<Commit> commits = CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, backend,
+                ExtractionSettings.PROPERTY_MULTI_REPOSITORY, "true",
+                ExtractionSettings.PROPERTY_REPOSITORY_THREADS, "2",
+                ExtractionSettings.PROPERTY_THREADS, "2"), repositoryInput);
+        Map<File, List<Commit>> repositoryCommits = new LinkedHashMap<File, List<Commit>>();
+        List<File> repositoryDirectories = new ArrayList<File>();
+        for (Commit commit : commits) {
+            assertTrue(commit.getId(), commit instanceof RepositoryCommit);
+            File repositoryDirectory = ((RepositoryCommit) commit).getRepository().getCanonicalFile();
+            if (!repositoryDirectories.contains(repositoryDirectory)) {
+                repositoryDirectories.add(repositoryDirectory);
+            }
+        }
+        repositoryDirectories.sort((first, second) -> first.getName().compareTo(second.getName()));
+        for (File repositoryDirectory : repositoryDirectories) {
+            List<Commit> commitsOfRepository = new ArrayList<Commit>();
+            for (Commit commit : commits) {
+                if (((RepositoryCommit) commit).getRepository().getCanonicalFile().equals(repositoryDirectory)) {
+                    commitsOfRepository.add(commit);
+                }
+            }
+            repositoryCommits.put(repositoryDirectory, commitsOfRepository);
+        }
+        return repositoryCommits;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.ssehub.comani.data.Commit;
+import net.ssehub.comani.extraction.ExtractionSetupException;
+
+/**
+ * This class contains the tests of the sharded extraction using the {@link ShardManifest} and the
+ * {@link ShardPlanner}.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class ShardManifestTest {
+
+    /**
+     * The number of shards used by the tests.
+     */
+    private static final int SHARD_COUNT = 3;
+
+    /**
+     * The repository providing the commits of all tests of this class.
+     */
+    private static TestRepository repository;
+
+    /**
+     * Creates the {@link #repository}, whose commits change files of very different sizes, such that the shards
+     * differ in their numbers of commits.
+     *
+     * @throws IOException if creating the repository fails
+     */
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        repository = TestRepository.createSample();
+        for (int i = 0; i < 12; i++) {
+            StringBuilder content = new StringBuilder();
+            int lineCount = i % 4 == 0 ? 2000 : 3;
+            for (int j = 0; j < lineCount; j++) {
+                content.append("line ").append(i).append(' ').append(j).append('\n');
+            }
+            repository.write("file" + (i % 3) + ".txt", content.toString());
+            repository.commit("Commit " + i);
+        }
+    }
+
+    /**
+     * Deletes the {@link #repository}.
+     *
+     * @throws IOException if deleting the repository fails
+     */
+    @AfterClass
+    public static void deleteRepository() throws IOException {
+        repository.delete();
+    }
+
+    /**
+     * Tests that the shards extracted by the <code>process</code> backend together contain each commit of the full
+     * extraction exactly once and in the same order, and that their manifests cover all commits.
+     *
+     * @throws IOException if executing Git or reading the manifests fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testProcessShardsCoverAllCommits() throws IOException, ExtractionSetupException {
+        assertShardsCoverAllCommits("process");
+    }
+
+    /**
+     * Tests that the shards extracted by the <code>stream</code> backend together contain each commit of the full
+     * extraction exactly once and in the same order, and that their manifests cover all commits.
+     *
+     * @throws IOException if executing Git or reading the manifests fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testStreamShardsCoverAllCommits() throws IOException, ExtractionSetupException {
+        assertShardsCoverAllCommits("stream");
+    }
+
+    /**
+     * Tests that extracting the same shard again selects the same commits.
+     *
+     * @throws IOException if creating the shard directory fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    @Test
+    public void testShardsAreDeterministic() throws IOException, ExtractionSetupException {
+        File shardDirectory = Files.createTempDirectory(repository.getDirectory().toPath().resolve(".git"),
+                "shards").toFile();
+        for (int shardIndex = 0; shardIndex < SHARD_COUNT; shardIndex++) {
+            Properties properties = getShardProperties("process", shardIndex, shardDirectory);
+            assertEquals(getIds(CommitAssertions.extract(properties, repository.getDirectory())),
+                    getIds(CommitAssertions.extract(properties, repository.getDirectory())));
+        }
+    }
+
+    /**
+     * Tests that the sharded extraction is rejected for the <code>internal</code> backend, which would otherwise
+     * execute the Git processes for weighing the commits.
+     *
+     * @throws IOException if creating the shard directory fails
+     */
+    @Test
+    public void testInternalBackendRejected() throws IOException {
+        File shardDirectory = Files.createTempDirectory(repository.getDirectory().toPath().resolve(".git"),
+                "shards").toFile();
+        try {
+            new ExtractionSettings(getShardProperties("internal", 0, shardDirectory));
+            fail("Sharding accepted for the internal backend");
+        } catch (ExtractionSetupException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(ExtractionSettings.PROPERTY_SHARD_COUNT));
+        }
+    }
+
+    /**
+     * Asserts that the shards extracted by the given backend together contain each commit of the full extraction
+     * exactly once and in the same order, that each commit equals the output of <code>git show</code>, and that the
+     * manifests of the shards describe all commits of <code>git log</code> and pass the verification.
+     *
+     * @param backend the backend extracting the commits
+     * @throws IOException if executing Git or reading the manifests fails
+     * @throws ExtractionSetupException if the properties are invalid
+     */
+    private static void assertShardsCoverAllCommits(String backend) throws IOException, ExtractionSetupException {
+        File shardDirectory = Files.createTempDirectory(repository.getDirectory().toPath().resolve(".git"),
+                "shards").toFile();
+        List<Commit> allCommits = CommitAssertions.extract(CommitAssertions.properties(
+                ExtractionSettings.PROPERTY_BACKEND, backend), repository.getDirectory());
+        List<String> shardIds = new ArrayList<String>();
+        List<File> manifestFiles = new ArrayList<File>();
+        String repositoryName = repository.getDirectory().getCanonicalFile().getName();
+        int nonEmptyShards = 0;
+        for (int shardIndex = 0; shardIndex < SHARD_COUNT; shardIndex++) {
+            List<Commit> shardCommits = CommitAssertions.extract(getShardProperties(backend, shardIndex,
+                    shardDirectory), repository.getDirectory());
+            for (Commit commit : shardCommits) {
+                CommitAssertions.assertMatchesGitShow(repository, commit);
+            }
+            if (!shardCommits.isEmpty()) {
+                nonEmptyShards++;
+            }
+            shardIds.addAll(getIds(shardCommits));
+            manifestFiles.add(ShardManifest.getFile(shardDirectory, repositoryName, shardIndex, SHARD_COUNT));
+        }
+        assertEquals(getIds(allCommits), shardIds);
+        assertEquals(SHARD_COUNT, nonEmptyShards);
+        assertNull(ShardManifest.verify(manifestFiles));
+        String commitCount = repository.git("rev-list", "--count", "HEAD").trim();
+        for (File manifestFile : manifestFiles) {
+            List<String> manifestLines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+            assertTrue(manifestLines.toString(), manifestLines.stream().anyMatch(
+                line -> line.startsWith("commits " + commitCount + " ")));
+            assertTrue(manifestLines.toString(), manifestLines.contains("status completed"));
+        }
+    }
+
+    /**
+     * Returns the properties for extracting the shard with the given index using the given backend.
+     *
+     * @param backend the backend extracting the commits
+     * @param shardIndex the index of the shard
+     * @param shardDirectory the directory of the manifest files
+     * @return the properties; never <code>null</code>
+     */
+    private static Properties getShardProperties(String backend, int shardIndex, File shardDirectory) {
+        return CommitAssertions.properties(ExtractionSettings.PROPERTY_BACKEND, backend,
+                ExtractionSettings.PROPERTY_SHARD_COUNT, Integer.toString(SHARD_COUNT),
+                ExtractionSettings.PROPERTY_SHARD_INDEX, Integer.toString(shardIndex),
+                ExtractionSettings.PROPERTY_SHARD_DIR, shardDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Returns the identifiers of the given commits.
+     *
+     * @param commits the commits
+     * @return the identifiers of the given commits in their order; never <code>null</code>
+     */
+    private static List<String> getIds(List<Commit> commits) {
+        List<String> ids = new ArrayList<String>();
+        for (Commit commit : commits) {
+            ids.add(commit.getId());
+        }
+        return ids;
+    }
+
+}
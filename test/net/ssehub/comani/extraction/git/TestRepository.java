@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class creates a temporary Git repository for tests by executing Git. The author and committer of all commits
+ * are fixed and their dates increase by one hour per commit, such that the repository content is reproducible.
+ *
+ * @author Christian Kroeher
+ *
+ */
+class TestRepository {
+
+    /**
+     * The committer timestamp of the first commit in seconds since the Unix epoch (2020-01-01 00:00:00 UTC).
+     */
+    private static final long START_TIME = 1577836800L;
+
+    /**
+     * The number of seconds between the committer timestamps of two subsequent commits.
+     */
+    private static final long COMMIT_INTERVAL = 3600L;
+
+    /**
+     * The directory of the repository.
+     */
+    private File directory;
+
+    /**
+     * The committer timestamp of the next commit in seconds since the Unix epoch.
+     */
+    private long nextCommitTime;
+
+    /**
+     * Constructs a new {@link TestRepository} by initializing an <i>empty</i> repository in a temporary directory.
+     *
+     * @throws IOException if creating the directory or initializing the repository fails
+     */
+    TestRepository() throws IOException {
+        directory = Files.createTempDirectory("comani-git-test").toFile().getCanonicalFile();
+        nextCommitTime = START_TIME;
+        git("init", "-q");
+        git("symbolic-ref", "HEAD", "refs/heads/main");
+        git("config", "user.name", "Test Author");
+        git("config", "user.email", "author@example.org");
+        git("config", "commit.gpgSign", "false");
+    }
+
+    /**
+     * Creates a repository, whose history contains the cases the extractor must reproduce: binary and non-ASCII
+     * files, a commit message with tabs, git notes, a merge with a combined diff, a rename, and an empty commit.
+     *
+     * @return the new repository checked out at its branch "<tt>main</tt>"
+     * @throws IOException if creating the repository fails
+     */
+    static TestRepository createSample() throws IOException {
+        TestRepository repository = new TestRepository();
+        repository.write("a.txt", "one\ntwo\nthree\nfour\nfive\n");
+        repository.write("data.bin", new byte[] {0, 1, 2, 0, 'x'});
+        repository.write("umlaut.txt", "Gr\u00fc\u00dfe\n");
+        repository.commit("Add files");
+        repository.write("a.txt", "one\ntwo\nthree\nfour\nfive\nsix\n");
+        String tabCommit = repository.commit("Indent\twith a tab\n\nBody line\n\n\tindented body");
+        repository.git("notes", "add", "-m", "A note\n\nsecond paragraph", tabCommit);
+        repository.git("checkout", "-q", "-b", "feature");
+        repository.write("a.txt", "one feature\ntwo\nthree\nfour\nfive\nsix\n");
+        repository.commit("Change on feature");
+        repository.git("checkout", "-q", "main");
+        repository.write("a.txt", "one main\ntwo\nthree\nfour\nfive\nsix\n");
+        repository.write("b.txt", "b\n");
+        repository.commit("Change on main");
+        repository.git("merge", "-q", "--no-ff", "--no-commit", "-s", "ours", "feature");
+        repository.write("a.txt", "one merged\ntwo\nthree\nfour\nfive\nsix\n");
+        repository.commit("Merge feature");
+        new File(repository.directory, "a.txt").delete();
+        repository.write("renamed/a.txt", "one merged\ntwo\nthree\nfour\nfive\nsix\nseven\n");
+        repository.commit("Rename a.txt");
+        repository.commit("Empty commit");
+        repository.write("data.bin", new byte[] {0, 1, 2, 0, 'y'});
+        repository.write("umlaut.txt", "Gr\u00fc\u00dfe\n\u00c4rger\n");
+        repository.commit("Change binary and non-ASCII files");
+        return repository;
+    }
+
+    /**
+     * Returns the directory of this repository.
+     *
+     * @return the directory of this repository; never <code>null</code>
+     */
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the given content to the file with the given path in the working tree of this repository. Missing
+     * parent directories are created.
+     *
+     * @param path the path of the file relative to the root of the working tree
+     * @param content the content of the file, which is written as UTF-8
+     * @throws IOException if writing the file fails
+     */
+    void write(String path, String content) throws IOException {
+        write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given bytes to the file with the given path in the working tree of this repository. Missing parent
+     * directories are created.
+     *
+     * @param path the path of the file relative to the root of the working tree
+     * @param content the bytes of the file
+     * @throws IOException if writing the file fails
+     */
+    void write(String path, byte[] content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content);
+    }
+
+    /**
+     * Commits all changes of the working tree. The commit may be <i>empty</i>.
+     *
+     * @param message the commit message
+     * @return the full commit number of the new commit
+     * @throws IOException if executing Git fails
+     */
+    String commit(String message) throws IOException {
+        git("add", "-A");
+        git("commit", "-q", "--allow-empty", "--no-verify", "-m", message);
+        return git("rev-parse", "HEAD").trim();
+    }
+
+    /**
+     * Executes Git with the given arguments in this repository. The author and committer dates are set to the date of
+     * the next commit, which is advanced afterwards, if the arguments start with "<tt>commit</tt>" or
+     * "<tt>merge</tt>".
+     *
+     * @param arguments the arguments of the Git command without "<tt>git</tt>"
+     * @return the standard output of Git decoded like the output read by the extractor
+     * @throws IOException if executing Git fails or Git reports an error
+     */
+    String git(String... arguments) throws IOException {
+        return new String(gitBytes(arguments), getCharset());
+    }
+
+    /**
+     * Executes Git with the given arguments in this repository like {@link #git(String...)} does, but returns its
+     * standard output without decoding it.
+     *
+     * @param arguments the arguments of the Git command without "<tt>git</tt>"
+     * @return the standard output of Git
+     * @throws IOException if executing Git fails or Git reports an error
+     */
+    byte[] gitBytes(String... arguments) throws IOException {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "git";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(directory);
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Map<String, String> environment = processBuilder.environment();
+        String date = "@" + nextCommitTime + " +0000";
+        environment.put("GIT_AUTHOR_DATE", date);
+        environment.put("GIT_COMMITTER_DATE", date);
+        environment.put("GIT_CONFIG_NOSYSTEM", "1");
+        environment.put("GIT_CONFIG_GLOBAL", "/dev/null");
+        if (arguments[0].equals("commit") || arguments[0].equals("merge")) {
+            nextCommitTime += COMMIT_INTERVAL;
+        }
+        Process process = processBuilder.start();
+        process.getOutputStream().close();
+        byte[] output = readFully(process.getInputStream());
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Executing " + Arrays.toString(command) + " failed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while executing " + Arrays.toString(command), e);
+        }
+        return output;
+    }
+
+    /**
+     * Executes Git with the given arguments in this repository and returns its output as lines like
+     * <code>git show</code> prints them.
+     *
+     * @param arguments the arguments of the Git command without "<tt>git</tt>"
+     * @return the lines of the standard output of Git without the line feed terminating the last line
+     * @throws IOException if executing Git fails or Git reports an error
+     */
+    List<String> gitLines(String... arguments) throws IOException {
+        String output = git(arguments);
+        if (output.endsWith("\n")) {
+            output = output.substring(0, output.length() - 1);
+        }
+        return Arrays.asList(output.split("\n", -1));
+    }
+
+    /**
+     * Deletes the directory of this repository including its content.
+     *
+     * @throws IOException if deleting a file fails
+     */
+    void delete() throws IOException {
+        Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Returns the charset, in which the extractor decodes the output of Git.
+     *
+     * @return the charset of the Git output
+     */
+    static Charset getCharset() {
+        return Charset.defaultCharset();
+    }
+
+    /**
+     * Reads the given stream until its end is reached.
+     *
+     * @param input the stream to read
+     * @return the bytes read from the stream
+     * @throws IOException if reading fails
+     */
+    static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        copy(input, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Copies the content of the given input stream to the given output stream.
+     *
+     * @param input the stream to read until its end is reached
+     * @param output the stream to write to
+     * @throws IOException if reading or writing fails
+     */
+    static void copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read = input.read(buffer);
+        while (read != -1) {
+            output.write(buffer, 0, read);
+            read = input.read(buffer);
+        }
+    }
+
+}
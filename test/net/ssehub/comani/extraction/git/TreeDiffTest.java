@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE
+ * file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.ssehub.comani.extraction.git;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains the tests of the {@link TreeDiff}, which compare the changed files it computes with the raw
+ * output of <code>git diff-tree -r --no-renames</code> for the same trees.
+ *
+ * @author Christian Kroeher
+ *
+ */
+public class TreeDiffTest {
+
+    /**
+     * The name of the submodule commit referenced by the gitlinks of the test trees, which does not need to exist.
+     */
+    private static final String SUBMODULE_COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+    /**
+     * The name of the changed submodule commit referenced by the gitlinks of the test trees.
+     */
+    private static final String CHANGED_SUBMODULE_COMMIT = "76543210fedcba9876543210fedcba9876543210";
+
+    /**
+     * The entries of the old tree compared by the tests as triples of mode, path, and content. The content of gitlinks
+     * is the name of the referenced commit.
+     */
+    private static final String[][] OLD_ENTRIES = {{"100644", "same.txt", "same\n"},
+        {"100644", "modified.txt", "old\n"}, {"100644", "deleted.txt", "deleted\n"},
+        {"100644", "mode.sh", "echo\n"}, {"120000", "link", "target"}, {"100644", "type.txt", "type\n"},
+        {"100644", "file-to-dir", "file\n"}, {"100644", "dir-to-file/child", "child\n"},
+        {"100644", "a.b", "a.b\n"}, {"100644", "a-c", "a-c\n"}, {"100644", "a0", "a0\n"},
+        {"160000", "submodule", SUBMODULE_COMMIT}, {"100644", "d1/d2/d3/deep.txt", "deep\n"},
+        {"100644", "d1/unchanged.txt", "unchanged\n"}, {"100644", "removed/one.txt", "one\n"},
+        {"100644", "removed/two/three.txt", "three\n"}};
+
+    /**
+     * The entries of the new tree compared by the tests as triples of mode, path, and content like the
+     * {@link #OLD_ENTRIES}.
+     */
+    private static final String[][] NEW_ENTRIES = {{"100644", "same.txt", "same\n"},
+        {"100644", "modified.txt", "new\n"}, {"100644", "added.txt", "added\n"},
+        {"100755", "mode.sh", "echo\n"}, {"100644", "link", "target"}, {"120000", "type.txt", "type\n"},
+        {"100644", "file-to-dir/child", "file\n"}, {"100644", "dir-to-file", "child\n"},
+        {"100644", "a.b", "a.b changed\n"}, {"100644", "a/b", "a/b\n"}, {"100644", "a-c", "a-c\n"},
+        {"100755", "a0", "a0\n"}, {"160000", "submodule", CHANGED_SUBMODULE_COMMIT},
+        {"100644", "d1/d2/d3/deep.txt", "deeper\n"}, {"100644", "d1/unchanged.txt", "unchanged\n"},
+        {"160000", "added-submodule", SUBMODULE_COMMIT}};
+
+    /**
+     * Tests that the changed files between two trees, which add, delete, and modify files, change the modes and
+     * types of files, replace files by directories and vice versa, and change submodules, match those listed by Git
+     * in the same order.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading a tree fails
+     */
+    @Test
+    public void testChangesMatchGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            String oldTree = writeTree(repository, OLD_ENTRIES);
+            String newTree = writeTree(repository, NEW_ENTRIES);
+            assertMatchesGit(repository, oldTree, newTree);
+            assertMatchesGit(repository, newTree, oldTree);
+            assertMatchesGit(repository, oldTree, oldTree);
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Tests that the changed files between a missing tree, as used for root commits, and a tree with nested
+     * directories match the files added according to Git.
+     *
+     * @throws IOException if creating the repository, executing Git, or reading a tree fails
+     */
+    @Test
+    public void testRootTreeMatchesGit() throws IOException {
+        TestRepository repository = new TestRepository();
+        try {
+            String newTree = writeTree(repository, NEW_ENTRIES);
+            String emptyTree = writeTree(repository, new String[0][]);
+            List<String> expected = repository.gitLines("diff-tree", "-r", "--no-renames", emptyTree, newTree);
+            TreeDiff treeDiff = new TreeDiff(ObjectDatabaseTest.createObjectDatabase(repository));
+            assertEquals(expected, format(treeDiff.diff(null, ObjectId.fromHex(newTree))));
+        } finally {
+            repository.delete();
+        }
+    }
+
+    /**
+     * Writes a tree consisting of the given entries via the index of the given repository.
+     *
+     * @param repository the repository
+     * @param entries the entries of the tree as triples of mode, path, and content
+     * @return the hexadecimal name of the tree; never <code>null</code>
+     * @throws IOException if writing a file or executing Git fails
+     */
+    private static String writeTree(TestRepository repository, String[][] entries) throws IOException {
+        repository.git("read-tree", "--empty");
+        for (String[] entry : entries) {
+            String objectName = entry[2];
+            if (!entry[0].equals("160000")) {
+                repository.write(".git/blob.tmp", entry[2]);
+                objectName = repository.git("hash-object", "-w", ".git/blob.tmp").trim();
+            }
+            repository.git("update-index", "--add", "--cacheinfo", entry[0] + "," + objectName + "," + entry[1]);
+        }
+        return repository.git("write-tree").trim();
+    }
+
+    /**
+     * Asserts that the changed files between the given trees match those listed by Git.
+     *
+     * @param repository the repository containing the trees
+     * @param oldTree the hexadecimal name of the old tree
+     * @param newTree the hexadecimal name of the new tree
+     * @throws IOException if executing Git or reading a tree fails
+     */
+    private static void assertMatchesGit(TestRepository repository, String oldTree, String newTree)
+            throws IOException {
+        List<String> expected = new ArrayList<String>();
+        for (String line : repository.gitLines("diff-tree", "-r", "--no-renames", oldTree, newTree)) {
+            if (!line.isEmpty()) {
+                expected.add(line);
+            }
+        }
+        TreeDiff treeDiff = new TreeDiff(ObjectDatabaseTest.createObjectDatabase(repository));
+        assertEquals(expected, format(treeDiff.diff(ObjectId.fromHex(oldTree), ObjectId.fromHex(newTree))));
+    }
+
+    /**
+     * Formats the given changed files like the raw output of <code>git diff-tree</code>.
+     *
+     * @param changes the changed files
+     * @return the formatted lines; never <code>null</code>
+     */
+    private static List<String> format(List<TreeDiff.Change> changes) {
+        List<String> lines = new ArrayList<String>();
+        for (TreeDiff.Change change : changes) {
+            char status;
+            if (change.getOldMode() == 0) {
+                status = 'A';
+            } else if (change.getNewMode() == 0) {
+                status = 'D';
+            } else if ((change.getOldMode() & TreeDiff.MODE_TYPE_MASK)
+                    != (change.getNewMode() & TreeDiff.MODE_TYPE_MASK)) {
+                status = 'T';
+            } else {
+                status = 'M';
+            }
+            lines.add(String.format(":%06o %06o %s %s %c\t%s", change.getOldMode(), change.getNewMode(),
+                    change.getOldId().toHex(), change.getNewId().toHex(), status,
+                    new String(change.getPath(), StandardCharsets.UTF_8)));
+        }
+        return lines;
+    }
+
+}